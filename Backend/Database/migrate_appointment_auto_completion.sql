@@ -0,0 +1,7 @@
+-- Migrazione: indice per l'auto-completamento degli appuntamenti trascorsi
+-- Eseguire solo se il DB esiste già (su un DB nuovo è incluso in 01-schema.sql).
+
+-- Auto-completamento degli appuntamenti trascorsi: indice solo sulle righe ancora aperte,
+-- le righe già completate escono dall'indice e non vengono più visitate dal job
+CREATE INDEX IF NOT EXISTS idx_appointments_open_scheduled ON appointments(scheduled_at)
+    WHERE status IN ('pending', 'confirmed');
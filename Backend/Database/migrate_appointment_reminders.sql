@@ -0,0 +1,11 @@
+-- Migrazione: registro dei promemoria inviati (deduplica tra repliche)
+-- Eseguire solo se il DB esiste già (su un DB nuovo è incluso in 01-schema.sql).
+
+-- Promemoria inviati: una riga per (appuntamento, orario), inserita prima dell'invio.
+-- Con più repliche solo chi inserisce la riga invia il promemoria; spostando l'appuntamento ne parte uno nuovo
+CREATE TABLE IF NOT EXISTS appointment_reminders (
+    appointment_id UUID NOT NULL REFERENCES appointments(id) ON DELETE CASCADE,
+    scheduled_at TIMESTAMPTZ NOT NULL,
+    sent_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (appointment_id, scheduled_at)
+);
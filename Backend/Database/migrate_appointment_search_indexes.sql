@@ -0,0 +1,8 @@
+-- Migrazione: indici composti per la ricerca filtrata degli appuntamenti
+-- Eseguire solo se il DB esiste già (su un DB nuovo è incluso in 01-schema.sql).
+
+-- Indici composti per la ricerca filtrata degli appuntamenti (GET /api/appointments?from=&to=&status=&examId=)
+-- e per i controlli di sovrapposizione, che escludono sempre gli appuntamenti cancellati
+CREATE INDEX IF NOT EXISTS idx_appointments_doctor_scheduled_active ON appointments(doctor_id, scheduled_at) WHERE status <> 'cancelled';
+CREATE INDEX IF NOT EXISTS idx_appointments_patient_scheduled ON appointments(patient_id, scheduled_at);
+CREATE INDEX IF NOT EXISTS idx_appointments_exam_scheduled ON appointments(exam_id, scheduled_at);
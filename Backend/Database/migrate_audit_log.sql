@@ -0,0 +1,26 @@
+-- Migrazione: registro di audit delle modifiche
+-- Eseguire solo se il DB esiste già (su un DB nuovo è incluso in 01-schema.sql).
+
+-- Registro di audit delle modifiche (scritto in modo asincrono a blocchi con COPY, solo in append)
+CREATE TABLE IF NOT EXISTS audit_log (
+    id BIGSERIAL PRIMARY KEY,
+    occurred_at TIMESTAMPTZ NOT NULL,
+    actor_type VARCHAR(20) NOT NULL,
+    actor_id UUID,
+    entity_type VARCHAR(20) NOT NULL,
+    entity_id UUID NOT NULL,
+    action VARCHAR(10) NOT NULL,
+    changes JSONB
+);
+
+-- Storia di un'entità e attività di un autore; BRIN per le ricerche per intervallo (righe in ordine di inserimento)
+CREATE INDEX IF NOT EXISTS idx_audit_log_entity ON audit_log(entity_type, entity_id, occurred_at DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_log_actor ON audit_log(actor_id, occurred_at DESC) WHERE actor_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_audit_log_occurred_at ON audit_log USING BRIN (occurred_at);
+
+-- File di spill già ricaricati: registrati nella stessa transazione delle voci, così un file il cui ricaricamento
+-- è stato confermato non viene ricaricato di nuovo se la sua eliminazione fallisce
+CREATE TABLE IF NOT EXISTS audit_spill_replays (
+    replay_id UUID PRIMARY KEY,
+    replayed_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
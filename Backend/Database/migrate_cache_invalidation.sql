@@ -0,0 +1,60 @@
+-- Migrazione: NOTIFY per l'invalidazione delle cache su tutte le repliche
+-- Eseguire solo se il DB esiste già (su un DB nuovo è incluso in 01-schema.sql).
+
+-- Invalidazione delle cache in-process di tutte le repliche: a ogni commit che modifica le tabelle in cache
+-- viene inviato un NOTIFY sul canale cache_invalidation (payload JSON con tabella ed eventuali id).
+-- I NOTIFY con payload identico nella stessa transazione vengono accorpati da Postgres
+CREATE OR REPLACE FUNCTION notify_cache_invalidation()
+RETURNS TRIGGER AS $$
+DECLARE
+    row_data JSONB;
+BEGIN
+    IF TG_LEVEL = 'STATEMENT' THEN
+        PERFORM pg_notify('cache_invalidation', json_build_object('table', TG_TABLE_NAME)::text);
+        RETURN NULL;
+    END IF;
+    row_data := to_jsonb(CASE WHEN TG_OP = 'DELETE' THEN OLD ELSE NEW END);
+    IF TG_TABLE_NAME = 'doctor_exams' THEN
+        PERFORM pg_notify('cache_invalidation', json_build_object(
+            'table', TG_TABLE_NAME,
+            'doctorId', row_data->>'doctor_id',
+            'examId', row_data->>'exam_id')::text);
+    ELSE
+        PERFORM pg_notify('cache_invalidation', json_build_object(
+            'table', TG_TABLE_NAME,
+            'id', row_data->>'id')::text);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Entità nella cache di secondo livello: notifica per riga (serve l'id da rimuovere)
+DROP TRIGGER IF EXISTS notify_cache_invalidation ON exams;
+CREATE TRIGGER notify_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE ON exams
+    FOR EACH ROW
+    EXECUTE FUNCTION notify_cache_invalidation();
+
+DROP TRIGGER IF EXISTS notify_cache_invalidation ON doctors;
+CREATE TRIGGER notify_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE ON doctors
+    FOR EACH ROW
+    EXECUTE FUNCTION notify_cache_invalidation();
+
+DROP TRIGGER IF EXISTS notify_cache_invalidation ON doctor_exams;
+CREATE TRIGGER notify_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE ON doctor_exams
+    FOR EACH ROW
+    EXECUTE FUNCTION notify_cache_invalidation();
+
+-- Tabelle con i soli version stamp degli ETag: basta una notifica per statement
+DROP TRIGGER IF EXISTS notify_cache_invalidation ON patients;
+CREATE TRIGGER notify_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE ON patients
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION notify_cache_invalidation();
+
+-- Niente NOTIFY sugli appuntamenti: al commit prenderebbe il lock globale della coda delle notifiche e
+-- serializzerebbe prenotazioni, modifiche e cancellazioni di tutte le sessioni. Sulle altre repliche lo stamp
+-- degli appuntamenti scade per TTL (app.etag.stamp-ttl-ms)
+DROP TRIGGER IF EXISTS notify_cache_invalidation ON appointments;
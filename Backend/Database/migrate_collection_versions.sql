@@ -0,0 +1,42 @@
+-- Migrazione: version stamp degli ETag basati su sequenze invece che su COUNT(*) + MAX(updated_at)
+-- Eseguire solo se il DB esiste già (su un DB nuovo è incluso in 01-schema.sql).
+
+-- Version stamp delle collezioni per gli ETag: una sequenza per tabella, avanzata da un trigger per statement (e
+-- dall'applicazione dopo il commit). nextval non prende lock sulla tabella e non attende altre transazioni
+CREATE SEQUENCE IF NOT EXISTS appointments_version_seq;
+CREATE SEQUENCE IF NOT EXISTS doctors_version_seq;
+CREATE SEQUENCE IF NOT EXISTS patients_version_seq;
+CREATE SEQUENCE IF NOT EXISTS exams_version_seq;
+
+CREATE OR REPLACE FUNCTION bump_collection_version()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM nextval(TG_TABLE_NAME || '_version_seq');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS bump_collection_version ON appointments;
+CREATE TRIGGER bump_collection_version
+    AFTER INSERT OR UPDATE OR DELETE ON appointments
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_collection_version();
+
+-- Le abilitazioni agli esami aggiornano doctors.updated_at, quindi avanzano anche la sequenza dei dottori
+DROP TRIGGER IF EXISTS bump_collection_version ON doctors;
+CREATE TRIGGER bump_collection_version
+    AFTER INSERT OR UPDATE OR DELETE ON doctors
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_collection_version();
+
+DROP TRIGGER IF EXISTS bump_collection_version ON patients;
+CREATE TRIGGER bump_collection_version
+    AFTER INSERT OR UPDATE OR DELETE ON patients
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_collection_version();
+
+DROP TRIGGER IF EXISTS bump_collection_version ON exams;
+CREATE TRIGGER bump_collection_version
+    AFTER INSERT OR UPDATE OR DELETE ON exams
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_collection_version();
@@ -0,0 +1,111 @@
+-- Migrazione: delta sync basato su updated_at (GET .../changes)
+-- Aggiunge la tabella dei tombstone, i trigger di eliminazione, updated_at impostato dal DB anche in inserimento
+-- e gli indici su updated_at.
+--
+-- Eseguire solo se il DB esiste già (su un DB nuovo è incluso in 01-schema.sql).
+
+-- Delta sync: tombstone delle righe eliminate (popolate dai trigger)
+CREATE TABLE IF NOT EXISTS deleted_records (
+    entity_type VARCHAR(30) NOT NULL,
+    entity_id UUID NOT NULL,
+    doctor_id UUID,
+    patient_id UUID,
+    deleted_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (entity_type, entity_id)
+);
+
+CREATE OR REPLACE FUNCTION record_deletion()
+RETURNS TRIGGER AS $$
+DECLARE
+    old_row JSONB := to_jsonb(OLD);
+BEGIN
+    INSERT INTO deleted_records (entity_type, entity_id, doctor_id, patient_id, deleted_at)
+    VALUES (TG_TABLE_NAME, OLD.id, (old_row->>'doctor_id')::uuid, (old_row->>'patient_id')::uuid, NOW())
+    ON CONFLICT (entity_type, entity_id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS record_patients_deletion ON patients;
+CREATE TRIGGER record_patients_deletion
+    AFTER DELETE ON patients
+    FOR EACH ROW
+    EXECUTE FUNCTION record_deletion();
+
+DROP TRIGGER IF EXISTS record_doctors_deletion ON doctors;
+CREATE TRIGGER record_doctors_deletion
+    AFTER DELETE ON doctors
+    FOR EACH ROW
+    EXECUTE FUNCTION record_deletion();
+
+DROP TRIGGER IF EXISTS record_exams_deletion ON exams;
+CREATE TRIGGER record_exams_deletion
+    AFTER DELETE ON exams
+    FOR EACH ROW
+    EXECUTE FUNCTION record_deletion();
+
+DROP TRIGGER IF EXISTS record_appointments_deletion ON appointments;
+CREATE TRIGGER record_appointments_deletion
+    AFTER DELETE ON appointments
+    FOR EACH ROW
+    EXECUTE FUNCTION record_deletion();
+
+-- Le abilitazioni fanno parte del profilo del dottore: una modifica su doctor_exams aggiorna doctors.updated_at
+CREATE OR REPLACE FUNCTION touch_doctor_on_exam_change()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        UPDATE doctors SET updated_at = NOW() WHERE id = OLD.doctor_id;
+    ELSE
+        UPDATE doctors SET updated_at = NOW() WHERE id = NEW.doctor_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS touch_doctor_on_exam_change ON doctor_exams;
+CREATE TRIGGER touch_doctor_on_exam_change
+    AFTER INSERT OR DELETE ON doctor_exams
+    FOR EACH ROW
+    EXECUTE FUNCTION touch_doctor_on_exam_change();
+
+-- Indici per le letture incrementali (keyset su updated_at, id)
+CREATE INDEX IF NOT EXISTS idx_patients_updated_at ON patients(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_doctors_updated_at ON doctors(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_exams_updated_at ON exams(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_appointments_updated_at ON appointments(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_appointments_doctor_updated_at ON appointments(doctor_id, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_appointments_patient_updated_at ON appointments(patient_id, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_deleted_records_type_deleted_at ON deleted_records(entity_type, deleted_at, entity_id);
+
+-- updated_at impostato dal DB anche in inserimento: il watermark si basa su NOW() del DB, non sull'orologio delle repliche
+
+DROP TRIGGER IF EXISTS update_patients_updated_at ON patients;
+CREATE TRIGGER update_patients_updated_at
+    BEFORE INSERT OR UPDATE ON patients
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+DROP TRIGGER IF EXISTS update_doctors_updated_at ON doctors;
+CREATE TRIGGER update_doctors_updated_at
+    BEFORE INSERT OR UPDATE ON doctors
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+DROP TRIGGER IF EXISTS update_admins_updated_at ON admins;
+CREATE TRIGGER update_admins_updated_at
+    BEFORE INSERT OR UPDATE ON admins
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+DROP TRIGGER IF EXISTS update_exams_updated_at ON exams;
+CREATE TRIGGER update_exams_updated_at
+    BEFORE INSERT OR UPDATE ON exams
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+DROP TRIGGER IF EXISTS update_appointments_updated_at ON appointments;
+CREATE TRIGGER update_appointments_updated_at
+    BEFORE INSERT OR UPDATE ON appointments
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
@@ -0,0 +1,11 @@
+-- Migrazione: lock con lease per i job schedulati (una sola replica esegue ogni job)
+-- Eseguire solo se il DB esiste già (su un DB nuovo è incluso in 01-schema.sql).
+
+-- Lock dei job schedulati tra repliche: una riga per job, il lease scade a locked_until
+-- (i tempi sono sempre quelli del database, quindi non dipendono dall'orologio delle repliche)
+CREATE TABLE IF NOT EXISTS job_locks (
+    job_name VARCHAR(100) PRIMARY KEY,
+    locked_by VARCHAR(255) NOT NULL,
+    locked_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    locked_until TIMESTAMPTZ NOT NULL
+);
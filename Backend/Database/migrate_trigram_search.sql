@@ -0,0 +1,11 @@
+-- Migrazione: ricerca testuale di pazienti e dottori con pg_trgm
+-- Eseguire solo se il DB esiste già (su un DB nuovo è incluso in 01-schema.sql).
+
+CREATE EXTENSION IF NOT EXISTS "pg_trgm";
+
+-- Ricerca testuale (pg_trgm) di pazienti e dottori per nome, cognome o email (GET /api/admin/.../search)
+-- L'espressione deve coincidere con quella usata nelle query di PatientRepository/DoctorRepository.searchIds
+CREATE INDEX IF NOT EXISTS idx_patients_search_trgm ON patients
+    USING GIN (lower(first_name || ' ' || last_name || ' ' || coalesce(email, '')) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_doctors_search_trgm ON doctors
+    USING GIN (lower(first_name || ' ' || last_name || ' ' || coalesce(email, '')) gin_trgm_ops);
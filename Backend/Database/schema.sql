@@ -3,6 +3,7 @@
 
 -- UUID generation (gen_random_uuid)
 CREATE EXTENSION IF NOT EXISTS "pgcrypto";
+CREATE EXTENSION IF NOT EXISTS "pg_trgm";
 
 -- Tabelle base
 
@@ -14,6 +15,7 @@ CREATE TABLE IF NOT EXISTS patients (
     gender VARCHAR(10),
     email VARCHAR(255) UNIQUE,
     phone_number VARCHAR(20),
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
     updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
 );
@@ -25,6 +27,7 @@ CREATE TABLE IF NOT EXISTS doctors (
     gender VARCHAR(10),
     email VARCHAR(255) UNIQUE,
     phone_number VARCHAR(20),
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
     updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
 );
@@ -43,6 +46,7 @@ CREATE TABLE IF NOT EXISTS exams (
     description TEXT,
     duration_minutes INTEGER NOT NULL DEFAULT 30 CHECK (duration_minutes > 0),
     is_active BOOLEAN NOT NULL DEFAULT TRUE,
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
     updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
 );
@@ -75,6 +79,7 @@ CREATE TABLE IF NOT EXISTS appointments (
     status VARCHAR(20) NOT NULL CHECK (status IN ('pending', 'confirmed', 'cancelled', 'completed')),
     reason TEXT,
     contraindications TEXT,
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
     updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
     CONSTRAINT fk_appointments_patient
@@ -97,7 +102,8 @@ CREATE TABLE IF NOT EXISTS appointments (
 );
 
 
--- Trigger updated_at (auto)
+-- Trigger updated_at (auto): anche in inserimento, così il delta sync confronta solo istanti del DB (NOW() a inizio
+-- transazione) e non l'orologio delle repliche
 CREATE OR REPLACE FUNCTION update_updated_at_column()
 RETURNS TRIGGER AS $$
 BEGIN
@@ -108,31 +114,31 @@ $$ LANGUAGE plpgsql;
 
 DROP TRIGGER IF EXISTS update_patients_updated_at ON patients;
 CREATE TRIGGER update_patients_updated_at
-    BEFORE UPDATE ON patients
+    BEFORE INSERT OR UPDATE ON patients
     FOR EACH ROW
     EXECUTE FUNCTION update_updated_at_column();
 
 DROP TRIGGER IF EXISTS update_doctors_updated_at ON doctors;
 CREATE TRIGGER update_doctors_updated_at
-    BEFORE UPDATE ON doctors
+    BEFORE INSERT OR UPDATE ON doctors
     FOR EACH ROW
     EXECUTE FUNCTION update_updated_at_column();
 
 DROP TRIGGER IF EXISTS update_admins_updated_at ON admins;
 CREATE TRIGGER update_admins_updated_at
-    BEFORE UPDATE ON admins
+    BEFORE INSERT OR UPDATE ON admins
     FOR EACH ROW
     EXECUTE FUNCTION update_updated_at_column();
 
 DROP TRIGGER IF EXISTS update_exams_updated_at ON exams;
 CREATE TRIGGER update_exams_updated_at
-    BEFORE UPDATE ON exams
+    BEFORE INSERT OR UPDATE ON exams
     FOR EACH ROW
     EXECUTE FUNCTION update_updated_at_column();
 
 DROP TRIGGER IF EXISTS update_appointments_updated_at ON appointments;
 CREATE TRIGGER update_appointments_updated_at
-    BEFORE UPDATE ON appointments
+    BEFORE INSERT OR UPDATE ON appointments
     FOR EACH ROW
     EXECUTE FUNCTION update_updated_at_column();
 
@@ -149,3 +155,253 @@ CREATE INDEX IF NOT EXISTS idx_doctor_exams_exam_id ON doctor_exams(exam_id);
 
 CREATE INDEX IF NOT EXISTS idx_patients_email ON patients(email) WHERE email IS NOT NULL;
 CREATE INDEX IF NOT EXISTS idx_doctors_email ON doctors(email) WHERE email IS NOT NULL;
+
+-- Delta sync: tombstone delle righe eliminate (popolate dai trigger)
+CREATE TABLE IF NOT EXISTS deleted_records (
+    entity_type VARCHAR(30) NOT NULL,
+    entity_id UUID NOT NULL,
+    doctor_id UUID,
+    patient_id UUID,
+    deleted_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (entity_type, entity_id)
+);
+
+CREATE OR REPLACE FUNCTION record_deletion()
+RETURNS TRIGGER AS $$
+DECLARE
+    old_row JSONB := to_jsonb(OLD);
+BEGIN
+    INSERT INTO deleted_records (entity_type, entity_id, doctor_id, patient_id, deleted_at)
+    VALUES (TG_TABLE_NAME, OLD.id, (old_row->>'doctor_id')::uuid, (old_row->>'patient_id')::uuid, NOW())
+    ON CONFLICT (entity_type, entity_id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS record_patients_deletion ON patients;
+CREATE TRIGGER record_patients_deletion
+    AFTER DELETE ON patients
+    FOR EACH ROW
+    EXECUTE FUNCTION record_deletion();
+
+DROP TRIGGER IF EXISTS record_doctors_deletion ON doctors;
+CREATE TRIGGER record_doctors_deletion
+    AFTER DELETE ON doctors
+    FOR EACH ROW
+    EXECUTE FUNCTION record_deletion();
+
+DROP TRIGGER IF EXISTS record_exams_deletion ON exams;
+CREATE TRIGGER record_exams_deletion
+    AFTER DELETE ON exams
+    FOR EACH ROW
+    EXECUTE FUNCTION record_deletion();
+
+DROP TRIGGER IF EXISTS record_appointments_deletion ON appointments;
+CREATE TRIGGER record_appointments_deletion
+    AFTER DELETE ON appointments
+    FOR EACH ROW
+    EXECUTE FUNCTION record_deletion();
+
+-- Le abilitazioni fanno parte del profilo del dottore: una modifica su doctor_exams aggiorna doctors.updated_at
+CREATE OR REPLACE FUNCTION touch_doctor_on_exam_change()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        UPDATE doctors SET updated_at = NOW() WHERE id = OLD.doctor_id;
+    ELSE
+        UPDATE doctors SET updated_at = NOW() WHERE id = NEW.doctor_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS touch_doctor_on_exam_change ON doctor_exams;
+CREATE TRIGGER touch_doctor_on_exam_change
+    AFTER INSERT OR DELETE ON doctor_exams
+    FOR EACH ROW
+    EXECUTE FUNCTION touch_doctor_on_exam_change();
+
+-- Indici per le letture incrementali (keyset su updated_at, id)
+CREATE INDEX IF NOT EXISTS idx_patients_updated_at ON patients(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_doctors_updated_at ON doctors(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_exams_updated_at ON exams(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_appointments_updated_at ON appointments(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_appointments_doctor_updated_at ON appointments(doctor_id, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_appointments_patient_updated_at ON appointments(patient_id, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_deleted_records_type_deleted_at ON deleted_records(entity_type, deleted_at, entity_id);
+
+-- Indici composti per la ricerca filtrata degli appuntamenti (GET /api/appointments?from=&to=&status=&examId=)
+-- e per i controlli di sovrapposizione, che escludono sempre gli appuntamenti cancellati
+CREATE INDEX IF NOT EXISTS idx_appointments_doctor_scheduled_active ON appointments(doctor_id, scheduled_at) WHERE status <> 'cancelled';
+CREATE INDEX IF NOT EXISTS idx_appointments_patient_scheduled ON appointments(patient_id, scheduled_at);
+CREATE INDEX IF NOT EXISTS idx_appointments_exam_scheduled ON appointments(exam_id, scheduled_at);
+
+-- Ricerca testuale (pg_trgm) di pazienti e dottori per nome, cognome o email (GET /api/admin/.../search)
+-- L'espressione deve coincidere con quella usata nelle query di PatientRepository/DoctorRepository.searchIds
+CREATE INDEX IF NOT EXISTS idx_patients_search_trgm ON patients
+    USING GIN (lower(first_name || ' ' || last_name || ' ' || coalesce(email, '')) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_doctors_search_trgm ON doctors
+    USING GIN (lower(first_name || ' ' || last_name || ' ' || coalesce(email, '')) gin_trgm_ops);
+
+-- Invalidazione delle cache in-process di tutte le repliche: a ogni commit che modifica le tabelle in cache
+-- viene inviato un NOTIFY sul canale cache_invalidation (payload JSON con tabella ed eventuali id).
+-- I NOTIFY con payload identico nella stessa transazione vengono accorpati da Postgres
+CREATE OR REPLACE FUNCTION notify_cache_invalidation()
+RETURNS TRIGGER AS $$
+DECLARE
+    row_data JSONB;
+BEGIN
+    IF TG_LEVEL = 'STATEMENT' THEN
+        PERFORM pg_notify('cache_invalidation', json_build_object('table', TG_TABLE_NAME)::text);
+        RETURN NULL;
+    END IF;
+    row_data := to_jsonb(CASE WHEN TG_OP = 'DELETE' THEN OLD ELSE NEW END);
+    IF TG_TABLE_NAME = 'doctor_exams' THEN
+        PERFORM pg_notify('cache_invalidation', json_build_object(
+            'table', TG_TABLE_NAME,
+            'doctorId', row_data->>'doctor_id',
+            'examId', row_data->>'exam_id')::text);
+    ELSE
+        PERFORM pg_notify('cache_invalidation', json_build_object(
+            'table', TG_TABLE_NAME,
+            'id', row_data->>'id')::text);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Entità nella cache di secondo livello: notifica per riga (serve l'id da rimuovere)
+DROP TRIGGER IF EXISTS notify_cache_invalidation ON exams;
+CREATE TRIGGER notify_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE ON exams
+    FOR EACH ROW
+    EXECUTE FUNCTION notify_cache_invalidation();
+
+DROP TRIGGER IF EXISTS notify_cache_invalidation ON doctors;
+CREATE TRIGGER notify_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE ON doctors
+    FOR EACH ROW
+    EXECUTE FUNCTION notify_cache_invalidation();
+
+DROP TRIGGER IF EXISTS notify_cache_invalidation ON doctor_exams;
+CREATE TRIGGER notify_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE ON doctor_exams
+    FOR EACH ROW
+    EXECUTE FUNCTION notify_cache_invalidation();
+
+-- Tabelle con i soli version stamp degli ETag: basta una notifica per statement
+DROP TRIGGER IF EXISTS notify_cache_invalidation ON patients;
+CREATE TRIGGER notify_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE ON patients
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION notify_cache_invalidation();
+
+-- Niente NOTIFY sugli appuntamenti: al commit prenderebbe il lock globale della coda delle notifiche e
+-- serializzerebbe prenotazioni, modifiche e cancellazioni di tutte le sessioni. Sulle altre repliche lo stamp
+-- degli appuntamenti scade per TTL (app.etag.stamp-ttl-ms)
+DROP TRIGGER IF EXISTS notify_cache_invalidation ON appointments;
+
+-- Version stamp delle collezioni per gli ETag: una sequenza per tabella, avanzata da un trigger per statement (e
+-- dall'applicazione dopo il commit). nextval non prende lock sulla tabella e non attende altre transazioni
+CREATE SEQUENCE IF NOT EXISTS appointments_version_seq;
+CREATE SEQUENCE IF NOT EXISTS doctors_version_seq;
+CREATE SEQUENCE IF NOT EXISTS patients_version_seq;
+CREATE SEQUENCE IF NOT EXISTS exams_version_seq;
+
+CREATE OR REPLACE FUNCTION bump_collection_version()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM nextval(TG_TABLE_NAME || '_version_seq');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS bump_collection_version ON appointments;
+CREATE TRIGGER bump_collection_version
+    AFTER INSERT OR UPDATE OR DELETE ON appointments
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_collection_version();
+
+-- Le abilitazioni agli esami aggiornano doctors.updated_at, quindi avanzano anche la sequenza dei dottori
+DROP TRIGGER IF EXISTS bump_collection_version ON doctors;
+CREATE TRIGGER bump_collection_version
+    AFTER INSERT OR UPDATE OR DELETE ON doctors
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_collection_version();
+
+DROP TRIGGER IF EXISTS bump_collection_version ON patients;
+CREATE TRIGGER bump_collection_version
+    AFTER INSERT OR UPDATE OR DELETE ON patients
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_collection_version();
+
+DROP TRIGGER IF EXISTS bump_collection_version ON exams;
+CREATE TRIGGER bump_collection_version
+    AFTER INSERT OR UPDATE OR DELETE ON exams
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_collection_version();
+
+-- Lock dei job schedulati tra repliche: una riga per job, il lease scade a locked_until
+-- (i tempi sono sempre quelli del database, quindi non dipendono dall'orologio delle repliche)
+CREATE TABLE IF NOT EXISTS job_locks (
+    job_name VARCHAR(100) PRIMARY KEY,
+    locked_by VARCHAR(255) NOT NULL,
+    locked_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    locked_until TIMESTAMPTZ NOT NULL
+);
+
+-- Auto-completamento degli appuntamenti trascorsi: indice solo sulle righe ancora aperte,
+-- le righe già completate escono dall'indice e non vengono più visitate dal job
+CREATE INDEX IF NOT EXISTS idx_appointments_open_scheduled ON appointments(scheduled_at)
+    WHERE status IN ('pending', 'confirmed');
+
+-- Promemoria inviati: una riga per (appuntamento, orario), inserita prima dell'invio.
+-- Con più repliche solo chi inserisce la riga invia il promemoria; spostando l'appuntamento ne parte uno nuovo
+CREATE TABLE IF NOT EXISTS appointment_reminders (
+    appointment_id UUID NOT NULL REFERENCES appointments(id) ON DELETE CASCADE,
+    scheduled_at TIMESTAMPTZ NOT NULL,
+    sent_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (appointment_id, scheduled_at)
+);
+
+-- Outbox degli eventi di dominio: scritta nella stessa transazione della modifica, svuotata dal relay
+-- in ordine di id; published_at resta NULL finché l'evento non è stato consegnato ai listener
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id UUID NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload JSONB NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error TEXT,
+    published_at TIMESTAMPTZ
+);
+
+-- Coda degli eventi da pubblicare: le righe pubblicate escono dall'indice
+CREATE INDEX IF NOT EXISTS idx_outbox_events_pending ON outbox_events(id) WHERE published_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_outbox_events_published_at ON outbox_events(published_at) WHERE published_at IS NOT NULL;
+
+-- Registro di audit delle modifiche (scritto in modo asincrono a blocchi con COPY, solo in append)
+CREATE TABLE IF NOT EXISTS audit_log (
+    id BIGSERIAL PRIMARY KEY,
+    occurred_at TIMESTAMPTZ NOT NULL,
+    actor_type VARCHAR(20) NOT NULL,
+    actor_id UUID,
+    entity_type VARCHAR(20) NOT NULL,
+    entity_id UUID NOT NULL,
+    action VARCHAR(10) NOT NULL,
+    changes JSONB
+);
+
+-- Storia di un'entità e attività di un autore; BRIN per le ricerche per intervallo (righe in ordine di inserimento)
+CREATE INDEX IF NOT EXISTS idx_audit_log_entity ON audit_log(entity_type, entity_id, occurred_at DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_log_actor ON audit_log(actor_id, occurred_at DESC) WHERE actor_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_audit_log_occurred_at ON audit_log USING BRIN (occurred_at);
+
+-- File di spill già ricaricati: registrati nella stessa transazione delle voci, così un file il cui ricaricamento
+-- è stato confermato non viene ricaricato di nuovo se la sua eliminazione fallisce
+CREATE TABLE IF NOT EXISTS audit_spill_replays (
+    replay_id UUID PRIMARY KEY,
+    replayed_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
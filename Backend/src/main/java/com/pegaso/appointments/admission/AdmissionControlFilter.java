@@ -0,0 +1,174 @@
+package com.pegaso.appointments.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Controllo di ammissione sugli endpoint configurati in app.admission.endpoints: token bucket per chiamante
+// (header X-Demo-*) e per IP, poi il limitatore di concorrenza globale. Le richieste oltre il limite del chiamante
+// o dell'IP ricevono 429, quelle scartate per sovraccarico del database 503; entrambe con Retry-After.
+// I bucket stanno in una cache Caffeine limitata in dimensione e con scadenza per inattività: un bucket inattivo
+// da più del tempo di ricarica è comunque pieno, quindi rimuoverlo non cambia il comportamento
+@Component
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String HEADER_ADMIN = "X-Demo-Admin-Id";
+    private static final String HEADER_DOCTOR = "X-Demo-Doctor-Id";
+    private static final String HEADER_PATIENT = "X-Demo-Patient-Id";
+
+    private final AdmissionProperties properties;
+    private final ConcurrencyLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Cache<String, TokenBucket> buckets;
+
+    public AdmissionControlFilter(AdmissionProperties properties, ConcurrencyLimiter limiter,
+                                  ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.limiter = limiter;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(Duration.ofMinutes(properties.getBucketIdleMinutes()))
+                .build();
+        Gauge.builder("http.admission.buckets", buckets, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Map.Entry<String, AdmissionProperties.Endpoint> match = match(request);
+        if (match == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String name = match.getKey();
+        AdmissionProperties.Endpoint endpoint = match.getValue();
+        long now = System.nanoTime();
+
+        String caller = resolveCaller(request);
+        if (caller != null && endpoint.getCallerCapacity() > 0) {
+            long wait = acquire(name + "|" + caller, endpoint.getCallerCapacity(), endpoint.getCallerRefillPerMinute(), now);
+            if (wait > 0) {
+                reject(response, name, "caller", HttpStatus.TOO_MANY_REQUESTS, toRetryAfter(wait),
+                        "Troppe richieste, riprovare più tardi");
+                return;
+            }
+        }
+        if (endpoint.getIpCapacity() > 0) {
+            long wait = acquire(name + "|ip:" + request.getRemoteAddr(), endpoint.getIpCapacity(),
+                    endpoint.getIpRefillPerMinute(), now);
+            if (wait > 0) {
+                reject(response, name, "ip", HttpStatus.TOO_MANY_REQUESTS, toRetryAfter(wait),
+                        "Troppe richieste, riprovare più tardi");
+                return;
+            }
+        }
+
+        if (!endpoint.isShed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!limiter.tryAcquire()) {
+            reject(response, name, "overload", HttpStatus.SERVICE_UNAVAILABLE, limiter.retryAfterSeconds(),
+                    "Servizio temporaneamente sovraccarico, riprovare più tardi");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release();
+        }
+    }
+
+    private Map.Entry<String, AdmissionProperties.Endpoint> match(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Map.Entry<String, AdmissionProperties.Endpoint> entry : properties.getEndpoints().entrySet()) {
+            AdmissionProperties.Endpoint endpoint = entry.getValue();
+            if (endpoint.getMethod() != null && !endpoint.getMethod().equalsIgnoreCase(request.getMethod())) {
+                continue;
+            }
+            if (endpoint.getPath() == null || !pathMatcher.match(endpoint.getPath(), path)) {
+                continue;
+            }
+            if (endpoint.getQueryParam() != null && !endpoint.getQueryParam().isBlank()
+                    && request.getParameter(endpoint.getQueryParam()) == null) {
+                continue;
+            }
+            return entry;
+        }
+        return null;
+    }
+
+    private long acquire(String key, int capacity, int refillPerMinute, long now) {
+        return buckets.get(key, k -> new TokenBucket(capacity, refillPerMinute, now)).tryAcquire(now);
+    }
+
+    // Chiave del chiamante dagli header demo; header assenti o non validi lasciano solo il limite per IP
+    private String resolveCaller(HttpServletRequest request) {
+        UUID adminId = parseUuid(request.getHeader(HEADER_ADMIN));
+        if (adminId != null) {
+            return "admin:" + adminId;
+        }
+        UUID doctorId = parseUuid(request.getHeader(HEADER_DOCTOR));
+        if (doctorId != null) {
+            return "doctor:" + doctorId;
+        }
+        UUID patientId = parseUuid(request.getHeader(HEADER_PATIENT));
+        if (patientId != null) {
+            return "patient:" + patientId;
+        }
+        return null;
+    }
+
+    private UUID parseUuid(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long toRetryAfter(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void reject(HttpServletResponse response, String endpoint, String reason, HttpStatus status,
+                        long retryAfterSeconds, String message) throws IOException {
+        meterRegistry.counter("http.admission.rejected", "endpoint", endpoint, "reason", reason).increment();
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", status.value());
+        body.put("error", status == HttpStatus.TOO_MANY_REQUESTS ? "Too many requests" : "Service unavailable");
+        body.put("message", message);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
@@ -0,0 +1,47 @@
+package com.pegaso.appointments.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Configurazione del controllo di ammissione (app.admission.*): limiti per endpoint e limitatore di concorrenza
+@Data
+@ConfigurationProperties(prefix = "app.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+    // Numero massimo di token bucket in memoria (chiamanti + IP) e minuti di inattività dopo cui vengono rimossi
+    private int maxBuckets = 100_000;
+    private int bucketIdleMinutes = 10;
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    private Concurrency concurrency = new Concurrency();
+
+    // Endpoint soggetto al controllo: metodo, path (pattern Ant) ed eventuale parametro di query che deve essere presente.
+    // Un limite con capacity 0 è disattivato
+    @Data
+    public static class Endpoint {
+        private String method;
+        private String path;
+        private String queryParam;
+        private int callerCapacity;
+        private int callerRefillPerMinute;
+        private int ipCapacity;
+        private int ipRefillPerMinute;
+        // Se true l'endpoint è conteggiato (e scartato in sovraccarico) dal limitatore di concorrenza globale
+        private boolean shed = true;
+    }
+
+    @Data
+    public static class Concurrency {
+        private int maxLimit = 200;
+        private int minLimit = 10;
+        // Pool Hikari osservato (quello del traffico transazionale) e attesa media di una connessione oltre cui
+        // il limite viene ridotto
+        private String pool = "booking";
+        private long poolWaitThresholdMs = 100;
+        private long sampleIntervalMs = 1000;
+        private int retryAfterSeconds = 1;
+    }
+}
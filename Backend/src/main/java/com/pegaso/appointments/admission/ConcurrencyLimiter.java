@@ -0,0 +1,106 @@
+package com.pegaso.appointments.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Limitatore globale delle richieste in corso sugli endpoint costosi. Il limite parte da max-limit e si adatta al
+// database: a ogni campionamento si misura l'attesa media per ottenere una connessione dal pool Hikari transazionale
+// (metriche hikaricp.connections.acquire e .timeout); oltre la soglia il limite viene ridotto di un quarto, altrimenti risale
+// del 10%. Le richieste oltre il limite vengono rifiutate subito invece di accodarsi sul pool fino al timeout
+@Component
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ConcurrencyLimiter {
+
+    private static final String ACQUIRE_TIMER = "hikaricp.connections.acquire";
+    private static final String TIMEOUT_COUNTER = "hikaricp.connections.timeout";
+
+    private final AdmissionProperties.Concurrency config;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger limit;
+
+    // Totali del campionamento precedente per pool (tempo di attesa, acquisizioni, timeout)
+    private final Map<String, long[]> lastSamples = new HashMap<>();
+    private volatile double poolWaitMs;
+
+    public ConcurrencyLimiter(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getConcurrency();
+        this.meterRegistry = meterRegistry;
+        this.limit = new AtomicInteger(config.getMaxLimit());
+        Gauge.builder("http.admission.inflight", inFlight, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("http.admission.limit", limit, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("http.admission.pool.wait", this, limiter -> limiter.poolWaitMs)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    // Occupa un posto se il numero di richieste in corso è sotto il limite corrente; va rilasciato con release()
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int retryAfterSeconds() {
+        return config.getRetryAfterSeconds();
+    }
+
+    // Campionamento dell'attesa sul pool e adattamento del limite (aumento additivo, riduzione moltiplicativa)
+    @Scheduled(fixedDelayString = "${app.admission.concurrency.sample-interval-ms:1000}")
+    public void adjust() {
+        double waitMs = 0;
+        boolean timeouts = false;
+        for (Timer timer : meterRegistry.find(ACQUIRE_TIMER).tag("pool", config.getPool()).timers()) {
+            String pool = timer.getId().getTag("pool");
+            Counter timeoutCounter = meterRegistry.find(TIMEOUT_COUNTER).tag("pool", pool).counter();
+            long totalNanos = (long) timer.totalTime(TimeUnit.NANOSECONDS);
+            long count = timer.count();
+            long timeoutCount = timeoutCounter == null ? 0 : (long) timeoutCounter.count();
+            long[] previous = lastSamples.put(pool, new long[]{totalNanos, count, timeoutCount});
+            if (previous == null) {
+                continue;
+            }
+            long acquired = count - previous[1];
+            if (acquired > 0) {
+                waitMs = Math.max(waitMs, (totalNanos - previous[0]) / 1_000_000.0 / acquired);
+            }
+            timeouts |= timeoutCount > previous[2];
+        }
+        poolWaitMs = waitMs;
+
+        int current = limit.get();
+        int next;
+        if (timeouts || waitMs > config.getPoolWaitThresholdMs()) {
+            next = Math.max(config.getMinLimit(), current * 3 / 4);
+            if (next != current) {
+                log.warn("DB pool wait {} ms (timeouts: {}), concurrency limit {} -> {}",
+                        String.format("%.1f", waitMs), timeouts, current, next);
+            }
+        } else {
+            next = Math.min(config.getMaxLimit(), current + Math.max(1, current / 10));
+        }
+        limit.set(next);
+    }
+}
@@ -0,0 +1,40 @@
+package com.pegaso.appointments.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket senza lock: invece di tokens + ultimo refill (due valori da aggiornare insieme) tiene solo l'istante
+// teorico in cui il secchio tornerà pieno (algoritmo GCRA), aggiornato con una CAS. Ogni richiesta ammessa sposta
+// l'istante avanti di un intervallo; la richiesta è rifiutata se l'istante supera "adesso" di più di capacity - 1
+// intervalli, cioè se nel secchio non c'è più nemmeno un token
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(int capacity, int refillPerMinute, long nowNanos) {
+        if (capacity < 1 || refillPerMinute < 1) {
+            throw new IllegalArgumentException("capacity and refillPerMinute must be positive");
+        }
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / refillPerMinute;
+        this.toleranceNanos = intervalNanos * (capacity - 1);
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    // Consuma un token: 0 se la richiesta è ammessa, altrimenti i nanosecondi di attesa prima del prossimo token
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            // Confronto per differenza: System.nanoTime() può essere negativo
+            long base = current - nowNanos > 0 ? current : nowNanos;
+            long wait = base - nowNanos - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, base + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
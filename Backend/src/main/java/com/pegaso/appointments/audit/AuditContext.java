@@ -0,0 +1,36 @@
+package com.pegaso.appointments.audit;
+
+import java.util.UUID;
+
+// Autore delle modifiche fatte dal thread corrente, impostato da AuditContextFilter per ogni richiesta HTTP.
+// Le modifiche fatte fuori da una richiesta (job schedulati) sono attribuite a "system"
+public final class AuditContext {
+
+    public static final String ADMIN = "admin";
+    public static final String DOCTOR = "doctor";
+    public static final String PATIENT = "patient";
+    public static final String ANONYMOUS = "anonymous";
+    public static final String SYSTEM = "system";
+
+    private static final Actor SYSTEM_ACTOR = new Actor(SYSTEM, null);
+    private static final ThreadLocal<Actor> CURRENT = new ThreadLocal<>();
+
+    public record Actor(String type, UUID id) {
+    }
+
+    private AuditContext() {
+    }
+
+    public static Actor current() {
+        Actor actor = CURRENT.get();
+        return actor == null ? SYSTEM_ACTOR : actor;
+    }
+
+    static void set(Actor actor) {
+        CURRENT.set(actor);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+}
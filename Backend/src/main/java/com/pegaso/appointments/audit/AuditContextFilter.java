@@ -0,0 +1,86 @@
+package com.pegaso.appointments.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Filtro che ricava l'autore della richiesta dagli header demo (admin, dottore o paziente).
+// Gli header non vengono validati qui: le richieste non autorizzate falliscono nei controller
+// e non producono modifiche, quindi nemmeno voci di audit. Una richiesta con più header di ruolo viene
+// rifiutata: il controller potrebbe autorizzarla con un ruolo e l'audit attribuirla a un altro
+@Component
+@RequiredArgsConstructor
+public class AuditContextFilter extends OncePerRequestFilter {
+
+    private static final String HEADER_ADMIN = "X-Demo-Admin-Id";
+    private static final String HEADER_DOCTOR = "X-Demo-Doctor-Id";
+    private static final String HEADER_PATIENT = "X-Demo-Patient-Id";
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long roles = Stream.of(HEADER_ADMIN, HEADER_DOCTOR, HEADER_PATIENT)
+                .map(request::getHeader)
+                .filter(value -> value != null && !value.isBlank())
+                .count();
+        if (roles > 1) {
+            Map<String, Object> body = new HashMap<>();
+            body.put("status", HttpStatus.BAD_REQUEST.value());
+            body.put("error", "Bad request");
+            body.put("message", "Only one of " + HEADER_ADMIN + ", " + HEADER_DOCTOR + " and " + HEADER_PATIENT
+                    + " may be sent");
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), body);
+            return;
+        }
+        AuditContext.set(resolveActor(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            AuditContext.clear();
+        }
+    }
+
+    private AuditContext.Actor resolveActor(HttpServletRequest request) {
+        UUID adminId = parseUuid(request.getHeader(HEADER_ADMIN));
+        if (adminId != null) {
+            return new AuditContext.Actor(AuditContext.ADMIN, adminId);
+        }
+        UUID doctorId = parseUuid(request.getHeader(HEADER_DOCTOR));
+        if (doctorId != null) {
+            return new AuditContext.Actor(AuditContext.DOCTOR, doctorId);
+        }
+        UUID patientId = parseUuid(request.getHeader(HEADER_PATIENT));
+        if (patientId != null) {
+            return new AuditContext.Actor(AuditContext.PATIENT, patientId);
+        }
+        return new AuditContext.Actor(AuditContext.ANONYMOUS, null);
+    }
+
+    private UUID parseUuid(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.pegaso.appointments.audit;
+
+import com.pegaso.appointments.entity.Appointment;
+import com.pegaso.appointments.entity.Doctor;
+import com.pegaso.appointments.entity.Exam;
+import com.pegaso.appointments.entity.Patient;
+import com.pegaso.appointments.event.AppointmentChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+// Listener Hibernate che registra nel log di audit inserimenti, modifiche e cancellazioni di appuntamenti,
+// esami, dottori e pazienti. Viene invocato solo dopo il commit (modifiche annullate non vengono registrate)
+// e si limita ad accodare la voce: la scrittura su DB avviene in background (AuditLog)
+@Component
+@RequiredArgsConstructor
+public class AuditEventListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    // Campi tecnici che cambiano a ogni scrittura e non dicono nulla sulla modifica
+    private static final Set<String> IGNORED_PROPERTIES = Set.of("version", "createdAt", "updatedAt");
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final AuditLog auditLog;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        String entityType = entityTypeOf(event.getEntity());
+        if (entityType != null) {
+            record(entityType, event.getId(), "INSERT", snapshot(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        String entityType = entityTypeOf(event.getEntity());
+        if (entityType == null) {
+            return;
+        }
+        Map<String, Object> changes = diff(event.getPersister(), event.getOldState(), event.getState(), event.getDirtyProperties());
+        if (!changes.isEmpty()) {
+            record(entityType, event.getId(), "UPDATE", changes);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        String entityType = entityTypeOf(event.getEntity());
+        if (entityType != null) {
+            record(entityType, event.getId(), "DELETE", snapshot(event.getPersister(), event.getDeletedState()));
+        }
+    }
+
+    // L'auto-completamento aggiorna gli appuntamenti via JDBC, senza passare da Hibernate
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.type() == AppointmentChangedEvent.ChangeType.AUTO_COMPLETED) {
+            Map<String, Object> changes = new LinkedHashMap<>();
+            changes.put("status", change(event.previousStatus(), event.status()));
+            auditLog.record(new AuditRecord(event.occurredAt(), AuditContext.SYSTEM, null,
+                    "appointment", event.appointmentId(), "UPDATE", changes));
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return true;
+    }
+
+    private void record(String entityType, Object id, String action, Map<String, Object> changes) {
+        AuditContext.Actor actor = AuditContext.current();
+        auditLog.record(new AuditRecord(OffsetDateTime.now(), actor.type(), actor.id(),
+                entityType, (UUID) id, action, changes));
+    }
+
+    private Map<String, Object> snapshot(EntityPersister persister, Object[] state) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (state == null) {
+            return values;
+        }
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        for (int i = 0; i < names.length; i++) {
+            if (isAudited(names[i], types[i])) {
+                values.put(names[i], value(persister, types[i], state[i]));
+            }
+        }
+        return values;
+    }
+
+    // Solo i campi modificati, con valore precedente e nuovo (senza stato precedente: solo il nuovo valore)
+    private Map<String, Object> diff(EntityPersister persister, Object[] oldState, Object[] state, int[] dirtyProperties) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        if (dirtyProperties == null) {
+            dirtyProperties = new int[names.length];
+            for (int i = 0; i < names.length; i++) {
+                dirtyProperties[i] = i;
+            }
+        }
+        for (int i : dirtyProperties) {
+            if (!isAudited(names[i], types[i])) {
+                continue;
+            }
+            Object newValue = value(persister, types[i], state[i]);
+            Object oldValue = oldState == null ? null : value(persister, types[i], oldState[i]);
+            if (oldState != null && Objects.equals(oldValue, newValue)) {
+                continue;
+            }
+            changes.put(names[i], change(oldValue, newValue));
+        }
+        return changes;
+    }
+
+    private Map<String, Object> change(Object from, Object to) {
+        Map<String, Object> change = new LinkedHashMap<>();
+        change.put("from", from);
+        change.put("to", to);
+        return change;
+    }
+
+    private boolean isAudited(String name, Type type) {
+        return !IGNORED_PROPERTIES.contains(name) && !type.isCollectionType();
+    }
+
+    // Le relazioni vengono registrate come id dell'entità collegata
+    private Object value(EntityPersister persister, Type type, Object value) {
+        if (value != null && type.isEntityType()) {
+            return persister.getFactory().getPersistenceUnitUtil().getIdentifier(value);
+        }
+        return value;
+    }
+
+    private String entityTypeOf(Object entity) {
+        if (entity instanceof Appointment) {
+            return "appointment";
+        }
+        if (entity instanceof Doctor) {
+            return "doctor";
+        }
+        if (entity instanceof Patient) {
+            return "patient";
+        }
+        if (entity instanceof Exam) {
+            return "exam";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,350 @@
+package com.pegaso.appointments.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Registro di audit asincrono: le voci vengono accodate in una coda limitata senza lock e scritte su audit_log
+// da un thread dedicato con COPY, ogni flush-interval-ms o appena ci sono batch-size voci. Se la coda è piena
+// o il database non è raggiungibile le voci finiscono in un file locale (una riga JSON per voce), che viene
+// ricaricato nel database appena possibile: chi modifica i dati non attende mai la scrittura dell'audit
+@Service
+@Slf4j
+public class AuditLog implements SmartLifecycle {
+
+    private static final String COPY_SQL = "COPY audit_log (occurred_at, actor_type, actor_id, entity_type, entity_id, action, changes) "
+            + "FROM STDIN WITH (FORMAT csv)";
+    private static final String REPLAY_SUFFIX = ".replay";
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Queue<AuditRecord> queue = new ConcurrentLinkedQueue<>();
+    // Dimensione della coda (ConcurrentLinkedQueue.size() è O(n)), usata anche per limitarla
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ReentrantLock spillLock = new ReentrantLock();
+
+    @Value("${app.audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.audit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.audit.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.audit.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${app.audit.spill-file:audit-spill.jsonl}")
+    private Path spillFile;
+
+    private Thread writer;
+    private volatile boolean running;
+
+    public AuditLog(DataSource dataSource, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            log.info("Audit log disabled");
+            return;
+        }
+        Gauge.builder("audit.queue.size", queued, AtomicInteger::get).register(meterRegistry);
+        running = true;
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                // Il writer svuota la coda prima di terminare
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Con SmartLifecycle la fase più bassa parte per prima e si ferma per ultima: sotto le fasi del web server
+    // (graceful shutdown a DEFAULT_PHASE - 2048, stop a DEFAULT_PHASE - 1024) il writer resta attivo finché le
+    // richieste in corso non sono terminate, e le loro voci vanno in tabella invece che nel file di spill
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    // Accodamento di una voce; non blocca e non accede al database
+    public void record(AuditRecord record) {
+        if (!running) {
+            if (enabled) {
+                spill(List.of(record));
+            }
+            return;
+        }
+        if (!tryReserve()) {
+            meterRegistry.counter("audit.spilled", "reason", "queue_full").increment();
+            spill(List.of(record));
+            return;
+        }
+        queue.offer(record);
+        if (queued.get() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = queued.get();
+            if (current >= queueCapacity) {
+                return false;
+            }
+        } while (!queued.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void writeLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+            boolean written = flushQueue();
+            // Il file di spill si ricarica solo con il database raggiungibile e la coda non sotto pressione
+            if (written && queued.get() < queueCapacity / 2) {
+                replaySpillFile();
+            }
+        }
+        flushQueue();
+    }
+
+    // Svuotamento della coda a blocchi di batch-size; false se una scrittura è fallita
+    private boolean flushQueue() {
+        boolean ok = true;
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        AuditRecord record;
+        while ((record = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(record);
+            if (batch.size() == batchSize) {
+                ok &= writeOrSpill(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            ok &= writeOrSpill(batch);
+        }
+        return ok;
+    }
+
+    private boolean writeOrSpill(List<AuditRecord> batch) {
+        try {
+            write(batch);
+            meterRegistry.counter("audit.written").increment(batch.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("Could not write {} audit record(s), spilling to {}: {}", batch.size(), spillFile, e.getMessage());
+            meterRegistry.counter("audit.spilled", "reason", "write_failed").increment(batch.size());
+            spill(batch);
+            return false;
+        }
+    }
+
+    private void write(List<AuditRecord> batch) throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.getAutoCommit()) {
+                connection.setAutoCommit(true);
+            }
+            copy(connection, batch);
+        }
+    }
+
+    private void copy(Connection connection, List<AuditRecord> batch) throws SQLException, IOException {
+        StringBuilder csv = new StringBuilder(batch.size() * 256);
+        for (AuditRecord record : batch) {
+            csv.append(csvField(record.occurredAt())).append(',')
+                    .append(csvField(record.actorType())).append(',')
+                    .append(csvField(record.actorId())).append(',')
+                    .append(csvField(record.entityType())).append(',')
+                    .append(csvField(record.entityId())).append(',')
+                    .append(csvField(record.action())).append(',')
+                    .append(csvField(record.changes() == null ? null : objectMapper.writeValueAsString(record.changes())))
+                    .append('\n');
+        }
+        connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, new StringReader(csv.toString()));
+    }
+
+    // Campo CSV: NULL senza virgolette, altrimenti tra virgolette con le virgolette interne raddoppiate
+    private String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        return "\"" + value.toString().replace("\"", "\"\"") + "\"";
+    }
+
+    private void spill(List<AuditRecord> records) {
+        StringBuilder lines = new StringBuilder();
+        try {
+            for (AuditRecord record : records) {
+                lines.append(objectMapper.writeValueAsString(record)).append('\n');
+            }
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize {} audit record(s), dropping them: {}", records.size(), e.getMessage());
+            return;
+        }
+        spillLock.lock();
+        try {
+            Files.writeString(spillFile, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("Could not spill {} audit record(s) to {}: {}", records.size(), spillFile, e.getMessage());
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    // Ricaricamento del file di spill: viene prima rinominato con un id univoco, così le nuove voci in eccesso finiscono
+    // in un file nuovo. L'id è registrato in audit_spill_replays nella stessa transazione delle voci: se l'eliminazione
+    // del file fallisce dopo il commit, al giro successivo il file viene solo eliminato, senza duplicare le voci
+    private void replaySpillFile() {
+        try {
+            Path replayFile = pendingReplayFile();
+            if (replayFile == null) {
+                spillLock.lock();
+                try {
+                    if (!Files.exists(spillFile)) {
+                        return;
+                    }
+                    replayFile = spillFile.resolveSibling(spillFile.getFileName() + "." + UUID.randomUUID() + REPLAY_SUFFIX);
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    spillLock.unlock();
+                }
+            }
+            int replayed = replay(replayFile, replayId(replayFile));
+            Files.delete(replayFile);
+            if (replayed < 0) {
+                log.info("Spilled audit records in {} were already replayed, deleted the file", replayFile);
+                return;
+            }
+            meterRegistry.counter("audit.written").increment(replayed);
+            log.info("Replayed {} spilled audit record(s) from {}", replayed, replayFile);
+        } catch (Exception e) {
+            // Il file resta e viene ricaricato per intero al prossimo tentativo (se la transazione non è stata confermata)
+            log.warn("Could not replay spilled audit records from {}: {}", spillFile, e.getMessage());
+        }
+    }
+
+    // Un'unica transazione: un ricaricamento fallito a metà non lascia voci duplicate. -1 se il file era già stato
+    // ricaricato
+    private int replay(Path replayFile, UUID replayId) throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection();
+             BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                if (!claimReplay(connection, replayId)) {
+                    connection.rollback();
+                    return -1;
+                }
+                int replayed = 0;
+                List<AuditRecord> batch = new ArrayList<>(batchSize);
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        batch.add(objectMapper.readValue(line, AuditRecord.class));
+                    }
+                    if (batch.size() == batchSize) {
+                        copy(connection, batch);
+                        replayed += batch.size();
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    copy(connection, batch);
+                    replayed += batch.size();
+                }
+                connection.commit();
+                return replayed;
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    // Registrazione dell'id del file; false se era già presente. Le registrazioni vecchie vengono rimosse
+    private boolean claimReplay(Connection connection, UUID replayId) throws SQLException {
+        try (PreparedStatement cleanup = connection.prepareStatement(
+                "DELETE FROM audit_spill_replays WHERE replayed_at < NOW() - INTERVAL '30 days'");
+             PreparedStatement claim = connection.prepareStatement(
+                     "INSERT INTO audit_spill_replays (replay_id) VALUES (?) ON CONFLICT DO NOTHING")) {
+            cleanup.executeUpdate();
+            claim.setObject(1, replayId);
+            return claim.executeUpdate() == 1;
+        }
+    }
+
+    // File di spill rinominato ma non ancora ricaricato ed eliminato (ricaricamento fallito o processo riavviato)
+    private Path pendingReplayFile() throws IOException {
+        Path directory = spillFile.toAbsolutePath().getParent();
+        String prefix = spillFile.getFileName() + ".";
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(REPLAY_SUFFIX);
+                    })
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    private UUID replayId(Path replayFile) {
+        String name = replayFile.getFileName().toString();
+        return UUID.fromString(name.substring(spillFile.getFileName().toString().length() + 1,
+                name.length() - REPLAY_SUFFIX.length()));
+    }
+}
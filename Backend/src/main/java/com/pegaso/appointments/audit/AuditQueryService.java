@@ -0,0 +1,133 @@
+package com.pegaso.appointments.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pegaso.appointments.dto.audit.AuditEntryResponse;
+import com.pegaso.appointments.dto.search.SearchResponse;
+import com.pegaso.appointments.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Interrogazione del registro di audit per l'admin: filtri opzionali su entità, autore e intervallo,
+// voci più recenti prima. Ogni combinazione di filtri è servita da uno degli indici di audit_log
+@Service
+@RequiredArgsConstructor
+public class AuditQueryService {
+
+    private static final Set<String> ENTITY_TYPES = Set.of("appointment", "doctor", "patient", "exam");
+    private static final Set<String> ACTOR_TYPES = Set.of(AuditContext.ADMIN, AuditContext.DOCTOR, AuditContext.PATIENT,
+            AuditContext.ANONYMOUS, AuditContext.SYSTEM);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.audit.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.audit.max-page-size:500}")
+    private int maxPageSize;
+
+    public SearchResponse<AuditEntryResponse> search(String entityType, UUID entityId, String actorType, UUID actorId,
+                                                     LocalDateTime from, LocalDateTime to, Integer page, Integer size) {
+        if (entityType != null && !ENTITY_TYPES.contains(entityType)) {
+            throw new BadRequestException("entityType must be one of " + ENTITY_TYPES);
+        }
+        if (actorType != null && !ACTOR_TYPES.contains(actorType)) {
+            throw new BadRequestException("actorType must be one of " + ACTOR_TYPES);
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("from must be before to");
+        }
+        int resolvedPage = page == null ? 0 : page;
+        if (resolvedPage < 0) {
+            throw new BadRequestException("page must be greater than or equal to 0");
+        }
+        int resolvedSize = size == null ? defaultPageSize : size;
+        if (resolvedSize <= 0) {
+            throw new BadRequestException("size must be greater than 0");
+        }
+        resolvedSize = Math.min(resolvedSize, maxPageSize);
+        int offset;
+        try {
+            offset = Math.multiplyExact(resolvedPage, resolvedSize);
+        } catch (ArithmeticException e) {
+            throw new BadRequestException("page is too large");
+        }
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, occurred_at, actor_type, actor_id, entity_type, entity_id, action, changes::text AS changes " +
+                "FROM audit_log WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (entityType != null) {
+            sql.append(" AND entity_type = ?");
+            params.add(entityType);
+        }
+        if (entityId != null) {
+            sql.append(" AND entity_id = ?");
+            params.add(entityId);
+        }
+        if (actorType != null) {
+            sql.append(" AND actor_type = ?");
+            params.add(actorType);
+        }
+        if (actorId != null) {
+            sql.append(" AND actor_id = ?");
+            params.add(actorId);
+        }
+        if (from != null) {
+            sql.append(" AND occurred_at >= ?");
+            params.add(from.atOffset(ZoneOffset.UTC));
+        }
+        if (to != null) {
+            sql.append(" AND occurred_at < ?");
+            params.add(to.atOffset(ZoneOffset.UTC));
+        }
+        // Una riga in più per sapere se esiste la pagina successiva
+        sql.append(" ORDER BY occurred_at DESC, id DESC LIMIT ? OFFSET ?");
+        params.add(resolvedSize + 1);
+        params.add(offset);
+
+        List<AuditEntryResponse> rows = jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> AuditEntryResponse.builder()
+                        .id(rs.getLong("id"))
+                        .occurredAt(rs.getObject("occurred_at", OffsetDateTime.class))
+                        .actorType(rs.getString("actor_type"))
+                        .actorId(rs.getObject("actor_id", UUID.class))
+                        .entityType(rs.getString("entity_type"))
+                        .entityId(rs.getObject("entity_id", UUID.class))
+                        .action(rs.getString("action"))
+                        .changes(readChanges(rs.getString("changes")))
+                        .build(),
+                params.toArray());
+
+        boolean hasMore = rows.size() > resolvedSize;
+        return SearchResponse.<AuditEntryResponse>builder()
+                .items(hasMore ? rows.subList(0, resolvedSize) : rows)
+                .page(resolvedPage)
+                .size(resolvedSize)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private JsonNode readChanges(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid audit changes: " + e.getMessage(), e);
+        }
+    }
+}
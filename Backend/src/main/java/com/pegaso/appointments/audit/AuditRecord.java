@@ -0,0 +1,18 @@
+package com.pegaso.appointments.audit;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+// Voce del registro di audit: chi (actorType/actorId) ha fatto cosa (action) su quale entità.
+// changes contiene i valori inseriti (INSERT), i campi modificati con valore precedente e nuovo (UPDATE)
+// o l'ultimo stato dell'entità (DELETE)
+public record AuditRecord(
+        OffsetDateTime occurredAt,
+        String actorType,
+        UUID actorId,
+        String entityType,
+        UUID entityId,
+        String action,
+        Map<String, Object> changes) {
+}
@@ -0,0 +1,28 @@
+package com.pegaso.appointments.bulkhead;
+
+// Bulkhead del thread corrente: decide da quale pool di connessioni prende le connessioni BulkheadRoutingDataSource.
+// Impostato dal TaskDecorator di ReportingBulkhead sui thread dell'executor di reporting; tutto il resto (richieste
+// di pazienti e dottori, scritture, job schedulati) usa il pool transazionale
+public final class BulkheadContext {
+
+    public static final String BOOKING = "booking";
+    public static final String REPORTING = "reporting";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private BulkheadContext() {
+    }
+
+    public static String current() {
+        String bulkhead = CURRENT.get();
+        return bulkhead == null ? BOOKING : bulkhead;
+    }
+
+    static void set(String bulkhead) {
+        CURRENT.set(bulkhead);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+}
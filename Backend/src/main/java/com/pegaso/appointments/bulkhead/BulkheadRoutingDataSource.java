@@ -0,0 +1,22 @@
+package com.pegaso.appointments.bulkhead;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// DataSource principale dell'applicazione: instrada ogni getConnection() al pool del bulkhead del thread corrente
+public class BulkheadRoutingDataSource extends AbstractRoutingDataSource {
+
+    public BulkheadRoutingDataSource(DataSource booking, DataSource reporting) {
+        setTargetDataSources(Map.of(BulkheadContext.BOOKING, booking, BulkheadContext.REPORTING, reporting));
+        setDefaultTargetDataSource(booking);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return BulkheadContext.current();
+    }
+}
@@ -0,0 +1,83 @@
+package com.pegaso.appointments.bulkhead;
+
+import com.pegaso.appointments.sqlbudget.SqlStatementStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+// Bulkhead delle letture admin/report: i controller restituiscono submit(...) e Spring MVC esegue il lavoro su un
+// executor dedicato, con thread e coda limitati, liberando subito il thread Tomcat. I thread dell'executor prendono
+// le connessioni dal pool "reporting", quindi un report pesante non può togliere thread né connessioni alle
+// prenotazioni. A coda piena o oltre il timeout la richiesta fallisce con 503 (GlobalExceptionHandler)
+@Component
+public class ReportingBulkhead implements DisposableBean {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final Counter rejected;
+    private final Counter timedOut;
+
+    @Value("${app.bulkhead.reporting.timeout-ms:60000}")
+    private long timeoutMs;
+
+    public ReportingBulkhead(MeterRegistry meterRegistry, TaskDecorator contextTaskDecorator,
+                             @Value("${app.bulkhead.reporting.threads:4}") int threads,
+                             @Value("${app.bulkhead.reporting.queue-capacity:20}") int queueCapacity) {
+        this.rejected = meterRegistry.counter("bulkhead.rejected", "bulkhead", BulkheadContext.REPORTING, "reason", "queue_full");
+        this.timedOut = meterRegistry.counter("bulkhead.rejected", "bulkhead", BulkheadContext.REPORTING, "reason", "timeout");
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("reporting-");
+        // Il decoratore viene applicato sul thread della richiesta: contatori SQL, MDC e span della richiesta
+        // seguono il task
+        executor.setTaskDecorator(request -> {
+            SqlStatementStats stats = SqlStatementStats.current();
+            Runnable task = contextTaskDecorator.decorate(request);
+            return () -> {
+                BulkheadContext.set(BulkheadContext.REPORTING);
+                SqlStatementStats.bind(stats);
+                try {
+                    task.run();
+                } finally {
+                    SqlStatementStats.clear();
+                    BulkheadContext.clear();
+                }
+            };
+        });
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            throw new RejectedExecutionException("Reporting bulkhead full");
+        });
+        executor.initialize();
+        // executor.active, executor.queued, executor.queue.remaining, executor.completed, ... con tag name=reporting
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), BulkheadContext.REPORTING, Tags.empty())
+                .bindTo(meterRegistry);
+    }
+
+    // Esecuzione asincrona di una lettura admin sul bulkhead di reporting
+    public <T> WebAsyncTask<T> submit(Callable<T> callable) {
+        WebAsyncTask<T> task = new WebAsyncTask<>(timeoutMs, executor, callable);
+        task.onTimeout(() -> {
+            timedOut.increment();
+            throw new AsyncRequestTimeoutException();
+        });
+        return task;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
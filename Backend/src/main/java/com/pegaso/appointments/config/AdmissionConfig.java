@@ -0,0 +1,11 @@
+package com.pegaso.appointments.config;
+
+import com.pegaso.appointments.admission.AdmissionProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+// Registrazione della configurazione del controllo di ammissione (limiti per endpoint in application.properties)
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfig {
+}
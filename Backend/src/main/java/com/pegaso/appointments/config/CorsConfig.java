@@ -30,6 +30,17 @@ public class CorsConfig {
         config.addAllowedHeader("X-Demo-Patient-Id");
         config.addAllowedHeader("X-Demo-Doctor-Id");
         config.addAllowedHeader("X-Demo-Admin-Id");
+        config.addAllowedHeader("If-None-Match");
+        config.addAllowedHeader("If-Match");
+        config.addAllowedHeader("X-Request-Id");
+        config.addAllowedHeader("traceparent");
+        config.addAllowedHeader("tracestate");
+
+        // Exposed headers (ETag for conditional requests, Retry-After for 429/503, request id and timing for diagnostics)
+        config.addExposedHeader("ETag");
+        config.addExposedHeader("Retry-After");
+        config.addExposedHeader("X-Request-Id");
+        config.addExposedHeader("Server-Timing");
         
         // Allow credentials (if needed in the future)
         config.setAllowCredentials(false);
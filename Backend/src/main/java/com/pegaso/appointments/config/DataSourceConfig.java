@@ -0,0 +1,62 @@
+package com.pegaso.appointments.config;
+
+import com.pegaso.appointments.bulkhead.BulkheadRoutingDataSource;
+import com.pegaso.appointments.sqlbudget.SqlStatementListener;
+import com.pegaso.appointments.tracing.JdbcTracingListener;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.tracing.Tracer;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+
+// Due pool Hikari sullo stesso database: "booking" per il traffico transazionale (configurato da
+// spring.datasource.hikari.*) e "reporting" per le letture admin eseguite da ReportingBulkhead. Il DataSource usato
+// da JPA e JdbcTemplate è quello di routing, che sceglie il pool in base al bulkhead del thread corrente, avvolto
+// da un proxy JDBC che conta gli statement di ogni richiesta (SqlBudgetFilter) e crea uno span per statement.
+// Il pool di reporting apre connessioni solo al primo utilizzo
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource bookingDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("booking");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource reportingDataSource(DataSourceProperties properties,
+                                                @Value("${app.bulkhead.reporting.pool.max-size:4}") int maxSize,
+                                                @Value("${app.bulkhead.reporting.pool.connection-timeout-ms:10000}") long connectionTimeoutMs) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("reporting");
+        dataSource.setMaximumPoolSize(maxSize);
+        dataSource.setMinimumIdle(0);
+        dataSource.setConnectionTimeout(connectionTimeoutMs);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("bookingDataSource") DataSource booking,
+                                 @Qualifier("reportingDataSource") DataSource reporting,
+                                 ObjectProvider<Tracer> tracer,
+                                 @Value("${app.tracing.jdbc.enabled:true}") boolean traceJdbc) {
+        ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(new BulkheadRoutingDataSource(booking, reporting))
+                .name("appointments")
+                .listener(new SqlStatementListener());
+        if (traceJdbc) {
+            builder.listener(new JdbcTracingListener(tracer.getIfAvailable(() -> Tracer.NOOP)));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.pegaso.appointments.config;
+
+import com.pegaso.appointments.logging.LoggingProperties;
+import com.pegaso.appointments.logging.MdcTaskDecorator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+
+// Configurazione del logging applicativo: campionamento e livelli per chiamante (app.logging.*), propagazione del
+// MDC e dello span corrente ai metodi @Async (l'executor di Spring Boot usa il TaskDecorator del contesto)
+@Configuration
+@EnableConfigurationProperties(LoggingProperties.class)
+public class LoggingConfig {
+
+    @Bean
+    public TaskDecorator contextTaskDecorator() {
+        MdcTaskDecorator mdc = new MdcTaskDecorator();
+        ContextPropagatingTaskDecorator observation = new ContextPropagatingTaskDecorator();
+        return runnable -> mdc.decorate(observation.decorate(runnable));
+    }
+}
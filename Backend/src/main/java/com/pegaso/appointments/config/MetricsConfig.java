@@ -0,0 +1,17 @@
+package com.pegaso.appointments.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Configurazione delle metriche applicative: abilita @Timed sui metodi dei service
+// (le metriche HTTP, Hikari, Hibernate e JVM sono configurate automaticamente da Actuator)
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
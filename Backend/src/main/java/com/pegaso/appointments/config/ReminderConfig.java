@@ -0,0 +1,23 @@
+package com.pegaso.appointments.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pegaso.appointments.reminder.LogNotifier;
+import com.pegaso.appointments.reminder.Notifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+// Notifier di default per i promemoria: un bean Notifier definito altrove (email, SMS, ...) lo sostituisce
+@Configuration
+public class ReminderConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(Notifier.class)
+    public Notifier logNotifier(ObjectMapper objectMapper,
+                                @Value("${app.reminders.sink-file:}") String sinkFile) {
+        return new LogNotifier(objectMapper, sinkFile.isBlank() ? null : Path.of(sinkFile));
+    }
+}
@@ -0,0 +1,54 @@
+package com.pegaso.appointments.config;
+
+import com.pegaso.appointments.tracing.OtlpJsonFileRouting;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Configurazione del tracing OpenTelemetry: span per i metodi @Observed (controller e service) e exporter
+// selezionabili. Tutti i bean SpanExporter presenti ricevono gli span: OTLP verso un collector
+// (management.otlp.tracing.endpoint, configurato da Spring Boot), su log o su file OTLP JSON per l'uso offline
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public ObservedAspect observedAspect(ObservationRegistry observationRegistry) {
+        return new ObservedAspect(observationRegistry);
+    }
+
+    // Il browser invia traceparent con flag 00 (non campionato) perché non esporta span propri: la decisione resta
+    // al backend, che applica TRACING_SAMPLING_PROBABILITY anche alle richieste del frontend. Un padre remoto
+    // campionato (es. un gateway strumentato) viene invece rispettato come nel sampler di default
+    @Bean
+    public Sampler otelSampler(@Value("${management.tracing.sampling.probability:0.1}") double probability) {
+        Sampler ratio = Sampler.traceIdRatioBased(probability);
+        return Sampler.parentBasedBuilder(ratio)
+                .setRemoteParentNotSampled(ratio)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracing.exporter.logging.enabled", havingValue = "true")
+    public SpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+
+    // Exporter OTLP JSON pubblico: scrive sul proprio logger, instradato sul file app.tracing.exporter.file
+    @Bean
+    @ConditionalOnExpression("!'${app.tracing.exporter.file:}'.isBlank()")
+    public SpanExporter otlpJsonFileSpanExporter(@Value("${app.tracing.exporter.file}") String file) throws IOException {
+        OtlpJsonFileRouting.route(Path.of(file));
+        return OtlpJsonLoggingSpanExporter.create();
+    }
+}
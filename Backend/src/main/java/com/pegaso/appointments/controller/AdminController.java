@@ -1,16 +1,30 @@
 package com.pegaso.appointments.controller;
 
+import com.pegaso.appointments.audit.AuditQueryService;
+import com.pegaso.appointments.bulkhead.ReportingBulkhead;
+import com.pegaso.appointments.diagnostics.FlightRecorderService;
+import com.pegaso.appointments.dto.audit.AuditEntryResponse;
+import com.pegaso.appointments.dto.cache.CacheStatsResponse;
+import com.pegaso.appointments.dto.diagnostics.FlightRecordingRequest;
+import com.pegaso.appointments.dto.diagnostics.FlightRecordingResponse;
 import com.pegaso.appointments.dto.doctor.DoctorProfileResponse;
 import com.pegaso.appointments.dto.exam.CreateExamRequest;
 import com.pegaso.appointments.dto.exam.ExamResponse;
 import com.pegaso.appointments.dto.exam.UpdateExamRequest;
+import com.pegaso.appointments.dto.logging.CallerLogLevelRequest;
+import com.pegaso.appointments.dto.logging.CallerLogLevelResponse;
 import com.pegaso.appointments.dto.patient.PatientResponse;
+import com.pegaso.appointments.dto.search.SearchResponse;
 import com.pegaso.appointments.exception.BadRequestException;
 import com.pegaso.appointments.exception.ForbiddenException;
+import com.pegaso.appointments.exception.ResourceNotFoundException;
+import com.pegaso.appointments.logging.CallerLogLevels;
 import com.pegaso.appointments.repository.AdminRepository;
 import com.pegaso.appointments.service.DoctorService;
+import com.pegaso.appointments.service.EntityCacheService;
 import com.pegaso.appointments.service.ExamService;
 import com.pegaso.appointments.service.PatientService;
+import io.micrometer.observation.annotation.Observed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -20,6 +34,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -31,8 +50,12 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -40,6 +63,7 @@ import java.util.UUID;
 //
 @RestController
 @RequestMapping("/api/admin")
+@Observed(name = "appointments.controller")
 @RequiredArgsConstructor
 @Tag(name = "Admin", description = "API for admin operations")
 public class AdminController {
@@ -50,6 +74,11 @@ public class AdminController {
     private final PatientService patientService;
     private final DoctorService doctorService;
     private final AdminRepository adminRepository;
+    private final EntityCacheService entityCache;
+    private final AuditQueryService auditQueryService;
+    private final ReportingBulkhead reportingBulkhead;
+    private final CallerLogLevels callerLogLevels;
+    private final FlightRecorderService flightRecorder;
 
     // Creazione di un nuovo esame POST /api/admin/exams
     @PostMapping(value = "/exams", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -310,22 +339,28 @@ public class AdminController {
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Service unavailable - reporting bulkhead full or report timed out (see Retry-After)"
             )
     })
     // Recupero della lista di tutti i pazienti + verifica che sia presente l'header ADMIN
-    public ResponseEntity<List<PatientResponse>> getAllPatients(
+    public WebAsyncTask<ResponseEntity<List<PatientResponse>>> getAllPatients(
             @Parameter(description = "UUID of the admin. Required.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
             @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader) {
 
-        validateAdminHeader(adminIdHeader);
-        UUID adminId = parseUuid(adminIdHeader, HEADER_ADMIN);
+        return reportingBulkhead.submit(() -> {
+            validateAdminHeader(adminIdHeader);
+            UUID adminId = parseUuid(adminIdHeader, HEADER_ADMIN);
 
-        if (!adminRepository.existsById(adminId)) {
-            throw new ForbiddenException("Accesso non autorizzato");
-        }
+            if (!adminRepository.existsById(adminId)) {
+                throw new ForbiddenException("Accesso non autorizzato");
+            }
 
-        List<PatientResponse> response = patientService.getAllPatients();
-        return ResponseEntity.ok(response);
+            List<PatientResponse> response = patientService.getAllPatients();
+            return ResponseEntity.ok(response);
+        });
     }
 
 
@@ -354,10 +389,155 @@ public class AdminController {
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Service unavailable - reporting bulkhead full or report timed out (see Retry-After)"
             )
     })
     // Recupero della lista di tutti i dottori + verifica che sia presente l'header ADMIN
-    public ResponseEntity<List<DoctorProfileResponse>> getAllDoctors(
+    public WebAsyncTask<ResponseEntity<List<DoctorProfileResponse>>> getAllDoctors(
+            @Parameter(description = "UUID of the admin. Required.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader) {
+
+        return reportingBulkhead.submit(() -> {
+            validateAdminHeader(adminIdHeader);
+            UUID adminId = parseUuid(adminIdHeader, HEADER_ADMIN);
+
+            if (!adminRepository.existsById(adminId)) {
+                throw new ForbiddenException("Accesso non autorizzato");
+            }
+
+            List<DoctorProfileResponse> response = doctorService.getAllDoctors();
+            return ResponseEntity.ok(response);
+        });
+    }
+
+    // Ricerca pazienti GET /api/admin/patients/search
+    @GetMapping(value = "/patients/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Cerca pazienti (Admin)",
+            description = "Ricerca paginata per nome, cognome o email, con match per prefisso/sottostringa e tolleranza agli errori di battitura (pg_trgm). Risultati ordinati per rilevanza. Richiede l'header X-Demo-Admin-Id."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Page of matching patients"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - invalid UUID format, query shorter than 2 characters or invalid paging"
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - admin not authorized"
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Service unavailable - reporting bulkhead full or report timed out (see Retry-After)"
+            )
+    })
+    // Ricerca pazienti + verifica che sia presente l'header ADMIN
+    public WebAsyncTask<ResponseEntity<SearchResponse<PatientResponse>>> searchPatients(
+            @Parameter(description = "UUID of the admin. Required.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader,
+            @Parameter(description = "Text to search in first name, last name and email (at least 2 characters)", required = true, example = "ross")
+            @RequestParam(required = false) String q,
+            @Parameter(description = "Zero-based page number (default 0)")
+            @RequestParam(required = false) Integer page,
+            @Parameter(description = "Page size (default 20, max 100)")
+            @RequestParam(required = false) Integer size) {
+
+        return reportingBulkhead.submit(() -> {
+            validateAdminHeader(adminIdHeader);
+            UUID adminId = parseUuid(adminIdHeader, HEADER_ADMIN);
+
+            if (!adminRepository.existsById(adminId)) {
+                throw new ForbiddenException("Accesso non autorizzato");
+            }
+
+            return ResponseEntity.ok(patientService.searchPatients(q, page, size));
+        });
+    }
+
+    // Ricerca dottori GET /api/admin/doctors/search
+    @GetMapping(value = "/doctors/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Cerca dottori (Admin)",
+            description = "Ricerca paginata per nome, cognome o email, con match per prefisso/sottostringa e tolleranza agli errori di battitura (pg_trgm). Risultati ordinati per rilevanza. Richiede l'header X-Demo-Admin-Id."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Page of matching doctors"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - invalid UUID format, query shorter than 2 characters or invalid paging"
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - admin not authorized"
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Service unavailable - reporting bulkhead full or report timed out (see Retry-After)"
+            )
+    })
+    // Ricerca dottori + verifica che sia presente l'header ADMIN
+    public WebAsyncTask<ResponseEntity<SearchResponse<DoctorProfileResponse>>> searchDoctors(
+            @Parameter(description = "UUID of the admin. Required.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader,
+            @Parameter(description = "Text to search in first name, last name and email (at least 2 characters)", required = true, example = "bianc")
+            @RequestParam(required = false) String q,
+            @Parameter(description = "Zero-based page number (default 0)")
+            @RequestParam(required = false) Integer page,
+            @Parameter(description = "Page size (default 20, max 100)")
+            @RequestParam(required = false) Integer size) {
+
+        return reportingBulkhead.submit(() -> {
+            validateAdminHeader(adminIdHeader);
+            UUID adminId = parseUuid(adminIdHeader, HEADER_ADMIN);
+
+            if (!adminRepository.existsById(adminId)) {
+                throw new ForbiddenException("Accesso non autorizzato");
+            }
+
+            return ResponseEntity.ok(doctorService.searchDoctors(q, page, size));
+        });
+    }
+
+    // Statistiche della cache di secondo livello GET /api/admin/cache/stats
+    @GetMapping(value = "/cache/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Statistiche cache Hibernate (Admin)",
+            description = "Restituisce hit, miss e put della cache di secondo livello (esami, dottori, abilitazioni) e della query cache. Richiede l'header X-Demo-Admin-Id."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Cache statistics",
+                    content = @Content(schema = @Schema(implementation = CacheStatsResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - invalid UUID format"
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - admin not authorized"
+            )
+    })
+    // Recupero delle statistiche della cache + verifica che sia presente l'header ADMIN
+    public ResponseEntity<CacheStatsResponse> getCacheStats(
             @Parameter(description = "UUID of the admin. Required.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
             @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader) {
 
@@ -368,8 +548,348 @@ public class AdminController {
             throw new ForbiddenException("Accesso non autorizzato");
         }
 
-        List<DoctorProfileResponse> response = doctorService.getAllDoctors();
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(entityCache.getStatistics());
+    }
+
+    // Registro di audit GET /api/admin/audit
+    @GetMapping(value = "/audit", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Registro di audit (Admin)",
+            description = "Restituisce le modifiche ad appuntamenti, esami, dottori e pazienti con autore, azione e campi modificati, le più recenti prima. Tutti i filtri sono opzionali. Le voci vengono scritte in modo asincrono e possono comparire con qualche secondo di ritardo. Richiede l'header X-Demo-Admin-Id."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Page of audit entries"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - invalid UUID format, unknown entity or actor type, invalid date range or invalid paging"
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - admin not authorized"
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Service unavailable - reporting bulkhead full or report timed out (see Retry-After)"
+            )
+    })
+    // Ricerca nel registro di audit + verifica che sia presente l'header ADMIN
+    public WebAsyncTask<ResponseEntity<SearchResponse<AuditEntryResponse>>> getAuditLog(
+            @Parameter(description = "UUID of the admin. Required.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader,
+            @Parameter(description = "Entity type: appointment, doctor, patient or exam", example = "appointment")
+            @RequestParam(required = false) String entityType,
+            @Parameter(description = "UUID of the changed entity")
+            @RequestParam(required = false) UUID entityId,
+            @Parameter(description = "Actor type: admin, doctor, patient, anonymous or system", example = "patient")
+            @RequestParam(required = false) String actorType,
+            @Parameter(description = "UUID of the actor")
+            @RequestParam(required = false) UUID actorId,
+            @Parameter(description = "Start of the range, inclusive (UTC)", example = "2026-03-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the range, exclusive (UTC)", example = "2026-04-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Zero-based page number (default 0)")
+            @RequestParam(required = false) Integer page,
+            @Parameter(description = "Page size (default 50, max 500)")
+            @RequestParam(required = false) Integer size) {
+
+        return reportingBulkhead.submit(() -> {
+            validateAdminHeader(adminIdHeader);
+            UUID adminId = parseUuid(adminIdHeader, HEADER_ADMIN);
+
+            if (!adminRepository.existsById(adminId)) {
+                throw new ForbiddenException("Accesso non autorizzato");
+            }
+
+            return ResponseEntity.ok(auditQueryService.search(entityType, entityId, actorType, actorId, from, to, page, size));
+        });
+    }
+
+    // Livello di log temporaneo per un chiamante POST /api/admin/log-levels
+    @PostMapping(value = "/log-levels", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Alza il livello di log per un chiamante (Admin)",
+            description = "Registra dal livello indicato in su i log delle richieste del chiamante (id negli header X-Demo-*), per il logger indicato o per tutti, fino alla scadenza. Gli altri chiamanti non cambiano. Richiede l'header X-Demo-Admin-Id."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Caller log level active",
+                    content = @Content(schema = @Schema(implementation = CallerLogLevelResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - invalid level, duration or UUID format, or too many caller levels active"
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - admin not authorized"
+            )
+    })
+    public ResponseEntity<CallerLogLevelResponse> setCallerLogLevel(
+            @Parameter(description = "UUID of the admin. Required.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader,
+            @Valid @RequestBody CallerLogLevelRequest request) {
+
+        validateAdminHeader(adminIdHeader);
+        UUID adminId = parseUuid(adminIdHeader, HEADER_ADMIN);
+
+        if (!adminRepository.existsById(adminId)) {
+            throw new ForbiddenException("Accesso non autorizzato");
+        }
+
+        CallerLogLevels.CallerLevel level = callerLogLevels.set(
+                request.getCallerId(), request.getLevel(), request.getLogger(), request.getDurationMinutes());
+        return ResponseEntity.ok(toResponse(level));
+    }
+
+    // Livelli di log per chiamante attivi GET /api/admin/log-levels
+    @GetMapping(value = "/log-levels", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Livelli di log per chiamante attivi (Admin)",
+            description = "Restituisce i livelli di log per chiamante non ancora scaduti. Richiede l'header X-Demo-Admin-Id."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Active caller log levels",
+                    content = @Content(schema = @Schema(implementation = CallerLogLevelResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - invalid UUID format"
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - admin not authorized"
+            )
+    })
+    public ResponseEntity<List<CallerLogLevelResponse>> getCallerLogLevels(
+            @Parameter(description = "UUID of the admin. Required.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader) {
+
+        validateAdminHeader(adminIdHeader);
+        UUID adminId = parseUuid(adminIdHeader, HEADER_ADMIN);
+
+        if (!adminRepository.existsById(adminId)) {
+            throw new ForbiddenException("Accesso non autorizzato");
+        }
+
+        return ResponseEntity.ok(callerLogLevels.list().stream().map(this::toResponse).toList());
+    }
+
+    // Rimozione del livello di log di un chiamante DELETE /api/admin/log-levels/{callerId}
+    @DeleteMapping(value = "/log-levels/{callerId}")
+    @Operation(
+            summary = "Ripristina il livello di log di un chiamante (Admin)",
+            description = "Rimuove prima della scadenza il livello di log del chiamante. Richiede l'header X-Demo-Admin-Id."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "204",
+                    description = "Caller log level removed"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - invalid UUID format"
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - admin not authorized"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "No log level active for the caller"
+            )
+    })
+    public ResponseEntity<Void> deleteCallerLogLevel(
+            @Parameter(description = "Caller id", required = true, example = "550e8400-e29b-41d4-a716-446655440000")
+            @PathVariable String callerId,
+            @Parameter(description = "UUID of the admin. Required.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader) {
+
+        validateAdminHeader(adminIdHeader);
+        UUID adminId = parseUuid(adminIdHeader, HEADER_ADMIN);
+
+        if (!adminRepository.existsById(adminId)) {
+            throw new ForbiddenException("Accesso non autorizzato");
+        }
+
+        if (!callerLogLevels.remove(callerId)) {
+            throw new ResourceNotFoundException("Nessun livello di log attivo per il chiamante");
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    // Avvio di una registrazione JFR POST /api/admin/recordings
+    @PostMapping(value = "/recordings", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Avvia una registrazione JFR (Admin)",
+            description = "Avvia una registrazione JDK Flight Recorder con il profilo JDK indicato più gli eventi applicativi (prenotazione, fasi, mapping). Ne può essere attiva una sola: di default parte all'avvio dell'applicazione. Richiede l'header X-Demo-Admin-Id."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "201",
+                    description = "Recording started",
+                    content = @Content(schema = @Schema(implementation = FlightRecordingResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - invalid profile, limits or UUID format"
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - admin not authorized"
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Conflict - a recording is already running"
+            )
+    })
+    public ResponseEntity<FlightRecordingResponse> startRecording(
+            @Parameter(description = "UUID of the admin. Required.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader,
+            @Valid @RequestBody FlightRecordingRequest request) {
+
+        requireAdmin(adminIdHeader);
+
+        FlightRecorderService.RecordingInfo info = flightRecorder.start(
+                request.getMaxAgeMinutes(), request.getMaxSizeMb(), request.getProfile());
+        return ResponseEntity.status(HttpStatus.CREATED).body(toResponse(info));
+    }
+
+    // Registrazione JFR attiva GET /api/admin/recordings
+    @GetMapping(value = "/recordings", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Registrazione JFR attiva (Admin)",
+            description = "Restituisce lo stato della registrazione JFR attiva. Richiede l'header X-Demo-Admin-Id."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Active recording",
+                    content = @Content(schema = @Schema(implementation = FlightRecordingResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - admin not authorized"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "No recording running"
+            )
+    })
+    public ResponseEntity<FlightRecordingResponse> getRecording(
+            @Parameter(description = "UUID of the admin. Required.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader) {
+
+        requireAdmin(adminIdHeader);
+
+        FlightRecorderService.RecordingInfo info = flightRecorder.current()
+                .orElseThrow(() -> new ResourceNotFoundException("Nessuna registrazione JFR attiva"));
+        return ResponseEntity.ok(toResponse(info));
+    }
+
+    // Download del contenuto attuale della registrazione JFR GET /api/admin/recordings/dump
+    @GetMapping(value = "/recordings/dump", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(
+            summary = "Scarica la registrazione JFR attiva (Admin)",
+            description = "Scrive su file il contenuto attuale della registrazione, che continua, e lo restituisce come file .jfr (apribile con JDK Mission Control o jfr print). Richiede l'header X-Demo-Admin-Id."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "JFR file"
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - admin not authorized"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "No recording running"
+            )
+    })
+    public ResponseEntity<Resource> dumpRecording(
+            @Parameter(description = "UUID of the admin. Required.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader) {
+
+        requireAdmin(adminIdHeader);
+
+        Path file = flightRecorder.dump();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(new FileSystemResource(file));
+    }
+
+    // Arresto della registrazione JFR DELETE /api/admin/recordings
+    @DeleteMapping(value = "/recordings", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Ferma la registrazione JFR (Admin)",
+            description = "Ferma la registrazione attiva e la scrive su file sul server (dumpFile). Richiede l'header X-Demo-Admin-Id."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Recording stopped",
+                    content = @Content(schema = @Schema(implementation = FlightRecordingResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - admin not authorized"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "No recording running"
+            )
+    })
+    public ResponseEntity<FlightRecordingResponse> stopRecording(
+            @Parameter(description = "UUID of the admin. Required.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader) {
+
+        requireAdmin(adminIdHeader);
+
+        return ResponseEntity.ok(toResponse(flightRecorder.stop()));
+    }
+
+    private FlightRecordingResponse toResponse(FlightRecorderService.RecordingInfo info) {
+        return FlightRecordingResponse.builder()
+                .id(info.id())
+                .state(info.state().name())
+                .profile(info.profile())
+                .startTime(info.startTime())
+                .maxAgeMinutes(info.maxAge() == null ? null : info.maxAge().toMinutes())
+                .maxSizeMb(info.maxSizeBytes() / (1024 * 1024))
+                .dumpFile(info.destination() == null ? null : info.destination().toString())
+                .build();
+    }
+
+    // Verifica che il chiamante sia un admin esistente
+    private void requireAdmin(String adminIdHeader) {
+        validateAdminHeader(adminIdHeader);
+        UUID adminId = parseUuid(adminIdHeader, HEADER_ADMIN);
+
+        if (!adminRepository.existsById(adminId)) {
+            throw new ForbiddenException("Accesso non autorizzato");
+        }
+    }
+
+    private CallerLogLevelResponse toResponse(CallerLogLevels.CallerLevel level) {
+        return CallerLogLevelResponse.builder()
+                .callerId(level.callerId())
+                .level(level.level().levelStr)
+                .logger(level.logger())
+                .expiresAt(level.expiresAt())
+                .build();
     }
 
     // Validazione che sia presente l'header ADMIN
@@ -1,13 +1,19 @@
 package com.pegaso.appointments.controller;
 
+import com.pegaso.appointments.bulkhead.ReportingBulkhead;
 import com.pegaso.appointments.dto.appointment.AppointmentCreateResponse;
 import com.pegaso.appointments.dto.appointment.AppointmentRequest;
 import com.pegaso.appointments.dto.appointment.AppointmentResponse;
 import com.pegaso.appointments.dto.appointment.UpdateAppointmentRequest;
 import com.pegaso.appointments.dto.appointment.UpdateAppointmentResponse;
+import com.pegaso.appointments.dto.sync.ChangesResponse;
 import com.pegaso.appointments.exception.BadRequestException;
 import com.pegaso.appointments.exception.ForbiddenException;
+import com.pegaso.appointments.exception.PreconditionFailedException;
 import com.pegaso.appointments.service.AppointmentService;
+import com.pegaso.appointments.service.ResourceVersionService;
+import com.pegaso.appointments.sqlbudget.SqlBudget;
+import io.micrometer.observation.annotation.Observed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -17,6 +23,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -28,14 +36,19 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 // Controller per la gestione degli appuntamenti (3 possibili header: admin, doctor, patient), in base all'header inserito, verranno mostrati gli appuntamenti relativi
 @RestController
 @RequestMapping("/api/appointments")
+@Observed(name = "appointments.controller")
 @RequiredArgsConstructor
 @Tag(name = "Appointments", description = "API for listing appointments")
 public class AppointmentController {
@@ -45,12 +58,15 @@ public class AppointmentController {
     private static final String HEADER_PATIENT = "X-Demo-Patient-Id";
 
     private final AppointmentService appointmentService;
+    private final ResourceVersionService resourceVersions;
+    private final ReportingBulkhead reportingBulkhead;
 
     // Recupero degli appuntamenti GET api/appointments + swagger documentation
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @SqlBudget(5)
     @Operation(
             summary = "Lista appuntamenti",
-            description = "Recupera la lista di tutti gli appuntamenti. Richiede esattamente uno dei seguenti header: X-Demo-Admin-Id, X-Demo-Doctor-Id, o X-Demo-Patient-Id. Admin: tutti gli appuntamenti. Dottore/Paziente: filtrati in base all'ID rispettivo."
+            description = "Recupera la lista di tutti gli appuntamenti. Richiede esattamente uno dei seguenti header: X-Demo-Admin-Id, X-Demo-Doctor-Id, o X-Demo-Patient-Id. Admin: tutti gli appuntamenti. Dottore/Paziente: filtrati in base all'ID rispettivo. Filtri opzionali lato server: intervallo di date (from/to), stati, esame e, solo per l'admin, dottore."
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -58,7 +74,7 @@ public class AppointmentController {
                     description = "List of appointments",
                     content = @Content(schema = @Schema(implementation = AppointmentResponse.class))
             ),
-            @ApiResponse(responseCode = "400", description = "Bad request - no header, multiple headers, or invalid header"),
+            @ApiResponse(responseCode = "400", description = "Bad request - no header, multiple headers, invalid header or invalid filter"),
             @ApiResponse(responseCode = "403", description = "Forbidden - access not authorized"),
             @ApiResponse(responseCode = "500", description = "Internal server error - unexpected persistence error")
     })
@@ -69,9 +85,27 @@ public class AppointmentController {
             @Parameter(description = "Doctor UUID; when present, returns appointments for this doctor")
             @RequestHeader(value = HEADER_DOCTOR, required = false) String doctorIdHeader,
             @Parameter(description = "Patient UUID; when present, returns appointments for this patient")
-            @RequestHeader(value = HEADER_PATIENT, required = false) String patientIdHeader) {
+            @RequestHeader(value = HEADER_PATIENT, required = false) String patientIdHeader,
+            @Parameter(description = "Start of the date range, inclusive (UTC)", example = "2026-03-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the date range, exclusive (UTC)", example = "2026-04-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Statuses to include (repeatable or comma separated)", example = "pending,confirmed")
+            @RequestParam(value = "status", required = false) List<String> statuses,
+            @Parameter(description = "Filter by exam UUID")
+            @RequestParam(required = false) UUID examId,
+            @Parameter(description = "Filter by doctor UUID (admin only)")
+            @RequestParam(value = "doctorId", required = false) UUID doctorFilter) {
 
         validateExactlyOneHeader(adminIdHeader, doctorIdHeader, patientIdHeader);
+        // Con almeno un filtro la ricerca avviene lato server con un'unica query
+        if (from != null || to != null || (statuses != null && !statuses.isEmpty()) || examId != null || doctorFilter != null) {
+            UUID adminId = isPresent(adminIdHeader) ? parseUuid(adminIdHeader, HEADER_ADMIN) : null;
+            UUID headerDoctorId = adminId == null && isPresent(doctorIdHeader) ? parseUuid(doctorIdHeader, HEADER_DOCTOR) : null;
+            UUID patientId = adminId == null && headerDoctorId == null ? parseUuid(patientIdHeader, HEADER_PATIENT) : null;
+            return ResponseEntity.ok(appointmentService.searchAppointments(adminId, headerDoctorId, patientId,
+                    from, to, statuses, examId, doctorFilter));
+        }
         // Se l'adminIdHeader è presente, recupero gli appuntamenti come admin
         if (isPresent(adminIdHeader)) {
             UUID adminId = parseUuid(adminIdHeader, HEADER_ADMIN);
@@ -87,10 +121,76 @@ public class AppointmentController {
 
 
 
+    // Lista appuntamenti per l'admin: stessa logica di getAppointments, eseguita sul bulkhead di reporting
+    // (thread e pool di connessioni separati) perché l'elenco completo non rallenti le prenotazioni
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE, headers = HEADER_ADMIN)
+    @SqlBudget(5)
+    @Operation(hidden = true)
+    public WebAsyncTask<ResponseEntity<List<AppointmentResponse>>> getAppointmentsAsAdmin(
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader,
+            @RequestHeader(value = HEADER_DOCTOR, required = false) String doctorIdHeader,
+            @RequestHeader(value = HEADER_PATIENT, required = false) String patientIdHeader,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "status", required = false) List<String> statuses,
+            @RequestParam(required = false) UUID examId,
+            @RequestParam(value = "doctorId", required = false) UUID doctorFilter) {
+
+        return reportingBulkhead.submit(() -> getAppointments(adminIdHeader, doctorIdHeader, patientIdHeader,
+                from, to, statuses, examId, doctorFilter));
+    }
+
+    // Recupero incrementale degli appuntamenti GET api/appointments/changes + swagger documentation
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Modifiche agli appuntamenti (delta sync)",
+            description = "Restituisce solo gli appuntamenti creati o modificati dopo il watermark e gli ID di quelli eliminati. Senza 'since' restituisce tutto, a pagine. Richiede esattamente uno dei seguenti header: X-Demo-Admin-Id, X-Demo-Doctor-Id, o X-Demo-Patient-Id, con la stessa visibilità di GET /api/appointments."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Changes since the watermark",
+                    content = @Content(schema = @Schema(implementation = ChangesResponse.class))
+            ),
+            @ApiResponse(responseCode = "400", description = "Bad request - no header, multiple headers, invalid header or invalid watermark"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - access not authorized"),
+            @ApiResponse(responseCode = "500", description = "Internal server error - unexpected persistence error")
+    })
+    public ResponseEntity<ChangesResponse<AppointmentResponse>> getAppointmentChanges(
+            @Parameter(description = "Watermark returned by the previous call; omit for a full sync")
+            @RequestParam(required = false) String since,
+            @Parameter(description = "Maximum number of changes to return")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Admin UUID; when present, returns changes to all appointments")
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader,
+            @Parameter(description = "Doctor UUID; when present, returns changes to this doctor's appointments")
+            @RequestHeader(value = HEADER_DOCTOR, required = false) String doctorIdHeader,
+            @Parameter(description = "Patient UUID; when present, returns changes to this patient's appointments")
+            @RequestHeader(value = HEADER_PATIENT, required = false) String patientIdHeader) {
+
+        validateExactlyOneHeader(adminIdHeader, doctorIdHeader, patientIdHeader);
+
+        UUID adminId = null;
+        UUID doctorId = null;
+        UUID patientId = null;
+
+        if (isPresent(adminIdHeader)) {
+            adminId = parseUuid(adminIdHeader, HEADER_ADMIN);
+        } else if (isPresent(doctorIdHeader)) {
+            doctorId = parseUuid(doctorIdHeader, HEADER_DOCTOR);
+        } else {
+            patientId = parseUuid(patientIdHeader, HEADER_PATIENT);
+        }
+        return ResponseEntity.ok(appointmentService.getAppointmentChanges(adminId, doctorId, patientId, since, limit));
+    }
+
+
+
 
     // Creazione di un nuovo appuntamento POST api/appointments + swagger documentation
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @SqlBudget(8)
     @Operation(
             summary = "Crea un nuovo appuntamento",
             description = "Crea un nuovo appuntamento. Richiede l'header X-Demo-Patient-Id. Admin e Dottore non sono consentiti."
@@ -104,7 +204,9 @@ public class AppointmentController {
             @ApiResponse(responseCode = "400", description = "Bad request - missing or invalid header, invalid request body, or appointment date not in the future"),
             @ApiResponse(responseCode = "403", description = "Forbidden - admin or doctor headers present"),
             @ApiResponse(responseCode = "409", description = "Conflict - time slot not available or business constraints violated"),
-            @ApiResponse(responseCode = "500", description = "Internal server error - unexpected persistence error")
+            @ApiResponse(responseCode = "429", description = "Too many requests - caller or IP rate limit exceeded (see Retry-After)"),
+            @ApiResponse(responseCode = "500", description = "Internal server error - unexpected persistence error"),
+            @ApiResponse(responseCode = "503", description = "Service unavailable - load shedding while the database is saturated (see Retry-After)")
     })
     public ResponseEntity<AppointmentCreateResponse> createAppointment(
             @Parameter(description = "Patient UUID (required)")
@@ -138,6 +240,7 @@ public class AppointmentController {
                     description = "Appointment retrieved successfully",
                     content = @Content(schema = @Schema(implementation = AppointmentResponse.class))
             ),
+            @ApiResponse(responseCode = "304", description = "Not modified - the If-None-Match ETag is still current"),
             @ApiResponse(responseCode = "400", description = "Bad request - no header, multiple headers, or invalid header"),
             @ApiResponse(responseCode = "403", description = "Forbidden - access not authorized or unauthorized to view this appointment"),
             @ApiResponse(responseCode = "404", description = "Appointment not found"),
@@ -152,7 +255,8 @@ public class AppointmentController {
             @Parameter(description = "Doctor UUID (optional, mutually exclusive with other headers)")
             @RequestHeader(value = HEADER_DOCTOR, required = false) String doctorIdHeader,
             @Parameter(description = "Patient UUID (optional, mutually exclusive with other headers)")
-            @RequestHeader(value = HEADER_PATIENT, required = false) String patientIdHeader) {
+            @RequestHeader(value = HEADER_PATIENT, required = false) String patientIdHeader,
+            WebRequest webRequest) {
 
         validateExactlyOneHeader(adminIdHeader, doctorIdHeader, patientIdHeader);
 
@@ -167,9 +271,17 @@ public class AppointmentController {
         } else {
             patientId = parseUuid(patientIdHeader, HEADER_PATIENT);
         }
+        // If-None-Match: se l'ETag è ancora valido rispondo 304 senza caricare l'appuntamento
+        if (isPresent(webRequest.getHeader(HttpHeaders.IF_NONE_MATCH))
+                && webRequest.checkNotModified(appointmentService.getAppointmentETag(appointmentId, adminId, doctorId, patientId))) {
+            return null;
+        }
+
         // Recupero dell'appuntamento in base all'ID + verifica che sia presente l'header ADMIN, DOCTOR o PATIENT
         AppointmentResponse response = appointmentService.getAppointmentById(appointmentId, adminId, doctorId, patientId);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .eTag(resourceVersions.appointmentETag(response.getVersion()))
+                .body(response);
     }
 
 
@@ -189,7 +301,8 @@ public class AppointmentController {
             @ApiResponse(responseCode = "400", description = "Bad request - missing or multiple headers, invalid request body, or appointment date not in the future"),
             @ApiResponse(responseCode = "403", description = "Forbidden - unauthorized modification attempt"),
             @ApiResponse(responseCode = "404", description = "Appointment not found"),
-            @ApiResponse(responseCode = "409", description = "Conflict - business rules violation, time slot not available, or unauthorized field modification"),
+            @ApiResponse(responseCode = "409", description = "Conflict - business rules violation, time slot not available, or unauthorized field modification, or concurrent update"),
+            @ApiResponse(responseCode = "412", description = "Precondition failed - If-Match does not match the current appointment version"),
             @ApiResponse(responseCode = "500", description = "Internal server error - unexpected persistence error")
     })
     // Aggiornamento di un appuntamento 
@@ -202,6 +315,8 @@ public class AppointmentController {
             @RequestHeader(value = HEADER_PATIENT, required = false) String patientIdHeader,
             @Parameter(description = "Doctor UUID (optional, mutually exclusive with other headers)")
             @RequestHeader(value = HEADER_DOCTOR, required = false) String doctorIdHeader,
+            @Parameter(description = "ETag returned by GET /api/appointments/{appointmentId}; the update is applied only if the appointment was not modified in the meantime")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateAppointmentRequest request) {
 
         validateExactlyOneHeader(adminIdHeader, doctorIdHeader, patientIdHeader);
@@ -218,8 +333,11 @@ public class AppointmentController {
             doctorId = parseUuid(doctorIdHeader, HEADER_DOCTOR);
         }
 
-        UpdateAppointmentResponse response = appointmentService.updateAppointment(appointmentId, request, adminId, patientId, doctorId);
-        return ResponseEntity.ok(response);
+        UpdateAppointmentResponse response = appointmentService.updateAppointment(appointmentId, request, adminId, patientId, doctorId,
+                parseIfMatch(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(resourceVersions.appointmentETag(response.getVersion()))
+                .body(response);
     }
 
 
@@ -281,6 +399,18 @@ public class AppointmentController {
         }
     }
 
+    // Versione attesa dall'header If-Match (null se assente o "*")
+    private Long parseIfMatch(String ifMatch) {
+        if (!isPresent(ifMatch) || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Long version = resourceVersions.parseAppointmentVersion(ifMatch);
+        if (version == null) {
+            throw new PreconditionFailedException("If-Match non valido: " + ifMatch);
+        }
+        return version;
+    }
+
     // Validazione che sia presente uno e un solo header
     private void validateExactlyOneHeader(String admin, String doctor, String patient) {
         int count = (isPresent(admin) ? 1 : 0) + (isPresent(doctor) ? 1 : 0) + (isPresent(patient) ? 1 : 0);
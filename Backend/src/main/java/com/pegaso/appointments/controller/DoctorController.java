@@ -4,10 +4,14 @@ import com.pegaso.appointments.dto.doctor.CreateDoctorRequest;
 import com.pegaso.appointments.dto.doctor.DoctorProfileResponse;
 import com.pegaso.appointments.dto.doctor.DoctorResponse;
 import com.pegaso.appointments.dto.doctor.UpdateDoctorRequest;
+import com.pegaso.appointments.dto.sync.ChangesResponse;
 import com.pegaso.appointments.exception.BadRequestException;
 import com.pegaso.appointments.exception.ForbiddenException;
 import com.pegaso.appointments.repository.AdminRepository;
 import com.pegaso.appointments.service.DoctorService;
+import com.pegaso.appointments.service.ResourceVersionService;
+import com.pegaso.appointments.sqlbudget.SqlBudget;
+import io.micrometer.observation.annotation.Observed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -31,6 +35,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -39,6 +44,7 @@ import java.util.UUID;
 // parte fondamentale per la gestione delle API, si occupa di gestire le richieste in arrivo e restituire le risposte (POST)
 @RestController
 @RequestMapping("/api/doctors")
+@Observed(name = "appointments.controller")
 @RequiredArgsConstructor
 @Tag(name = "Doctors", description = "API for managing doctors")
 public class DoctorController {
@@ -47,6 +53,7 @@ public class DoctorController {
 
     private final DoctorService doctorService;
     private final AdminRepository adminRepository;
+    private final ResourceVersionService resourceVersions;
 
 
     
@@ -85,6 +92,7 @@ public class DoctorController {
 
     // Recupero il profilo del dottore GET api/doctors (NON ADMIN)
     @GetMapping
+    @SqlBudget(10)
     @Operation(
             summary = "Recupera il profilo del dottore o lista dottori",
             description = "Con header X-Demo-Doctor-Id: restituisce il profilo del dottore identificato, incluso gli esami abilitati. Senza header: restituisce la lista di tutti i dottori (per selettore demo)."
@@ -97,7 +105,9 @@ public class DoctorController {
             ),
             @ApiResponse(responseCode = "400", description = "Bad request - invalid UUID in X-Demo-Doctor-Id"),
             @ApiResponse(responseCode = "404", description = "Doctor not found"),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
+            @ApiResponse(responseCode = "429", description = "Too many requests - rate limit exceeded on availability search with date (see Retry-After)"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "Service unavailable - load shedding while the database is saturated (see Retry-After)")
     })
     public ResponseEntity<?> getDoctorProfile(
             @Parameter(description = "UUID del dottore di cui ottenere il profilo. Opzionale - se assente, restituisce la lista di tutti i dottori.", required = false, example = "660e8400-e29b-41d4-a716-446655440001")
@@ -190,6 +200,32 @@ public class DoctorController {
 
 
 
+    // Recupero incrementale dei dottori GET api/doctors/changes + swagger documentation (pubblico, come la lista)
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Modifiche ai dottori (delta sync)",
+            description = "Restituisce solo i dottori creati o modificati (anche nelle abilitazioni agli esami) dopo il watermark e gli ID di quelli eliminati. Senza 'since' restituisce tutto, a pagine."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Changes since the watermark",
+                    content = @Content(schema = @Schema(implementation = ChangesResponse.class))
+            ),
+            @ApiResponse(responseCode = "400", description = "Bad request - invalid watermark or limit"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<ChangesResponse<DoctorProfileResponse>> getDoctorChanges(
+            @Parameter(description = "Watermark returned by the previous call; omit for a full sync")
+            @RequestParam(required = false) String since,
+            @Parameter(description = "Maximum number of changes to return")
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(doctorService.getDoctorChanges(since, limit));
+    }
+
+
+
+
     // Recupero il profilo del dottore GET api/doctors/{doctorId} + swagger documentation per ADMIN
     @GetMapping(value = "/{doctorId}", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(
@@ -202,6 +238,7 @@ public class DoctorController {
                     description = "Doctor profile",
                     content = @Content(schema = @Schema(implementation = DoctorProfileResponse.class))
             ),
+            @ApiResponse(responseCode = "304", description = "Not modified - the If-None-Match ETag is still current"),
             @ApiResponse(responseCode = "400", description = "Bad request - invalid UUID format"),
             @ApiResponse(responseCode = "403", description = "Forbidden - admin not authorized"),
             @ApiResponse(responseCode = "404", description = "Doctor not found"),
@@ -212,7 +249,8 @@ public class DoctorController {
             @Parameter(description = "UUID of the doctor to retrieve", required = true, example = "660e8400-e29b-41d4-a716-446655440001")
             @PathVariable UUID doctorId,
             @Parameter(description = "UUID of the admin. Required for GET /api/doctors/{doctorId}.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
-            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader) {
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader,
+            WebRequest webRequest) {
 
         validateAdminHeader(adminIdHeader);
         UUID adminId = parseUuid(adminIdHeader, HEADER_ADMIN);
@@ -221,8 +259,16 @@ public class DoctorController {
             throw new ForbiddenException("Accesso non autorizzato");
         }
 
+        // ETag dai version stamp di doctors (aggiornata anche dalle modifiche a doctor_exams) ed exams: il profilo
+        // include nome e descrizione degli esami abilitati
+        String etag = resourceVersions.collectionsETag(
+                List.of(ResourceVersionService.DOCTORS, ResourceVersionService.EXAMS), doctorId);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
         DoctorProfileResponse response = doctorService.getDoctorProfile(doctorId);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(etag).body(response);
     }
 
 
@@ -1,7 +1,11 @@
 package com.pegaso.appointments.controller;
 
 import com.pegaso.appointments.dto.exam.ExamResponse;
+import com.pegaso.appointments.dto.sync.ChangesResponse;
 import com.pegaso.appointments.service.ExamService;
+import com.pegaso.appointments.service.ResourceVersionService;
+import com.pegaso.appointments.sqlbudget.SqlBudget;
+import io.micrometer.observation.annotation.Observed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -17,6 +21,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -25,15 +30,18 @@ import java.util.UUID;
 // Controller per la gestione degli esami, utilizzato per gestire le richieste HTTP e restituire le risposte (solo api pubblici)
 @RestController
 @RequestMapping("/api/exams")
+@Observed(name = "appointments.controller")
 @RequiredArgsConstructor
 @Tag(name = "Exams", description = "API for managing exams")
 public class ExamController {
 
     private final ExamService examService;
+    private final ResourceVersionService resourceVersions;
 
 
     // Recupero di tutti gli esami GET api/exams + swagger (pubblico)
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @SqlBudget(3)
     @Operation(
             summary = "Recupera tutti gli esami",
             description = "Recupera la lista di tutti gli esami. Supporta il filtro per stato attivo. Endpoint pubblico."
@@ -44,6 +52,10 @@ public class ExamController {
                     description = "List of exams retrieved successfully",
                     content = @Content(schema = @Schema(implementation = ExamResponse.class))
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Not modified - the If-None-Match ETag is still current"
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error"
@@ -52,9 +64,46 @@ public class ExamController {
     // Recupero della lista di tutti gli esami + verifica che sia presente l'header ADMIN
     public ResponseEntity<List<ExamResponse>> getAllExams(
             @Parameter(description = "Filtra per stato attivo (opzionale)")
-            @RequestParam(required = false) Boolean active) {
+            @RequestParam(required = false) Boolean active,
+            WebRequest webRequest) {
+        // ETag dal version stamp della tabella exams: 304 senza interrogare gli esami
+        String etag = resourceVersions.collectionETag(ResourceVersionService.EXAMS, active);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         List<ExamResponse> response = examService.getAllExams(active);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(etag).body(response);
+    }
+
+
+
+    // Recupero incrementale degli esami GET api/exams/changes + swagger documentation (pubblico)
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Modifiche agli esami (delta sync)",
+            description = "Restituisce solo gli esami creati o modificati dopo il watermark e gli ID di quelli eliminati. Senza 'since' restituisce tutto, a pagine. Endpoint pubblico."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Changes since the watermark",
+                    content = @Content(schema = @Schema(implementation = ChangesResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - invalid watermark or limit"
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error"
+            )
+    })
+    public ResponseEntity<ChangesResponse<ExamResponse>> getExamChanges(
+            @Parameter(description = "Watermark returned by the previous call; omit for a full sync")
+            @RequestParam(required = false) String since,
+            @Parameter(description = "Maximum number of changes to return")
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(examService.getExamChanges(since, limit));
     }
 
 
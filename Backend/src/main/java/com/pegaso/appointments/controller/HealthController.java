@@ -1,7 +1,14 @@
 package com.pegaso.appointments.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.HealthComponent;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -10,18 +17,30 @@ import org.springframework.web.bind.annotation.RestController;
 import java.util.HashMap;
 import java.util.Map;
 
-// Controller per health check
+// Controller per health check: riporta lo stato del gruppo readiness di Actuator
+// (dettagli su /actuator/health/readiness con MANAGEMENT_HEALTH_READINESS_SHOW_DETAILS=always, liveness su
+// /actuator/health/liveness)
 @RestController
 @RequestMapping("/api")
+@RequiredArgsConstructor
 @Tag(name = "Health", description = "Health check endpoints")
 public class HealthController {
 
+    private final HealthEndpoint healthEndpoint;
+
     @GetMapping("/health")
-    @Operation(summary = "Health check", description = "Recupera lo stato di salute dell'API")
+    @Operation(summary = "Health check", description = "Recupera lo stato di salute dell'API (pronta a ricevere traffico)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "API pronta"),
+            @ApiResponse(responseCode = "503", description = "API non pronta (database, pool, scheduler o avvio in corso)")
+    })
     public ResponseEntity<Map<String, String>> health() {
+        HealthComponent readiness = healthEndpoint.healthForPath("readiness");
+        Status status = readiness != null ? readiness.getStatus() : Status.UNKNOWN;
         Map<String, String> response = new HashMap<>();
-        response.put("status", "UP");
+        response.put("status", status.getCode());
         response.put("service", "appointments-api");
-        return ResponseEntity.ok(response);
+        return ResponseEntity.status(Status.UP.equals(status) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(response);
     }
 }
@@ -3,10 +3,13 @@ package com.pegaso.appointments.controller;
 import com.pegaso.appointments.dto.patient.CreatePatientRequest;
 import com.pegaso.appointments.dto.patient.PatientResponse;
 import com.pegaso.appointments.dto.patient.UpdatePatientRequest;
+import com.pegaso.appointments.dto.sync.ChangesResponse;
 import com.pegaso.appointments.exception.BadRequestException;
 import com.pegaso.appointments.exception.ForbiddenException;
 import com.pegaso.appointments.repository.AdminRepository;
 import com.pegaso.appointments.service.PatientService;
+import com.pegaso.appointments.service.ResourceVersionService;
+import io.micrometer.observation.annotation.Observed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -27,7 +30,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -36,6 +41,7 @@ import java.util.UUID;
 // POST api/patients
 @RestController
 @RequestMapping("/api/patients")
+@Observed(name = "appointments.controller")
 @RequiredArgsConstructor
 @Tag(name = "Patients", description = "API for managing patients")
 public class PatientController {
@@ -44,6 +50,7 @@ public class PatientController {
 
     private final PatientService patientService;
     private final AdminRepository adminRepository;
+    private final ResourceVersionService resourceVersions;
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(
@@ -86,18 +93,25 @@ public class PatientController {
                     description = "Patient profile or list of patients",
                     content = @Content(schema = @Schema(implementation = PatientResponse.class))
             ),
+            @ApiResponse(responseCode = "304", description = "Not modified - the If-None-Match ETag is still current"),
             @ApiResponse(responseCode = "400", description = "Bad request - invalid UUID in X-Demo-Patient-Id"),
             @ApiResponse(responseCode = "404", description = "Patient not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public ResponseEntity<?> getPatientProfile(
             @Parameter(description = "UUID of the patient. Optional - if missing, returns list of all patients.", required = false, example = "550e8400-e29b-41d4-a716-446655440000")
-            @RequestHeader(value = "X-Demo-Patient-Id", required = false) String patientIdHeader) {
+            @RequestHeader(value = "X-Demo-Patient-Id", required = false) String patientIdHeader,
+            WebRequest webRequest) {
         
         // Se l'header non è presente, restituisce la lista di tutti i pazienti
         if (patientIdHeader == null || patientIdHeader.isBlank()) {
+            // ETag dal version stamp della tabella patients: 304 senza interrogare i pazienti
+            String etag = resourceVersions.collectionETag(ResourceVersionService.PATIENTS);
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
             List<PatientResponse> allPatients = patientService.getAllPatients();
-            return ResponseEntity.ok(allPatients);
+            return ResponseEntity.ok().eTag(etag).body(allPatients);
         }
         
         // Se l'header è presente, restituisce il profilo del paziente
@@ -107,8 +121,12 @@ public class PatientController {
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid UUID format");
         }
+        String etag = resourceVersions.collectionETag(ResourceVersionService.PATIENTS, patientId);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         PatientResponse response = patientService.getPatientProfile(patientId);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(etag).body(response);
     }
 
 
@@ -175,6 +193,42 @@ public class PatientController {
 
 
 
+    // Recupero incrementale dei pazienti GET api/patients/changes + swagger documentation per ADMIN
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Modifiche ai pazienti (delta sync, Admin)",
+            description = "Restituisce solo i pazienti creati o modificati dopo il watermark e gli ID di quelli eliminati. Senza 'since' restituisce tutto, a pagine. Richiede l'header X-Demo-Admin-Id."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Changes since the watermark",
+                    content = @Content(schema = @Schema(implementation = ChangesResponse.class))
+            ),
+            @ApiResponse(responseCode = "400", description = "Bad request - missing header, invalid UUID format or invalid watermark"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - admin not authorized"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<ChangesResponse<PatientResponse>> getPatientChanges(
+            @Parameter(description = "Watermark returned by the previous call; omit for a full sync")
+            @RequestParam(required = false) String since,
+            @Parameter(description = "Maximum number of changes to return")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "UUID of the admin. Required.", required = true, example = "880e8400-e29b-41d4-a716-446655440001")
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader) {
+
+        validateAdminHeader(adminIdHeader);
+        UUID adminId = parseUuid(adminIdHeader, HEADER_ADMIN);
+
+        if (!adminRepository.existsById(adminId)) {
+            throw new ForbiddenException("Accesso non autorizzato");
+        }
+
+        return ResponseEntity.ok(patientService.getPatientChanges(since, limit));
+    }
+
+
+
 // Recupero il profilo del paziente GET api/patients/{patientId} + swagger documentation per ADMIN
     @GetMapping(value = "/{patientId}", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(
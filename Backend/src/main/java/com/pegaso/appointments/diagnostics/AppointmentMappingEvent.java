@@ -0,0 +1,55 @@
+package com.pegaso.appointments.diagnostics;
+
+import com.pegaso.appointments.sqlbudget.SqlStatementStats;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Evento JFR della conversione in DTO delle liste di appuntamenti (getAppointmentsAs*): le associazioni lazy
+// vengono caricate qui, sqlStatements conta le query eseguite durante il mapping
+@Name("com.pegaso.appointments.AppointmentMapping")
+@Label("Appointment Mapping")
+@Category({"Appointments", "Read"})
+@Description("Mapping of an appointment list to response DTOs")
+@StackTrace(false)
+public class AppointmentMappingEvent extends Event {
+
+    @Label("Caller Role")
+    String callerRole;
+
+    @Label("Appointments")
+    int appointments;
+
+    @Label("SQL Statements")
+    @Description("Statements executed while mapping (lazy loading), -1 outside an HTTP request")
+    int sqlStatements;
+
+    private transient SqlStatementStats stats;
+    private transient int statementsAtStart;
+
+    public static AppointmentMappingEvent start(CallerRole callerRole) {
+        AppointmentMappingEvent event = new AppointmentMappingEvent();
+        if (event.isEnabled()) {
+            event.callerRole = callerRole.name();
+            event.stats = SqlStatementStats.current();
+            event.statementsAtStart = event.stats == null ? 0 : event.stats.statements();
+            event.begin();
+        }
+        return event;
+    }
+
+    public void finish(int appointments) {
+        if (!isEnabled()) {
+            return;
+        }
+        end();
+        if (shouldCommit()) {
+            this.appointments = appointments;
+            this.sqlStatements = stats == null ? -1 : stats.statements() - statementsAtStart;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.pegaso.appointments.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Evento JFR di una prenotazione (POST /api/appointments), dalla prima query al termine della transazione:
+// lastPhase indica dove si è fermata una prenotazione rifiutata
+@Name("com.pegaso.appointments.Booking")
+@Label("Appointment Booking")
+@Category({"Appointments", "Booking"})
+@Description("Appointment booking, from the first query to the end of the transaction")
+@StackTrace(false)
+public class BookingEvent extends Event {
+
+    @Label("Caller Role")
+    String callerRole;
+
+    @Label("Exam Id")
+    String examId;
+
+    @Label("Doctor Probes")
+    @Description("Doctors checked for availability")
+    int doctorProbes;
+
+    @Label("Last Phase")
+    String lastPhase;
+
+    @Label("Outcome")
+    String outcome;
+}
@@ -0,0 +1,30 @@
+package com.pegaso.appointments.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Evento JFR di una fase della prenotazione (validation, patient_overlap, doctor_selection, insert)
+@Name("com.pegaso.appointments.BookingPhase")
+@Label("Appointment Booking Phase")
+@Category({"Appointments", "Booking"})
+@Description("One phase of an appointment booking")
+@StackTrace(false)
+public class BookingPhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Caller Role")
+    String callerRole;
+
+    @Label("Exam Id")
+    String examId;
+
+    @Label("Doctor Probes")
+    @Description("Doctors checked for availability (doctor_selection phase only)")
+    int doctorProbes;
+}
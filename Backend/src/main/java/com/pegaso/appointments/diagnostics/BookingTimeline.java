@@ -0,0 +1,95 @@
+package com.pegaso.appointments.diagnostics;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+// Eventi JFR di una prenotazione: ogni chiamata a phase() chiude la fase precedente e ne apre una nuova, l'evento
+// complessivo si chiude al termine della transazione (la fase insert comprende quindi il flush e il commit).
+// Con gli eventi disabilitati (nessuna registrazione attiva) il costo è quello di qualche controllo isEnabled()
+public final class BookingTimeline {
+
+    public static final String VALIDATION = "validation";
+    public static final String PATIENT_OVERLAP = "patient_overlap";
+    public static final String DOCTOR_SELECTION = "doctor_selection";
+    public static final String INSERT = "insert";
+
+    public static final String OUTCOME_CREATED = "created";
+    public static final String OUTCOME_REJECTED = "rejected";
+
+    private final BookingEvent booking = new BookingEvent();
+    private final String callerRole;
+    private final String examId;
+    private BookingPhaseEvent phase;
+    private int doctorProbes;
+
+    private BookingTimeline(CallerRole callerRole, UUID examId) {
+        this.callerRole = callerRole.name();
+        this.examId = examId == null ? null : examId.toString();
+        booking.begin();
+    }
+
+    public static BookingTimeline begin(CallerRole callerRole, UUID examId) {
+        return new BookingTimeline(callerRole, examId);
+    }
+
+    public void phase(String name) {
+        endPhase();
+        booking.lastPhase = name;
+        BookingPhaseEvent next = new BookingPhaseEvent();
+        if (next.isEnabled()) {
+            next.phase = name;
+            next.begin();
+            phase = next;
+        }
+    }
+
+    public void doctorProbes(int probes) {
+        doctorProbes = probes;
+        if (phase != null) {
+            phase.doctorProbes = probes;
+        }
+    }
+
+    // Chiusura degli eventi al commit o al rollback della transazione corrente
+    public void endAfterTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Booking timeline requires an active transaction");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                end(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    public void end(boolean created) {
+        endPhase();
+        if (!booking.isEnabled()) {
+            return;
+        }
+        booking.end();
+        if (booking.shouldCommit()) {
+            booking.callerRole = callerRole;
+            booking.examId = examId;
+            booking.doctorProbes = doctorProbes;
+            booking.outcome = created ? OUTCOME_CREATED : OUTCOME_REJECTED;
+            booking.commit();
+        }
+    }
+
+    private void endPhase() {
+        if (phase == null) {
+            return;
+        }
+        phase.end();
+        if (phase.shouldCommit()) {
+            phase.callerRole = callerRole;
+            phase.examId = examId;
+            phase.commit();
+        }
+        phase = null;
+    }
+}
@@ -0,0 +1,8 @@
+package com.pegaso.appointments.diagnostics;
+
+// Ruolo del chiamante riportato negli eventi JFR (header X-Demo-*)
+public enum CallerRole {
+    ADMIN,
+    DOCTOR,
+    PATIENT
+}
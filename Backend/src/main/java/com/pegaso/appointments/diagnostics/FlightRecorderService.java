@@ -0,0 +1,230 @@
+package com.pegaso.appointments.diagnostics;
+
+import com.pegaso.appointments.exception.BadRequestException;
+import com.pegaso.appointments.exception.ConflictException;
+import com.pegaso.appointments.exception.ResourceNotFoundException;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Registrazione JFR gestita dall'applicazione: parte all'avvio (always-on, con un limite di età e dimensione) e può
+// essere fermata, riavviata o scaricata da /api/admin/recordings senza collegare profiler esterni.
+// Le impostazioni sono quelle del profilo JDK scelto più jfr/appointments.jfc per gli eventi applicativi
+@Component
+@Slf4j
+public class FlightRecorderService {
+
+    static final String SETTINGS_RESOURCE = "/jfr/appointments.jfc";
+
+    private static final Set<String> PROFILES = Set.of("default", "profile");
+    private static final String FILE_PREFIX = "appointments-";
+    private static final DateTimeFormatter FILE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+
+    @Value("${app.diagnostics.jfr.always-on:true}")
+    private boolean alwaysOn;
+
+    @Value("${app.diagnostics.jfr.profile:default}")
+    private String defaultProfile;
+
+    @Value("${app.diagnostics.jfr.max-age-minutes:30}")
+    private long defaultMaxAgeMinutes;
+
+    @Value("${app.diagnostics.jfr.max-size-mb:100}")
+    private long defaultMaxSizeMb;
+
+    @Value("${app.diagnostics.jfr.dump-dir:${java.io.tmpdir}/appointments-jfr}")
+    private Path dumpDir;
+
+    @Value("${app.diagnostics.jfr.max-dumps:10}")
+    private int maxDumps;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Recording recording;
+    private String profile;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startAlwaysOn() {
+        if (!alwaysOn) {
+            return;
+        }
+        if (!FlightRecorder.isAvailable()) {
+            log.warn("JFR not available in this JVM, always-on recording disabled");
+            return;
+        }
+        try {
+            RecordingInfo info = start(null, null, null);
+            log.info("Always-on JFR recording {} started (profile {}, max age {} min, max size {} MB)",
+                    info.id(), info.profile(), info.maxAge().toMinutes(), info.maxSizeBytes() / (1024 * 1024));
+        } catch (RuntimeException e) {
+            log.warn("Always-on JFR recording not started: {}", e.getMessage());
+        }
+    }
+
+    public RecordingInfo start(Integer maxAgeMinutes, Integer maxSizeMb, String requestedProfile) {
+        String selectedProfile = requestedProfile == null || requestedProfile.isBlank()
+                ? defaultProfile
+                : requestedProfile.trim().toLowerCase();
+        if (!PROFILES.contains(selectedProfile)) {
+            throw new BadRequestException("Profilo JFR non valido: " + requestedProfile);
+        }
+        lock.lock();
+        try {
+            if (recording != null) {
+                throw new ConflictException("Una registrazione JFR è già attiva");
+            }
+            Recording started = new Recording(settings(selectedProfile));
+            started.setName("appointments");
+            started.setToDisk(true);
+            started.setMaxAge(Duration.ofMinutes(maxAgeMinutes != null ? maxAgeMinutes : defaultMaxAgeMinutes));
+            started.setMaxSize((maxSizeMb != null ? maxSizeMb : defaultMaxSizeMb) * 1024 * 1024);
+            // Allo spegnimento della JVM (anche senza stop esplicito) il contenuto finisce nel file di destinazione
+            started.setDestination(newDumpFile());
+            started.setDumpOnExit(true);
+            started.start();
+            recording = started;
+            profile = selectedProfile;
+            return info(started);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Optional<RecordingInfo> current() {
+        lock.lock();
+        try {
+            return Optional.ofNullable(recording).map(this::info);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Ferma la registrazione e la scrive nella destinazione (dumpFile della risposta)
+    public RecordingInfo stop() {
+        lock.lock();
+        try {
+            Recording stopped = requireRecording();
+            stopped.stop();
+            RecordingInfo info = info(stopped);
+            stopped.close();
+            recording = null;
+            pruneDumps();
+            return info;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Copia del contenuto attuale della registrazione, che continua
+    public Path dump() {
+        lock.lock();
+        try {
+            Recording running = requireRecording();
+            Path file = newDumpFile();
+            running.dump(file);
+            pruneDumps();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            if (recording != null) {
+                // Lo stop scrive la destinazione: la registrazione sopravvive allo spegnimento dell'applicazione
+                recording.stop();
+                recording.close();
+                recording = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Recording requireRecording() {
+        if (recording == null) {
+            throw new ResourceNotFoundException("Nessuna registrazione JFR attiva");
+        }
+        return recording;
+    }
+
+    private Map<String, String> settings(String selectedProfile) throws IOException {
+        try (InputStream input = FlightRecorderService.class.getResourceAsStream(SETTINGS_RESOURCE)) {
+            if (input == null) {
+                throw new IOException("Missing JFR settings " + SETTINGS_RESOURCE);
+            }
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration(selectedProfile).getSettings());
+            try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+                settings.putAll(Configuration.create(reader).getSettings());
+            }
+            return settings;
+        } catch (ParseException e) {
+            throw new IOException("Invalid JFR settings " + SETTINGS_RESOURCE, e);
+        }
+    }
+
+    private Path newDumpFile() throws IOException {
+        Files.createDirectories(dumpDir);
+        return dumpDir.resolve(FILE_PREFIX + FILE_TIMESTAMP.format(Instant.now()) + ".jfr");
+    }
+
+    // Vengono tenuti solo gli ultimi max-dumps file (per data di scrittura: la destinazione prende il nome dall'avvio)
+    private void pruneDumps() {
+        try (Stream<Path> files = Files.list(dumpDir)) {
+            List<Path> dumps = files
+                    .filter(file -> file.getFileName().toString().startsWith(FILE_PREFIX))
+                    .sorted(Comparator.comparingLong((Path file) -> file.toFile().lastModified()).reversed())
+                    .toList();
+            for (Path old : dumps.subList(Math.min(maxDumps, dumps.size()), dumps.size())) {
+                Files.deleteIfExists(old);
+            }
+        } catch (IOException e) {
+            log.warn("Could not prune JFR dumps in {}: {}", dumpDir, e.getMessage());
+        }
+    }
+
+    private RecordingInfo info(Recording source) {
+        return new RecordingInfo(source.getId(), source.getState(), profile, source.getStartTime(),
+                source.getMaxAge(), source.getMaxSize(), source.getDestination());
+    }
+
+    public record RecordingInfo(long id, RecordingState state, String profile, Instant startTime,
+                                Duration maxAge, long maxSizeBytes, Path destination) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.pegaso.appointments.diagnostics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Rilevamento del pinning dei virtual thread tramite JFR (evento jdk.VirtualThreadPinned): un virtual thread che
+// si blocca dentro un blocco synchronized o una chiamata nativa tiene occupato il suo carrier thread, e con pochi
+// carrier (uno per core) qualche pinning lungo basta ad annullare il vantaggio dei virtual thread.
+// Ogni punto di pinning viene loggato una volta con lo stack; il contatore jvm.threads.virtual.pinned è
+// etichettato con il primo frame dell'applicazione
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(name = "app.diagnostics.pinning.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.pegaso.appointments";
+    private static final int LOGGED_FRAMES = 15;
+
+    private final MeterRegistry meterRegistry;
+    private final Set<String> reportedStacks = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.diagnostics.pinning.threshold-ms:20}")
+    private long thresholdMs;
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Virtual thread pinning monitor started (threshold {} ms)", thresholdMs);
+    }
+
+    @Override
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace == null ? List.of() : stackTrace.getFrames();
+        String appFrame = frames.stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(this::format)
+                .filter(frame -> frame.startsWith(APP_PACKAGE))
+                .findFirst()
+                .orElse("none");
+        meterRegistry.counter("jvm.threads.virtual.pinned", "frame", appFrame).increment();
+
+        String stack = frames.stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> "\tat " + format(frame))
+                .collect(Collectors.joining("\n"));
+        if (reportedStacks.add(stack)) {
+            log.warn("Virtual thread pinned its carrier for {} ms (first application frame: {})\n{}",
+                    event.getDuration().toMillis(), appFrame, stack);
+        } else {
+            log.debug("Virtual thread pinned its carrier for {} ms at {}", event.getDuration().toMillis(), appFrame);
+        }
+    }
+
+    private String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -62,4 +62,7 @@ public class AppointmentResponse {
 
     @Schema(description = "Name of the exam")
     private String examName;
+
+    @Schema(description = "Row version, also returned as ETag and accepted by If-Match on PATCH", example = "3")
+    private Long version;
 }
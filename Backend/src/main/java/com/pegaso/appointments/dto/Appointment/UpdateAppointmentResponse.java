@@ -41,4 +41,7 @@ public class UpdateAppointmentResponse {
 
     @Schema(description = "Name of the exam")
     private String examName;
+
+    @Schema(description = "Row version after the update, also returned as ETag", example = "4")
+    private Long version;
 }
@@ -0,0 +1,44 @@
+package com.pegaso.appointments.dto.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// DTO per una voce del registro di audit (GET /api/admin/audit)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "One audited mutation")
+public class AuditEntryResponse {
+
+    @Schema(description = "Audit entry id", example = "1024")
+    private long id;
+
+    @Schema(description = "When the change was committed")
+    private OffsetDateTime occurredAt;
+
+    @Schema(description = "Who made the change: admin, doctor, patient, anonymous or system", example = "admin")
+    private String actorType;
+
+    @Schema(description = "UUID from the request header of the actor (null for system and anonymous)")
+    private UUID actorId;
+
+    @Schema(description = "Changed entity: appointment, doctor, patient or exam", example = "appointment")
+    private String entityType;
+
+    @Schema(description = "UUID of the changed entity")
+    private UUID entityId;
+
+    @Schema(description = "INSERT, UPDATE or DELETE", example = "UPDATE")
+    private String action;
+
+    @Schema(description = "Inserted values, changed fields with 'from' and 'to', or the deleted state")
+    private JsonNode changes;
+}
@@ -0,0 +1,64 @@
+package com.pegaso.appointments.dto.cache;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// DTO per le statistiche della cache di secondo livello di Hibernate (GET /api/admin/cache/stats)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Hibernate second-level and query cache statistics since startup")
+public class CacheStatsResponse {
+
+    @Schema(description = "False if hibernate.generate_statistics is disabled: all counters are then zero")
+    private boolean statisticsEnabled;
+
+    @Schema(description = "Entity cache hits")
+    private long secondLevelCacheHitCount;
+
+    @Schema(description = "Entity cache misses")
+    private long secondLevelCacheMissCount;
+
+    @Schema(description = "Entity cache puts")
+    private long secondLevelCachePutCount;
+
+    @Schema(description = "Query cache hits")
+    private long queryCacheHitCount;
+
+    @Schema(description = "Query cache misses")
+    private long queryCacheMissCount;
+
+    @Schema(description = "Query cache puts")
+    private long queryCachePutCount;
+
+    @Schema(description = "JDBC statements prepared since startup")
+    private long prepareStatementCount;
+
+    @Schema(description = "Per-region counters")
+    private List<Region> regions;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Region {
+
+        @Schema(description = "Region name", example = "exams")
+        private String name;
+
+        private long hitCount;
+
+        private long missCount;
+
+        private long putCount;
+
+        @Schema(description = "Entries currently held by the region (-1 if not available)")
+        private long elementCountInMemory;
+    }
+}
@@ -0,0 +1,29 @@
+package com.pegaso.appointments.dto.diagnostics;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// DTO per l'avvio di una registrazione JFR (POST /api/admin/recordings), tutti i campi sono opzionali
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request DTO to start a JFR recording")
+public class FlightRecordingRequest {
+
+    @Min(value = 1, message = "Max age minutes must be greater than 0")
+    @Schema(description = "Minutes of events kept in the recording (default: app.diagnostics.jfr.max-age-minutes)",
+            example = "30", minimum = "1")
+    private Integer maxAgeMinutes;
+
+    @Min(value = 1, message = "Max size MB must be greater than 0")
+    @Schema(description = "Size limit of the recording in MB (default: app.diagnostics.jfr.max-size-mb)",
+            example = "100", minimum = "1")
+    private Integer maxSizeMb;
+
+    @Schema(description = "JDK profile combined with the application events: default (about 1% overhead) or profile",
+            example = "default", allowableValues = {"default", "profile"})
+    private String profile;
+}
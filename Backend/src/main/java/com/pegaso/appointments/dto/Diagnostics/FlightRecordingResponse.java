@@ -0,0 +1,39 @@
+package com.pegaso.appointments.dto.diagnostics;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// DTO per lo stato di una registrazione JFR
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "JFR recording state")
+public class FlightRecordingResponse {
+
+    @Schema(description = "Recording id", example = "3")
+    private Long id;
+
+    @Schema(description = "Recording state", example = "RUNNING")
+    private String state;
+
+    @Schema(description = "JDK profile combined with the application events", example = "default")
+    private String profile;
+
+    @Schema(description = "Start of the recording")
+    private Instant startTime;
+
+    @Schema(description = "Minutes of events kept", example = "30")
+    private Long maxAgeMinutes;
+
+    @Schema(description = "Size limit in MB", example = "100")
+    private Long maxSizeMb;
+
+    @Schema(description = "File written when the recording was stopped", example = "/tmp/appointments-jfr/appointments-20261019-101500.jfr")
+    private String dumpFile;
+}
@@ -0,0 +1,37 @@
+package com.pegaso.appointments.dto.logging;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// DTO per l'attivazione temporanea di un livello di log per un chiamante (POST /api/admin/log-levels)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request DTO for a temporary log level bound to one caller")
+public class CallerLogLevelRequest {
+
+    @NotBlank(message = "Caller id is required")
+    @Schema(description = "Caller id as sent in the X-Demo-Admin-Id, X-Demo-Doctor-Id or X-Demo-Patient-Id header",
+            example = "550e8400-e29b-41d4-a716-446655440000", required = true)
+    private String callerId;
+
+    @NotBlank(message = "Level is required")
+    @Pattern(regexp = "(?i)TRACE|DEBUG|INFO", message = "Level must be TRACE, DEBUG or INFO")
+    @Schema(description = "Lowest level logged for the caller", example = "DEBUG", required = true)
+    private String level;
+
+    @Schema(description = "Logger or package to raise (default: all loggers)", example = "org.hibernate.SQL")
+    private String logger;
+
+    @NotNull(message = "Duration minutes is required")
+    @Min(value = 1, message = "Duration minutes must be greater than 0")
+    @Schema(description = "Minutes after which the level expires (at most app.logging.caller-level-max-minutes)",
+            example = "10", required = true, minimum = "1")
+    private Integer durationMinutes;
+}
@@ -0,0 +1,30 @@
+package com.pegaso.appointments.dto.logging;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// DTO per un livello di log attivo per un chiamante
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Temporary log level active for one caller")
+public class CallerLogLevelResponse {
+
+    @Schema(description = "Caller id (lower case)", example = "550e8400-e29b-41d4-a716-446655440000")
+    private String callerId;
+
+    @Schema(description = "Lowest level logged for the caller", example = "DEBUG")
+    private String level;
+
+    @Schema(description = "Logger or package raised (ROOT = all loggers)", example = "org.hibernate.SQL")
+    private String logger;
+
+    @Schema(description = "Expiry of the level")
+    private Instant expiresAt;
+}
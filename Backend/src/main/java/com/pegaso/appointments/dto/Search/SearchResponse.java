@@ -0,0 +1,30 @@
+package com.pegaso.appointments.dto.search;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// DTO per la risposta paginata delle ricerche testuali (GET /api/admin/.../search)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "One page of search results, ordered by relevance")
+public class SearchResponse<T> {
+
+    @Schema(description = "Matching rows, most relevant first")
+    private List<T> items;
+
+    @Schema(description = "Zero-based page number", example = "0")
+    private int page;
+
+    @Schema(description = "Page size", example = "20")
+    private int size;
+
+    @Schema(description = "True if another page is available")
+    private boolean hasMore;
+}
@@ -0,0 +1,32 @@
+package com.pegaso.appointments.dto.sync;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+// DTO per la risposta degli endpoint di delta sync (GET .../changes)
+// Il client conserva il watermark e lo ripassa come "since" alla richiesta successiva
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Incremental changes since a watermark")
+public class ChangesResponse<T> {
+
+    @Schema(description = "Rows created or updated after the watermark, ordered by change time")
+    private List<T> items;
+
+    @Schema(description = "Identifiers of rows deleted after the watermark")
+    private List<UUID> deletedIds;
+
+    @Schema(description = "Opaque watermark to pass as 'since' in the next request", example = "1768992600000000_ffffffff-ffff-ffff-ffff-ffffffffffff")
+    private String watermark;
+
+    @Schema(description = "True if more changes are available: request again immediately with the returned watermark")
+    private boolean hasMore;
+}
@@ -11,6 +11,7 @@ import java.util.UUID;
 
 // Mappatura della tabella appointments tramite spring JPA/Hibernate
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "appointments")
 @Data
 @NoArgsConstructor
@@ -49,6 +50,10 @@ public class Appointment {
     @Column(name = "contraindications", columnDefinition = "TEXT")
     private String contraindications;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
 
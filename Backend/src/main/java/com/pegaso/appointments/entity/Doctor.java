@@ -5,12 +5,17 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "doctors")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "doctors")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -37,6 +42,10 @@ public class Doctor {
     @Column(name = "phone_number", length = 20)
     private String phoneNumber;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
 
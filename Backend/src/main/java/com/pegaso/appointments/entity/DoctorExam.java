@@ -5,12 +5,17 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.OffsetDateTime;
 
 // Mappatura della tabella doctor_exams tramite spring JPA/Hibernate
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "doctor_exams")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "doctor_exams")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
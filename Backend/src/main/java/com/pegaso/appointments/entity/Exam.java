@@ -5,13 +5,18 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
 // Mappatura della tabella exams tramite spring JPA/Hibernate e lombok per generazione automatica di metodi e costruttori
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "exams")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "exams")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -34,6 +39,10 @@ public class Exam {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
 
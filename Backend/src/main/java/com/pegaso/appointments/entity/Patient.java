@@ -12,6 +12,7 @@ import java.util.UUID;
 
 // Entity per la gestione dei pazienti, mappata tramite spring JPA/Hibernate
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "patients")
 @Data
 @NoArgsConstructor
@@ -41,6 +42,10 @@ public class Patient {
     @Column(name = "phone_number", length = 20)
     private String phoneNumber;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
 
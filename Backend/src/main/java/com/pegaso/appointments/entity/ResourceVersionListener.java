@@ -0,0 +1,46 @@
+package com.pegaso.appointments.entity;
+
+import com.pegaso.appointments.service.ResourceVersionService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+// Listener JPA che invalida il version stamp della collezione quando un'entità viene scritta
+// (l'invalidazione avviene dopo il commit, vedi ResourceVersionService)
+@Component
+public class ResourceVersionListener {
+
+    private final ResourceVersionService resourceVersions;
+
+    public ResourceVersionListener(ResourceVersionService resourceVersions) {
+        this.resourceVersions = resourceVersions;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Object entity) {
+        String collection = collectionOf(entity);
+        if (collection != null) {
+            resourceVersions.invalidateAfterCommit(collection);
+        }
+    }
+
+    // Le abilitazioni agli esami fanno parte del profilo del dottore
+    private String collectionOf(Object entity) {
+        if (entity instanceof Appointment) {
+            return ResourceVersionService.APPOINTMENTS;
+        }
+        if (entity instanceof Doctor || entity instanceof DoctorExam) {
+            return ResourceVersionService.DOCTORS;
+        }
+        if (entity instanceof Patient) {
+            return ResourceVersionService.PATIENTS;
+        }
+        if (entity instanceof Exam) {
+            return ResourceVersionService.EXAMS;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,24 @@
+package com.pegaso.appointments.event;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Evento applicativo pubblicato a ogni modifica di un appuntamento, all'interno della transazione che la esegue.
+// I listener che devono agire solo a modifica confermata usano @TransactionalEventListener
+public record AppointmentChangedEvent(
+        UUID appointmentId,
+        UUID doctorId,
+        UUID patientId,
+        ChangeType type,
+        String previousStatus,
+        String status,
+        OffsetDateTime scheduledAt,
+        OffsetDateTime occurredAt) {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED,
+        AUTO_COMPLETED
+    }
+}
@@ -1,6 +1,10 @@
 package com.pegaso.appointments.exception;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -9,6 +13,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingRequestHeaderException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -17,6 +22,9 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @Value("${app.bulkhead.reporting.retry-after-seconds:5}")
+    private int reportingRetryAfterSeconds;
+
     // Gestione delle eccezioni di validazione
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
@@ -66,6 +74,28 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
     }
 
+    // Gestione delle richieste condizionali fallite (If-Match non corrispondente)
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Map<String, Object>> handlePreconditionFailedException(PreconditionFailedException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", HttpStatus.PRECONDITION_FAILED.value());
+        response.put("error", "Precondition failed");
+        response.put("message", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(response);
+    }
+
+    // Gestione delle modifiche concorrenti rilevate dal lock ottimistico (@Version)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", HttpStatus.CONFLICT.value());
+        response.put("error", "Conflict");
+        response.put("message", "La risorsa è stata modificata da un'altra richiesta. Ricarica i dati e riprova.");
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
     // Gestione delle eccezioni di accesso non autorizzato
     @ExceptionHandler(ForbiddenException.class)
     public ResponseEntity<Map<String, Object>> handleForbiddenException(ForbiddenException ex) {
@@ -134,4 +164,19 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
+
+    // Gestione delle richieste di report rifiutate dal bulkhead (coda piena) o non completate entro il timeout
+    @ExceptionHandler({TaskRejectedException.class, AsyncRequestTimeoutException.class})
+    public ResponseEntity<Map<String, Object>> handleReportingUnavailable(Exception ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.put("error", "Service unavailable");
+        response.put("message", ex instanceof TaskRejectedException
+                ? "Troppi report in corso, riprovare più tardi"
+                : "Report non completato entro il tempo massimo");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(reportingRetryAfterSeconds))
+                .body(response);
+    }
 }
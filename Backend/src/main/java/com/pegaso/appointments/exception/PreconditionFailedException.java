@@ -0,0 +1,9 @@
+package com.pegaso.appointments.exception;
+
+// PreconditionFailedException per le richieste condizionali (If-Match) su una risorsa modificata nel frattempo
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
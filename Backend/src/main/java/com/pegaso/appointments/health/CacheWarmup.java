@@ -0,0 +1,86 @@
+package com.pegaso.appointments.health;
+
+import com.pegaso.appointments.repository.DoctorExamRepository;
+import com.pegaso.appointments.repository.DoctorRepository;
+import com.pegaso.appointments.service.ExamService;
+import com.pegaso.appointments.service.ResourceVersionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Riscaldamento delle cache all'avvio: dottori, esami e abilitazioni nella cache di secondo livello, version stamp
+// delle collezioni. Finché non è completato il nodo risulta non pronto ("warmup" nel gruppo readiness);
+// se il database non è raggiungibile il riscaldamento viene ritentato periodicamente
+@Component("warmup")
+@RequiredArgsConstructor
+@Slf4j
+public class CacheWarmup implements HealthIndicator {
+
+    private static final List<String> COLLECTIONS = List.of(
+            ResourceVersionService.APPOINTMENTS, ResourceVersionService.DOCTORS,
+            ResourceVersionService.PATIENTS, ResourceVersionService.EXAMS);
+
+    private final DoctorRepository doctorRepository;
+    private final DoctorExamRepository doctorExamRepository;
+    private final ExamService examService;
+    private final ResourceVersionService resourceVersionService;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile boolean attempted;
+    private volatile boolean primed;
+    private volatile long durationMs;
+    private volatile String lastError;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        warmUp();
+        attempted = true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.health.warmup.retry-ms:10000}")
+    public void retry() {
+        if (attempted && !primed) {
+            warmUp();
+        }
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                doctorRepository.findAll();
+                doctorExamRepository.findAll();
+            });
+            examService.getAllExams(null);
+            COLLECTIONS.forEach(resourceVersionService::stamp);
+            durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            lastError = null;
+            primed = true;
+            log.info("Cache warm-up completed in {} ms", durationMs);
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            log.warn("Cache warm-up failed, retrying: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Health health() {
+        if (primed) {
+            return Health.up().withDetail("durationMs", durationMs).build();
+        }
+        Health.Builder builder = Health.outOfService().withDetail("state", attempted ? "retrying" : "warming up");
+        if (lastError != null) {
+            builder.withDetail("error", lastError);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.pegaso.appointments.health;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Health indicator con risultato in cache per un intervallo breve: con qualunque frequenza di polling (Docker,
+// bilanciatore, Prometheus) la sonda viene eseguita al più una volta per intervallo. Mentre una sonda è in corso
+// le altre richieste ricevono l'ultimo risultato invece di accodarsi
+public abstract class CachedHealthIndicator implements HealthIndicator {
+
+    private final long ttlNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Health last;
+    private volatile long checkedAt;
+
+    protected CachedHealthIndicator(long ttlMs) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    @Override
+    public Health health() {
+        Health cached = last;
+        if (cached != null && isFresh()) {
+            return cached;
+        }
+        if (cached == null) {
+            lock.lock();
+        } else if (!lock.tryLock()) {
+            return cached;
+        }
+        try {
+            if (last != null && isFresh()) {
+                return last;
+            }
+            Health health;
+            try {
+                health = probe();
+            } catch (Exception e) {
+                health = Health.down(e).build();
+            }
+            checkedAt = System.nanoTime();
+            last = health;
+            return health;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isFresh() {
+        return System.nanoTime() - checkedAt < ttlNanos;
+    }
+
+    // Esecuzione effettiva della sonda (chiamata al più una volta per intervallo)
+    protected abstract Health probe() throws Exception;
+}
@@ -0,0 +1,56 @@
+package com.pegaso.appointments.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Margine del pool "booking": il nodo smette di essere pronto quando le connessioni sono tutte occupate e più di
+// app.health.pool.max-waiting richieste sono in attesa (nuovo traffico finirebbe solo in coda).
+// Legge le statistiche in memoria di Hikari, senza accedere al database
+@Component("connectionPool")
+public class ConnectionPoolHealthIndicator implements HealthIndicator {
+
+    private final HikariDataSource booking;
+    private final HikariDataSource reporting;
+    private final int maxWaiting;
+
+    public ConnectionPoolHealthIndicator(@Qualifier("bookingDataSource") HikariDataSource booking,
+                                         @Qualifier("reportingDataSource") HikariDataSource reporting,
+                                         @Value("${app.health.pool.max-waiting:5}") int maxWaiting) {
+        this.booking = booking;
+        this.reporting = reporting;
+        this.maxWaiting = maxWaiting;
+    }
+
+    @Override
+    public Health health() {
+        HikariPoolMXBean pool = booking.getHikariPoolMXBean();
+        if (pool == null) {
+            return Health.outOfService().withDetail("booking", "pool not started").build();
+        }
+        int free = booking.getMaximumPoolSize() - pool.getActiveConnections();
+        boolean saturated = free <= 0 && pool.getThreadsAwaitingConnection() > maxWaiting;
+        return (saturated ? Health.outOfService() : Health.up())
+                .withDetail("booking", stats(booking, pool))
+                .withDetail("reporting", stats(reporting, reporting.getHikariPoolMXBean()))
+                .build();
+    }
+
+    private static Map<String, Object> stats(HikariDataSource dataSource, HikariPoolMXBean pool) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("max", dataSource.getMaximumPoolSize());
+        if (pool != null) {
+            stats.put("active", pool.getActiveConnections());
+            stats.put("idle", pool.getIdleConnections());
+            stats.put("waiting", pool.getThreadsAwaitingConnection());
+        }
+        return stats;
+    }
+}
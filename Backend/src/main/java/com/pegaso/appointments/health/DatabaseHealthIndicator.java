@@ -0,0 +1,40 @@
+package com.pegaso.appointments.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+// Connettività al database verificata con una connessione del pool "booking" (Connection.isValid), in cache.
+// Sostituisce l'indicatore "db" di Actuator, che interroga entrambi i pool a ogni richiesta di health
+@Component("database")
+public class DatabaseHealthIndicator extends CachedHealthIndicator {
+
+    private final HikariDataSource dataSource;
+    private final int validationTimeoutSeconds;
+
+    public DatabaseHealthIndicator(@Qualifier("bookingDataSource") HikariDataSource dataSource,
+                                   @Value("${app.health.cache-ttl-ms:5000}") long ttlMs,
+                                   @Value("${app.health.database.validation-timeout-seconds:2}") int validationTimeoutSeconds) {
+        super(ttlMs);
+        this.dataSource = dataSource;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    @Override
+    protected Health probe() throws Exception {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean valid = connection.isValid(validationTimeoutSeconds);
+            Health.Builder builder = valid ? Health.up() : Health.down();
+            return builder
+                    .withDetail("database", connection.getMetaData().getDatabaseProductName())
+                    .withDetail("validationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.pegaso.appointments.health;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// Ritardo dello scheduler dei job @Scheduled: un battito a intervallo fisso registra di quanto è partito in ritardo.
+// Se lo scheduler è bloccato (job lunghi, thread esauriti) il battito non arriva e il ritardo cresce fino a rendere
+// il nodo non pronto
+@Component("scheduler")
+public class SchedulerHealthIndicator implements HealthIndicator {
+
+    private final long heartbeatMs;
+    private final long maxLagMs;
+
+    private volatile long lastBeat = System.nanoTime();
+    private volatile long lastLagMs;
+
+    public SchedulerHealthIndicator(@Value("${app.health.scheduler.heartbeat-ms:1000}") long heartbeatMs,
+                                    @Value("${app.health.scheduler.max-lag-ms:60000}") long maxLagMs) {
+        this.heartbeatMs = heartbeatMs;
+        this.maxLagMs = maxLagMs;
+    }
+
+    @Scheduled(fixedRateString = "${app.health.scheduler.heartbeat-ms:1000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        lastLagMs = Math.max(0, TimeUnit.NANOSECONDS.toMillis(now - lastBeat) - heartbeatMs);
+        lastBeat = now;
+    }
+
+    @Override
+    public Health health() {
+        // Un battito mancato conta come ritardo anche prima che lo scheduler riparta
+        long pendingLagMs = Math.max(0, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastBeat) - heartbeatMs);
+        long lagMs = Math.max(lastLagMs, pendingLagMs);
+        return (lagMs > maxLagMs ? Health.outOfService() : Health.up())
+                .withDetail("lagMs", lagMs)
+                .withDetail("maxLagMs", maxLagMs)
+                .build();
+    }
+}
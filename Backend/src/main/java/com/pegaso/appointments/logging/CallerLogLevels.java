@@ -0,0 +1,124 @@
+package com.pegaso.appointments.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.pegaso.appointments.exception.BadRequestException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Livelli di log temporanei per un singolo chiamante (POST /api/admin/log-levels): le richieste con quell'id nel
+// MDC registrano gli eventi dal livello scelto in su anche se il logger è più restrittivo, gli altri chiamanti non
+// cambiano. Il livello scade da solo; installa anche il campionamento per categoria (SamplingTurboFilter)
+@Component
+@Slf4j
+public class CallerLogLevels {
+
+    private final LoggingProperties properties;
+    private final Map<String, CallerLevel> levels = new ConcurrentHashMap<>();
+    private final List<TurboFilter> installed;
+
+    public CallerLogLevels(LoggingProperties properties) {
+        this.properties = properties;
+        this.installed = List.of(new CallerTurboFilter(), new SamplingTurboFilter(properties.getSampling()));
+    }
+
+    @PostConstruct
+    void install() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        // Il filtro per chiamante va prima del campionamento: un ACCEPT chiude la catena
+        installed.forEach(filter -> {
+            filter.setContext(context);
+            filter.start();
+            context.addTurboFilter(filter);
+        });
+    }
+
+    @PreDestroy
+    void uninstall() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        installed.forEach(filter -> {
+            context.getTurboFilterList().remove(filter);
+            filter.stop();
+        });
+    }
+
+    public CallerLevel set(String callerId, String level, String logger, int durationMinutes) {
+        if (durationMinutes < 1 || durationMinutes > properties.getCallerLevelMaxMinutes()) {
+            throw new BadRequestException("Duration must be between 1 and " + properties.getCallerLevelMaxMinutes() + " minutes");
+        }
+        Level parsed = Level.toLevel(level, null);
+        if (parsed == null) {
+            throw new BadRequestException("Invalid log level: " + level);
+        }
+        String key = callerId.trim().toLowerCase();
+        removeExpired();
+        if (!levels.containsKey(key) && levels.size() >= properties.getCallerLevelMaxEntries()) {
+            throw new BadRequestException("Too many caller log levels active");
+        }
+        String loggerPrefix = logger == null || logger.isBlank() ? Logger.ROOT_LOGGER_NAME : logger.trim();
+        CallerLevel callerLevel = new CallerLevel(key, parsed, loggerPrefix,
+                Instant.now().plus(Duration.ofMinutes(durationMinutes)));
+        levels.put(key, callerLevel);
+        log.info("Log level {} on {} enabled for caller {} until {}", callerLevel.level(), loggerPrefix, key, callerLevel.expiresAt());
+        return callerLevel;
+    }
+
+    public boolean remove(String callerId) {
+        return levels.remove(callerId.trim().toLowerCase()) != null;
+    }
+
+    public List<CallerLevel> list() {
+        removeExpired();
+        return levels.values().stream().sorted(Comparator.comparing(CallerLevel::expiresAt)).toList();
+    }
+
+    private void removeExpired() {
+        Instant now = Instant.now();
+        levels.values().removeIf(level -> level.expiresAt().isBefore(now));
+    }
+
+    public record CallerLevel(String callerId, Level level, String logger, Instant expiresAt) {
+
+        boolean covers(String loggerName) {
+            return Logger.ROOT_LOGGER_NAME.equals(logger) || loggerName.equals(logger) || loggerName.startsWith(logger + ".");
+        }
+    }
+
+    private final class CallerTurboFilter extends TurboFilter {
+
+        @Override
+        public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+            if (levels.isEmpty()) {
+                return FilterReply.NEUTRAL;
+            }
+            String callerId = MDC.get(RequestCorrelationFilter.MDC_CALLER_ID);
+            if (callerId == null) {
+                return FilterReply.NEUTRAL;
+            }
+            CallerLevel callerLevel = levels.get(callerId);
+            if (callerLevel == null || !callerLevel.covers(logger.getName())) {
+                return FilterReply.NEUTRAL;
+            }
+            if (callerLevel.expiresAt().isBefore(Instant.now())) {
+                levels.remove(callerId, callerLevel);
+                return FilterReply.NEUTRAL;
+            }
+            return level.isGreaterOrEqual(callerLevel.level()) ? FilterReply.ACCEPT : FilterReply.NEUTRAL;
+        }
+    }
+}
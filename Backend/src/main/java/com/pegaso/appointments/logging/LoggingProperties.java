@@ -0,0 +1,25 @@
+package com.pegaso.appointments.logging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Configurazione app.logging.*: campionamento per categoria e durata massima dei livelli di log per chiamante
+@Data
+@ConfigurationProperties("app.logging")
+public class LoggingProperties {
+
+    // Frazione di eventi registrati per categoria (prefisso del logger), es. app.logging.sampling.[org.hibernate.SQL]=0.01
+    private Map<String, Double> sampling = new HashMap<>();
+
+    // Durata massima di un livello di log per chiamante (minuti)
+    private int callerLevelMaxMinutes = 60;
+
+    // Numero massimo di chiamanti con livello di log dedicato contemporaneamente
+    private int callerLevelMaxEntries = 20;
+
+    // Dimensione del ring buffer dell'appender asincrono (letta da logback-spring.xml, profilo prod)
+    private int ringBufferSize = 8192;
+}
@@ -0,0 +1,62 @@
+package com.pegaso.appointments.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+// Id di correlazione della richiesta: preso dall'header X-Request-Id (se valido) o generato, restituito nella
+// risposta e messo nel MDC insieme all'id del chiamante (header X-Demo-*), così ogni riga di log della richiesta,
+// anche nel formato JSON, è collegabile. Il MDC viene propagato ai thread del bulkhead e di @Async
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestCorrelationFilter extends OncePerRequestFilter {
+
+    public static final String HEADER_REQUEST_ID = "X-Request-Id";
+    public static final String MDC_REQUEST_ID = "requestId";
+    public static final String MDC_CALLER_ID = "callerId";
+
+    private static final List<String> CALLER_HEADERS = List.of("X-Demo-Admin-Id", "X-Demo-Doctor-Id", "X-Demo-Patient-Id");
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(HEADER_REQUEST_ID);
+        if (requestId == null || !VALID_REQUEST_ID.matcher(requestId).matches()) {
+            requestId = UUID.randomUUID().toString();
+        }
+        response.setHeader(HEADER_REQUEST_ID, requestId);
+        MDC.put(MDC_REQUEST_ID, requestId);
+        String callerId = callerId(request);
+        if (callerId != null) {
+            MDC.put(MDC_CALLER_ID, callerId);
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_REQUEST_ID);
+            MDC.remove(MDC_CALLER_ID);
+        }
+    }
+
+    private static String callerId(HttpServletRequest request) {
+        for (String header : CALLER_HEADERS) {
+            String value = request.getHeader(header);
+            if (value != null && !value.isBlank()) {
+                return value.trim().toLowerCase();
+            }
+        }
+        return null;
+    }
+}
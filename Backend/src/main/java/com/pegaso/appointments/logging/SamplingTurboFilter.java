@@ -0,0 +1,50 @@
+package com.pegaso.appointments.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Campionamento dei log per categoria: per i logger configurati viene registrata solo una frazione degli eventi
+// sotto WARN. I controlli isDebugEnabled() restano veri (una sola estrazione per evento, sulla chiamata di log):
+// gli eventi scartati non arrivano all'appender, quindi non pagano codifica JSON né scrittura
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final List<Map.Entry<String, Double>> rates;
+
+    public SamplingTurboFilter(Map<String, Double> rates) {
+        // Prefisso più lungo per primo: vince la categoria più specifica
+        this.rates = rates.entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, Double> entry) -> entry.getKey().length()).reversed())
+                .toList();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (format == null || level.isGreaterOrEqual(Level.WARN) || rates.isEmpty()) {
+            return FilterReply.NEUTRAL;
+        }
+        Double rate = rateFor(logger.getName());
+        if (rate == null) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextDouble() < rate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private Double rateFor(String loggerName) {
+        for (Map.Entry<String, Double> entry : rates) {
+            String prefix = entry.getKey();
+            if (loggerName.startsWith(prefix)
+                    && (loggerName.length() == prefix.length() || loggerName.charAt(prefix.length()) == '.')) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.pegaso.appointments.mapper;
+
+import com.pegaso.appointments.dto.appointment.AppointmentCreateResponse;
+import com.pegaso.appointments.dto.appointment.AppointmentResponse;
+import com.pegaso.appointments.entity.Appointment;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Mapping degli appuntamenti nei DTO di risposta: senza stato né dipendenze, le associazioni devono essere già
+// caricate (JOIN FETCH). Le date escono in UTC senza offset, come le restituisce l'API
+public final class AppointmentMapper {
+
+    private AppointmentMapper() {
+    }
+
+    // Risposta per dottore, paziente e admin
+    public static AppointmentResponse toResponse(Appointment a) {
+        return AppointmentResponse.builder()
+                .id(a.getId())
+                .appointmentDate(toUtcDateTime(a))
+                .doctorId(a.getDoctor().getId())
+                .doctorFirstName(a.getDoctor().getFirstName())
+                .doctorLastName(a.getDoctor().getLastName())
+                .doctorGender(a.getDoctor().getGender())
+                .patientId(a.getPatient().getId())
+                .patientFirstName(a.getPatient().getFirstName())
+                .patientLastName(a.getPatient().getLastName())
+                .patientEmail(a.getPatient().getEmail())
+                .status(a.getStatus())
+                .reason(a.getReason())
+                .contraindications(a.getContraindications())
+                .durationMinutes(a.getDurationMinutes())
+                .examName(a.getExam().getName())
+                .version(a.getVersion())
+                .build();
+    }
+
+    // Risposta alla prenotazione
+    public static AppointmentCreateResponse toCreateResponse(Appointment appointment) {
+        return AppointmentCreateResponse.builder()
+                .id(appointment.getId())
+                .appointmentDate(toUtcDateTime(appointment))
+                .doctorId(appointment.getDoctor().getId())
+                .patientId(appointment.getPatient().getId())
+                .patientEmail(appointment.getPatient().getEmail())
+                .status(appointment.getStatus())
+                .reason(appointment.getReason())
+                .contraindications(appointment.getContraindications())
+                .examName(appointment.getExam().getName())
+                .build();
+    }
+
+    private static LocalDateTime toUtcDateTime(Appointment appointment) {
+        return appointment.getScheduledAt() == null
+                ? null
+                : appointment.getScheduledAt().atZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+}
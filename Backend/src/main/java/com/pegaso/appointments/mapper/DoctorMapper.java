@@ -0,0 +1,28 @@
+package com.pegaso.appointments.mapper;
+
+import com.pegaso.appointments.dto.doctor.DoctorResponse;
+import com.pegaso.appointments.entity.Doctor;
+
+import java.util.List;
+import java.util.UUID;
+
+// Mapping dei dottori nel DTO di risposta (senza stato né dipendenze): gli esami abilitati li raccoglie il chiamante
+public final class DoctorMapper {
+
+    private DoctorMapper() {
+    }
+
+    public static DoctorResponse toResponse(Doctor doctor, List<UUID> examIds) {
+        return DoctorResponse.builder()
+                .id(doctor.getId())
+                .firstName(doctor.getFirstName())
+                .lastName(doctor.getLastName())
+                .gender(doctor.getGender())
+                .email(doctor.getEmail())
+                .phoneNumber(doctor.getPhoneNumber())
+                .createdAt(doctor.getCreatedAt())
+                .updatedAt(doctor.getUpdatedAt())
+                .examIds(examIds)
+                .build();
+    }
+}
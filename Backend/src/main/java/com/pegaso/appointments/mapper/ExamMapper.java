@@ -0,0 +1,23 @@
+package com.pegaso.appointments.mapper;
+
+import com.pegaso.appointments.dto.exam.ExamResponse;
+import com.pegaso.appointments.entity.Exam;
+
+// Mapping degli esami nel DTO di risposta (senza stato né dipendenze)
+public final class ExamMapper {
+
+    private ExamMapper() {
+    }
+
+    public static ExamResponse toResponse(Exam exam) {
+        return ExamResponse.builder()
+                .id(exam.getId())
+                .name(exam.getName())
+                .description(exam.getDescription())
+                .durationMinutes(exam.getDurationMinutes())
+                .isActive(exam.getIsActive())
+                .createdAt(exam.getCreatedAt())
+                .updatedAt(exam.getUpdatedAt())
+                .build();
+    }
+}
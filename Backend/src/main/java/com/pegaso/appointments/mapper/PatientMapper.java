@@ -0,0 +1,24 @@
+package com.pegaso.appointments.mapper;
+
+import com.pegaso.appointments.dto.patient.PatientResponse;
+import com.pegaso.appointments.entity.Patient;
+
+// Mapping dei pazienti nel DTO di risposta (senza stato né dipendenze)
+public final class PatientMapper {
+
+    private PatientMapper() {
+    }
+
+    public static PatientResponse toResponse(Patient patient) {
+        return PatientResponse.builder()
+                .id(patient.getId())
+                .firstName(patient.getFirstName())
+                .lastName(patient.getLastName())
+                .gender(patient.getGender())
+                .email(patient.getEmail())
+                .phoneNumber(patient.getPhoneNumber())
+                .dateOfBirth(patient.getDateOfBirth())
+                .createdAt(patient.getCreatedAt())
+                .build();
+    }
+}
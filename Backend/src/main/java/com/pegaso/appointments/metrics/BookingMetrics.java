@@ -0,0 +1,70 @@
+package com.pegaso.appointments.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Metriche di business della prenotazione (POST /api/appointments):
+// - appointments.booking.overlap.check{check=patient|doctor}: durata delle query di sovrapposizione
+// - appointments.booking.doctor.probes: dottori controllati per ogni prenotazione (ricerca del primo libero)
+// - appointments.booking.conflicts{reason}: prenotazioni rifiutate per conflitto, per motivo
+// - appointments.booking.created: prenotazioni riuscite
+@Component
+public class BookingMetrics {
+
+    public static final String CONFLICT_NO_AUTHORIZED_DOCTOR = "no_authorized_doctor";
+    public static final String CONFLICT_PATIENT_OVERLAP = "patient_overlap";
+    public static final String CONFLICT_REQUESTED_DOCTOR_BUSY = "requested_doctor_busy";
+    public static final String CONFLICT_NO_DOCTOR_AVAILABLE = "no_doctor_available";
+
+    private final MeterRegistry meterRegistry;
+    private final Timer patientOverlapCheck;
+    private final Timer doctorOverlapCheck;
+    private final DistributionSummary doctorProbes;
+    private final Counter created;
+
+    public BookingMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.patientOverlapCheck = overlapTimer("patient");
+        this.doctorOverlapCheck = overlapTimer("doctor");
+        this.doctorProbes = DistributionSummary.builder("appointments.booking.doctor.probes")
+                .description("Doctors checked for availability per booking")
+                .serviceLevelObjectives(1, 2, 3, 5, 10, 20)
+                .register(meterRegistry);
+        this.created = Counter.builder("appointments.booking.created").register(meterRegistry);
+    }
+
+    public boolean timePatientOverlap(Supplier<Boolean> check) {
+        return patientOverlapCheck.record(check);
+    }
+
+    public boolean timeDoctorOverlap(Supplier<Boolean> check) {
+        return doctorOverlapCheck.record(check);
+    }
+
+    public void recordDoctorProbes(int probes) {
+        doctorProbes.record(probes);
+    }
+
+    public void recordConflict(String reason) {
+        meterRegistry.counter("appointments.booking.conflicts", "reason", reason).increment();
+    }
+
+    public void recordCreated() {
+        created.increment();
+    }
+
+    private Timer overlapTimer(String check) {
+        return Timer.builder("appointments.booking.overlap.check")
+                .description("Time spent in overlap queries while booking")
+                .tag("check", check)
+                .serviceLevelObjectives(Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(10),
+                        Duration.ofMillis(50), Duration.ofMillis(100))
+                .register(meterRegistry);
+    }
+}
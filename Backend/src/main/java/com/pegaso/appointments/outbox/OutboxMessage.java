@@ -0,0 +1,16 @@
+package com.pegaso.appointments.outbox;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Evento letto dalla outbox e consegnato ai listener in-process (@EventListener / @TransactionalEventListener).
+// Il payload è il JSON dell'evento di dominio originale (es. AppointmentChangedEvent)
+public record OutboxMessage(
+        long id,
+        String aggregateType,
+        UUID aggregateId,
+        String eventType,
+        String payload,
+        OffsetDateTime createdAt,
+        int attempts) {
+}
@@ -0,0 +1,200 @@
+package com.pegaso.appointments.outbox;
+
+import com.pegaso.appointments.service.JobLockService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Relay della outbox: su una sola replica alla volta (lease di JobLockService) legge gli eventi non ancora
+// pubblicati in ordine di id, a blocchi, e li pubblica ai listener in-process, ciascuno in una propria transazione
+// in cui viene anche marcato come pubblicato. Consegna almeno una volta: un listener che fallisce fa ritentare
+// l'evento, e quelli successivi, al giro seguente
+@Service
+@Slf4j
+public class OutboxRelay implements SmartLifecycle {
+
+    private static final String RELAY_JOB_NAME = "outbox-relay";
+    private static final String CLEANUP_JOB_NAME = "outbox-cleanup";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate publishTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobLockService jobLock;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    // Tentativi oltre i quali l'evento viene scartato (resta in tabella con last_error)
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.retention-hours:24}")
+    private int retentionHours;
+
+    private ExecutorService executor;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile boolean running;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                       ApplicationEventPublisher eventPublisher, JobLockService jobLock, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.publishTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.publishTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.jobLock = jobLock;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            log.info("Outbox relay disabled");
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Richiesta di svuotamento (dopo il commit di nuovi eventi); più richieste ravvicinate ne producono una sola
+    public void wakeUp() {
+        if (running && drainScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                drainScheduled.set(false);
+                drain();
+            });
+        }
+    }
+
+    // Polling di sicurezza: eventi scritti da altre repliche, ritentativi, notifiche perse
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:5000}",
+            initialDelayString = "${app.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    // Rimozione degli eventi pubblicati più vecchi della retention, su una sola replica
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval-ms:3600000}",
+            initialDelayString = "${app.outbox.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        if (!enabled) {
+            return;
+        }
+        jobLock.runExclusively(CLEANUP_JOB_NAME, () -> {
+            int deleted = jdbcTemplate.update(
+                    "DELETE FROM outbox_events WHERE published_at < NOW() - ? * INTERVAL '1 hour'", retentionHours);
+            if (deleted > 0) {
+                log.info("Deleted {} published outbox event(s)", deleted);
+            }
+        });
+    }
+
+    // Un solo relay attivo nel cluster (lease RELAY_JOB_NAME): con più repliche in parallelo gli eventi dello stesso
+    // aggregato potrebbero essere consegnati fuori ordine. Chi non ottiene il lease salta il giro: gli eventi scritti
+    // nel frattempo li pubblica il relay attivo oppure il prossimo polling
+    private void drain() {
+        try {
+            jobLock.runExclusively(RELAY_JOB_NAME, Duration.ZERO, lease -> {
+                int handled;
+                do {
+                    handled = relayBatch(lease);
+                } while (handled == batchSize && running && lease.isValid());
+            });
+        } catch (Exception e) {
+            log.warn("Outbox relay failed: {}", e.getMessage());
+        }
+    }
+
+    // Un blocco: restituisce il numero di eventi gestiti (pubblicati o scartati); 0 se il blocco si è interrotto
+    private int relayBatch(JobLockService.JobLease lease) {
+        List<OutboxMessage> messages = jdbcTemplate.query(
+                "SELECT id, aggregate_type, aggregate_id, event_type, payload::text AS payload, created_at, attempts " +
+                "FROM outbox_events WHERE published_at IS NULL " +
+                "ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new OutboxMessage(
+                        rs.getLong("id"),
+                        rs.getString("aggregate_type"),
+                        rs.getObject("aggregate_id", UUID.class),
+                        rs.getString("event_type"),
+                        rs.getString("payload"),
+                        rs.getObject("created_at", OffsetDateTime.class),
+                        rs.getInt("attempts")),
+                batchSize);
+        for (OutboxMessage message : messages) {
+            if (!lease.isValid()) {
+                return 0;
+            }
+            try {
+                // Consegna e marcatura nella stessa transazione: le scritture dei listener e published_at
+                // vengono confermate insieme
+                publishTransaction.executeWithoutResult(status -> {
+                    eventPublisher.publishEvent(message);
+                    markPublished(message);
+                });
+                meterRegistry.counter("outbox.published").increment();
+            } catch (RuntimeException e) {
+                // Transazione separata: un listener che ha marcato rollback-only la transazione di consegna
+                // non deve annullare anche il conteggio dei tentativi
+                publishTransaction.executeWithoutResult(status -> markFailed(message, e));
+                // Gli eventi successivi restano in coda per non consegnarli prima di quello fallito
+                return 0;
+            }
+        }
+        return messages.size();
+    }
+
+    private void markFailed(OutboxMessage failed, RuntimeException error) {
+        meterRegistry.counter("outbox.failed").increment();
+        boolean discard = failed.attempts() + 1 >= maxAttempts;
+        jdbcTemplate.update(
+                "UPDATE outbox_events SET attempts = attempts + 1, last_error = ?, " +
+                "published_at = CASE WHEN ? THEN NOW() END WHERE id = ?",
+                String.valueOf(error.getMessage()), discard, failed.id());
+        if (discard) {
+            log.error("Discarding outbox event {} ({} {}) after {} attempt(s): {}",
+                    failed.id(), failed.aggregateType(), failed.eventType(), maxAttempts, error.getMessage());
+        } else {
+            log.warn("Outbox event {} ({} {}) failed, will retry: {}",
+                    failed.id(), failed.aggregateType(), failed.eventType(), error.getMessage());
+        }
+    }
+
+    private void markPublished(OutboxMessage message) {
+        jdbcTemplate.update("UPDATE outbox_events SET published_at = NOW() WHERE id = ?", message.id());
+    }
+}
@@ -0,0 +1,93 @@
+package com.pegaso.appointments.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pegaso.appointments.event.AppointmentChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Scrittura degli eventi di dominio nella outbox, nella stessa transazione della modifica che li genera:
+// gli eventi vengono accumulati durante la transazione e inseriti con un'unica batch prima del commit,
+// quindi o vengono salvati insieme alla modifica o non vengono salvati affatto
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    public static final String APPOINTMENT = "appointment";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboxRelay relay;
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        append(APPOINTMENT, event.appointmentId(), event.type().name(), event);
+    }
+
+    // Aggiunta di un evento alla outbox della transazione corrente
+    public void append(String aggregateType, UUID aggregateId, String eventType, Object payload) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Outbox events must be written inside a transaction");
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize outbox event " + eventType, e);
+        }
+        pendingEvents().add(new PendingEvent(aggregateType, aggregateId, eventType, json));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PendingEvent> pendingEvents() {
+        List<PendingEvent> pending = (List<PendingEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        List<PendingEvent> events = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, events);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                insert(events);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(OutboxWriter.this);
+                if (status == STATUS_COMMITTED) {
+                    // Consegna immediata: il polling del relay resta come rete di sicurezza
+                    relay.wakeUp();
+                }
+            }
+        });
+        return events;
+    }
+
+    // Inserimento prima del commit, mentre la transazione tiene ancora i lock sulle righe modificate:
+    // per uno stesso aggregato l'ordine degli id coincide con l'ordine di commit
+    private void insert(List<PendingEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, payload) VALUES (?, ?, ?, ?::jsonb)",
+                events, events.size(), (statement, event) -> {
+                    statement.setString(1, event.aggregateType());
+                    statement.setObject(2, event.aggregateId());
+                    statement.setString(3, event.eventType());
+                    statement.setString(4, event.payload());
+                });
+    }
+
+    private record PendingEvent(String aggregateType, UUID aggregateId, String eventType, String payload) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.pegaso.appointments.reminder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Notifier locale: scrive i promemoria nel log oppure, se configurato un file, una riga JSON per promemoria.
+// Usato in sviluppo e nei test al posto di un canale reale
+@Slf4j
+public class LogNotifier implements Notifier {
+
+    private final ObjectMapper objectMapper;
+    private final Path sinkFile;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public LogNotifier(ObjectMapper objectMapper, Path sinkFile) {
+        this.objectMapper = objectMapper;
+        this.sinkFile = sinkFile;
+    }
+
+    @Override
+    public void send(List<Reminder> reminders) throws IOException {
+        if (sinkFile == null) {
+            for (Reminder reminder : reminders) {
+                // Solo l'id del paziente: email e nome sono dati personali e non finiscono nei log
+                log.info("Reminder for appointment {} at {} to patient {}",
+                        reminder.appointmentId(), reminder.scheduledAt(), reminder.patientId());
+            }
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (Reminder reminder : reminders) {
+            lines.append(objectMapper.writeValueAsString(reminder)).append('\n');
+        }
+        lock.lock();
+        try {
+            Files.writeString(sinkFile, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
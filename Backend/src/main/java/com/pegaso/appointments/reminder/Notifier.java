@@ -0,0 +1,10 @@
+package com.pegaso.appointments.reminder;
+
+import java.util.List;
+
+// Canale di invio dei promemoria (email, SMS, push, ...). Riceve i promemoria a blocchi;
+// un'eccezione fa ritentare l'intero blocco più tardi
+public interface Notifier {
+
+    void send(List<Reminder> reminders) throws Exception;
+}
@@ -0,0 +1,17 @@
+package com.pegaso.appointments.reminder;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Promemoria da inviare al paziente per un appuntamento
+public record Reminder(
+        UUID appointmentId,
+        OffsetDateTime scheduledAt,
+        UUID patientId,
+        String patientFirstName,
+        String patientLastName,
+        String patientEmail,
+        String doctorFirstName,
+        String doctorLastName,
+        String examName) {
+}
@@ -0,0 +1,300 @@
+package com.pegaso.appointments.reminder;
+
+import com.pegaso.appointments.event.AppointmentChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Scheduler dei promemoria: gli appuntamenti aperti con promemoria nelle prossime horizon-hours vengono caricati
+// in una timing wheel in memoria (una query per finestra, nessun polling a ogni tick); creazioni, modifiche e
+// cancellazioni aggiornano la ruota tramite AppointmentChangedEvent. I promemoria scaduti vengono inviati a blocchi
+// dal Notifier dopo averli registrati in appointment_reminders: con più repliche ognuna ha la propria ruota,
+// ma solo chi inserisce la riga invia il promemoria, e solo se l'appuntamento è ancora aperto e alla stessa ora
+@Service
+@Slf4j
+public class ReminderScheduler implements SmartLifecycle {
+
+    private static final String OPEN_STATUSES = "'pending', 'confirmed'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Notifier notifier;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.reminders.enabled:true}")
+    private boolean enabled;
+
+    // Anticipo del promemoria rispetto all'appuntamento
+    @Value("${app.reminders.lead-minutes:1440}")
+    private long leadMinutes;
+
+    // Finestra di promemoria tenuta in memoria
+    @Value("${app.reminders.horizon-hours:48}")
+    private long horizonHours;
+
+    @Value("${app.reminders.refill-interval-minutes:10}")
+    private long refillIntervalMinutes;
+
+    @Value("${app.reminders.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${app.reminders.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.reminders.retry-delay-seconds:60}")
+    private long retryDelaySeconds;
+
+    private TimingWheel<UUID, OffsetDateTime> wheel;
+    private ScheduledExecutorService ticker;
+    private ExecutorService sender;
+    private volatile boolean running;
+    // Scadenza massima dei promemoria già caricati nella ruota
+    private volatile Instant loadedUntil = Instant.MIN;
+    private volatile Instant nextRefill = Instant.MIN;
+    // Promemoria non inviati la cui registrazione non è stata rimossa: vanno rilasciati prima del nuovo tentativo,
+    // altrimenti la claim li salterebbe (ON CONFLICT DO NOTHING)
+    private final Map<UUID, OffsetDateTime> unreleased = new ConcurrentHashMap<>();
+
+    public ReminderScheduler(JdbcTemplate jdbcTemplate, DataSource dataSource, TransactionTemplate transactionTemplate,
+                             Notifier notifier, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        // Il caricamento della finestra legge le righe a blocchi (cursore lato server, richiede una transazione)
+        this.streamingJdbcTemplate.setFetchSize(10_000);
+        this.transactionTemplate = transactionTemplate;
+        this.notifier = notifier;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            log.info("Appointment reminders disabled");
+            return;
+        }
+        wheel = new TimingWheel<>(tickMs, System.currentTimeMillis());
+        Gauge.builder("reminders.pending", wheel, TimingWheel::size).register(meterRegistry);
+        ticker = Executors.newSingleThreadScheduledExecutor(daemon("reminder-wheel"));
+        sender = Executors.newSingleThreadExecutor(daemon("reminder-sender"));
+        running = true;
+        ticker.scheduleAtFixedRate(this::tick, 0, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (ticker != null) {
+            ticker.shutdownNow();
+            sender.shutdown();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Aggiornamento incrementale della ruota a modifica confermata
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (!running) {
+            return;
+        }
+        boolean open = "pending".equals(event.status()) || "confirmed".equals(event.status());
+        if (!open || event.scheduledAt() == null) {
+            wheel.cancel(event.appointmentId());
+            return;
+        }
+        Instant remindAt = remindAt(event.scheduledAt());
+        if (event.scheduledAt().toInstant().isAfter(Instant.now()) && !remindAt.isAfter(loadedUntil)) {
+            wheel.schedule(event.appointmentId(), event.scheduledAt(), remindAt.toEpochMilli());
+        } else {
+            // Fuori dalla finestra caricata: verrà letto dal prossimo caricamento
+            wheel.cancel(event.appointmentId());
+        }
+    }
+
+    private void tick() {
+        try {
+            Instant now = Instant.now();
+            if (!now.isBefore(nextRefill)) {
+                refill(now);
+            }
+            List<TimingWheel.Entry<UUID, OffsetDateTime>> due = wheel.advance(now.toEpochMilli());
+            for (int from = 0; from < due.size(); from += batchSize) {
+                List<TimingWheel.Entry<UUID, OffsetDateTime>> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+                sender.execute(() -> dispatch(batch));
+            }
+        } catch (Exception e) {
+            // Un errore (es. DB non raggiungibile durante il caricamento) non deve fermare il ticker
+            log.warn("Reminder tick failed: {}", e.getMessage());
+        }
+    }
+
+    // Caricamento della finestra [ora, ora + horizon]: le voci già presenti vengono sostituite
+    private void refill(Instant now) {
+        Instant until = now.plusSeconds(horizonHours * 3600);
+        // Se il caricamento fallisce si ritenta dopo retry-delay-seconds, non a ogni tick
+        nextRefill = now.plusSeconds(retryDelaySeconds);
+        int[] loaded = {0};
+        transactionTemplate.executeWithoutResult(status -> streamingJdbcTemplate.query(
+                "SELECT a.id, a.scheduled_at FROM appointments a " +
+                "WHERE a.status IN (" + OPEN_STATUSES + ") " +
+                "AND a.scheduled_at > NOW() " +
+                "AND a.scheduled_at <= NOW() + ? * INTERVAL '1 minute' " +
+                "AND NOT EXISTS (SELECT 1 FROM appointment_reminders r " +
+                "WHERE r.appointment_id = a.id AND r.scheduled_at = a.scheduled_at)",
+                rs -> {
+                    OffsetDateTime scheduledAt = rs.getObject("scheduled_at", OffsetDateTime.class);
+                    wheel.schedule(rs.getObject("id", UUID.class), scheduledAt, remindAt(scheduledAt).toEpochMilli());
+                    loaded[0]++;
+                },
+                horizonHours * 60 + leadMinutes));
+        loadedUntil = until;
+        nextRefill = now.plusSeconds(refillIntervalMinutes * 60);
+        log.debug("Loaded {} reminder(s) due before {}", loaded[0], until);
+    }
+
+    // Invio di un blocco: registra i promemoria ancora validi e non ancora inviati, poi li passa al Notifier
+    private void dispatch(List<TimingWheel.Entry<UUID, OffsetDateTime>> batch) {
+        List<TimingWheel.Entry<UUID, OffsetDateTime>> pending = batch.stream()
+                .filter(entry -> entry.value().equals(unreleased.get(entry.key())))
+                .toList();
+        if (!pending.isEmpty()) {
+            try {
+                release(pending);
+                pending.forEach(entry -> unreleased.remove(entry.key(), entry.value()));
+            } catch (Exception e) {
+                log.warn("Could not release {} reminder(s), retrying later: {}", pending.size(), e.getMessage());
+                retry(batch);
+                return;
+            }
+        }
+        List<Reminder> reminders;
+        try {
+            reminders = claim(batch);
+        } catch (Exception e) {
+            log.warn("Could not claim {} reminder(s), retrying later: {}", batch.size(), e.getMessage());
+            retry(batch);
+            return;
+        }
+        if (reminders.isEmpty()) {
+            return;
+        }
+        try {
+            notifier.send(reminders);
+            meterRegistry.counter("reminders.sent").increment(reminders.size());
+        } catch (Exception e) {
+            meterRegistry.counter("reminders.failed").increment(reminders.size());
+            log.warn("Could not send {} reminder(s), retrying later: {}", reminders.size(), e.getMessage());
+            List<TimingWheel.Entry<UUID, OffsetDateTime>> failed = reminders.stream()
+                    .map(r -> new TimingWheel.Entry<>(r.appointmentId(), r.scheduledAt(), 0L))
+                    .toList();
+            try {
+                release(failed);
+            } catch (Exception releaseError) {
+                log.warn("Could not release {} reminder(s), releasing before the retry: {}", failed.size(),
+                        releaseError.getMessage());
+                failed.forEach(entry -> unreleased.put(entry.key(), entry.value()));
+            }
+            retry(failed);
+        }
+    }
+
+    private List<Reminder> claim(List<TimingWheel.Entry<UUID, OffsetDateTime>> batch) {
+        String sql = "WITH due(id, scheduled_at) AS (SELECT * FROM unnest(?::uuid[], ?::timestamptz[])), " +
+                "claimed AS (" +
+                "INSERT INTO appointment_reminders (appointment_id, scheduled_at) " +
+                "SELECT a.id, a.scheduled_at FROM due " +
+                "JOIN appointments a ON a.id = due.id AND a.scheduled_at = due.scheduled_at " +
+                "WHERE a.status IN (" + OPEN_STATUSES + ") AND a.scheduled_at > NOW() " +
+                "ON CONFLICT DO NOTHING " +
+                "RETURNING appointment_id, scheduled_at) " +
+                "SELECT c.appointment_id, c.scheduled_at, p.id AS patient_id, p.first_name, p.last_name, p.email, " +
+                "d.first_name AS doctor_first_name, d.last_name AS doctor_last_name, e.name AS exam_name " +
+                "FROM claimed c " +
+                "JOIN appointments a ON a.id = c.appointment_id " +
+                "JOIN patients p ON p.id = a.patient_id " +
+                "JOIN doctors d ON d.id = a.doctor_id " +
+                "JOIN exams e ON e.id = a.exam_id";
+        return jdbcTemplate.query(
+                connection -> prepareWithArrays(connection, sql, batch),
+                (rs, rowNum) -> new Reminder(
+                        rs.getObject("appointment_id", UUID.class),
+                        rs.getObject("scheduled_at", OffsetDateTime.class),
+                        rs.getObject("patient_id", UUID.class),
+                        rs.getString("first_name"),
+                        rs.getString("last_name"),
+                        rs.getString("email"),
+                        rs.getString("doctor_first_name"),
+                        rs.getString("doctor_last_name"),
+                        rs.getString("exam_name")));
+    }
+
+    // Rimozione della registrazione di promemoria non inviati, così possono essere ritentati
+    private void release(List<TimingWheel.Entry<UUID, OffsetDateTime>> entries) {
+        String sql = "DELETE FROM appointment_reminders r USING unnest(?::uuid[], ?::timestamptz[]) AS due(id, scheduled_at) " +
+                "WHERE r.appointment_id = due.id AND r.scheduled_at = due.scheduled_at";
+        jdbcTemplate.update(connection -> prepareWithArrays(connection, sql, entries));
+    }
+
+    private void retry(List<TimingWheel.Entry<UUID, OffsetDateTime>> entries) {
+        long retryAt = System.currentTimeMillis() + retryDelaySeconds * 1000;
+        for (TimingWheel.Entry<UUID, OffsetDateTime> entry : entries) {
+            wheel.schedule(entry.key(), entry.value(), retryAt);
+        }
+    }
+
+    private PreparedStatement prepareWithArrays(Connection connection, String sql,
+                                                List<TimingWheel.Entry<UUID, OffsetDateTime>> entries) throws SQLException {
+        List<String> ids = new ArrayList<>(entries.size());
+        List<String> times = new ArrayList<>(entries.size());
+        for (TimingWheel.Entry<UUID, OffsetDateTime> entry : entries) {
+            ids.add(entry.key().toString());
+            times.add(entry.value().toString());
+        }
+        PreparedStatement statement = connection.prepareStatement(sql);
+        Array idArray = connection.createArrayOf("text", ids.toArray());
+        Array timeArray = connection.createArrayOf("text", times.toArray());
+        statement.setArray(1, idArray);
+        statement.setArray(2, timeArray);
+        return statement;
+    }
+
+    private Instant remindAt(OffsetDateTime scheduledAt) {
+        return scheduledAt.toInstant().minusSeconds(leadMinutes * 60);
+    }
+
+    private static java.util.concurrent.ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
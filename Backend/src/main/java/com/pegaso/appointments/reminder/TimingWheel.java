@@ -0,0 +1,213 @@
+package com.pegaso.appointments.reminder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Timing wheel gerarchica (4 livelli da 64 slot): inserimento e cancellazione O(1), avanzamento O(1) per tick
+// più il costo delle voci scadute. Ogni slot è una lista doppiamente concatenata intrusiva e una mappa
+// chiave -> nodo permette di cancellare o ripianificare una voce senza cercarla negli slot.
+// Le voci oltre l'orizzonte del livello più alto restano nell'ultimo livello e vengono ricollocate a ogni giro.
+// Thread-safe: usa un ReentrantLock (non synchronized) per non bloccare il carrier dei virtual thread
+public class TimingWheel<K, V> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Node<K, V>[][] heads;
+    private final Map<K, Node<K, V>> nodes = new HashMap<>();
+    private final List<Node<K, V>> overdue = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long currentTick;
+
+    // Voce scaduta restituita da advance()
+    public record Entry<K, V>(K key, V value, long deadlineMillis) {
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be greater than 0");
+        }
+        this.tickMillis = tickMillis;
+        this.heads = new Node[LEVELS][SLOTS];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    // Inserimento (o ripianificazione, se la chiave è già presente) di una voce con scadenza assoluta in millisecondi
+    public void schedule(K key, V value, long deadlineMillis) {
+        lock.lock();
+        try {
+            Node<K, V> existing = nodes.remove(key);
+            if (existing != null) {
+                unlink(existing);
+            }
+            Node<K, V> node = new Node<>(key, value, deadlineMillis);
+            nodes.put(key, node);
+            place(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Cancellazione di una voce; restituisce false se non era pianificata (o è già scaduta)
+    public boolean cancel(K key) {
+        lock.lock();
+        try {
+            Node<K, V> node = nodes.remove(key);
+            if (node == null) {
+                return false;
+            }
+            unlink(node);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(K key) {
+        lock.lock();
+        try {
+            return nodes.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Avanzamento fino all'istante indicato: restituisce le voci scadute, rimosse dalla ruota
+    public List<Entry<K, V>> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<Entry<K, V>> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Node<K, V> node : overdue) {
+                expire(node, expired);
+            }
+            overdue.clear();
+            while (currentTick < targetTick) {
+                currentTick++;
+                // Prima si ricollocano le voci dei livelli superiori che entrano nella finestra del livello inferiore,
+                // poi si svuota lo slot corrente del livello 0
+                for (int level = 1; level < LEVELS; level++) {
+                    if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                        break;
+                    }
+                    cascade(level, slotOf(currentTick, level));
+                }
+                int slot = slotOf(currentTick, 0);
+                Node<K, V> node = heads[0][slot];
+                heads[0][slot] = null;
+                while (node != null) {
+                    Node<K, V> next = node.next;
+                    node.prev = null;
+                    node.next = null;
+                    node.level = -1;
+                    expire(node, expired);
+                    node = next;
+                }
+            }
+            // Voci ricollocate esattamente sul tick corrente durante il cascade
+            for (Node<K, V> node : overdue) {
+                expire(node, expired);
+            }
+            overdue.clear();
+            return expired;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void place(Node<K, V> node) {
+        long deadlineTick = Math.floorDiv(node.deadlineMillis, tickMillis);
+        long delta = deadlineTick - currentTick;
+        if (delta <= 0) {
+            // Già scaduta: verrà restituita al prossimo advance()
+            node.level = -1;
+            overdue.add(node);
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        long effectiveTick = delta >= (1L << (SLOT_BITS * LEVELS))
+                // Oltre l'orizzonte: parcheggiata nell'ultimo slot raggiungibile del livello più alto
+                ? currentTick + (1L << (SLOT_BITS * LEVELS)) - 1
+                : deadlineTick;
+        int slot = slotOf(effectiveTick, level);
+        node.level = level;
+        node.slot = slot;
+        node.prev = null;
+        node.next = heads[level][slot];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        heads[level][slot] = node;
+    }
+
+    private void cascade(int level, int slot) {
+        Node<K, V> node = heads[level][slot];
+        heads[level][slot] = null;
+        while (node != null) {
+            Node<K, V> next = node.next;
+            place(node);
+            node = next;
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.level < 0) {
+            overdue.remove(node);
+            return;
+        }
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            heads[node.level][node.slot] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    private void expire(Node<K, V> node, List<Entry<K, V>> expired) {
+        nodes.remove(node.key);
+        expired.add(new Entry<>(node.key, node.value, node.deadlineMillis));
+    }
+
+    private static int slotOf(long tick, int level) {
+        return (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final long deadlineMillis;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+        private int level;
+        private int slot;
+
+        private Node(K key, V value, long deadlineMillis) {
+            this.key = key;
+            this.value = value;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
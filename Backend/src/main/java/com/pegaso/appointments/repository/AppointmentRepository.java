@@ -8,11 +8,12 @@ import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 // Repository per la gestione degli appuntamenti
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointment, UUID> {
+public interface AppointmentRepository extends JpaRepository<Appointment, UUID>, AppointmentSearchRepository {
 
     @Query("SELECT a FROM Appointment a JOIN FETCH a.doctor JOIN FETCH a.patient ORDER BY a.scheduledAt ASC")
     List<Appointment> findAllOrderByScheduledAtAsc();
@@ -27,6 +28,23 @@ public interface AppointmentRepository extends JpaRepository<Appointment, UUID>
     @Query("SELECT a FROM Appointment a JOIN FETCH a.doctor JOIN FETCH a.patient WHERE a.id = :appointmentId")
     java.util.Optional<Appointment> findByIdWithRelations(UUID appointmentId);
 
+    // Versione e proprietari di un appuntamento, senza caricare l'entità (ETag / If-None-Match)
+    @Query("SELECT a.doctor.id AS doctorId, a.patient.id AS patientId, a.version AS version FROM Appointment a WHERE a.id = :appointmentId")
+    Optional<AppointmentVersionView> findVersionById(@Param("appointmentId") UUID appointmentId);
+
+    // Proiezione usata da findVersionById
+    interface AppointmentVersionView {
+        UUID getDoctorId();
+
+        UUID getPatientId();
+
+        Long getVersion();
+    }
+
+    // Recupero in blocco degli appuntamenti con le relazioni caricate (delta sync)
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.doctor JOIN FETCH a.patient JOIN FETCH a.exam WHERE a.id IN :appointmentIds")
+    List<Appointment> findAllByIdInWithRelations(@Param("appointmentIds") List<UUID> appointmentIds);
+
     // Verifica se esiste un appuntamento sovrapposto per un dottore
     @Query(value = "SELECT COUNT(*) > 0 FROM appointments a " +
            "WHERE a.doctor_id = :doctorId " +
@@ -0,0 +1,22 @@
+package com.pegaso.appointments.repository;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.OffsetDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+// Filtri della ricerca appuntamenti (i campi null non vengono applicati)
+@Getter
+@Builder
+public class AppointmentSearchCriteria {
+
+    private UUID doctorId;
+    private UUID patientId;
+    private UUID examId;
+    private OffsetDateTime from;
+    private OffsetDateTime to;
+    // Stati già validati dal service (pending, confirmed, cancelled, completed)
+    private Set<String> statuses;
+}
@@ -0,0 +1,11 @@
+package com.pegaso.appointments.repository;
+
+import com.pegaso.appointments.entity.Appointment;
+
+import java.util.List;
+
+// Ricerca appuntamenti con filtri dinamici (implementata in AppointmentSearchRepositoryImpl)
+public interface AppointmentSearchRepository {
+
+    List<Appointment> search(AppointmentSearchCriteria criteria);
+}
@@ -0,0 +1,75 @@
+package com.pegaso.appointments.repository;
+
+import com.pegaso.appointments.entity.Appointment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Query unica costruita in base ai filtri presenti: ogni combinazione produce predicati semplici
+// che il planner può risolvere con gli indici (doctor_id|patient_id|exam_id, scheduled_at)
+public class AppointmentSearchRepositoryImpl implements AppointmentSearchRepository {
+
+    private static final Set<String> STATUSES = Set.of("pending", "confirmed", "cancelled", "completed");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Appointment> search(AppointmentSearchCriteria criteria) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT a FROM Appointment a JOIN FETCH a.doctor JOIN FETCH a.patient JOIN FETCH a.exam WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        if (criteria.getDoctorId() != null) {
+            jpql.append(" AND a.doctor.id = :doctorId");
+            params.put("doctorId", criteria.getDoctorId());
+        }
+        if (criteria.getPatientId() != null) {
+            jpql.append(" AND a.patient.id = :patientId");
+            params.put("patientId", criteria.getPatientId());
+        }
+        if (criteria.getExamId() != null) {
+            jpql.append(" AND a.exam.id = :examId");
+            params.put("examId", criteria.getExamId());
+        }
+        if (criteria.getFrom() != null) {
+            jpql.append(" AND a.scheduledAt >= :from");
+            params.put("from", criteria.getFrom());
+        }
+        if (criteria.getTo() != null) {
+            jpql.append(" AND a.scheduledAt < :to");
+            params.put("to", criteria.getTo());
+        }
+        appendStatusFilter(jpql, criteria.getStatuses());
+        jpql.append(" ORDER BY a.scheduledAt ASC");
+
+        TypedQuery<Appointment> query = entityManager.createQuery(jpql.toString(), Appointment.class);
+        params.forEach(query::setParameter);
+        return query.getResultList();
+    }
+
+    // Gli stati sono scritti come letterali (non parametri): solo così Postgres può dimostrare che la query
+    // implica "status <> 'cancelled'" e usare l'indice parziale idx_appointments_doctor_scheduled_active
+    private void appendStatusFilter(StringBuilder jpql, Set<String> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return;
+        }
+        if (!STATUSES.containsAll(statuses)) {
+            throw new IllegalArgumentException("Invalid status filter: " + statuses);
+        }
+        if (!statuses.contains("cancelled")) {
+            jpql.append(" AND a.status <> 'cancelled'");
+        }
+        if (statuses.size() < STATUSES.size()) {
+            jpql.append(" AND a.status IN (")
+                    .append(statuses.stream().sorted().map(s -> "'" + s + "'").collect(Collectors.joining(", ")))
+                    .append(")");
+        }
+    }
+}
@@ -2,8 +2,11 @@ package com.pegaso.appointments.repository;
 
 import com.pegaso.appointments.entity.DoctorExam;
 import com.pegaso.appointments.entity.DoctorExamId;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -16,8 +19,15 @@ public interface DoctorExamRepository extends JpaRepository<DoctorExam, DoctorEx
 
     List<DoctorExam> findById_DoctorId(UUID doctorId);
 
+    // Risultati in query cache: usate a ogni prenotazione, invalidate da Hibernate alle scritture su doctor_exams/doctors
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     boolean existsByDoctorIdAndExamId(UUID doctorId, UUID examId);
 
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT de FROM DoctorExam de JOIN FETCH de.doctor WHERE de.exam.id = :examId")
     List<DoctorExam> findByExamIdWithDoctor(@Param("examId") UUID examId);
+
+    // Abilitazioni di più dottori in una sola query, con l'esame già caricato
+    @Query("SELECT de FROM DoctorExam de JOIN FETCH de.exam WHERE de.doctor.id IN :doctorIds")
+    List<DoctorExam> findByDoctorIdInWithExam(@Param("doctorIds") List<UUID> doctorIds);
 }
@@ -2,8 +2,11 @@ package com.pegaso.appointments.repository;
 
 import com.pegaso.appointments.entity.Doctor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 // Repository per la gestione dei dottori, utile per gestire le operazioni di CRUD e query sul database
@@ -13,4 +16,21 @@ public interface DoctorRepository extends JpaRepository<Doctor, UUID> {
     Optional<Doctor> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    // Ricerca per nome, cognome o email: sottostringa (LIKE) o somiglianza (pg_trgm), entrambe servite dall'indice GIN
+    // idx_doctors_search_trgm; prima i match per prefisso, poi per word_similarity. Restituisce solo gli id
+    @Query(value = "SELECT d.id FROM doctors d " +
+           "WHERE lower(d.first_name || ' ' || d.last_name || ' ' || coalesce(d.email, '')) LIKE :contains " +
+           "OR :text <% lower(d.first_name || ' ' || d.last_name || ' ' || coalesce(d.email, '')) " +
+           "ORDER BY (lower(d.first_name) LIKE :prefix OR lower(d.last_name) LIKE :prefix " +
+           "OR lower(coalesce(d.email, '')) LIKE :prefix) DESC, " +
+           "word_similarity(:text, lower(d.first_name || ' ' || d.last_name || ' ' || coalesce(d.email, ''))) DESC, " +
+           "d.last_name, d.first_name, d.id " +
+           "LIMIT :limit OFFSET :offset",
+           nativeQuery = true)
+    List<UUID> searchIds(@Param("text") String text,
+                         @Param("prefix") String prefix,
+                         @Param("contains") String contains,
+                         @Param("limit") int limit,
+                         @Param("offset") int offset);
 }
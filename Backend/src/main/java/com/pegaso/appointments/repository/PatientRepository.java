@@ -2,8 +2,11 @@ package com.pegaso.appointments.repository;
 
 import com.pegaso.appointments.entity.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -14,4 +17,21 @@ public interface PatientRepository extends JpaRepository<Patient, UUID> {
     Optional<Patient> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    // Ricerca per nome, cognome o email: sottostringa (LIKE) o somiglianza (pg_trgm), entrambe servite dall'indice GIN
+    // idx_patients_search_trgm; prima i match per prefisso, poi per word_similarity. Restituisce solo gli id
+    @Query(value = "SELECT p.id FROM patients p " +
+           "WHERE lower(p.first_name || ' ' || p.last_name || ' ' || coalesce(p.email, '')) LIKE :contains " +
+           "OR :text <% lower(p.first_name || ' ' || p.last_name || ' ' || coalesce(p.email, '')) " +
+           "ORDER BY (lower(p.first_name) LIKE :prefix OR lower(p.last_name) LIKE :prefix " +
+           "OR lower(coalesce(p.email, '')) LIKE :prefix) DESC, " +
+           "word_similarity(:text, lower(p.first_name || ' ' || p.last_name || ' ' || coalesce(p.email, ''))) DESC, " +
+           "p.last_name, p.first_name, p.id " +
+           "LIMIT :limit OFFSET :offset",
+           nativeQuery = true)
+    List<UUID> searchIds(@Param("text") String text,
+                         @Param("prefix") String prefix,
+                         @Param("contains") String contains,
+                         @Param("limit") int limit,
+                         @Param("offset") int offset);
 }
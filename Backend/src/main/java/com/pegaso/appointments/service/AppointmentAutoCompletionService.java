@@ -0,0 +1,116 @@
+package com.pegaso.appointments.service;
+
+import com.pegaso.appointments.event.AppointmentChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// Job che porta a "completed" gli appuntamenti trascorsi ancora aperti, senza caricare entità:
+// un UPDATE ... RETURNING per blocco di righe, ognuno nella propria transazione, con un evento per riga aggiornata
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AppointmentAutoCompletionService {
+
+    private static final String JOB_NAME = "appointment-auto-completion";
+    // Stati ammessi come origine: devono coincidere con il predicato di idx_appointments_open_scheduled
+    private static final Set<String> OPEN_STATUSES = Set.of("pending", "confirmed");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobLockService jobLock;
+    private final ResourceVersionService resourceVersions;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.jobs.auto-complete.enabled:true}")
+    private boolean enabled;
+
+    // Stati da completare automaticamente (es. solo "confirmed" per lasciare i pending alla segreteria)
+    @Value("${app.jobs.auto-complete.source-statuses:pending,confirmed}")
+    private Set<String> sourceStatuses;
+
+    // Minuti di tolleranza dopo la fine prevista dell'appuntamento
+    @Value("${app.jobs.auto-complete.grace-minutes:15}")
+    private int graceMinutes;
+
+    @Value("${app.jobs.auto-complete.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.jobs.auto-complete.interval-ms:300000}",
+            initialDelayString = "${app.jobs.auto-complete.initial-delay-ms:60000}")
+    public void completeElapsedAppointments() {
+        if (!enabled) {
+            return;
+        }
+        jobLock.runExclusively(JOB_NAME, lease -> {
+            String sql = buildUpdateSql();
+            int total = 0;
+            int updated;
+            do {
+                updated = transactionTemplate.execute(status -> completeBatch(sql));
+                total += updated;
+            } while (updated == batchSize && lease.isValid());
+            if (total > 0) {
+                log.info("Auto-completed {} elapsed appointment(s)", total);
+            }
+        });
+    }
+
+    // Un blocco: seleziona (saltando le righe bloccate da altre transazioni) e aggiorna in un'unica istruzione
+    private int completeBatch(String sql) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        List<AppointmentChangedEvent> events = jdbcTemplate.query(sql,
+                (rs, rowNum) -> new AppointmentChangedEvent(
+                        rs.getObject("id", UUID.class),
+                        rs.getObject("doctor_id", UUID.class),
+                        rs.getObject("patient_id", UUID.class),
+                        AppointmentChangedEvent.ChangeType.AUTO_COMPLETED,
+                        rs.getString("previous_status"),
+                        "completed",
+                        rs.getObject("scheduled_at", OffsetDateTime.class),
+                        now),
+                graceMinutes, graceMinutes, batchSize);
+        events.forEach(eventPublisher::publishEvent);
+        events.stream()
+                .collect(Collectors.groupingBy(AppointmentChangedEvent::previousStatus, Collectors.counting()))
+                .forEach((from, count) -> meterRegistry.counter("appointments.auto_completed", "from", from).increment(count));
+        if (!events.isEmpty()) {
+            resourceVersions.invalidateAfterCommit(ResourceVersionService.APPOINTMENTS);
+        }
+        return events.size();
+    }
+
+    // Gli stati sono scritti come letterali (validati) così Postgres può usare l'indice parziale sulle righe aperte.
+    // La condizione su scheduled_at è implicata da quella sulla fine (durata > 0) ma permette la scansione per intervallo
+    private String buildUpdateSql() {
+        if (sourceStatuses.isEmpty() || !OPEN_STATUSES.containsAll(sourceStatuses)) {
+            throw new IllegalStateException("app.jobs.auto-complete.source-statuses must be a subset of " + OPEN_STATUSES);
+        }
+        String statuses = sourceStatuses.stream().sorted().map(s -> "'" + s + "'").collect(Collectors.joining(", "));
+        return "WITH due AS (" +
+                "SELECT id, status FROM appointments " +
+                "WHERE status IN (" + statuses + ") " +
+                "AND scheduled_at < NOW() - ? * INTERVAL '1 minute' " +
+                "AND scheduled_at + COALESCE(duration_minutes, 30) * INTERVAL '1 minute' <= NOW() - ? * INTERVAL '1 minute' " +
+                "ORDER BY scheduled_at " +
+                "LIMIT ? " +
+                "FOR UPDATE SKIP LOCKED) " +
+                "UPDATE appointments a SET status = 'completed', updated_at = NOW(), version = a.version + 1 " +
+                "FROM due WHERE a.id = due.id " +
+                "RETURNING a.id, a.doctor_id, a.patient_id, a.scheduled_at, due.status AS previous_status";
+    }
+}
@@ -5,7 +5,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.OffsetDateTime;
 
@@ -16,17 +16,23 @@ import java.time.OffsetDateTime;
 public class AppointmentCleanupService {
 
     private final AppointmentRepository appointmentRepository;
+    private final JobLockService jobLock;
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * Elimina gli appuntamenti passati (completati).
      * Esegue ogni giorno alle 2:00 AM (cron: second minute hour day month weekday)
      * 
      * Formato cron: "0 0 2 * * ?" = ogni giorno alle 2:00 AM
+     * Con più repliche il job viene eseguito da una sola (lock "appointment-cleanup" su job_locks)
      */
     
     @Scheduled(cron = "0 0 2 * * ?")
-    @Transactional
     public void deletePastAppointments() {
+        jobLock.runExclusively("appointment-cleanup", () -> transactionTemplate.executeWithoutResult(status -> cleanup()));
+    }
+
+    private void cleanup() {
         log.info("Starting cleanup of past appointments...");
         
         OffsetDateTime now = OffsetDateTime.now();
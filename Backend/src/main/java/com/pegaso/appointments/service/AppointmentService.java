@@ -1,38 +1,53 @@
 package com.pegaso.appointments.service;
 
+import com.pegaso.appointments.diagnostics.AppointmentMappingEvent;
+import com.pegaso.appointments.diagnostics.BookingTimeline;
+import com.pegaso.appointments.diagnostics.CallerRole;
 import com.pegaso.appointments.dto.appointment.AppointmentCreateResponse;
 import com.pegaso.appointments.dto.appointment.AppointmentRequest;
 import com.pegaso.appointments.dto.appointment.AppointmentResponse;
 import com.pegaso.appointments.dto.appointment.UpdateAppointmentRequest;
 import com.pegaso.appointments.dto.appointment.UpdateAppointmentResponse;
+import com.pegaso.appointments.dto.sync.ChangesResponse;
 import com.pegaso.appointments.entity.Appointment;
 import com.pegaso.appointments.entity.Doctor;
 import com.pegaso.appointments.entity.DoctorExam;
 import com.pegaso.appointments.entity.Exam;
 import com.pegaso.appointments.entity.Patient;
+import com.pegaso.appointments.event.AppointmentChangedEvent;
 import com.pegaso.appointments.exception.BadRequestException;
 import com.pegaso.appointments.exception.ConflictException;
 import com.pegaso.appointments.exception.ForbiddenException;
+import com.pegaso.appointments.exception.PreconditionFailedException;
 import com.pegaso.appointments.exception.ResourceNotFoundException;
+import com.pegaso.appointments.mapper.AppointmentMapper;
+import com.pegaso.appointments.metrics.BookingMetrics;
 import com.pegaso.appointments.repository.AdminRepository;
 import com.pegaso.appointments.repository.AppointmentRepository;
+import com.pegaso.appointments.repository.AppointmentSearchCriteria;
 import com.pegaso.appointments.repository.DoctorExamRepository;
 import com.pegaso.appointments.repository.DoctorRepository;
 import com.pegaso.appointments.repository.ExamRepository;
 import com.pegaso.appointments.repository.PatientRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 // Service per la gestione degli appuntamenti, per astrarre logica di business e avere il controller pulito
 @Service
+@Observed(name = "appointments.service")
 @RequiredArgsConstructor
 public class AppointmentService {
 
@@ -43,6 +58,10 @@ public class AppointmentService {
     private final ExamRepository examRepository;
     private final DoctorExamRepository doctorExamRepository;
     private final FieldNormalizationService normalization;
+    private final ChangeTrackingService changeTracking;
+    private final ResourceVersionService resourceVersions;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookingMetrics bookingMetrics;
 
     // Recupero degli appuntamenti come admin
     @Transactional(readOnly = true)
@@ -50,9 +69,7 @@ public class AppointmentService {
         if (!adminRepository.existsById(adminId)) {
             throw new ForbiddenException("Accesso non autorizzato");
         }
-        return appointmentRepository.findAllOrderByScheduledAtAsc().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapAll(appointmentRepository.findAllOrderByScheduledAtAsc(), CallerRole.ADMIN);
     }
 
     // Recupero degli appuntamenti come dottore
@@ -61,9 +78,7 @@ public class AppointmentService {
         if (!doctorRepository.existsById(doctorId)) {
             throw new ForbiddenException("Accesso non autorizzato");
         }
-        return appointmentRepository.findByDoctorIdOrderByScheduledAtAsc(doctorId).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapAll(appointmentRepository.findByDoctorIdOrderByScheduledAtAsc(doctorId), CallerRole.DOCTOR);
     }
 
     // Recupero degli appuntamenti come paziente
@@ -72,9 +87,99 @@ public class AppointmentService {
         if (!patientRepository.existsById(patientId)) {
             throw new ForbiddenException("Accesso non autorizzato");
         }
-        return appointmentRepository.findByPatientIdOrderByScheduledAtAsc(patientId).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapAll(appointmentRepository.findByPatientIdOrderByScheduledAtAsc(patientId), CallerRole.PATIENT);
+    }
+
+    // Ricerca filtrata degli appuntamenti (intervallo di date, stati, esame, dottore solo per admin)
+    @Transactional(readOnly = true)
+    public List<AppointmentResponse> searchAppointments(UUID adminId, UUID doctorId, UUID patientId,
+                                                        LocalDateTime from, LocalDateTime to, List<String> statuses,
+                                                        UUID examId, UUID doctorFilter) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("from must be before to");
+        }
+        Set<String> normalizedStatuses = normalizeStatusFilter(statuses);
+
+        AppointmentSearchCriteria.AppointmentSearchCriteriaBuilder criteria = AppointmentSearchCriteria.builder()
+                .examId(examId)
+                .from(from == null ? null : from.atOffset(ZoneOffset.UTC))
+                .to(to == null ? null : to.atOffset(ZoneOffset.UTC))
+                .statuses(normalizedStatuses);
+
+        if (adminId != null) {
+            if (!adminRepository.existsById(adminId)) {
+                throw new ForbiddenException("Accesso non autorizzato");
+            }
+            criteria.doctorId(doctorFilter);
+        } else {
+            if (doctorFilter != null) {
+                throw new BadRequestException("Il filtro doctorId è disponibile solo per l'admin");
+            }
+            if (doctorId != null) {
+                if (!doctorRepository.existsById(doctorId)) {
+                    throw new ForbiddenException("Accesso non autorizzato");
+                }
+                criteria.doctorId(doctorId);
+            } else {
+                if (!patientRepository.existsById(patientId)) {
+                    throw new ForbiddenException("Accesso non autorizzato");
+                }
+                criteria.patientId(patientId);
+            }
+        }
+
+        CallerRole callerRole = adminId != null ? CallerRole.ADMIN
+                : doctorId != null ? CallerRole.DOCTOR
+                : CallerRole.PATIENT;
+        return mapAll(appointmentRepository.search(criteria.build()), callerRole);
+    }
+
+    // Normalizzazione del filtro stati (accetta anche valori separati da virgola)
+    private Set<String> normalizeStatusFilter(List<String> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return null;
+        }
+        Set<String> normalized = new HashSet<>();
+        for (String value : statuses) {
+            for (String status : value.split(",")) {
+                String s = normalization.normalizeStatus(status);
+                if (s == null) {
+                    continue;
+                }
+                if (!s.equals("pending") && !s.equals("confirmed") && !s.equals("cancelled") && !s.equals("completed")) {
+                    throw new BadRequestException("Invalid status: " + status.trim());
+                }
+                normalized.add(s);
+            }
+        }
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    // Recupero incrementale degli appuntamenti modificati dopo il watermark GET api/appointments/changes
+    @Transactional(readOnly = true)
+    public ChangesResponse<AppointmentResponse> getAppointmentChanges(UUID adminId, UUID doctorId, UUID patientId,
+                                                                      String since, Integer limit) {
+        ChangeTrackingService.ChangePage page;
+        if (adminId != null) {
+            if (!adminRepository.existsById(adminId)) {
+                throw new ForbiddenException("Accesso non autorizzato");
+            }
+            page = changeTracking.findChanges("appointments", since, limit, null, null);
+        } else if (doctorId != null) {
+            if (!doctorRepository.existsById(doctorId)) {
+                throw new ForbiddenException("Accesso non autorizzato");
+            }
+            page = changeTracking.findChanges("appointments", since, limit, "doctor_id", doctorId);
+        } else {
+            if (!patientRepository.existsById(patientId)) {
+                throw new ForbiddenException("Accesso non autorizzato");
+            }
+            page = changeTracking.findChanges("appointments", since, limit, "patient_id", patientId);
+        }
+        return changeTracking.toResponse(page,
+                appointmentRepository::findAllByIdInWithRelations,
+                Appointment::getId,
+                AppointmentMapper::toResponse);
     }
 
 
@@ -87,6 +192,22 @@ public class AppointmentService {
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found"));
 
         // Verifica autorizzazione
+        checkReadAccess(appointment.getDoctor().getId(), appointment.getPatient().getId(), adminId, doctorId, patientId);
+
+        return AppointmentMapper.toResponse(appointment);
+    }
+
+    // ETag di un singolo appuntamento, calcolato senza caricare l'entità (stesse regole di accesso della GET)
+    @Transactional(readOnly = true)
+    public String getAppointmentETag(UUID appointmentId, UUID adminId, UUID doctorId, UUID patientId) {
+        AppointmentRepository.AppointmentVersionView view = appointmentRepository.findVersionById(appointmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Appointment not found"));
+        checkReadAccess(view.getDoctorId(), view.getPatientId(), adminId, doctorId, patientId);
+        return resourceVersions.appointmentETag(view.getVersion());
+    }
+
+    // Verifica che il chiamante possa visualizzare l'appuntamento del dottore/paziente indicati
+    private void checkReadAccess(UUID ownerDoctorId, UUID ownerPatientId, UUID adminId, UUID doctorId, UUID patientId) {
         if (adminId != null) {
             if (!adminRepository.existsById(adminId)) {
                 throw new ForbiddenException("Accesso non autorizzato");
@@ -95,26 +216,28 @@ public class AppointmentService {
             if (!doctorRepository.existsById(doctorId)) {
                 throw new ForbiddenException("Accesso non autorizzato");
             }
-            if (!appointment.getDoctor().getId().equals(doctorId)) {
+            if (!ownerDoctorId.equals(doctorId)) {
                 throw new ForbiddenException("Non sei autorizzato a visualizzare questo appuntamento");
             }
         } else if (patientId != null) {
             if (!patientRepository.existsById(patientId)) {
                 throw new ForbiddenException("Accesso non autorizzato");
             }
-            if (!appointment.getPatient().getId().equals(patientId)) {
+            if (!ownerPatientId.equals(patientId)) {
                 throw new ForbiddenException("Non sei autorizzato a visualizzare questo appuntamento");
             }
         }
-
-        return mapToResponse(appointment);
     }
 
 
 
     // Creazione di un nuovo appuntamento POST api/appointments
+    @Timed(value = "appointments.booking", description = "Appointment booking (POST /api/appointments)")
     @Transactional
     public AppointmentCreateResponse createAppointment(UUID patientId, AppointmentRequest request) {
+        BookingTimeline timeline = BookingTimeline.begin(CallerRole.PATIENT, request.getExamId());
+        timeline.endAfterTransaction();
+        timeline.phase(BookingTimeline.VALIDATION);
         Patient patient = patientRepository.findById(patientId)
                 .orElseThrow(() -> new ResourceNotFoundException("Paziente non trovato"));
 
@@ -127,6 +250,7 @@ public class AppointmentService {
 
         List<DoctorExam> doctorExams = doctorExamRepository.findByExamIdWithDoctor(request.getExamId());
         if (doctorExams.isEmpty()) {
+            bookingMetrics.recordConflict(BookingMetrics.CONFLICT_NO_AUTHORIZED_DOCTOR);
             throw new ConflictException("Nessun dottore è autorizzato a svolgere questo esame");
         }
 
@@ -142,10 +266,14 @@ public class AppointmentService {
         OffsetDateTime endTime = scheduledAt.plusMinutes(durationMinutes);
 
         // Verifica se il paziente ha già un appuntamento sovrapposto
-        if (appointmentRepository.existsOverlappingAppointmentForPatient(patientId, scheduledAt, endTime)) {
+        timeline.phase(BookingTimeline.PATIENT_OVERLAP);
+        if (bookingMetrics.timePatientOverlap(
+                () -> appointmentRepository.existsOverlappingAppointmentForPatient(patientId, scheduledAt, endTime))) {
+            bookingMetrics.recordConflict(BookingMetrics.CONFLICT_PATIENT_OVERLAP);
             throw new ConflictException("Hai già un appuntamento sovrapposto");
         }
 
+        timeline.phase(BookingTimeline.DOCTOR_SELECTION);
         Doctor availableDoctor = null;
         if (request.getDoctorId() != null) {
             Doctor requestedDoctor = doctorRepository.findById(request.getDoctorId())
@@ -157,24 +285,35 @@ public class AppointmentService {
             }
 
             // Verifica disponibilità del dottore richiesto
-            if (appointmentRepository.existsOverlappingAppointment(requestedDoctor.getId(), scheduledAt, endTime)) {
+            bookingMetrics.recordDoctorProbes(1);
+            timeline.doctorProbes(1);
+            if (bookingMetrics.timeDoctorOverlap(
+                    () -> appointmentRepository.existsOverlappingAppointment(requestedDoctor.getId(), scheduledAt, endTime))) {
+                bookingMetrics.recordConflict(BookingMetrics.CONFLICT_REQUESTED_DOCTOR_BUSY);
                 throw new ConflictException("Il dottore richiesto non è disponibile a questo orario");
             }
             availableDoctor = requestedDoctor;
         } else {
+            int probes = 0;
             for (DoctorExam doctorExam : doctorExams) {
                 Doctor doctor = doctorExam.getDoctor();
-                if (!appointmentRepository.existsOverlappingAppointment(doctor.getId(), scheduledAt, endTime)) {
+                probes++;
+                if (!bookingMetrics.timeDoctorOverlap(
+                        () -> appointmentRepository.existsOverlappingAppointment(doctor.getId(), scheduledAt, endTime))) {
                     availableDoctor = doctor;
                     break;
                 }
             }
+            bookingMetrics.recordDoctorProbes(probes);
+            timeline.doctorProbes(probes);
         }
 
         if (availableDoctor == null) {
+            bookingMetrics.recordConflict(BookingMetrics.CONFLICT_NO_DOCTOR_AVAILABLE);
             throw new ConflictException("Nessun dottore è disponibile a questo orario per questo esame");
         }
         // Creazione dell'appuntamento
+        timeline.phase(BookingTimeline.INSERT);
         Appointment appointment = Appointment.builder()
                 .patient(patient)
                 .doctor(availableDoctor)
@@ -188,63 +327,30 @@ public class AppointmentService {
 
         // Salvataggio dell'appuntamento
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        publishChange(savedAppointment, AppointmentChangedEvent.ChangeType.CREATED, null);
+        bookingMetrics.recordCreated();
 
-        return mapToCreateResponse(savedAppointment);
+        return AppointmentMapper.toCreateResponse(savedAppointment);
     }
 
 
 
-    // mapping dell'appuntamento alla risposta di creazione
-    private AppointmentCreateResponse mapToCreateResponse(Appointment appointment) {
-        LocalDateTime appointmentDate = appointment.getScheduledAt() == null
-                ? null
-                : appointment.getScheduledAt().atZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
-
-        return AppointmentCreateResponse.builder()
-                .id(appointment.getId())
-                .appointmentDate(appointmentDate)
-                .doctorId(appointment.getDoctor().getId())
-                .patientId(appointment.getPatient().getId())
-                .patientEmail(appointment.getPatient().getEmail())
-                .status(appointment.getStatus())
-                .reason(appointment.getReason())
-                .contraindications(appointment.getContraindications())
-                .examName(appointment.getExam().getName())
-                .build();
-    }
-
-
-
-
-    // mapping dell'appuntamento alla risposta per dottore, paziente e admin
-    private AppointmentResponse mapToResponse(Appointment a) {
-        LocalDateTime appointmentDate = a.getScheduledAt() == null
-                ? null
-                : a.getScheduledAt().atZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
-        return AppointmentResponse.builder()
-                .id(a.getId())
-                .appointmentDate(appointmentDate)
-                .doctorId(a.getDoctor().getId())
-                .doctorFirstName(a.getDoctor().getFirstName())
-                .doctorLastName(a.getDoctor().getLastName())
-                .doctorGender(a.getDoctor().getGender())
-                .patientId(a.getPatient().getId())
-                .patientFirstName(a.getPatient().getFirstName())
-                .patientLastName(a.getPatient().getLastName())
-                .patientEmail(a.getPatient().getEmail())
-                .status(a.getStatus())
-                .reason(a.getReason())
-                .contraindications(a.getContraindications())
-                .durationMinutes(a.getDurationMinutes())
-                .examName(a.getExam().getName())
-                .build();
+    // mapping delle liste di appuntamenti, misurato con un evento JFR
+    private List<AppointmentResponse> mapAll(List<Appointment> appointments, CallerRole callerRole) {
+        AppointmentMappingEvent event = AppointmentMappingEvent.start(callerRole);
+        List<AppointmentResponse> responses = appointments.stream()
+                .map(AppointmentMapper::toResponse)
+                .collect(Collectors.toList());
+        event.finish(responses.size());
+        return responses;
     }
 
 
 
     // Aggiornamento di un appuntamento PATCH api/appointments/{id}
     @Transactional
-    public UpdateAppointmentResponse updateAppointment(UUID appointmentId, UpdateAppointmentRequest request, UUID adminId, UUID patientId, UUID doctorId) {
+    public UpdateAppointmentResponse updateAppointment(UUID appointmentId, UpdateAppointmentRequest request, UUID adminId, UUID patientId, UUID doctorId,
+                                                       Long expectedVersion) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found"));
 
@@ -279,6 +385,12 @@ public class AppointmentService {
             }
         }
 
+        // If-Match: la modifica è consentita solo sulla versione letta dal client
+        if (expectedVersion != null && !expectedVersion.equals(appointment.getVersion())) {
+            throw new PreconditionFailedException("L'appuntamento è stato modificato nel frattempo. Ricarica i dati e riprova.");
+        }
+        String previousStatus = appointment.getStatus();
+
         // Se la data dell'appuntamento è cambiata, verifico che non sia sovrapposta ad un altro appuntamento
         // Solo admin può modificare la data
         if (request.getAppointmentDate() != null) {
@@ -335,7 +447,9 @@ public class AppointmentService {
             appointment.setContraindications(request.getContraindications().trim().isEmpty() ? null : request.getContraindications().trim());
         }
 
-        Appointment updatedAppointment = appointmentRepository.save(appointment);
+        // Flush immediato per restituire la nuova versione (ETag) nella risposta
+        Appointment updatedAppointment = appointmentRepository.saveAndFlush(appointment);
+        publishChange(updatedAppointment, AppointmentChangedEvent.ChangeType.UPDATED, previousStatus);
         return mapToUpdateResponse(updatedAppointment);
     }
 
@@ -374,6 +488,7 @@ public class AppointmentService {
         // Se l'appuntamento è completato, lo eliminiamo fisicamente dal DB
         if ("completed".equals(appointment.getStatus())) {
             appointmentRepository.delete(appointment);
+            publishChange(appointment, AppointmentChangedEvent.ChangeType.DELETED, "completed");
             return;
         }
 
@@ -387,8 +502,23 @@ public class AppointmentService {
             throw new ConflictException("L'appuntamento non può essere cancellato. La cancellazione deve essere richiesta almeno 2 giorni prima della data dell'appuntamento.");
         }
 
+        String previousStatus = appointment.getStatus();
         appointment.setStatus("cancelled");
         appointmentRepository.save(appointment);
+        publishChange(appointment, AppointmentChangedEvent.ChangeType.UPDATED, previousStatus);
+    }
+
+    // Pubblicazione dell'evento di modifica nella transazione corrente (reminder, outbox, ...)
+    private void publishChange(Appointment appointment, AppointmentChangedEvent.ChangeType type, String previousStatus) {
+        eventPublisher.publishEvent(new AppointmentChangedEvent(
+                appointment.getId(),
+                appointment.getDoctor().getId(),
+                appointment.getPatient().getId(),
+                type,
+                previousStatus,
+                type == AppointmentChangedEvent.ChangeType.DELETED ? null : appointment.getStatus(),
+                appointment.getScheduledAt(),
+                OffsetDateTime.now()));
     }
 
 
@@ -409,6 +539,7 @@ public class AppointmentService {
                 .reason(appointment.getReason())
                 .contraindications(appointment.getContraindications())
                 .examName(appointment.getExam().getName())
+                .version(appointment.getVersion())
                 .build();
     }
 }
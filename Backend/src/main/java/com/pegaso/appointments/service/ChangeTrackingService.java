@@ -0,0 +1,186 @@
+package com.pegaso.appointments.service;
+
+import com.pegaso.appointments.dto.sync.ChangesResponse;
+import com.pegaso.appointments.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Service per il delta sync: individua le righe modificate (updated_at) e i tombstone (deleted_records)
+// successivi a un watermark, con paginazione keyset su (istante, id)
+@Service
+@RequiredArgsConstructor
+public class ChangeTrackingService {
+
+    private static final Set<String> TRACKED_TABLES = Set.of("appointments", "doctors", "patients", "exams");
+    private static final Set<String> OWNER_COLUMNS = Set.of("doctor_id", "patient_id");
+    private static final UUID MAX_UUID = new UUID(-1L, -1L);
+
+    // updated_at è NOW() della transazione che scrive (trigger), cioè il suo istante di inizio: finché è aperta, il
+    // watermark non supera l'inizio della transazione più vecchia sul database, altrimenti le sue righe, visibili solo
+    // dopo il commit, finirebbero sotto un watermark già consegnato. Contano solo le sessioni client attive su questo
+    // database, e il ritardo è limitato a max-hold-seconds: una sessione dimenticata "idle in transaction" non blocca
+    // il delta sync di tutti. pg_stat_activity mostra xact_start solo per le sessioni dello stesso ruolo (o con
+    // pg_read_all_stats): tutte le repliche usano lo stesso utente
+    private static final String UPPER_BOUND_SQL = "SELECT LEAST(NOW() - ? * INTERVAL '1 second', "
+            + "GREATEST(NOW() - ? * INTERVAL '1 second', "
+            + "(SELECT MIN(xact_start) FROM pg_stat_activity"
+            + " WHERE datname = current_database() AND backend_type = 'client backend' AND state <> 'idle'"
+            + " AND pid <> pg_backend_pid()) - INTERVAL '1 microsecond'))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.sync.default-page-size:500}")
+    private int defaultPageSize;
+
+    @Value("${app.sync.max-page-size:1000}")
+    private int maxPageSize;
+
+    // Margine minimo del watermark rispetto a NOW(); le transazioni più lunghe sono coperte da UPPER_BOUND_SQL
+    @Value("${app.sync.commit-lag-seconds:5}")
+    private int commitLagSeconds;
+
+    // Ritardo massimo del watermark dovuto a transazioni aperte: le scritture di transazioni più lunghe possono
+    // sfuggire al delta sync, ma un client non resta fermo per una sessione dimenticata aperta
+    @Value("${app.sync.max-hold-seconds:120}")
+    private int maxHoldSeconds;
+
+    // Una modifica (o eliminazione) individuata dal delta sync
+    public record Change(UUID id, Instant changedAt, boolean deleted) {
+    }
+
+    // Pagina di modifiche con il watermark da restituire al client
+    public record ChangePage(List<Change> changes, String watermark, boolean hasMore) {
+    }
+
+    // Recupero delle modifiche di una tabella successive al watermark, eventualmente filtrate per proprietario
+    public ChangePage findChanges(String table, String since, Integer limit, String ownerColumn, UUID ownerId) {
+        if (!TRACKED_TABLES.contains(table) || (ownerColumn != null && !OWNER_COLUMNS.contains(ownerColumn))) {
+            throw new IllegalStateException("Table not tracked for delta sync: " + table);
+        }
+        int pageSize = resolvePageSize(limit);
+        Cursor cursor = parseWatermark(since);
+
+        Timestamp upperBound = jdbcTemplate.queryForObject(UPPER_BOUND_SQL, Timestamp.class,
+                commitLagSeconds, maxHoldSeconds);
+
+        String ownerFilter = ownerColumn == null ? "" : " AND " + ownerColumn + " = ?";
+        String sql = "SELECT id, changed_at, deleted FROM ("
+                + "(SELECT id, updated_at AS changed_at, FALSE AS deleted FROM " + table
+                + " WHERE (updated_at, id) > (?, ?) AND updated_at <= ?" + ownerFilter
+                + " ORDER BY updated_at, id LIMIT ?)"
+                + " UNION ALL "
+                + "(SELECT entity_id, deleted_at, TRUE FROM deleted_records"
+                + " WHERE entity_type = ? AND (deleted_at, entity_id) > (?, ?) AND deleted_at <= ?" + ownerFilter
+                + " ORDER BY deleted_at, entity_id LIMIT ?)"
+                + ") c ORDER BY changed_at, id LIMIT ?";
+
+        Timestamp from = Timestamp.from(cursor.instant());
+        List<Object> params = new ArrayList<>(List.of(from, cursor.id(), upperBound));
+        if (ownerColumn != null) {
+            params.add(ownerId);
+        }
+        params.add(pageSize + 1);
+        params.addAll(List.of(table, from, cursor.id(), upperBound));
+        if (ownerColumn != null) {
+            params.add(ownerId);
+        }
+        params.add(pageSize + 1);
+        params.add(pageSize + 1);
+
+        List<Change> changes = jdbcTemplate.query(sql,
+                (rs, rowNum) -> new Change(
+                        rs.getObject("id", UUID.class),
+                        rs.getTimestamp("changed_at").toInstant(),
+                        rs.getBoolean("deleted")),
+                params.toArray());
+
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes = changes.subList(0, pageSize);
+            Change last = changes.get(changes.size() - 1);
+            return new ChangePage(changes, formatWatermark(last.changedAt(), last.id()), true);
+        }
+        return new ChangePage(changes, formatWatermark(upperBound.toInstant(), MAX_UUID), false);
+    }
+
+    // Composizione della risposta: carica le righe modificate in blocco e mantiene l'ordine delle modifiche
+    public <E, T> ChangesResponse<T> toResponse(ChangePage page,
+                                                Function<List<UUID>, List<E>> loader,
+                                                Function<E, UUID> idExtractor,
+                                                Function<E, T> mapper) {
+        List<UUID> changedIds = page.changes().stream()
+                .filter(change -> !change.deleted())
+                .map(Change::id)
+                .collect(Collectors.toList());
+        List<UUID> deletedIds = page.changes().stream()
+                .filter(Change::deleted)
+                .map(Change::id)
+                .collect(Collectors.toList());
+
+        Map<UUID, E> loaded = changedIds.isEmpty()
+                ? Map.of()
+                : loader.apply(changedIds).stream().collect(Collectors.toMap(idExtractor, Function.identity()));
+
+        // Una riga eliminata tra le due query non viene restituita: il suo tombstone arriverà con il prossimo watermark
+        List<T> items = changedIds.stream()
+                .map(loaded::get)
+                .filter(entity -> entity != null)
+                .map(mapper)
+                .collect(Collectors.toList());
+
+        return ChangesResponse.<T>builder()
+                .items(items)
+                .deletedIds(deletedIds)
+                .watermark(page.watermark())
+                .hasMore(page.hasMore())
+                .build();
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit <= 0) {
+            throw new BadRequestException("limit must be greater than 0");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    // Watermark: "<microsecondi epoch>_<uuid>"; assente = sincronizzazione completa
+    private Cursor parseWatermark(String since) {
+        if (since == null || since.isBlank()) {
+            return new Cursor(Instant.EPOCH, new UUID(0L, 0L));
+        }
+        String[] parts = since.trim().split("_", 2);
+        if (parts.length != 2) {
+            throw new BadRequestException("Invalid watermark: " + since);
+        }
+        try {
+            long micros = Long.parseLong(parts[0]);
+            Instant instant = Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+            return new Cursor(instant, UUID.fromString(parts[1]));
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw new BadRequestException("Invalid watermark: " + since);
+        }
+    }
+
+    private String formatWatermark(Instant instant, UUID id) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant) + "_" + id;
+    }
+
+    private record Cursor(Instant instant, UUID id) {
+    }
+}
@@ -0,0 +1,203 @@
+package com.pegaso.appointments.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pegaso.appointments.entity.Doctor;
+import com.pegaso.appointments.entity.DoctorExam;
+import com.pegaso.appointments.entity.DoctorExamId;
+import com.pegaso.appointments.entity.Exam;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.UUID;
+
+// Bus di invalidazione tra repliche: i trigger del database inviano NOTIFY sul canale cache_invalidation
+// a ogni commit su exams, doctors, doctor_exams e patients (non su appointments, vedi 01-schema.sql); un thread
+// dedicato per replica resta in LISTEN su una connessione propria (fuori dal pool) e rimuove le voci interessate
+// dalle cache locali.
+// Le notifiche inviate mentre la connessione è caduta vanno perse: alla riconnessione le cache vengono svuotate
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterCacheInvalidationService implements SmartLifecycle {
+
+    static final String CHANNEL = "cache_invalidation";
+
+    private final DataSourceProperties dataSourceProperties;
+    private final EntityCacheService entityCache;
+    private final ResourceVersionService resourceVersions;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.cache.invalidation.enabled:true}")
+    private boolean enabled;
+
+    // Attesa massima di una notifica prima di verificare che la connessione sia ancora viva
+    @Value("${app.cache.invalidation.poll-timeout-ms:5000}")
+    private int pollTimeoutMs;
+
+    @Value("${app.cache.invalidation.reconnect-delay-ms:5000}")
+    private long reconnectDelayMs;
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread listenerThread;
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            log.info("Cluster cache invalidation disabled");
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        closeConnection();
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listenLoop() {
+        // Vero dopo un tentativo fallito o una disconnessione: le notifiche nel frattempo sono andate perse
+        boolean missedNotifications = false;
+        while (running) {
+            try (Connection listenConnection = openConnection()) {
+                connection = listenConnection;
+                try (Statement statement = listenConnection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                // Dopo una disconnessione, o se il primo LISTEN è riuscito solo dopo alcuni tentativi, non si sa
+                // cosa sia cambiato nel frattempo mentre le cache si riempivano: svuoto tutto
+                if (missedNotifications) {
+                    log.warn("Cache invalidation listener (re)connected after a failure, flushing local caches");
+                    flushAll();
+                    missedNotifications = false;
+                }
+                log.info("Listening for cache invalidations on channel {}", CHANNEL);
+
+                PGConnection pgConnection = listenConnection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications == null || notifications.length == 0) {
+                        // Nessuna notifica: una query banale fa emergere una connessione interrotta
+                        try (Statement statement = listenConnection.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        apply(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                missedNotifications = true;
+                if (running) {
+                    log.warn("Cache invalidation listener disconnected: {}", e.getMessage());
+                    sleepBeforeReconnect();
+                }
+            } finally {
+                connection = null;
+            }
+        }
+    }
+
+    // Applicazione di una notifica: {"table": ..., "id": ...} oppure {"table": "doctor_exams", "doctorId": ..., "examId": ...}
+    void apply(String payload) {
+        try {
+            JsonNode message = objectMapper.readTree(payload);
+            String table = message.path("table").asText();
+            switch (table) {
+                case "exams" -> {
+                    evictEntity(Exam.class, message.path("id"));
+                    entityCache.evictQueryResults();
+                    resourceVersions.invalidate(ResourceVersionService.EXAMS);
+                }
+                case "doctors" -> {
+                    evictEntity(Doctor.class, message.path("id"));
+                    entityCache.evictQueryResults();
+                    resourceVersions.invalidate(ResourceVersionService.DOCTORS);
+                }
+                case "doctor_exams" -> {
+                    UUID doctorId = UUID.fromString(message.path("doctorId").asText());
+                    UUID examId = UUID.fromString(message.path("examId").asText());
+                    entityCache.evict(DoctorExam.class, new DoctorExamId(doctorId, examId));
+                    entityCache.evict(Doctor.class, doctorId);
+                    entityCache.evictQueryResults();
+                    resourceVersions.invalidate(ResourceVersionService.DOCTORS);
+                }
+                case "patients" -> resourceVersions.invalidate(ResourceVersionService.PATIENTS);
+                default -> log.debug("Ignoring cache invalidation for table {}", table);
+            }
+        } catch (Exception e) {
+            // Payload non interpretabile: meglio perdere la cache che servire dati vecchi
+            log.warn("Invalid cache invalidation payload '{}', flushing local caches", payload);
+            flushAll();
+        }
+    }
+
+    private void evictEntity(Class<?> entityClass, JsonNode id) {
+        entityCache.evict(entityClass, UUID.fromString(id.asText()));
+    }
+
+    private void flushAll() {
+        entityCache.evictAll();
+        resourceVersions.invalidateAll();
+    }
+
+    private Connection openConnection() throws SQLException {
+        Properties properties = new Properties();
+        String username = dataSourceProperties.determineUsername();
+        String password = dataSourceProperties.determinePassword();
+        if (username != null) {
+            properties.setProperty("user", username);
+        }
+        if (password != null) {
+            properties.setProperty("password", password);
+        }
+        properties.setProperty("ApplicationName", "appointments-cache-invalidation");
+        properties.setProperty("tcpKeepAlive", "true");
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(), properties);
+    }
+
+    private void closeConnection() {
+        Connection current = connection;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException e) {
+                log.debug("Error closing cache invalidation connection", e);
+            }
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(reconnectDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
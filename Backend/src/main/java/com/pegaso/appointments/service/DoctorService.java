@@ -5,16 +5,21 @@ import com.pegaso.appointments.dto.doctor.DoctorProfileResponse;
 import com.pegaso.appointments.dto.doctor.DoctorResponse;
 import com.pegaso.appointments.dto.doctor.ExamInfoDto;
 import com.pegaso.appointments.dto.doctor.UpdateDoctorRequest;
+import com.pegaso.appointments.dto.search.SearchResponse;
+import com.pegaso.appointments.dto.sync.ChangesResponse;
 import com.pegaso.appointments.entity.Doctor;
 import com.pegaso.appointments.entity.DoctorExam;
 import com.pegaso.appointments.entity.DoctorExamId;
 import com.pegaso.appointments.entity.Exam;
 import com.pegaso.appointments.exception.ConflictException;
 import com.pegaso.appointments.exception.ResourceNotFoundException;
+import com.pegaso.appointments.mapper.DoctorMapper;
 import com.pegaso.appointments.repository.AppointmentRepository;
 import com.pegaso.appointments.repository.DoctorExamRepository;
 import com.pegaso.appointments.repository.DoctorRepository;
 import com.pegaso.appointments.repository.ExamRepository;
+import com.pegaso.appointments.singleflight.SingleFlight;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -25,11 +30,13 @@ import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 // Service per la gestione dei dottori, utilizzato per astrarre la logica di business dalla presentazione (chiama i repository e mantiene il controller pulito)
 @Service
+@Observed(name = "appointments.service")
 @RequiredArgsConstructor
 public class DoctorService {
 
@@ -40,6 +47,9 @@ public class DoctorService {
     private final JdbcTemplate jdbcTemplate;
     private final FieldNormalizationService normalization;
     private final FieldValidationService validation;
+    private final ChangeTrackingService changeTracking;
+    private final TextSearchService textSearch;
+    private final EntityCacheService entityCache;
 
     @Transactional
     // Creazione di un nuovo dottore
@@ -101,8 +111,10 @@ public class DoctorService {
                 doctorExamRepository.save(doctorExam);
                 examIds.add(exam.getId());
             }
+            // Il trigger su doctor_exams aggiorna doctors.updated_at: il dottore in cache non è più attuale
+            entityCache.evictAfterCommit(Doctor.class, doctor.getId());
         }
-        return mapToResponse(doctor, examIds);
+        return DoctorMapper.toResponse(doctor, examIds);
     }
 
     @Transactional(readOnly = true)
@@ -131,7 +143,10 @@ public class DoctorService {
 
 
 
-    // Recupero di tutti i dottori (Admin) con filtri opzionali
+    // Recupero di tutti i dottori (Admin) con filtri opzionali; le richieste concorrenti identiche (stesso esame e
+    // stessa data) condividono le query. La disponibilità dipende dagli appuntamenti, quindi ogni prenotazione invalida
+    @SingleFlight(name = "doctors", microCacheMs = "${app.single-flight.micro-cache-ms:200}",
+            invalidatedBy = {ResourceVersionService.DOCTORS, ResourceVersionService.EXAMS, ResourceVersionService.APPOINTMENTS})
     @Transactional(readOnly = true)
     public List<DoctorProfileResponse> getDoctors(UUID examId, LocalDateTime date) {
         List<Doctor> doctors;
@@ -191,6 +206,45 @@ public class DoctorService {
         return getDoctors(null, null);
     }
 
+    // Ricerca paginata dei dottori per nome, cognome o email GET api/admin/doctors/search (Admin)
+    @Transactional(readOnly = true)
+    public SearchResponse<DoctorProfileResponse> searchDoctors(String q, Integer page, Integer size) {
+        TextSearchService.SearchQuery query = textSearch.parse(q, page, size);
+        List<UUID> ids = doctorRepository.searchIds(query.text(), query.prefixPattern(), query.containsPattern(),
+                query.limit(), query.offset());
+        return textSearch.toResponse(query, ids, this::findProfilesByIds, DoctorProfileResponse::getId, profile -> profile);
+    }
+
+    // Recupero incrementale dei dottori modificati dopo il watermark GET api/doctors/changes
+    @Transactional(readOnly = true)
+    public ChangesResponse<DoctorProfileResponse> getDoctorChanges(String since, Integer limit) {
+        ChangeTrackingService.ChangePage page = changeTracking.findChanges("doctors", since, limit, null, null);
+        return changeTracking.toResponse(page, this::findProfilesByIds, DoctorProfileResponse::getId, profile -> profile);
+    }
+
+    // Profili di più dottori con due sole query (dottori + abilitazioni)
+    private List<DoctorProfileResponse> findProfilesByIds(List<UUID> doctorIds) {
+        Map<UUID, List<ExamInfoDto>> examsByDoctor = doctorExamRepository.findByDoctorIdInWithExam(doctorIds).stream()
+                .collect(Collectors.groupingBy(
+                        de -> de.getId().getDoctorId(),
+                        Collectors.mapping(de -> ExamInfoDto.builder()
+                                .examId(de.getExam().getId())
+                                .examName(de.getExam().getName())
+                                .description(de.getExam().getDescription())
+                                .build(), Collectors.toList())));
+        return doctorRepository.findAllById(doctorIds).stream()
+                .map(doctor -> DoctorProfileResponse.builder()
+                        .id(doctor.getId())
+                        .firstName(doctor.getFirstName())
+                        .lastName(doctor.getLastName())
+                        .gender(doctor.getGender())
+                        .email(doctor.getEmail())
+                        .phoneNumber(doctor.getPhoneNumber())
+                        .exams(examsByDoctor.getOrDefault(doctor.getId(), List.of()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
     // Aggiornamento del profilo del dottore
     @Transactional
     public DoctorProfileResponse updateDoctorProfile(UUID doctorId, UpdateDoctorRequest request) {
@@ -258,6 +312,8 @@ public class DoctorService {
         // per evitare violazioni di foreign key constraint
         deleteCancelledAppointments(doctorId);
         doctorRepository.delete(doctor);
+        // Le abilitazioni vengono eliminate in cascata dal database, senza passare da Hibernate
+        entityCache.evictAllAfterCommit(DoctorExam.class);
     }
 
     private void deleteCancelledAppointments(UUID doctorId) {
@@ -275,19 +331,4 @@ public class DoctorService {
         );
         return Boolean.TRUE.equals(exists);
     }
-
-    // Mappo il dottore e gli esami associati al DTO
-    private DoctorResponse mapToResponse(Doctor doctor, List<UUID> examIds) {
-        return DoctorResponse.builder()
-                .id(doctor.getId())
-                .firstName(doctor.getFirstName())
-                .lastName(doctor.getLastName())
-                .gender(doctor.getGender())
-                .email(doctor.getEmail())
-                .phoneNumber(doctor.getPhoneNumber())
-                .createdAt(doctor.getCreatedAt())
-                .updatedAt(doctor.getUpdatedAt())
-                .examIds(examIds)
-                .build();
-    }
 }
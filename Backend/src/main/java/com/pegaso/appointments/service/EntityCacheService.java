@@ -0,0 +1,107 @@
+package com.pegaso.appointments.service;
+
+import com.pegaso.appointments.dto.cache.CacheStatsResponse;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+// Service per la cache di secondo livello di Hibernate (exams, doctors, doctor_exams + query cache).
+// Hibernate invalida da solo le entità che scrive; qui si gestiscono le modifiche fatte dal database
+// (trigger e ON DELETE CASCADE) che Hibernate non vede
+@Service
+@RequiredArgsConstructor
+public class EntityCacheService {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    // Rimozione di una singola entità dalla cache dopo il commit
+    public void evictAfterCommit(Class<?> entityClass, Object id) {
+        afterCommit(() -> entityManagerFactory.getCache().evict(entityClass, id));
+    }
+
+    // Rimozione di tutte le entità della classe e dei risultati in query cache dopo il commit
+    public void evictAllAfterCommit(Class<?> entityClass) {
+        afterCommit(() -> {
+            entityManagerFactory.getCache().evict(entityClass);
+            sessionFactory().getCache().evictQueryRegions();
+        });
+    }
+
+    // Rimozione immediata di una singola entità (invalidazioni ricevute da altre repliche)
+    public void evict(Class<?> entityClass, Object id) {
+        entityManagerFactory.getCache().evict(entityClass, id);
+    }
+
+    // Rimozione immediata dei risultati in query cache: i timestamp delle tabelle sono locali a ogni replica,
+    // quindi le scritture fatte altrove non li invalidano
+    public void evictQueryResults() {
+        sessionFactory().getCache().evictQueryRegions();
+    }
+
+    // Svuotamento completo di entità e query cache
+    public void evictAll() {
+        entityManagerFactory.getCache().evictAll();
+        evictQueryResults();
+    }
+
+    // Statistiche della cache dall'avvio
+    public CacheStatsResponse getStatistics() {
+        Statistics statistics = sessionFactory().getStatistics();
+        List<CacheStatsResponse.Region> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(name -> toRegion(name, statistics.getCacheRegionStatistics(name)))
+                .filter(Objects::nonNull)
+                .toList();
+        return CacheStatsResponse.builder()
+                .statisticsEnabled(statistics.isStatisticsEnabled())
+                .secondLevelCacheHitCount(statistics.getSecondLevelCacheHitCount())
+                .secondLevelCacheMissCount(statistics.getSecondLevelCacheMissCount())
+                .secondLevelCachePutCount(statistics.getSecondLevelCachePutCount())
+                .queryCacheHitCount(statistics.getQueryCacheHitCount())
+                .queryCacheMissCount(statistics.getQueryCacheMissCount())
+                .queryCachePutCount(statistics.getQueryCachePutCount())
+                .prepareStatementCount(statistics.getPrepareStatementCount())
+                .regions(regions)
+                .build();
+    }
+
+    private CacheStatsResponse.Region toRegion(String name, CacheRegionStatistics region) {
+        if (region == null) {
+            return null;
+        }
+        return CacheStatsResponse.Region.builder()
+                .name(name)
+                .hitCount(region.getHitCount())
+                .missCount(region.getMissCount())
+                .putCount(region.getPutCount())
+                .elementCountInMemory(region.getElementCountInMemory())
+                .build();
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    // Esecuzione dopo il commit della transazione corrente (subito se non c'è transazione)
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
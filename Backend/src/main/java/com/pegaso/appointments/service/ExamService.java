@@ -3,14 +3,17 @@ package com.pegaso.appointments.service;
 import com.pegaso.appointments.dto.exam.CreateExamRequest;
 import com.pegaso.appointments.dto.exam.ExamResponse;
 import com.pegaso.appointments.dto.exam.UpdateExamRequest;
+import com.pegaso.appointments.dto.sync.ChangesResponse;
 import com.pegaso.appointments.entity.DoctorExam;
 import com.pegaso.appointments.entity.Exam;
 import com.pegaso.appointments.exception.ConflictException;
 import com.pegaso.appointments.exception.ResourceNotFoundException;
+import com.pegaso.appointments.mapper.ExamMapper;
 import com.pegaso.appointments.repository.AdminRepository;
 import com.pegaso.appointments.repository.DoctorExamRepository;
 import com.pegaso.appointments.repository.DoctorRepository;
 import com.pegaso.appointments.repository.ExamRepository;
+import com.pegaso.appointments.singleflight.SingleFlight;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -32,6 +35,8 @@ public class ExamService {
     private final DoctorExamRepository doctorExamRepository;
     private final FieldNormalizationService normalization;
     private final JdbcTemplate jdbcTemplate;
+    private final ChangeTrackingService changeTracking;
+    private final EntityCacheService entityCache;
 
     // Aggiunta/Rimozione dottore da un esame
     @Transactional
@@ -56,6 +61,8 @@ public class ExamService {
                 .build();
 
         doctorExamRepository.save(doctorExam);
+        // Il trigger su doctor_exams aggiorna doctors.updated_at: il dottore in cache non è più attuale
+        entityCache.evictAfterCommit(com.pegaso.appointments.entity.Doctor.class, doctorId);
     }
 
     @Transactional
@@ -73,6 +80,7 @@ public class ExamService {
         }
 
         doctorExamRepository.deleteById(new com.pegaso.appointments.entity.DoctorExamId(doctorId, examId));
+        entityCache.evictAfterCommit(com.pegaso.appointments.entity.Doctor.class, doctorId);
     }
     // Verifica se il dottore ha appuntamenti attivi per questo specifico esame
     private boolean hasActiveAppointmentsForDoctorAndExam(UUID doctorId, UUID examId) {
@@ -105,17 +113,19 @@ public class ExamService {
                 .build();
 
         exam = examRepository.save(exam);
-        return mapToResponse(exam);
+        return ExamMapper.toResponse(exam);
     }
 
 
-    // Recupero di tutti gli esami GET api/exams (pubblico)
+    // Recupero di tutti gli esami GET api/exams (pubblico): le richieste concorrenti identiche condividono la query
+    @SingleFlight(name = "exams", microCacheMs = "${app.single-flight.micro-cache-ms:200}",
+            invalidatedBy = ResourceVersionService.EXAMS)
     @Transactional(readOnly = true)
     public List<ExamResponse> getAllExams(Boolean active) {
         return examRepository.findAll().stream()
                 .filter(exam -> active == null || exam.getIsActive().equals(active))
                 .sorted(Comparator.comparing(Exam::getName))
-                .map(this::mapToResponse)
+                .map(ExamMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
@@ -125,12 +135,19 @@ public class ExamService {
         return getAllExams(null);
     }
 
+    // Recupero incrementale degli esami modificati dopo il watermark GET api/exams/changes (pubblico)
+    @Transactional(readOnly = true)
+    public ChangesResponse<ExamResponse> getExamChanges(String since, Integer limit) {
+        ChangeTrackingService.ChangePage page = changeTracking.findChanges("exams", since, limit, null, null);
+        return changeTracking.toResponse(page, examRepository::findAllById, Exam::getId, ExamMapper::toResponse);
+    }
+
     // Recupero di un singolo esame GET api/exams/{exam_id}
     @Transactional(readOnly = true)
     public ExamResponse getExamById(UUID examId) {
         Exam exam = examRepository.findById(examId)
                 .orElseThrow(() -> new ResourceNotFoundException("Exam", examId));
-        return mapToResponse(exam);
+        return ExamMapper.toResponse(exam);
     }
 
     
@@ -155,7 +172,7 @@ public class ExamService {
         }
 
         exam = examRepository.save(exam);
-        return mapToResponse(exam);
+        return ExamMapper.toResponse(exam);
     }
 
 
@@ -198,16 +215,4 @@ public class ExamService {
         );
         return Boolean.TRUE.equals(exists);
     }
-
-    private ExamResponse mapToResponse(Exam exam) {
-        return ExamResponse.builder()
-                .id(exam.getId())
-                .name(exam.getName())
-                .description(exam.getDescription())
-                .durationMinutes(exam.getDurationMinutes())
-                .isActive(exam.getIsActive())
-                .createdAt(exam.getCreatedAt())
-                .updatedAt(exam.getUpdatedAt())
-                .build();
-    }
 }
@@ -0,0 +1,158 @@
+package com.pegaso.appointments.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Lock distribuito per i job @Scheduled: su più repliche lo stesso job parte ovunque allo stesso orario,
+// ma solo chi ottiene il lease sulla riga di job_locks lo esegue. Il lease viene rinnovato durante
+// l'esecuzione e, al termine, mantenuto almeno per min-hold per non far ripartire il job su una replica
+// il cui scheduler scatta con qualche secondo di ritardo
+@Service
+@Slf4j
+public class JobLockService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId;
+    private final ScheduledExecutorService renewals;
+
+    @Value("${app.jobs.lock.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${app.jobs.lock.min-hold-seconds:30}")
+    private long minHoldSeconds;
+
+    public JobLockService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.nodeId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+        this.renewals = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-lock-renewal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Lease in corso, passato al job: i job lunghi possono controllare isValid() tra un blocco di lavoro e l'altro
+    public static final class JobLease {
+
+        private final String jobName;
+        private volatile boolean valid = true;
+
+        private JobLease(String jobName) {
+            this.jobName = jobName;
+        }
+
+        public String getJobName() {
+            return jobName;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+    }
+
+    // Esecuzione del job solo se il lock è libero; restituisce false se un'altra replica lo sta eseguendo
+    public boolean runExclusively(String jobName, Runnable job) {
+        return runExclusively(jobName, lease -> job.run());
+    }
+
+    public boolean runExclusively(String jobName, Consumer<JobLease> job) {
+        return runExclusively(jobName, Duration.ofSeconds(minHoldSeconds), job);
+    }
+
+    // minHold: durata minima del lease dal momento dell'acquisizione; zero per i job che girano di continuo
+    // (es. il relay della outbox), che devono poter ripartire subito su qualsiasi replica
+    public boolean runExclusively(String jobName, Duration minHold, Consumer<JobLease> job) {
+        boolean acquired;
+        try {
+            acquired = tryAcquire(jobName);
+        } catch (RuntimeException e) {
+            meterRegistry.counter("jobs.lock.acquisitions", "job", jobName, "result", "error").increment();
+            log.warn("Could not acquire lock for job {}: {}", jobName, e.getMessage());
+            return false;
+        }
+        meterRegistry.counter("jobs.lock.acquisitions", "job", jobName, "result", acquired ? "acquired" : "skipped").increment();
+        if (!acquired) {
+            log.debug("Job {} is running on another node, skipping", jobName);
+            return false;
+        }
+
+        JobLease lease = new JobLease(jobName);
+        long renewEvery = Math.max(1, leaseSeconds / 3);
+        ScheduledFuture<?> renewal = renewals.scheduleAtFixedRate(() -> renew(lease), renewEvery, renewEvery, TimeUnit.SECONDS);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            job.accept(lease);
+            return true;
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            throw e;
+        } finally {
+            renewal.cancel(false);
+            sample.stop(meterRegistry.timer("jobs.run", "job", jobName, "outcome", outcome));
+            release(jobName, minHold);
+        }
+    }
+
+    private boolean tryAcquire(String jobName) {
+        // Nuova riga oppure lease scaduto; RETURNING vuoto = lock detenuto da un'altra replica
+        return !jdbcTemplate.queryForList(
+                "INSERT INTO job_locks (job_name, locked_by, locked_at, locked_until) " +
+                "VALUES (?, ?, NOW(), NOW() + ? * INTERVAL '1 second') " +
+                "ON CONFLICT (job_name) DO UPDATE SET locked_by = EXCLUDED.locked_by, " +
+                "locked_at = EXCLUDED.locked_at, locked_until = EXCLUDED.locked_until " +
+                "WHERE job_locks.locked_until <= NOW() " +
+                "RETURNING job_name",
+                String.class,
+                jobName, nodeId, leaseSeconds).isEmpty();
+    }
+
+    private void renew(JobLease lease) {
+        try {
+            int updated = jdbcTemplate.update(
+                    "UPDATE job_locks SET locked_until = NOW() + ? * INTERVAL '1 second' WHERE job_name = ? AND locked_by = ?",
+                    leaseSeconds, lease.getJobName(), nodeId);
+            if (updated == 0 && lease.valid) {
+                lease.valid = false;
+                meterRegistry.counter("jobs.lock.lost", "job", lease.getJobName()).increment();
+                log.warn("Lost lock for job {} while running", lease.getJobName());
+            }
+        } catch (RuntimeException e) {
+            // Errore temporaneo: il lease è ancora valido fino alla scadenza, si riprova al prossimo giro
+            log.warn("Could not renew lock for job {}: {}", lease.getJobName(), e.getMessage());
+        }
+    }
+
+    private void release(String jobName, Duration minHold) {
+        try {
+            jdbcTemplate.update(
+                    "UPDATE job_locks SET locked_until = GREATEST(NOW(), locked_at + ? * INTERVAL '1 millisecond') " +
+                    "WHERE job_name = ? AND locked_by = ?",
+                    minHold.toMillis(), jobName, nodeId);
+        } catch (RuntimeException e) {
+            // Il lease scadrà comunque da solo
+            log.warn("Could not release lock for job {}: {}", jobName, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renewals.shutdownNow();
+    }
+}
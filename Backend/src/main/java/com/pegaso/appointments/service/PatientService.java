@@ -3,9 +3,12 @@ package com.pegaso.appointments.service;
 import com.pegaso.appointments.dto.patient.CreatePatientRequest;
 import com.pegaso.appointments.dto.patient.PatientResponse;
 import com.pegaso.appointments.dto.patient.UpdatePatientRequest;
+import com.pegaso.appointments.dto.search.SearchResponse;
+import com.pegaso.appointments.dto.sync.ChangesResponse;
 import com.pegaso.appointments.entity.Patient;
 import com.pegaso.appointments.exception.ConflictException;
 import com.pegaso.appointments.exception.ResourceNotFoundException;
+import com.pegaso.appointments.mapper.PatientMapper;
 import com.pegaso.appointments.repository.PatientRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -24,6 +27,8 @@ public class PatientService {
     private final PatientRepository patientRepository;
     private final FieldNormalizationService normalization;
     private final JdbcTemplate jdbcTemplate;
+    private final ChangeTrackingService changeTracking;
+    private final TextSearchService textSearch;
 
 
 
@@ -48,7 +53,7 @@ public class PatientService {
                 .build();
 
         patient = patientRepository.save(patient);
-        return mapToResponse(patient);
+        return PatientMapper.toResponse(patient);
     }
 
     // Mapping del paziente alla risposta
@@ -56,17 +61,33 @@ public class PatientService {
     public PatientResponse getPatientProfile(UUID patientId) {
         Patient patient = patientRepository.findById(patientId)
                 .orElseThrow(() -> new ResourceNotFoundException("Patient", patientId));
-        return mapToResponse(patient);
+        return PatientMapper.toResponse(patient);
     }
 
     // Recupero di tutti i pazienti (Admin)
     @Transactional(readOnly = true)
     public List<PatientResponse> getAllPatients() {
         return patientRepository.findAll().stream()
-                .map(this::mapToResponse)
+                .map(PatientMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
+    // Ricerca paginata dei pazienti per nome, cognome o email GET api/admin/patients/search (Admin)
+    @Transactional(readOnly = true)
+    public SearchResponse<PatientResponse> searchPatients(String q, Integer page, Integer size) {
+        TextSearchService.SearchQuery query = textSearch.parse(q, page, size);
+        List<UUID> ids = patientRepository.searchIds(query.text(), query.prefixPattern(), query.containsPattern(),
+                query.limit(), query.offset());
+        return textSearch.toResponse(query, ids, patientRepository::findAllById, Patient::getId, PatientMapper::toResponse);
+    }
+
+    // Recupero incrementale dei pazienti modificati dopo il watermark GET api/patients/changes (Admin)
+    @Transactional(readOnly = true)
+    public ChangesResponse<PatientResponse> getPatientChanges(String since, Integer limit) {
+        ChangeTrackingService.ChangePage page = changeTracking.findChanges("patients", since, limit, null, null);
+        return changeTracking.toResponse(page, patientRepository::findAllById, Patient::getId, PatientMapper::toResponse);
+    }
+
 
 
     // Aggiornamento del profilo del paziente PATCH api/patients
@@ -104,7 +125,7 @@ public class PatientService {
             patient.setDateOfBirth(request.getDateOfBirth());
         }
         patient = patientRepository.save(patient);
-        return mapToResponse(patient);
+        return PatientMapper.toResponse(patient);
     }
 
 
@@ -137,17 +158,4 @@ public class PatientService {
         );
         return Boolean.TRUE.equals(exists);
     }
-
-    private PatientResponse mapToResponse(Patient patient) {
-        return PatientResponse.builder()
-                .id(patient.getId())
-                .firstName(patient.getFirstName())
-                .lastName(patient.getLastName())
-                .gender(patient.getGender())
-                .email(patient.getEmail())
-                .phoneNumber(patient.getPhoneNumber())
-                .dateOfBirth(patient.getDateOfBirth())
-                .createdAt(patient.getCreatedAt())
-                .build();
-    }
 }
@@ -0,0 +1,182 @@
+package com.pegaso.appointments.service;
+
+import com.pegaso.appointments.singleflight.SingleFlightRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Service per i version stamp delle collezioni, tenuti in memoria e usati per gli ETag: permette di rispondere 304 a
+// If-None-Match senza caricare entità. Lo stamp è il valore della sequenza <collezione>_version_seq, che cresce solo:
+// la avanza un trigger per statement (anche per le scritture fatte fuori dall'applicazione) e di nuovo l'applicazione
+// dopo il commit. Il secondo avanzamento copre le transazioni che committano in ordine diverso da quello delle
+// scritture: uno stamp letto prima del commit non può restare valido dopo
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ResourceVersionService {
+
+    public static final String APPOINTMENTS = "appointments";
+    public static final String DOCTORS = "doctors";
+    public static final String PATIENTS = "patients";
+    public static final String EXAMS = "exams";
+
+    private static final Set<String> COLLECTIONS = Set.of(APPOINTMENTS, DOCTORS, PATIENTS, EXAMS);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SingleFlightRegistry singleFlights;
+
+    private final Map<String, Stamp> stamps = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    // Le scritture di altre istanze arrivano via NOTIFY (ClusterCacheInvalidationService), tranne quelle sugli
+    // appuntamenti, che non hanno il trigger di notifica: per loro, e per le notifiche perse, vale il TTL
+    @Value("${app.etag.stamp-ttl-ms:2000}")
+    private long stampTtlMs;
+
+    // Version stamp corrente della collezione (ricalcolato solo se invalidato o scaduto)
+    public String stamp(String collection) {
+        requireCollection(collection);
+        long generation = generation(collection).get();
+        Stamp cached = stamps.get(collection);
+        long now = System.nanoTime();
+        if (cached != null && cached.generation() == generation
+                && now - cached.computedAt() < TimeUnit.MILLISECONDS.toNanos(stampTtlMs)) {
+            return cached.value();
+        }
+        String value = compute(collection);
+        // Se nel frattempo c'è stata un'invalidazione lo stamp resta marcato con la generazione precedente e verrà ricalcolato
+        stamps.put(collection, new Stamp(value, generation, now));
+        return value;
+    }
+
+    // ETag di una collezione (o di un elemento della collezione) con eventuali qualificatori della richiesta
+    public String collectionETag(String collection, Object... qualifiers) {
+        return collectionsETag(List.of(collection), qualifiers);
+    }
+
+    // ETag di una risposta che include dati di più collezioni: cambia quando cambia uno qualsiasi degli stamp
+    public String collectionsETag(List<String> collections, Object... qualifiers) {
+        StringBuilder etag = new StringBuilder("\"");
+        for (String collection : collections) {
+            if (etag.length() > 1) {
+                etag.append('-');
+            }
+            etag.append(collection).append('-').append(stamp(collection));
+        }
+        for (Object qualifier : qualifiers) {
+            etag.append('-').append(qualifier);
+        }
+        return etag.append('"').toString();
+    }
+
+    // ETag di un appuntamento: versione della riga + stamp di dottori, pazienti ed esami (i nomi finiscono nella risposta)
+    public String appointmentETag(Long version) {
+        int related = Objects.hash(stamp(DOCTORS), stamp(PATIENTS), stamp(EXAMS));
+        return "\"" + version + "-" + Integer.toHexString(related) + "\"";
+    }
+
+    // Versione contenuta in un ETag di appuntamento (If-Match); null se l'ETag non è nel formato atteso
+    public Long parseAppointmentVersion(String etag) {
+        String value = etag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        value = value.replace("\"", "");
+        int separator = value.indexOf('-');
+        try {
+            return Long.parseLong(separator < 0 ? value : value.substring(0, separator));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Avanzamento e invalidazione dello stamp dopo il commit della transazione corrente (subito se non c'è
+    // transazione); più scritture sulla stessa collezione nella stessa transazione avanzano la sequenza una volta sola
+    public void invalidateAfterCommit(String collection) {
+        requireCollection(collection);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(collection);
+            invalidate(collection);
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingBumps pending) {
+                pending.collections.add(collection);
+                return;
+            }
+        }
+        PendingBumps pending = new PendingBumps();
+        pending.collections.add(collection);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+    }
+
+    // Le chiamate @SingleFlight sulla collezione vengono staccate prima di cambiare lo stamp: chi vede il nuovo ETag
+    // non può ricevere un risultato calcolato prima della scrittura
+    public void invalidate(String collection) {
+        singleFlights.invalidate(collection);
+        generation(collection).incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        COLLECTIONS.forEach(this::invalidate);
+    }
+
+    // Valore corrente della sequenza (0 se non è mai stata avanzata): lettura di una sola riga, non della tabella
+    private String compute(String collection) {
+        Long version = jdbcTemplate.queryForObject(
+                "SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM " + collection + "_version_seq",
+                Long.class);
+        return Long.toHexString(version == null ? 0L : version);
+    }
+
+    // Se l'avanzamento fallisce resta quello del trigger, fatto nella transazione: si perde solo la copertura dei
+    // commit fuori ordine, non la scrittura già committata
+    private void bump(String collection) {
+        try {
+            jdbcTemplate.queryForObject("SELECT nextval('" + collection + "_version_seq')", Long.class);
+        } catch (DataAccessException e) {
+            log.warn("Could not advance the version sequence of {}: {}", collection, e.getMessage());
+        }
+    }
+
+    private AtomicLong generation(String collection) {
+        return generations.computeIfAbsent(collection, key -> new AtomicLong());
+    }
+
+    private void requireCollection(String collection) {
+        if (!COLLECTIONS.contains(collection)) {
+            throw new IllegalStateException("Unknown collection: " + collection);
+        }
+    }
+
+    private record Stamp(String value, long generation, long computedAt) {
+    }
+
+    // Collezioni scritte dalla transazione corrente, avanzate e invalidate dopo il commit
+    private final class PendingBumps implements TransactionSynchronization {
+
+        private final Set<String> collections = new LinkedHashSet<>();
+
+        @Override
+        public void afterCommit() {
+            collections.forEach(collection -> {
+                bump(collection);
+                invalidate(collection);
+            });
+        }
+    }
+}
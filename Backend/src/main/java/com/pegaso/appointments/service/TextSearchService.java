@@ -0,0 +1,93 @@
+package com.pegaso.appointments.service;
+
+import com.pegaso.appointments.dto.search.SearchResponse;
+import com.pegaso.appointments.exception.BadRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Service di supporto per le ricerche testuali (pg_trgm): normalizzazione del testo cercato,
+// pattern LIKE e paginazione. Le query restituiscono solo gli id ordinati per rilevanza
+@Service
+public class TextSearchService {
+
+    private static final int MIN_QUERY_LENGTH = 2;
+
+    @Value("${app.search.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.search.max-page-size:100}")
+    private int maxPageSize;
+
+    // Parametri di una ricerca già validati
+    public record SearchQuery(String text, String prefixPattern, String containsPattern, int page, int size) {
+
+        public int limit() {
+            // Una riga in più per sapere se esiste la pagina successiva
+            return size + 1;
+        }
+
+        public int offset() {
+            return page * size;
+        }
+    }
+
+    public SearchQuery parse(String q, Integer page, Integer size) {
+        String text = q == null ? "" : q.trim().toLowerCase().replaceAll("\\s+", " ");
+        if (text.length() < MIN_QUERY_LENGTH) {
+            throw new BadRequestException("q must contain at least " + MIN_QUERY_LENGTH + " characters");
+        }
+        int resolvedPage = page == null ? 0 : page;
+        if (resolvedPage < 0) {
+            throw new BadRequestException("page must be greater than or equal to 0");
+        }
+        int resolvedSize = size == null ? defaultPageSize : size;
+        if (resolvedSize <= 0) {
+            throw new BadRequestException("size must be greater than 0");
+        }
+        resolvedSize = Math.min(resolvedSize, maxPageSize);
+        // L'offset (page * size) deve restare un int valido, altrimenti diventerebbe negativo nella query
+        try {
+            Math.multiplyExact(resolvedPage, resolvedSize);
+        } catch (ArithmeticException e) {
+            throw new BadRequestException("page is too large");
+        }
+        String escaped = escapeLike(text);
+        return new SearchQuery(text, escaped + "%", "%" + escaped + "%", resolvedPage, resolvedSize);
+    }
+
+    // Composizione della pagina: carica le righe in blocco e mantiene l'ordine di rilevanza degli id
+    public <E, T> SearchResponse<T> toResponse(SearchQuery query,
+                                               List<UUID> rankedIds,
+                                               Function<List<UUID>, List<E>> loader,
+                                               Function<E, UUID> idExtractor,
+                                               Function<E, T> mapper) {
+        boolean hasMore = rankedIds.size() > query.size();
+        List<UUID> pageIds = hasMore ? rankedIds.subList(0, query.size()) : rankedIds;
+        Map<UUID, E> loaded = pageIds.isEmpty()
+                ? Map.of()
+                : loader.apply(pageIds).stream().collect(Collectors.toMap(idExtractor, Function.identity()));
+        List<T> items = pageIds.stream()
+                .map(loaded::get)
+                .filter(Objects::nonNull)
+                .map(mapper)
+                .collect(Collectors.toList());
+        return SearchResponse.<T>builder()
+                .items(items)
+                .page(query.page())
+                .size(query.size())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // Escape dei caratteri speciali di LIKE (il carattere di escape di default in Postgres è il backslash)
+    private String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,27 @@
+package com.pegaso.appointments.singleflight;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Coalescenza delle chiamate concorrenti identiche: le invocazioni con gli stessi parametri (normalizzati) mentre
+// una è già in corso attendono e ricevono il suo risultato invece di ripetere le query. Il risultato è condiviso
+// tra i chiamanti, quindi va usato solo su metodi di lettura che restituiscono oggetti che nessuno modifica.
+// Applicato fuori dalla transazione: chi attende non occupa una connessione
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SingleFlight {
+
+    // Nome del gruppo, usato come tag delle metriche singleflight.*
+    String name();
+
+    // Per quanti millisecondi riusare il risultato dopo la fine della chiamata (0 = solo coalescenza).
+    // Accetta placeholder, es. "${app.single-flight.micro-cache-ms:200}"
+    String microCacheMs() default "0";
+
+    // Collezioni (ResourceVersionService) le cui scritture invalidano le chiamate in corso e la micro-cache
+    String[] invalidatedBy() default {};
+}
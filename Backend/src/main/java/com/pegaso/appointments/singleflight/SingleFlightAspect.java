@@ -0,0 +1,68 @@
+package com.pegaso.appointments.singleflight;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// Aspetto che applica @SingleFlight. La chiave è il metodo più i parametri normalizzati: stringhe senza spazi
+// agli estremi, collezioni e array come liste (ordinate se gli elementi sono confrontabili, così "status=a,b" e
+// "status=b,a" coincidono). Ordine più alto di @Transactional: la coalescenza avviene prima di aprire la transazione
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+@ConditionalOnProperty(name = "app.single-flight.enabled", havingValue = "true", matchIfMissing = true)
+public class SingleFlightAspect {
+
+    private final SingleFlightRegistry registry;
+
+    public SingleFlightAspect(SingleFlightRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("@annotation(singleFlight)")
+    public Object coalesce(ProceedingJoinPoint joinPoint, SingleFlight singleFlight) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object[] args = joinPoint.getArgs();
+        List<Object> key = new ArrayList<>(args.length + 1);
+        key.add(method);
+        for (Object arg : args) {
+            key.add(normalize(arg));
+        }
+        return registry.group(singleFlight).execute(key, joinPoint::proceed);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object normalize(Object arg) {
+        if (arg instanceof String value) {
+            return value.trim();
+        }
+        if (arg instanceof Object[] array) {
+            arg = Arrays.asList(array);
+        }
+        if (arg instanceof Collection<?> collection) {
+            List<Object> values = new ArrayList<>(collection.size());
+            boolean comparable = true;
+            for (Object element : collection) {
+                Object normalized = normalize(element);
+                comparable &= normalized instanceof Comparable;
+                values.add(normalized);
+            }
+            if (comparable) {
+                values.sort((a, b) -> ((Comparable) a).compareTo(b));
+            }
+            return values;
+        }
+        return arg;
+    }
+}
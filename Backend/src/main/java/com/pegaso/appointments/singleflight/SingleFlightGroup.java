@@ -0,0 +1,111 @@
+package com.pegaso.appointments.singleflight;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Gruppo single-flight: per ogni chiave al massimo una chiamata in corso (il "leader"); gli altri chiamanti con la
+// stessa chiave attendono il suo CompletableFuture. Con la micro-cache attiva il risultato resta disponibile per
+// pochi millisecondi dopo la fine della chiamata. invalidate() stacca le chiamate in corso e svuota la cache:
+// chi arriva dopo una scrittura non riceve mai un risultato calcolato prima del commit
+public class SingleFlightGroup {
+
+    private static final Object NULL = new Object();
+
+    @FunctionalInterface
+    public interface Call {
+        Object run() throws Throwable;
+    }
+
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<Object, Object> recent;
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter leaders;
+    private final Counter shared;
+    private final Counter cached;
+
+    public SingleFlightGroup(String name, long microCacheMs, int maxCachedKeys, MeterRegistry meterRegistry) {
+        this.recent = microCacheMs > 0
+                ? Caffeine.newBuilder().expireAfterWrite(Duration.ofMillis(microCacheMs)).maximumSize(maxCachedKeys)
+                        .recordStats().build()
+                : null;
+        if (recent != null) {
+            // Metriche standard cache.gets/cache.size/cache.evictions{cache=singleflight.<name>}
+            CaffeineCacheMetrics.monitor(meterRegistry, recent, "singleflight." + name);
+        }
+        this.leaders = meterRegistry.counter("singleflight.calls", "name", name, "outcome", "leader");
+        this.shared = meterRegistry.counter("singleflight.calls", "name", name, "outcome", "shared");
+        this.cached = meterRegistry.counter("singleflight.calls", "name", name, "outcome", "cached");
+        // Quota di chiamate servite senza eseguire il metodo (condivise o dalla micro-cache)
+        Gauge.builder("singleflight.coalescing.ratio", this, SingleFlightGroup::coalescingRatio)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public Object execute(Object key, Call call) throws Throwable {
+        if (recent != null) {
+            Object value = recent.getIfPresent(key);
+            if (value != null) {
+                cached.increment();
+                return value == NULL ? null : value;
+            }
+        }
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            shared.increment();
+            return await(existing);
+        }
+
+        leaders.increment();
+        long startGeneration = generation.get();
+        try {
+            Object value = call.run();
+            // Il risultato va in cache prima di liberare la chiave, e solo se nel frattempo non c'è stata invalidazione
+            if (recent != null && generation.get() == startGeneration) {
+                recent.put(key, value == null ? NULL : value);
+            }
+            mine.complete(value);
+            return value;
+        } catch (Throwable t) {
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        inFlight.clear();
+        if (recent != null) {
+            recent.invalidateAll();
+        }
+    }
+
+    private double coalescingRatio() {
+        double total = leaders.count() + shared.count() + cached.count();
+        return total == 0 ? 0 : (shared.count() + cached.count()) / total;
+    }
+
+    private static Object await(CompletableFuture<Object> flight) throws Throwable {
+        try {
+            return flight.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+}
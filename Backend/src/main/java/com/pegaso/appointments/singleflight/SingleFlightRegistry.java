@@ -0,0 +1,55 @@
+package com.pegaso.appointments.singleflight;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.EmbeddedValueResolverAware;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringValueResolver;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Gruppi single-flight per nome (uno per metodo annotato) e loro invalidazione quando cambia una collezione.
+// ResourceVersionService chiama invalidate() dopo il commit di ogni scrittura e alle notifiche delle altre repliche
+@Component
+public class SingleFlightRegistry implements EmbeddedValueResolverAware {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, SingleFlightGroup> groups = new ConcurrentHashMap<>();
+    private final Map<String, List<SingleFlightGroup>> groupsByCollection = new ConcurrentHashMap<>();
+
+    @Value("${app.single-flight.max-cached-keys:10000}")
+    private int maxCachedKeys;
+
+    private StringValueResolver valueResolver;
+
+    public SingleFlightRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void setEmbeddedValueResolver(StringValueResolver resolver) {
+        this.valueResolver = resolver;
+    }
+
+    public SingleFlightGroup group(SingleFlight annotation) {
+        return groups.computeIfAbsent(annotation.name(), name -> {
+            long microCacheMs = Long.parseLong(valueResolver.resolveStringValue(annotation.microCacheMs()).trim());
+            SingleFlightGroup group = new SingleFlightGroup(name, microCacheMs, maxCachedKeys, meterRegistry);
+            for (String collection : Set.of(annotation.invalidatedBy())) {
+                groupsByCollection.computeIfAbsent(collection, key -> new CopyOnWriteArrayList<>()).add(group);
+            }
+            return group;
+        });
+    }
+
+    public void invalidate(String collection) {
+        List<SingleFlightGroup> affected = groupsByCollection.get(collection);
+        if (affected != null) {
+            affected.forEach(SingleFlightGroup::invalidate);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.pegaso.appointments.sqlbudget;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Numero massimo di statement SQL dichiarato per un endpoint: oltre il budget la richiesta viene loggata
+// (SqlBudgetFilter) e i test falliscono (SqlBudgetMatchers). Senza annotazione vale app.sql-budget.default-max-statements
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SqlBudget {
+
+    int value();
+}
@@ -0,0 +1,184 @@
+package com.pegaso.appointments.sqlbudget;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Budget di statement SQL per richiesta: conta statement e tempo sul database di ogni richiesta /api, li restituisce
+// nell'header Server-Timing (visibile negli strumenti di sviluppo del browser) e nelle metriche
+// http.server.requests.sql.*, e logga le richieste oltre il budget dell'endpoint (@SqlBudget) con gli SQL ripetuti
+@Component
+@ConditionalOnProperty(name = "app.sql-budget.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.sql-budget.default-max-statements:20}")
+    private int defaultMaxStatements;
+
+    @Value("${app.sql-budget.repeated-statement-threshold:5}")
+    private int repeatedStatementThreshold;
+
+    public SqlBudgetFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementStats stats = new SqlStatementStats();
+        request.setAttribute(SqlStatementStats.ATTRIBUTE, stats);
+        SqlStatementStats.bind(stats);
+        ServerTimingResponse timedResponse = new ServerTimingResponse(response, stats);
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            SqlStatementStats.clear();
+        }
+        if (request.isAsyncStarted()) {
+            // Le letture del bulkhead di reporting terminano su un altro thread
+            request.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    complete(request, response, stats);
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        } else {
+            // Risposte senza corpo (204, 304) che non sono passate da getOutputStream
+            timedResponse.writeServerTiming();
+            complete(request, response, stats);
+        }
+    }
+
+    // Budget dichiarato dall'handler della richiesta (@SqlBudget), altrimenti quello di default
+    public static Integer declaredBudget(Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            SqlBudget budget = handlerMethod.getMethodAnnotation(SqlBudget.class);
+            if (budget != null) {
+                return budget.value();
+            }
+        }
+        return null;
+    }
+
+    private void complete(HttpServletRequest request, HttpServletResponse response, SqlStatementStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("SQL statements executed per HTTP request")
+                .tags("method", request.getMethod(), "uri", uri)
+                .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100)
+                .register(meterRegistry)
+                .record(stats.statements());
+        Timer.builder("http.server.requests.sql.time")
+                .description("Database time per HTTP request")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(stats.nanos(), TimeUnit.NANOSECONDS);
+
+        Integer declared = declaredBudget(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
+        int budget = declared != null ? declared : defaultMaxStatements;
+        Map<String, Integer> repeated = stats.repeatedStatements(repeatedStatementThreshold);
+        if (stats.statements() > budget) {
+            meterRegistry.counter("http.server.requests.sql.budget.exceeded", "method", request.getMethod(), "uri", uri)
+                    .increment();
+            log.warn("SQL budget exceeded: {} {} ran {} statements in {} ms (budget {}, status {}); repeated statements: {}",
+                    request.getMethod(), uri, stats.statements(), String.format(Locale.ROOT, "%.1f", stats.millis()),
+                    budget, response.getStatus(), repeated);
+        } else if (!repeated.isEmpty()) {
+            log.warn("Possible N+1 on {} {}: {}", request.getMethod(), uri, repeated);
+        }
+    }
+
+    // Aggiunge Server-Timing appena prima che la risposta venga scritta (dopo l'header non si può più modificare)
+    private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatementStats stats;
+        private boolean written;
+
+        ServerTimingResponse(HttpServletResponse response, SqlStatementStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeServerTiming();
+            super.sendError(sc);
+        }
+
+        private void writeServerTiming() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            addHeader(SERVER_TIMING, String.format(Locale.ROOT, "db;desc=\"%d statements\";dur=%.1f",
+                    stats.statements(), stats.millis()));
+        }
+    }
+}
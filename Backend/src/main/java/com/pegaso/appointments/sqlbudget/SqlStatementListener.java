@@ -0,0 +1,31 @@
+package com.pegaso.appointments.sqlbudget;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+// Listener del proxy JDBC (DataSourceConfig): ogni esecuzione (un batch conta come una) viene registrata nei
+// contatori della richiesta corrente. Fuori da una richiesta HTTP (job, listener) non fa nulla
+public class SqlStatementListener implements QueryExecutionListener {
+
+    private static final String START = "sqlBudgetStart";
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (SqlStatementStats.current() != null) {
+            execInfo.addCustomValue(START, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        SqlStatementStats stats = SqlStatementStats.current();
+        Long start = execInfo.getCustomValue(START, Long.class);
+        if (stats == null || start == null || queryInfoList.isEmpty()) {
+            return;
+        }
+        stats.record(queryInfoList.get(0).getQuery(), System.nanoTime() - start);
+    }
+}
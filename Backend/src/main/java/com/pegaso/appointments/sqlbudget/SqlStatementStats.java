@@ -0,0 +1,72 @@
+package com.pegaso.appointments.sqlbudget;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Contatori SQL di una richiesta HTTP: numero di statement, tempo totale sul database e ripetizioni dello stesso
+// SQL (lo stesso statement eseguito molte volte in una richiesta è il segnale tipico di un N+1).
+// Legata al thread della richiesta e propagata ai thread del bulkhead di reporting
+public class SqlStatementStats {
+
+    public static final String ATTRIBUTE = SqlStatementStats.class.getName();
+
+    // Oltre questo numero di SQL distinti le ripetizioni non vengono più tracciate (i contatori restano esatti)
+    private static final int MAX_TRACKED_STATEMENTS = 500;
+
+    private static final ThreadLocal<SqlStatementStats> CURRENT = new ThreadLocal<>();
+
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicLong nanos = new AtomicLong();
+    private final Map<String, AtomicInteger> executions = new ConcurrentHashMap<>();
+
+    public static SqlStatementStats current() {
+        return CURRENT.get();
+    }
+
+    public static void bind(SqlStatementStats stats) {
+        CURRENT.set(stats);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public void record(String sql, long elapsedNanos) {
+        statements.incrementAndGet();
+        nanos.addAndGet(elapsedNanos);
+        AtomicInteger count = executions.get(sql);
+        if (count == null && executions.size() < MAX_TRACKED_STATEMENTS) {
+            count = executions.computeIfAbsent(sql, key -> new AtomicInteger());
+        }
+        if (count != null) {
+            count.incrementAndGet();
+        }
+    }
+
+    public int statements() {
+        return statements.get();
+    }
+
+    public long nanos() {
+        return nanos.get();
+    }
+
+    public double millis() {
+        return nanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    // SQL eseguiti almeno threshold volte, dal più ripetuto
+    public Map<String, Integer> repeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        executions.entrySet().stream()
+                .filter(entry -> entry.getValue().get() >= threshold)
+                .sorted(Comparator.comparingInt((Map.Entry<String, AtomicInteger> entry) -> entry.getValue().get()).reversed())
+                .forEach(entry -> repeated.put(entry.getKey(), entry.getValue().get()));
+        return repeated;
+    }
+}
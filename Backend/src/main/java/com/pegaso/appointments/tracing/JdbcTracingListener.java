@@ -0,0 +1,72 @@
+package com.pegaso.appointments.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Listener del proxy JDBC (DataSourceConfig): uno span figlio dello span corrente per ogni statement, con l'SQL
+// senza valori letterali (db.statement). Fuori da una traccia (job schedulati, listener) non crea span
+public class JdbcTracingListener implements QueryExecutionListener {
+
+    private static final String SPAN = "jdbcSpan";
+    private static final int MAX_STATEMENT_LENGTH = 2000;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("(?<![\\w.$])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Tracer tracer;
+
+    public JdbcTracingListener(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (tracer.currentSpan() == null || queryInfoList.isEmpty()) {
+            return;
+        }
+        String sql = sanitize(queryInfoList.get(0).getQuery());
+        Span span = tracer.spanBuilder()
+                .name("jdbc " + operation(sql))
+                .kind(Span.Kind.CLIENT)
+                .tag("db.system", "postgresql")
+                .tag("db.statement", sql)
+                .start();
+        if (execInfo.isBatch()) {
+            span.tag("db.batch.size", String.valueOf(execInfo.getBatchSize()));
+        }
+        execInfo.addCustomValue(SPAN, span);
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Span span = execInfo.getCustomValue(SPAN, Span.class);
+        if (span == null) {
+            return;
+        }
+        if (execInfo.getThrowable() != null) {
+            span.error(execInfo.getThrowable());
+        }
+        span.end();
+    }
+
+    // Sostituisce stringhe e numeri letterali con ? (Hibernate usa già parametri, le query native possono no)
+    public static String sanitize(String sql) {
+        String sanitized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        sanitized = NUMERIC_LITERAL.matcher(sanitized).replaceAll("?");
+        sanitized = WHITESPACE.matcher(sanitized).replaceAll(" ").trim();
+        return sanitized.length() > MAX_STATEMENT_LENGTH ? sanitized.substring(0, MAX_STATEMENT_LENGTH) : sanitized;
+    }
+
+    private static String operation(String sql) {
+        int end = sql.indexOf(' ');
+        return (end < 0 ? sql : sql.substring(0, end)).toLowerCase(Locale.ROOT);
+    }
+}
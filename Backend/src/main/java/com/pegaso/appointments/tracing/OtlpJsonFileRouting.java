@@ -0,0 +1,49 @@
+package com.pegaso.appointments.tracing;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Instrada le righe OTLP JSON di OtlpJsonLoggingSpanExporter (java.util.logging, ponte verso SLF4J di Spring Boot)
+// su un file dedicato, senza pattern e senza passare dagli appender della console. L'appender si aggiunge solo se
+// l'export su file è attivo: in logback-spring.xml un FileAppender senza percorso bloccherebbe l'avvio
+@Slf4j
+public final class OtlpJsonFileRouting {
+
+    private OtlpJsonFileRouting() {
+    }
+
+    public static void route(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%msg%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setName("OTLP_FILE");
+        appender.setFile(file.toAbsolutePath().toString());
+        appender.setEncoder(encoder);
+        appender.start();
+
+        Logger exporterLogger = context.getLogger(OtlpJsonLoggingSpanExporter.class);
+        exporterLogger.setAdditive(false);
+        exporterLogger.addAppender(appender);
+        log.info("Exporting spans as OTLP JSON to {}", file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,63 @@
+package com.pegaso.appointments.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstUpToCapacityThenRefillsAtRate() {
+        // 60 al minuto: un token al secondo
+        TokenBucket bucket = new TokenBucket(3, 60, -5 * SECOND);
+        long now = -5 * SECOND;
+
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now)).isEqualTo(SECOND);
+
+        assertThat(bucket.tryAcquire(now + SECOND / 2)).isEqualTo(SECOND / 2);
+        assertThat(bucket.tryAcquire(now + SECOND)).isZero();
+        assertThat(bucket.tryAcquire(now + SECOND)).isPositive();
+
+        // Dopo una lunga inattività il secchio è pieno, non oltre la capacità
+        long later = now + 100 * SECOND;
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isPositive();
+    }
+
+    @Test
+    void concurrentCallersNeverExceedCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(100, 1, 0);
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < 1_000; j++) {
+                    if (bucket.tryAcquire(0) == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(admitted.get()).isEqualTo(100);
+    }
+}
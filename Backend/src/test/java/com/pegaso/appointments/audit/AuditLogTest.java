@@ -0,0 +1,78 @@
+package com.pegaso.appointments.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuditLogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void spillsWhenTheQueueIsFullAndWhenTheDatabaseIsDown() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+        Path spillFile = tempDir.resolve("audit-spill.jsonl");
+        AuditLog auditLog = auditLog(dataSource, spillFile, 2);
+
+        auditLog.start();
+        List<AuditRecord> records = List.of(record("a"), record("b"), record("c"));
+        records.forEach(auditLog::record);
+
+        // Coda piena: la terza voce va subito su file
+        assertThat(Files.readAllLines(spillFile)).hasSize(1);
+        assertThat(meterRegistry.counter("audit.spilled", "reason", "queue_full").count()).isEqualTo(1);
+
+        // Allo stop la coda viene svuotata: il database non risponde e anche le altre due finiscono su file
+        auditLog.stop();
+        List<AuditRecord> spilled = Files.readAllLines(spillFile).stream()
+                .map(this::read)
+                .toList();
+        assertThat(spilled).containsExactlyInAnyOrderElementsOf(records);
+        assertThat(meterRegistry.counter("audit.spilled", "reason", "write_failed").count()).isEqualTo(2);
+    }
+
+    private AuditLog auditLog(DataSource dataSource, Path spillFile, int queueCapacity) {
+        AuditLog auditLog = new AuditLog(dataSource, objectMapper, meterRegistry);
+        ReflectionTestUtils.setField(auditLog, "enabled", true);
+        ReflectionTestUtils.setField(auditLog, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(auditLog, "batchSize", 100);
+        ReflectionTestUtils.setField(auditLog, "flushIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(auditLog, "spillFile", spillFile);
+        return auditLog;
+    }
+
+    private AuditRecord record(String status) {
+        return new AuditRecord(OffsetDateTime.of(2026, 3, 1, 10, 0, 0, 0, ZoneOffset.UTC), AuditContext.ADMIN,
+                UUID.randomUUID(), "appointment", UUID.randomUUID(), "UPDATE",
+                Map.of("status", Map.of("from", "pending", "to", status)));
+    }
+
+    private AuditRecord read(String line) {
+        try {
+            return objectMapper.readValue(line, AuditRecord.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.pegaso.appointments.diagnostics;
+
+import com.pegaso.appointments.sqlbudget.SqlStatementStats;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingTimelineTest {
+
+    private static final String BOOKING = "com.pegaso.appointments.Booking";
+    private static final String BOOKING_PHASE = "com.pegaso.appointments.BookingPhase";
+    private static final String MAPPING = "com.pegaso.appointments.AppointmentMapping";
+    private static final UUID EXAM_ID = UUID.fromString("770e8400-e29b-41d4-a716-446655440001");
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void clearStats() {
+        SqlStatementStats.clear();
+    }
+
+    @Test
+    void recordsOnePhaseEventPerPhaseAndTheBookingOutcome() throws Exception {
+        List<RecordedEvent> events = record(() -> {
+            BookingTimeline timeline = BookingTimeline.begin(CallerRole.PATIENT, EXAM_ID);
+            timeline.phase(BookingTimeline.VALIDATION);
+            timeline.phase(BookingTimeline.PATIENT_OVERLAP);
+            timeline.phase(BookingTimeline.DOCTOR_SELECTION);
+            timeline.doctorProbes(3);
+            timeline.phase(BookingTimeline.INSERT);
+            timeline.end(true);
+        });
+
+        List<RecordedEvent> phases = ofType(events, BOOKING_PHASE);
+        assertThat(phases).extracting(event -> event.getString("phase")).containsExactly(
+                BookingTimeline.VALIDATION, BookingTimeline.PATIENT_OVERLAP,
+                BookingTimeline.DOCTOR_SELECTION, BookingTimeline.INSERT);
+        assertThat(phases.get(2).getInt("doctorProbes")).isEqualTo(3);
+        assertThat(phases).allSatisfy(phase -> {
+            assertThat(phase.getString("callerRole")).isEqualTo("PATIENT");
+            assertThat(phase.getString("examId")).isEqualTo(EXAM_ID.toString());
+        });
+
+        RecordedEvent booking = single(events, BOOKING);
+        assertThat(booking.getString("outcome")).isEqualTo(BookingTimeline.OUTCOME_CREATED);
+        assertThat(booking.getString("lastPhase")).isEqualTo(BookingTimeline.INSERT);
+        assertThat(booking.getInt("doctorProbes")).isEqualTo(3);
+    }
+
+    @Test
+    void rejectedBookingKeepsThePhaseWhereItStopped() throws Exception {
+        List<RecordedEvent> events = record(() -> {
+            BookingTimeline timeline = BookingTimeline.begin(CallerRole.PATIENT, EXAM_ID);
+            timeline.phase(BookingTimeline.VALIDATION);
+            timeline.phase(BookingTimeline.PATIENT_OVERLAP);
+            timeline.end(false);
+        });
+
+        RecordedEvent booking = single(events, BOOKING);
+        assertThat(booking.getString("outcome")).isEqualTo(BookingTimeline.OUTCOME_REJECTED);
+        assertThat(booking.getString("lastPhase")).isEqualTo(BookingTimeline.PATIENT_OVERLAP);
+    }
+
+    @Test
+    void mappingEventCountsStatementsExecutedWhileMapping() throws Exception {
+        SqlStatementStats stats = new SqlStatementStats();
+        stats.record("select * from appointments", 1_000);
+        SqlStatementStats.bind(stats);
+
+        List<RecordedEvent> events = record(() -> {
+            AppointmentMappingEvent event = AppointmentMappingEvent.start(CallerRole.ADMIN);
+            stats.record("select * from doctors where id=?", 1_000);
+            stats.record("select * from doctors where id=?", 1_000);
+            event.finish(2);
+        });
+
+        RecordedEvent mapping = single(events, MAPPING);
+        assertThat(mapping.getString("callerRole")).isEqualTo("ADMIN");
+        assertThat(mapping.getInt("appointments")).isEqualTo(2);
+        assertThat(mapping.getInt("sqlStatements")).isEqualTo(2);
+    }
+
+    @Test
+    void bundledSettingsEnableTheApplicationEvents() throws Exception {
+        try (InputStream input = getClass().getResourceAsStream(FlightRecorderService.SETTINGS_RESOURCE)) {
+            assertThat(input).isNotNull();
+            Map<String, String> settings = Configuration.create(new InputStreamReader(input, StandardCharsets.UTF_8)).getSettings();
+            assertThat(settings)
+                    .containsEntry(BOOKING + "#enabled", "true")
+                    .containsEntry(BOOKING_PHASE + "#enabled", "true")
+                    .containsEntry(MAPPING + "#enabled", "true");
+        }
+    }
+
+    private List<RecordedEvent> record(Runnable action) throws Exception {
+        Path file = tempDir.resolve("test.jfr");
+        try (Recording recording = new Recording()) {
+            for (String event : List.of(BOOKING, BOOKING_PHASE, MAPPING)) {
+                recording.enable(event).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = ofType(events, name);
+        assertThat(matching).hasSize(1);
+        return matching.get(0);
+    }
+}
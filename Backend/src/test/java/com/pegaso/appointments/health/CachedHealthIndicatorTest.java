@@ -0,0 +1,68 @@
+package com.pegaso.appointments.health;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachedHealthIndicatorTest {
+
+    @Test
+    void probesAtMostOncePerInterval() throws InterruptedException {
+        AtomicInteger probes = new AtomicInteger();
+        CachedHealthIndicator indicator = indicator(60_000, () -> {
+            probes.incrementAndGet();
+            return Health.up().build();
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(200);
+        for (int i = 0; i < 200; i++) {
+            pool.execute(() -> {
+                assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+                done.countDown();
+            });
+        }
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        pool.shutdown();
+
+        assertThat(probes).hasValue(1);
+    }
+
+    @Test
+    void reprobesAfterIntervalAndReportsFailuresAsDown() {
+        AtomicInteger probes = new AtomicInteger();
+        CachedHealthIndicator indicator = indicator(0, () -> {
+            if (probes.incrementAndGet() > 1) {
+                throw new IllegalStateException("connection refused");
+            }
+            return Health.up().build();
+        });
+
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+        Health health = indicator.health();
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails()).containsEntry("error", "java.lang.IllegalStateException: connection refused");
+        assertThat(probes).hasValue(2);
+    }
+
+    private static CachedHealthIndicator indicator(long ttlMs, Probe probe) {
+        return new CachedHealthIndicator(ttlMs) {
+            @Override
+            protected Health probe() {
+                return probe.run();
+            }
+        };
+    }
+
+    private interface Probe {
+        Health run();
+    }
+}
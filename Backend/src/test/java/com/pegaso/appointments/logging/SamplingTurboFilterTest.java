@@ -0,0 +1,39 @@
+package com.pegaso.appointments.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SamplingTurboFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final SamplingTurboFilter filter = new SamplingTurboFilter(Map.of(
+            "org.hibernate", 1.0,
+            "org.hibernate.SQL", 0.0));
+
+    @Test
+    void mostSpecificCategoryWinsAndWarningsAreNeverSampled() {
+        Logger sql = context.getLogger("org.hibernate.SQL");
+
+        assertThat(decide(sql, Level.DEBUG, "select 1")).isEqualTo(FilterReply.DENY);
+        assertThat(decide(sql, Level.WARN, "slow query")).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(decide(context.getLogger("org.hibernate.orm.jdbc.bind"), Level.TRACE, "binding")).isEqualTo(FilterReply.NEUTRAL);
+    }
+
+    @Test
+    void enabledChecksAndOtherCategoriesAreLeftToTheLoggerLevel() {
+        assertThat(decide(context.getLogger("org.hibernate.SQL"), Level.DEBUG, null)).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(decide(context.getLogger("org.hibernate.SQLServer"), Level.DEBUG, "x")).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(decide(context.getLogger("com.pegaso.appointments"), Level.DEBUG, "x")).isEqualTo(FilterReply.NEUTRAL);
+    }
+
+    private FilterReply decide(Logger logger, Level level, String format) {
+        return filter.decide(null, logger, level, format, null, null);
+    }
+}
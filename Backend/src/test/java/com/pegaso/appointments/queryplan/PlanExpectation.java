@@ -0,0 +1,92 @@
+package com.pegaso.appointments.queryplan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Vincoli sul piano di una query: indici che devono comparire, nessuna seq scan sulle tabelle grandi (salvo
+// eccezioni dichiarate), costo totale e righe stimate per nodo entro un budget. I budget si riferiscono al dataset
+// di riferimento del load test (seed di default: 10k dottori, 200k pazienti, 1M di appuntamenti)
+public final class PlanExpectation {
+
+    // Tabelle che crescono con i dati delle cliniche: una seq scan su queste è quasi sempre una regressione
+    static final Set<String> LARGE_TABLES = Set.of("appointments", "patients", "doctors", "doctor_exams");
+
+    private static final double DEFAULT_MAX_COST = 1_000;
+    private static final long DEFAULT_MAX_ROWS = 1_000;
+
+    private final List<String> indexes = new ArrayList<>();
+    private final List<List<String>> alternatives = new ArrayList<>();
+    private final List<String> allowedSeqScans = new ArrayList<>();
+    private double maxCost = DEFAULT_MAX_COST;
+    private long maxRows = DEFAULT_MAX_ROWS;
+
+    private PlanExpectation() {
+    }
+
+    public static PlanExpectation plan() {
+        return new PlanExpectation();
+    }
+
+    public PlanExpectation usesIndex(String... names) {
+        indexes.addAll(List.of(names));
+        return this;
+    }
+
+    // Almeno uno degli indici: più indici con la stessa colonna iniziale sono equivalenti per il planner
+    public PlanExpectation usesAnyIndex(String... names) {
+        alternatives.add(List.of(names));
+        return this;
+    }
+
+    // Seq scan accettata (es. letture proporzionali all'intera tabella): restano i budget di costo e righe
+    public PlanExpectation allowsSeqScan(String... tables) {
+        allowedSeqScans.addAll(List.of(tables));
+        return this;
+    }
+
+    public PlanExpectation maxCost(double cost) {
+        this.maxCost = cost;
+        return this;
+    }
+
+    public PlanExpectation maxRows(long rows) {
+        this.maxRows = rows;
+        return this;
+    }
+
+    public double maxCost() {
+        return maxCost;
+    }
+
+    public long maxRows() {
+        return maxRows;
+    }
+
+    public List<String> violations(QueryPlan plan) {
+        List<String> violations = new ArrayList<>();
+        Set<String> used = plan.indexes();
+        for (String index : indexes) {
+            if (!used.contains(index)) {
+                violations.add("expected index " + index + " is not used");
+            }
+        }
+        for (List<String> alternative : alternatives) {
+            if (alternative.stream().noneMatch(used::contains)) {
+                violations.add("none of the indexes " + String.join(", ", alternative) + " is used");
+            }
+        }
+        for (String table : plan.seqScans()) {
+            if (LARGE_TABLES.contains(table) && !allowedSeqScans.contains(table)) {
+                violations.add("seq scan on " + table);
+            }
+        }
+        if (plan.totalCost() > maxCost) {
+            violations.add(String.format("total cost %.0f over budget %.0f", plan.totalCost(), maxCost));
+        }
+        if (plan.maxRows() > maxRows) {
+            violations.add(String.format("a node estimates %d rows, budget %d", plan.maxRows(), maxRows));
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,76 @@
+package com.pegaso.appointments.queryplan;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Piano restituito da EXPLAIN (FORMAT JSON): i nodi in ordine di visita, con indici usati, tabelle lette con
+// seq scan, costo totale e stima massima di righe prodotte da un nodo
+public class QueryPlan {
+
+    private final JsonNode root;
+    private final List<JsonNode> nodes = new ArrayList<>();
+
+    public QueryPlan(JsonNode explain) {
+        this.root = explain.get(0).get("Plan");
+        collect(root);
+    }
+
+    public JsonNode json() {
+        return root;
+    }
+
+    public double totalCost() {
+        return root.path("Total Cost").asDouble();
+    }
+
+    public long maxRows() {
+        return nodes.stream().mapToLong(node -> node.path("Plan Rows").asLong()).max().orElse(0);
+    }
+
+    public Set<String> indexes() {
+        Set<String> indexes = new LinkedHashSet<>();
+        for (JsonNode node : nodes) {
+            if (node.has("Index Name")) {
+                indexes.add(node.get("Index Name").asText());
+            }
+        }
+        return indexes;
+    }
+
+    public Set<String> seqScans() {
+        Set<String> relations = new LinkedHashSet<>();
+        for (JsonNode node : nodes) {
+            if ("Seq Scan".equals(node.path("Node Type").asText())) {
+                relations.add(node.path("Relation Name").asText());
+            }
+        }
+        return relations;
+    }
+
+    // Forma compatta del piano per i messaggi di errore: "Limit > Index Scan appointments (idx_...)"
+    public String outline() {
+        List<String> parts = new ArrayList<>();
+        for (JsonNode node : nodes) {
+            StringBuilder part = new StringBuilder(node.path("Node Type").asText());
+            if (node.has("Relation Name")) {
+                part.append(' ').append(node.get("Relation Name").asText());
+            }
+            if (node.has("Index Name")) {
+                part.append(" (").append(node.get("Index Name").asText()).append(')');
+            }
+            parts.add(part.toString());
+        }
+        return String.join(" > ", parts);
+    }
+
+    private void collect(JsonNode node) {
+        nodes.add(node);
+        for (JsonNode child : node.path("Plans")) {
+            collect(child);
+        }
+    }
+}
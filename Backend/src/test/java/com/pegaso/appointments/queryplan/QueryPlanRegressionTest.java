@@ -0,0 +1,584 @@
+package com.pegaso.appointments.queryplan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pegaso.appointments.audit.AuditQueryService;
+import com.pegaso.appointments.outbox.OutboxMessage;
+import com.pegaso.appointments.outbox.OutboxRelay;
+import com.pegaso.appointments.outbox.OutboxWriter;
+import com.pegaso.appointments.reminder.ReminderScheduler;
+import com.pegaso.appointments.reminder.TimingWheel;
+import com.pegaso.appointments.repository.AppointmentRepository;
+import com.pegaso.appointments.repository.AppointmentSearchCriteria;
+import com.pegaso.appointments.repository.AppointmentSearchRepository;
+import com.pegaso.appointments.repository.DoctorExamRepository;
+import com.pegaso.appointments.repository.DoctorRepository;
+import com.pegaso.appointments.repository.ExamRepository;
+import com.pegaso.appointments.repository.PatientRepository;
+import com.pegaso.appointments.service.AppointmentAutoCompletionService;
+import com.pegaso.appointments.service.ChangeTrackingService;
+import com.pegaso.appointments.service.DoctorService;
+import com.pegaso.appointments.service.ExamService;
+import com.pegaso.appointments.service.JobLockService;
+import com.pegaso.appointments.service.PatientService;
+import com.pegaso.appointments.service.ResourceVersionService;
+import jakarta.persistence.EntityManagerFactory;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.repository.Repository;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.pegaso.appointments.queryplan.PlanExpectation.plan;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Regressioni dei piani di esecuzione: per ogni query dei repository e di JdbcTemplate nei service l'SQL reale viene
+// catturato (StatementCapture, senza eseguirlo) ed esaminato con EXPLAIN (FORMAT JSON) con i parametri effettivi.
+// Il test fallisce se un piano perde l'indice atteso, passa a una seq scan su una tabella grande o supera il budget
+// di costo/righe. Il report finisce in target/query-plans (query-plans.json e query-plans.md).
+// Richiede il dataset del load test (java -jar load-test/target/load-test.jar seed --reset): su un database con meno
+// di MIN_APPOINTMENTS appuntamenti i piani non sono significativi e i controlli vengono saltati
+@SpringBootTest(properties = {"app.reminders.enabled=false", "app.jobs.auto-complete.enabled=false"})
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanRegressionTest {
+
+    private static final long MIN_APPOINTMENTS = 100_000;
+    private static final Path REPORT_DIRECTORY = Path.of("target", "query-plans");
+
+    @Autowired
+    private ApplicationContext applicationContext;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private DoctorExamRepository doctorExamRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private ExamRepository examRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ReminderScheduler reminderScheduler;
+    @Autowired
+    private AuditQueryService auditQueryService;
+    @Autowired
+    private PatientService patientService;
+    @Autowired
+    private DoctorService doctorService;
+    @Autowired
+    private AppointmentAutoCompletionService autoCompletionService;
+    @Autowired
+    private ExamService examService;
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+    @Autowired
+    private ChangeTrackingService changeTrackingService;
+    @Autowired
+    private JobLockService jobLockService;
+    @Autowired
+    private OutboxWriter outboxWriter;
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    private final QueryPlanReport report = new QueryPlanReport();
+    private Fixture fixture;
+
+    // Proxy JDBC più esterno, prima dei listener di SqlBudget e tracing: lo statement catturato non li raggiunge
+    @TestConfiguration
+    static class StatementCaptureConfig {
+
+        @Bean
+        static BeanPostProcessor statementCaptureDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+                        return ProxyDataSourceBuilder.create(dataSource)
+                                .name("query-plans")
+                                .listener(new StatementCapture())
+                                .build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    @TestFactory
+    Stream<DynamicTest> plansStayWithinBudget() {
+        Long appointments = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM appointments", Long.class);
+        assumeTrue(appointments != null && appointments >= MIN_APPOINTMENTS,
+                "Query plans need the load-test dataset (" + appointments + " appointments, at least " + MIN_APPOINTMENTS
+                        + "): java -jar load-test/target/load-test.jar seed --reset");
+        fixture = loadFixture();
+        return cases().stream().map(planCase -> DynamicTest.dynamicTest(planCase.name(), () -> check(planCase)));
+    }
+
+    // Una query nuova nei repository deve avere il suo caso, altrimenti il suo piano non è sorvegliato
+    @Test
+    void everyRepositoryQueryHasAPlanCase() {
+        Set<String> declared = new TreeSet<>();
+        for (Object repository : applicationContext.getBeansOfType(Repository.class).values()) {
+            for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(repository)) {
+                collectQueryMethods(type, declared);
+            }
+        }
+        Set<String> covered = cases().stream().map(PlanCase::query).collect(Collectors.toSet());
+
+        assertThat(declared).isNotEmpty();
+        assertThat(covered).containsAll(declared);
+    }
+
+    // Lo stesso per i componenti che eseguono SQL con JdbcTemplate
+    @Test
+    void everyJdbcTemplateUserHasAPlanCase() {
+        Set<String> users = new TreeSet<>();
+        for (String name : applicationContext.getBeanDefinitionNames()) {
+            Class<?> type = applicationContext.getType(name);
+            if (type == null) {
+                continue;
+            }
+            type = ClassUtils.getUserClass(type);
+            if (type.getPackageName().startsWith("com.pegaso.appointments") && usesJdbcTemplate(type)) {
+                users.add(type.getSimpleName());
+            }
+        }
+        Set<String> owners = cases().stream().map(PlanCase::owner).collect(Collectors.toSet());
+
+        assertThat(users).isNotEmpty();
+        assertThat(owners).containsAll(users);
+    }
+
+    @AfterAll
+    void writeReport() throws Exception {
+        if (fixture == null) {
+            return;
+        }
+        Map<String, Object> dataset = new LinkedHashMap<>();
+        for (String table : List.of("appointments", "doctors", "patients", "exams", "doctor_exams")) {
+            dataset.put(table, jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class));
+        }
+        report.write(REPORT_DIRECTORY, dataset);
+    }
+
+    private List<PlanCase> cases() {
+        List<PlanCase> cases = new ArrayList<>();
+
+        // AppointmentRepository
+        cases.add(repository(AppointmentRepository.class, "findAllOrderByScheduledAtAsc",
+                () -> appointmentRepository.findAllOrderByScheduledAtAsc(),
+                // Lista completa per l'admin senza filtri: legge per costruzione tutta la tabella
+                plan().allowsSeqScan("appointments", "doctors", "patients").maxCost(500_000).maxRows(2_000_000)));
+        cases.add(repository(AppointmentRepository.class, "findByDoctorIdOrderByScheduledAtAsc",
+                () -> appointmentRepository.findByDoctorIdOrderByScheduledAtAsc(fixture.doctorId()),
+                plan().usesAnyIndex("idx_appointments_doctor_id", "idx_appointments_doctor_updated_at",
+                        "idx_appointments_doctor_scheduled_active").usesIndex("doctors_pkey").maxCost(2_000)));
+        cases.add(repository(AppointmentRepository.class, "findByPatientIdOrderByScheduledAtAsc",
+                () -> appointmentRepository.findByPatientIdOrderByScheduledAtAsc(fixture.patientId()),
+                plan().usesIndex("idx_appointments_patient_scheduled", "patients_pkey")));
+        cases.add(repository(AppointmentRepository.class, "findByIdWithRelations",
+                () -> appointmentRepository.findByIdWithRelations(fixture.appointmentId()),
+                plan().usesIndex("appointments_pkey").maxCost(100).maxRows(1)));
+        cases.add(repository(AppointmentRepository.class, "findVersionById",
+                () -> appointmentRepository.findVersionById(fixture.appointmentId()),
+                plan().usesIndex("appointments_pkey").maxCost(100).maxRows(1)));
+        cases.add(repository(AppointmentRepository.class, "findAllByIdInWithRelations",
+                () -> appointmentRepository.findAllByIdInWithRelations(fixture.appointmentIds()),
+                plan().usesIndex("appointments_pkey").maxCost(2_000)));
+        cases.add(repository(AppointmentRepository.class, "existsOverlappingAppointment",
+                () -> appointmentRepository.existsOverlappingAppointment(fixture.doctorId(), fixture.slotStart(),
+                        fixture.slotEnd()),
+                plan().usesIndex("idx_appointments_doctor_scheduled_active").maxCost(500)));
+        cases.add(repository(AppointmentRepository.class, "existsOverlappingAppointmentExcluding",
+                () -> appointmentRepository.existsOverlappingAppointmentExcluding(fixture.doctorId(),
+                        fixture.appointmentId(), fixture.slotStart(), fixture.slotEnd()),
+                plan().usesIndex("idx_appointments_doctor_scheduled_active").maxCost(500)));
+        cases.add(repository(AppointmentRepository.class, "existsOverlappingAppointmentForPatient",
+                () -> appointmentRepository.existsOverlappingAppointmentForPatient(fixture.patientId(),
+                        fixture.slotStart(), fixture.slotEnd()),
+                plan().usesIndex("idx_appointments_patient_scheduled").maxCost(500)));
+        cases.add(repository(AppointmentRepository.class, "existsOverlappingAppointmentForPatientExcluding",
+                () -> appointmentRepository.existsOverlappingAppointmentForPatientExcluding(fixture.patientId(),
+                        fixture.appointmentId(), fixture.slotStart(), fixture.slotEnd()),
+                plan().usesIndex("idx_appointments_patient_scheduled").maxCost(500)));
+        cases.add(repository(AppointmentRepository.class, "findPastAppointments",
+                () -> appointmentRepository.findPastAppointments(OffsetDateTime.now(ZoneOffset.UTC)),
+                // Pulizia di tutti gli appuntamenti passati (job non attivo): proporzionale allo storico
+                plan().allowsSeqScan("appointments").maxCost(100_000).maxRows(1_000_000)));
+
+        // AppointmentSearchRepository (ricerca con filtri di AppointmentService)
+        cases.add(repository(AppointmentSearchRepository.class, "search[doctor]",
+                () -> appointmentRepository.search(AppointmentSearchCriteria.builder()
+                        .doctorId(fixture.doctorId())
+                        .statuses(Set.of("pending", "confirmed"))
+                        .from(fixture.today())
+                        .to(fixture.today().plusDays(30))
+                        .build()),
+                plan().usesIndex("idx_appointments_doctor_scheduled_active")));
+        cases.add(repository(AppointmentSearchRepository.class, "search[patient]",
+                () -> appointmentRepository.search(AppointmentSearchCriteria.builder()
+                        .patientId(fixture.patientId())
+                        .from(fixture.today())
+                        .to(fixture.today().plusDays(30))
+                        .build()),
+                plan().usesIndex("idx_appointments_patient_scheduled")));
+        cases.add(repository(AppointmentSearchRepository.class, "search[exam]",
+                () -> appointmentRepository.search(AppointmentSearchCriteria.builder()
+                        .examId(fixture.examId())
+                        .from(fixture.today())
+                        .to(fixture.today().plusDays(1))
+                        .build()),
+                // Su un giorno solo il planner può preferire l'intervallo su scheduled_at filtrando per esame
+                plan().usesAnyIndex("idx_appointments_exam_scheduled", "idx_appointments_scheduled_at").maxCost(5_000)));
+        cases.add(repository(AppointmentSearchRepository.class, "search[admin-day]",
+                () -> appointmentRepository.search(AppointmentSearchCriteria.builder()
+                        .statuses(Set.of("pending", "confirmed"))
+                        .from(fixture.today())
+                        .to(fixture.today().plusDays(1))
+                        .build()),
+                // Migliaia di appuntamenti del giorno: hash join con la lettura completa dei dottori
+                plan().usesIndex("idx_appointments_open_scheduled").allowsSeqScan("doctors").maxCost(20_000)
+                        .maxRows(10_000)));
+
+        // DoctorExamRepository
+        cases.add(repository(DoctorExamRepository.class, "existsByDoctorIdAndExamId",
+                () -> doctorExamRepository.existsByDoctorIdAndExamId(fixture.doctorId(), fixture.examId()),
+                plan().usesIndex("doctor_exams_pkey").maxCost(100).maxRows(1)));
+        cases.add(repository(DoctorExamRepository.class, "findByExamIdWithDoctor",
+                () -> doctorExamRepository.findByExamIdWithDoctor(fixture.examId()),
+                // Un esame comune è erogato da gran parte dei dottori: hash join con la lettura completa dei dottori
+                plan().usesIndex("idx_doctor_exams_exam_id").allowsSeqScan("doctors").maxCost(10_000)
+                        .maxRows(10_000)));
+        cases.add(repository(DoctorExamRepository.class, "findById_DoctorId",
+                () -> doctorExamRepository.findById_DoctorId(fixture.doctorId()),
+                plan().usesAnyIndex("idx_doctor_exams_doctor_id", "doctor_exams_pkey").maxCost(100)));
+        cases.add(repository(DoctorExamRepository.class, "findByDoctorIdInWithExam",
+                () -> doctorExamRepository.findByDoctorIdInWithExam(fixture.doctorIds()),
+                plan().usesIndex("idx_doctor_exams_doctor_id")));
+
+        // DoctorRepository e PatientRepository
+        cases.add(repository(DoctorRepository.class, "findByEmail",
+                () -> doctorRepository.findByEmail(fixture.doctorEmail()),
+                plan().maxCost(100).maxRows(1)));
+        cases.add(repository(DoctorRepository.class, "existsByEmail",
+                () -> doctorRepository.existsByEmail(fixture.doctorEmail()),
+                plan().maxCost(100).maxRows(1)));
+        cases.add(repository(DoctorRepository.class, "searchIds",
+                () -> doctorRepository.searchIds(fixture.searchText(), fixture.searchText() + "%",
+                        "%" + fixture.searchText() + "%", 20, 0),
+                plan().usesIndex("idx_doctors_search_trgm").maxCost(10_000).maxRows(10_000)));
+        cases.add(repository(PatientRepository.class, "findByEmail",
+                () -> patientRepository.findByEmail(fixture.patientEmail()),
+                plan().maxCost(100).maxRows(1)));
+        cases.add(repository(PatientRepository.class, "existsByEmail",
+                () -> patientRepository.existsByEmail(fixture.patientEmail()),
+                plan().maxCost(100).maxRows(1)));
+        cases.add(repository(PatientRepository.class, "searchIds",
+                () -> patientRepository.searchIds(fixture.searchText(), fixture.searchText() + "%",
+                        "%" + fixture.searchText() + "%", 20, 0),
+                plan().usesIndex("idx_patients_search_trgm").maxCost(50_000).maxRows(200_000)));
+
+        // ExamRepository (poche decine di righe: basta il budget)
+        cases.add(repository(ExamRepository.class, "findAllByIdIn",
+                () -> examRepository.findAllByIdIn(List.of(fixture.examId())),
+                plan().maxCost(100)));
+        cases.add(repository(ExamRepository.class, "existsByName",
+                () -> examRepository.existsByName(fixture.examName()),
+                plan().maxCost(100)));
+
+        // Service con JdbcTemplate: i metodi privati sono invocati sul bean reale, lo statement non viene eseguito
+        cases.add(jdbc(ReminderScheduler.class, "refill", null,
+                () -> invoke(reminderScheduler, "refill", Instant.now()),
+                plan().usesIndex("idx_appointments_open_scheduled").maxCost(20_000).maxRows(20_000)));
+        cases.add(jdbc(ReminderScheduler.class, "claim", null,
+                () -> invoke(reminderScheduler, "claim", fixture.reminderEntries()),
+                plan().usesIndex("appointments_pkey")));
+        cases.add(jdbc(ReminderScheduler.class, "release", null,
+                () -> invoke(reminderScheduler, "release", fixture.reminderEntries()),
+                // appointment_reminders contiene solo i promemoria in coda: tabella piccola, la seq scan è economica
+                plan().maxCost(100).maxRows(10_000)));
+        cases.add(jdbc(AuditQueryService.class, "search", null,
+                () -> auditQueryService.search("appointment", fixture.appointmentId(), null, null, null, null, 0, 50),
+                plan()));
+        cases.add(jdbc(PatientService.class, "hasAppointments", null,
+                () -> invoke(patientService, "hasAppointments", fixture.patientId()),
+                plan().usesAnyIndex("idx_appointments_patient_id", "idx_appointments_patient_scheduled").maxCost(100)));
+        cases.add(jdbc(PatientService.class, "deleteCancelledAppointments", null,
+                () -> invoke(patientService, "deleteCancelledAppointments", fixture.patientId()),
+                plan().usesAnyIndex("idx_appointments_patient_id", "idx_appointments_patient_scheduled")));
+        cases.add(jdbc(DoctorService.class, "hasAppointments", null,
+                () -> invoke(doctorService, "hasAppointments", fixture.doctorId()),
+                plan().usesIndex("idx_appointments_doctor_scheduled_active").maxCost(100)));
+        cases.add(jdbc(DoctorService.class, "deleteCancelledAppointments", null,
+                () -> invoke(doctorService, "deleteCancelledAppointments", fixture.doctorId()),
+                plan().usesAnyIndex("idx_appointments_doctor_id", "idx_appointments_doctor_updated_at",
+                        "idx_appointments_doctor_scheduled_active").maxCost(2_000)));
+        cases.add(jdbc(AppointmentAutoCompletionService.class, "completeBatch", null,
+                () -> invoke(autoCompletionService, "completeBatch", (Object) invoke(autoCompletionService, "buildUpdateSql")),
+                // Le righe stimate sono quelle candidate sotto il LIMIT del batch, non quelle aggiornate
+                plan().usesIndex("idx_appointments_open_scheduled").maxCost(20_000).maxRows(200_000)));
+        cases.add(jdbc(ExamService.class, "hasActiveAppointmentsForDoctorAndExam", null,
+                () -> invoke(examService, "hasActiveAppointmentsForDoctorAndExam", fixture.doctorId(), fixture.examId()),
+                plan().usesIndex("idx_appointments_doctor_scheduled_active").maxCost(500)));
+        cases.add(jdbc(ExamService.class, "hasAppointments", null,
+                () -> invoke(examService, "hasAppointments", fixture.examId()),
+                // EXISTS: la scansione si ferma alla prima riga, conta il costo
+                plan().usesIndex("idx_appointments_exam_id").maxCost(100).maxRows(100_000)));
+        cases.add(jdbc(ExamService.class, "hasDoctorExams", null,
+                () -> invoke(examService, "hasDoctorExams", fixture.examId()),
+                plan().usesIndex("idx_doctor_exams_exam_id").maxCost(100)));
+        for (String collection : List.of(ResourceVersionService.APPOINTMENTS, ResourceVersionService.DOCTORS,
+                ResourceVersionService.PATIENTS, ResourceVersionService.EXAMS)) {
+            // Stamp ETag: una riga della sequenza della collezione, indipendente dalla dimensione della tabella
+            cases.add(jdbc(ResourceVersionService.class, "compute[" + collection + "]", null,
+                    () -> invoke(resourceVersionService, "compute", collection),
+                    plan().maxCost(10).maxRows(1)));
+        }
+        cases.add(jdbc(ChangeTrackingService.class, "findChanges[doctor]", "UNION ALL",
+                () -> changeTrackingService.findChanges("appointments", fixture.lastHourWatermark(), 500, "doctor_id",
+                        fixture.doctorId()),
+                plan().usesIndex("idx_appointments_doctor_updated_at")));
+        cases.add(jdbc(ChangeTrackingService.class, "findChanges[patient]", "UNION ALL",
+                () -> changeTrackingService.findChanges("appointments", fixture.lastHourWatermark(), 500, "patient_id",
+                        fixture.patientId()),
+                plan().usesIndex("idx_appointments_patient_updated_at")));
+        cases.add(jdbc(ChangeTrackingService.class, "findChanges[all]", "UNION ALL",
+                () -> changeTrackingService.findChanges("appointments", fixture.lastHourWatermark(), 500, null, null),
+                plan().usesIndex("idx_appointments_updated_at").maxCost(5_000).maxRows(10_000)));
+        cases.add(jdbc(JobLockService.class, "tryAcquire", null,
+                () -> invoke(jobLockService, "tryAcquire", "query-plan-check"),
+                plan()));
+        cases.add(jdbc(JobLockService.class, "renew", null,
+                () -> invoke(jobLockService, "renew", jobLease("query-plan-check")),
+                plan()));
+        cases.add(jdbc(JobLockService.class, "release", null,
+                () -> invoke(jobLockService, "release", "query-plan-check", Duration.ZERO),
+                plan()));
+        cases.add(jdbc(OutboxWriter.class, "insert", "INSERT INTO outbox_events",
+                () -> transactionTemplate.executeWithoutResult(status -> outboxWriter.append(OutboxWriter.APPOINTMENT,
+                        fixture.appointmentId(), "QUERY_PLAN_CHECK", Map.of())),
+                plan()));
+        cases.add(jdbc(OutboxRelay.class, "relayBatch", null,
+                () -> invoke(outboxRelay, "relayBatch", jobLease("query-plan-check")),
+                plan()));
+        cases.add(jdbc(OutboxRelay.class, "markPublished", null,
+                () -> invoke(outboxRelay, "markPublished", fixture.outboxMessage()),
+                plan()));
+        cases.add(jdbc(OutboxRelay.class, "markFailed", null,
+                () -> invoke(outboxRelay, "markFailed", fixture.outboxMessage(), new IllegalStateException("check")),
+                plan()));
+        cases.add(jdbc(OutboxRelay.class, "cleanup", "DELETE FROM outbox_events",
+                () -> outboxRelay.cleanup(),
+                plan()));
+        return cases;
+    }
+
+    private void check(PlanCase planCase) throws Exception {
+        // Le query cacheable (cache di secondo livello) altrimenti potrebbero non arrivare al database
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        StatementCapture.arm(planCase.statement());
+        StatementCapture.CapturedStatement statement;
+        try {
+            planCase.action().run();
+        } catch (RuntimeException e) {
+            if (!StatementCapture.isInterruption(e)) {
+                throw e;
+            }
+        } finally {
+            statement = StatementCapture.disarm();
+        }
+        assertThat(statement).as("%s did not run the expected statement", planCase.name()).isNotNull();
+
+        QueryPlan plan = explain(statement);
+        List<String> violations = planCase.expectation().violations(plan);
+        report.add(new QueryPlanReport.Entry(planCase.name(), planCase.owner(), statement.sql(),
+                statement.parameters().stream().map(QueryPlanRegressionTest::describe).toList(), plan,
+                planCase.expectation(), violations));
+        assertThat(violations).as("%s%n  plan: %s%n  sql: %s", planCase.name(), plan.outline(), statement.sql()).isEmpty();
+    }
+
+    // EXPLAIN dello statement catturato, con gli stessi parametri impostati dal codice applicativo
+    private QueryPlan explain(StatementCapture.CapturedStatement statement) {
+        return jdbcTemplate.execute((ConnectionCallback<QueryPlan>) connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + statement.sql())) {
+                for (ParameterSetOperation parameter : statement.parameters()) {
+                    parameter.getMethod().invoke(explain, parameter.getArgs());
+                }
+                try (ResultSet result = explain.executeQuery()) {
+                    result.next();
+                    return new QueryPlan(objectMapper.readTree(result.getString(1)));
+                }
+            } catch (IllegalAccessException | InvocationTargetException | java.io.IOException e) {
+                throw new IllegalStateException("Could not explain " + statement.sql(), e);
+            }
+        });
+    }
+
+    // Campioni dal dataset: il dottore e il paziente con più appuntamenti, un loro appuntamento futuro, ecc.
+    private Fixture loadFixture() {
+        UUID doctorId = jdbcTemplate.queryForObject(
+                "SELECT doctor_id FROM appointments GROUP BY doctor_id ORDER BY count(*) DESC LIMIT 1", UUID.class);
+        UUID patientId = jdbcTemplate.queryForObject(
+                "SELECT patient_id FROM appointments GROUP BY patient_id ORDER BY count(*) DESC LIMIT 1", UUID.class);
+        List<Map<String, Object>> upcoming = jdbcTemplate.queryForList(
+                "SELECT id, scheduled_at FROM appointments WHERE doctor_id = ? AND status IN ('pending', 'confirmed') "
+                        + "AND scheduled_at > NOW() ORDER BY scheduled_at LIMIT 50", doctorId);
+        assertThat(upcoming).as("upcoming appointments of the busiest doctor").isNotEmpty();
+        UUID examId = jdbcTemplate.queryForObject(
+                "SELECT exam_id FROM doctor_exams WHERE doctor_id = ? ORDER BY exam_id LIMIT 1", UUID.class, doctorId);
+        List<UUID> doctorIds = jdbcTemplate.queryForList("SELECT id FROM doctors ORDER BY id LIMIT 20", UUID.class);
+        String doctorEmail = jdbcTemplate.queryForObject("SELECT email FROM doctors WHERE id = ?", String.class, doctorId);
+        String patientEmail = jdbcTemplate.queryForObject("SELECT email FROM patients WHERE id = ?", String.class, patientId);
+        String examName = jdbcTemplate.queryForObject("SELECT name FROM exams WHERE id = ?", String.class, examId);
+        String lastName = jdbcTemplate.queryForObject("SELECT lower(last_name) FROM doctors WHERE id = ?", String.class,
+                doctorId);
+
+        List<UUID> appointmentIds = upcoming.stream().map(row -> (UUID) row.get("id")).toList();
+        List<TimingWheel.Entry<UUID, OffsetDateTime>> reminderEntries = upcoming.stream()
+                .map(row -> new TimingWheel.Entry<>((UUID) row.get("id"),
+                        ((java.sql.Timestamp) row.get("scheduled_at")).toInstant().atOffset(ZoneOffset.UTC), 0L))
+                .toList();
+        OffsetDateTime today = LocalDate.now(ZoneOffset.UTC).atStartOfDay().atOffset(ZoneOffset.UTC);
+        OffsetDateTime slotStart = today.plusDays(30).withHour(10);
+        Instant lastHour = Instant.now().minus(1, ChronoUnit.HOURS);
+        String watermark = ChronoUnit.MICROS.between(Instant.EPOCH, lastHour) + "_" + new UUID(0L, 0L);
+        return new Fixture(doctorId, patientId, appointmentIds.get(0), appointmentIds, doctorIds, examId, doctorEmail,
+                patientEmail, examName, lastName, today, slotStart, slotStart.plusMinutes(30), watermark,
+                reminderEntries, new OutboxMessage(1L, OutboxWriter.APPOINTMENT, appointmentIds.get(0), "CHECK", "{}",
+                OffsetDateTime.now(ZoneOffset.UTC), 0));
+    }
+
+    private static PlanCase repository(Class<?> repository, String method, Runnable action, PlanExpectation expectation) {
+        return new PlanCase(repository.getSimpleName() + "." + method, repository.getSimpleName(), sql -> true, action,
+                expectation);
+    }
+
+    // statementFragment: parte dell'SQL da catturare quando il metodo esegue altri statement prima di quello da esaminare
+    private static PlanCase jdbc(Class<?> owner, String method, String statementFragment, Runnable action,
+                                 PlanExpectation expectation) {
+        Predicate<String> statement = statementFragment == null ? sql -> true : sql -> sql.contains(statementFragment);
+        return new PlanCase(owner.getSimpleName() + "." + method, owner.getSimpleName(), statement, action, expectation);
+    }
+
+    private static Object invoke(Object bean, String method, Object... args) {
+        Object target = AopTestUtils.getUltimateTargetObject(bean);
+        return ReflectionTestUtils.invokeMethod(target, method, args);
+    }
+
+    private static JobLockService.JobLease jobLease(String jobName) {
+        try {
+            var constructor = JobLockService.JobLease.class.getDeclaredConstructor(String.class);
+            return BeanUtils.instantiateClass(constructor, jobName);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void collectQueryMethods(Class<?> type, Set<String> declared) {
+        if (!type.getPackageName().startsWith("com.pegaso.appointments")) {
+            return;
+        }
+        for (Method method : type.getDeclaredMethods()) {
+            if (!method.isDefault() && !method.isSynthetic() && !Modifier.isStatic(method.getModifiers())) {
+                declared.add(type.getSimpleName() + "." + method.getName());
+            }
+        }
+        for (Class<?> parent : type.getInterfaces()) {
+            collectQueryMethods(parent, declared);
+        }
+    }
+
+    private static boolean usesJdbcTemplate(Class<?> type) {
+        for (Field field : type.getDeclaredFields()) {
+            if (JdbcOperations.class.isAssignableFrom(field.getType())
+                    || NamedParameterJdbcOperations.class.isAssignableFrom(field.getType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(ParameterSetOperation parameter) {
+        Object[] args = parameter.getArgs();
+        if (ParameterSetOperation.isSetNullParameterOperation(parameter) || args.length < 2 || args[1] == null) {
+            return "null";
+        }
+        String value = String.valueOf(args[1]);
+        return value.length() > 200 ? value.substring(0, 200) + "..." : value;
+    }
+
+    // query: chiave per la copertura, senza la variante tra parentesi quadre
+    private record PlanCase(String name, String owner, Predicate<String> statement, Runnable action,
+                            PlanExpectation expectation) {
+
+        String query() {
+            int variant = name.indexOf('[');
+            return variant < 0 ? name : name.substring(0, variant);
+        }
+    }
+
+    private record Fixture(UUID doctorId, UUID patientId, UUID appointmentId, List<UUID> appointmentIds,
+                           List<UUID> doctorIds, UUID examId, String doctorEmail, String patientEmail, String examName,
+                           String searchText, OffsetDateTime today, OffsetDateTime slotStart, OffsetDateTime slotEnd,
+                           String lastHourWatermark, List<TimingWheel.Entry<UUID, OffsetDateTime>> reminderEntries,
+                           OutboxMessage outboxMessage) {
+    }
+}
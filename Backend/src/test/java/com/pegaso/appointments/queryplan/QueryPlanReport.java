@@ -0,0 +1,71 @@
+package com.pegaso.appointments.queryplan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Report dei piani di una esecuzione della suite: query-plans.json (SQL, parametri, piano completo, esito) e
+// query-plans.md (tabella riassuntiva), da archiviare come artefatto per confrontare i piani tra una release e l'altra
+public class QueryPlanReport {
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    public synchronized void add(Entry entry) {
+        entries.add(entry);
+    }
+
+    public synchronized void write(Path directory, Map<String, Object> dataset) throws IOException {
+        Files.createDirectories(directory);
+        List<Map<String, Object>> queries = new ArrayList<>();
+        StringBuilder markdown = new StringBuilder("# Query plans\n\n")
+                .append("Dataset: ").append(dataset).append("\n\n")
+                .append("| query | cost | budget | max rows | budget | indexes | seq scans | result |\n")
+                .append("|---|---:|---:|---:|---:|---|---|---|\n");
+        for (Entry entry : entries) {
+            Map<String, Object> query = new LinkedHashMap<>();
+            query.put("name", entry.name());
+            query.put("owner", entry.owner());
+            query.put("sql", entry.sql());
+            query.put("parameters", entry.parameters());
+            query.put("totalCost", entry.plan().totalCost());
+            query.put("maxCost", entry.expectation().maxCost());
+            query.put("maxRows", entry.plan().maxRows());
+            query.put("rowBudget", entry.expectation().maxRows());
+            query.put("indexes", entry.plan().indexes());
+            query.put("seqScans", entry.plan().seqScans());
+            query.put("violations", entry.violations());
+            query.put("plan", entry.plan().json());
+            queries.add(query);
+
+            markdown.append(String.format("| %s | %.0f | %.0f | %d | %d | %s | %s | %s |%n", entry.name(),
+                    entry.plan().totalCost(), entry.expectation().maxCost(), entry.plan().maxRows(),
+                    entry.expectation().maxRows(), join(entry.plan().indexes()), join(entry.plan().seqScans()),
+                    entry.violations().isEmpty() ? "ok" : String.join("; ", entry.violations())));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("generatedAt", OffsetDateTime.now().toString());
+        report.put("dataset", dataset);
+        report.put("queries", queries);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("query-plans.json").toFile(), report);
+        Files.writeString(directory.resolve("query-plans.md"), markdown);
+    }
+
+    private static String join(Set<String> values) {
+        return values.isEmpty() ? "-" : String.join(", ", values);
+    }
+
+    public record Entry(String name, String owner, String sql, List<String> parameters, QueryPlan plan,
+                        PlanExpectation expectation, List<String> violations) {
+    }
+}
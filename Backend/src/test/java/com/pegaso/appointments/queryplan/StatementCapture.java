@@ -0,0 +1,82 @@
+package com.pegaso.appointments.queryplan;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+// Listener del proxy JDBC dei test: quando il thread corrente esegue lo statement atteso ne registra SQL e parametri
+// e lo interrompe prima che arrivi al database. Così si ottiene l'SQL reale di repository e JdbcTemplate (anche per
+// UPDATE/DELETE o letture senza limite) senza eseguirlo; gli statement precedenti vengono eseguiti normalmente
+public class StatementCapture implements QueryExecutionListener {
+
+    private static final ThreadLocal<Target> TARGET = new ThreadLocal<>();
+
+    // Arma la cattura per il thread corrente: il primo statement per cui target è vero viene registrato e interrotto
+    public static void arm(Predicate<String> target) {
+        TARGET.set(new Target(target));
+    }
+
+    // Statement catturato dall'ultima arm(), null se non è stato eseguito; disarma la cattura
+    public static CapturedStatement disarm() {
+        Target target = TARGET.get();
+        TARGET.remove();
+        return target == null ? null : target.captured;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Target target = TARGET.get();
+        if (target == null || target.captured != null || queryInfoList.isEmpty()) {
+            return;
+        }
+        QueryInfo query = queryInfoList.get(0);
+        if (!target.matcher.test(query.getQuery())) {
+            return;
+        }
+        // In un batch i parametri della prima esecuzione bastano per il piano
+        List<ParameterSetOperation> parameters = query.getParametersList().isEmpty()
+                ? List.of()
+                : List.copyOf(query.getParametersList().get(0));
+        target.captured = new CapturedStatement(query.getQuery(), parameters);
+        throw new Interrupted();
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    // true se l'eccezione (o una sua causa) è l'interruzione dello statement catturato
+    public static boolean isInterruption(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof Interrupted) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public record CapturedStatement(String sql, List<ParameterSetOperation> parameters) {
+    }
+
+    private static final class Target {
+
+        private final Predicate<String> matcher;
+        private CapturedStatement captured;
+
+        private Target(Predicate<String> matcher) {
+            this.matcher = matcher;
+        }
+    }
+
+    // Lanciata al posto dell'esecuzione dello statement catturato
+    static final class Interrupted extends RuntimeException {
+
+        Interrupted() {
+            super("Statement captured for EXPLAIN, not executed", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.pegaso.appointments.reminder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    @Test
+    void expiresEntriesAtTheirDeadlineAcrossLevels() {
+        TimingWheel<String, String> wheel = new TimingWheel<>(TICK, 0);
+        wheel.schedule("soon", "a", 5 * TICK);
+        wheel.schedule("level1", "b", 100 * TICK);
+        wheel.schedule("level2", "c", 5_000 * TICK);
+        wheel.schedule("aligned", "d", 4_096 * TICK);
+
+        assertThat(wheel.advance(4 * TICK)).isEmpty();
+        assertThat(keys(wheel.advance(5 * TICK))).containsExactly("soon");
+        assertThat(wheel.advance(99 * TICK)).isEmpty();
+        assertThat(keys(wheel.advance(100 * TICK))).containsExactly("level1");
+        assertThat(wheel.advance(4_095 * TICK)).isEmpty();
+        assertThat(keys(wheel.advance(4_096 * TICK))).containsExactly("aligned");
+        assertThat(wheel.advance(4_999 * TICK)).isEmpty();
+        assertThat(keys(wheel.advance(5_000 * TICK))).containsExactly("level2");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelAndRescheduleReplaceTheEntry() {
+        TimingWheel<String, String> wheel = new TimingWheel<>(TICK, 0);
+        wheel.schedule("cancelled", "a", 10 * TICK);
+        wheel.schedule("moved", "b", 10 * TICK);
+
+        assertThat(wheel.cancel("cancelled")).isTrue();
+        assertThat(wheel.cancel("cancelled")).isFalse();
+        wheel.schedule("moved", "c", 20 * TICK);
+
+        assertThat(wheel.advance(10 * TICK)).isEmpty();
+        List<TimingWheel.Entry<String, String>> expired = wheel.advance(20 * TICK);
+        assertThat(expired).extracting(TimingWheel.Entry::value).containsExactly("c");
+    }
+
+    @Test
+    void pastDeadlinesExpireOnNextAdvance() {
+        TimingWheel<String, String> wheel = new TimingWheel<>(TICK, 50 * TICK);
+        wheel.schedule("late", "a", 10 * TICK);
+
+        assertThat(keys(wheel.advance(50 * TICK))).containsExactly("late");
+    }
+
+    @Test
+    void entriesBeyondTheHorizonAreEventuallyExpired() {
+        long horizon = 1L << 24;
+        TimingWheel<String, String> wheel = new TimingWheel<>(1, 0);
+        wheel.schedule("far", "a", horizon + 10);
+
+        assertThat(wheel.advance(horizon)).isEmpty();
+        assertThat(keys(wheel.advance(horizon + 10))).containsExactly("far");
+    }
+
+    @Test
+    void handlesAMillionEntries() {
+        int count = 1_000_000;
+        long horizonTicks = 24 * 3600;
+        TimingWheel<Integer, Integer> wheel = new TimingWheel<>(TICK, 0);
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            wheel.schedule(i, i, (1 + random.nextInt((int) horizonTicks)) * TICK);
+        }
+        for (int i = 0; i < count; i += 2) {
+            wheel.cancel(i);
+        }
+        assertThat(wheel.size()).isEqualTo(count / 2);
+
+        int expired = 0;
+        for (long tick = 1; tick <= horizonTicks; tick += 60) {
+            for (TimingWheel.Entry<Integer, Integer> entry : wheel.advance(tick * TICK)) {
+                assertThat(entry.deadlineMillis()).isLessThanOrEqualTo(tick * TICK);
+                assertThat(entry.key() % 2).isEqualTo(1);
+                expired++;
+            }
+        }
+        expired += wheel.advance(horizonTicks * TICK).size();
+        assertThat(expired).isEqualTo(count / 2);
+    }
+
+    private static List<String> keys(List<TimingWheel.Entry<String, String>> entries) {
+        return entries.stream().map(TimingWheel.Entry::key).toList();
+    }
+}
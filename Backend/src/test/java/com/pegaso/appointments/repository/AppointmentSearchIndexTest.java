@@ -0,0 +1,113 @@
+package com.pegaso.appointments.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Verifica tramite EXPLAIN che le query generate dalla ricerca appuntamenti usino gli indici composti.
+// Richiede un Postgres 16+ raggiungibile (EXPLAIN GENERIC_PLAN): senza SPRING_DATASOURCE_URL il test viene saltato
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.pegaso.appointments.repository.AppointmentSearchIndexTest$CapturingStatementInspector")
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+@Transactional
+class AppointmentSearchIndexTest {
+
+    private static final OffsetDateTime FROM = OffsetDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime TO = FROM.plusMonths(1);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Con poche righe di seed il planner preferirebbe comunque una seq scan: la disabilito per la sola transazione
+    @BeforeEach
+    void disableSeqScan() {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    void doctorSearchExcludingCancelledUsesPartialIndex() {
+        String plan = explain(AppointmentSearchCriteria.builder()
+                .doctorId(UUID.randomUUID())
+                .statuses(Set.of("pending", "confirmed"))
+                .from(FROM)
+                .to(TO)
+                .build());
+
+        assertThat(plan).contains("idx_appointments_doctor_scheduled_active");
+    }
+
+    @Test
+    void patientSearchUsesPatientScheduledIndex() {
+        String plan = explain(AppointmentSearchCriteria.builder()
+                .patientId(UUID.randomUUID())
+                .from(FROM)
+                .to(TO)
+                .build());
+
+        assertThat(plan).contains("idx_appointments_patient_scheduled");
+    }
+
+    @Test
+    void examSearchUsesExamScheduledIndex() {
+        String plan = explain(AppointmentSearchCriteria.builder()
+                .examId(UUID.randomUUID())
+                .from(FROM)
+                .build());
+
+        assertThat(plan).contains("idx_appointments_exam_scheduled");
+    }
+
+    // Esegue la ricerca, recupera l'SQL generato da Hibernate e ne restituisce il piano generico
+    private String explain(AppointmentSearchCriteria criteria) {
+        CapturingStatementInspector.reset();
+        appointmentRepository.search(criteria);
+        String sql = CapturingStatementInspector.lastSql();
+        assertThat(sql).isNotNull();
+
+        StringBuilder numbered = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + numbered, String.class));
+    }
+
+    // Registra l'ultima query inviata da Hibernate
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        private static final ThreadLocal<String> LAST_SQL = new ThreadLocal<>();
+
+        static void reset() {
+            LAST_SQL.remove();
+        }
+
+        static String lastSql() {
+            return LAST_SQL.get();
+        }
+
+        @Override
+        public String inspect(String sql) {
+            LAST_SQL.set(sql);
+            return sql;
+        }
+    }
+}
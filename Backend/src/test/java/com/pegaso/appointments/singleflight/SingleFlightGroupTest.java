@@ -0,0 +1,88 @@
+package com.pegaso.appointments.singleflight;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightGroupTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentIdenticalCallsShareOneExecution() throws Throwable {
+        SingleFlightGroup group = new SingleFlightGroup("test", 0, 100, meterRegistry);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> {
+                try {
+                    return group.execute("key", () -> {
+                        executions.incrementAndGet();
+                        release.await();
+                        return "value";
+                    });
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            }));
+        }
+        // Tutti i chiamanti sono in attesa sul leader prima che finisca
+        while (meterRegistry.counter("singleflight.calls", "name", "test", "outcome", "shared").count() < 7) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        for (Future<Object> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        }
+        executor.shutdown();
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("singleflight.coalescing.ratio").gauge().value()).isEqualTo(7.0 / 8);
+        // Finita la chiamata, senza micro-cache la successiva riesegue il metodo
+        group.execute("key", () -> executions.incrementAndGet());
+        assertThat(executions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void microCacheServesRecentResultUntilInvalidated() throws Throwable {
+        SingleFlightGroup group = new SingleFlightGroup("cached", 60_000, 100, meterRegistry);
+        AtomicInteger executions = new AtomicInteger();
+
+        assertThat(group.execute("a", executions::incrementAndGet)).isEqualTo(1);
+        assertThat(group.execute("a", executions::incrementAndGet)).isEqualTo(1);
+        assertThat(group.execute("b", executions::incrementAndGet)).isEqualTo(2);
+
+        group.invalidate();
+        assertThat(group.execute("a", executions::incrementAndGet)).isEqualTo(3);
+    }
+
+    @Test
+    void failuresAreNotCached() throws Throwable {
+        SingleFlightGroup group = new SingleFlightGroup("failing", 60_000, 100, meterRegistry);
+
+        assertThatThrownBy(() -> group.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+        assertThat(group.execute("key", () -> "recovered")).isEqualTo("recovered");
+    }
+
+    @Test
+    void keysIgnoreWhitespaceAndCollectionOrder() {
+        assertThat(SingleFlightAspect.normalize(" ross ")).isEqualTo("ross");
+        assertThat(SingleFlightAspect.normalize(List.of("pending", "confirmed")))
+                .isEqualTo(SingleFlightAspect.normalize(new String[]{"confirmed", "pending"}));
+    }
+}
@@ -0,0 +1,49 @@
+package com.pegaso.appointments.sqlbudget;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.pegaso.appointments.sqlbudget.SqlBudgetMatchers.withinDeclaredBudget;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Verifica che gli endpoint più usati restino entro il budget di statement SQL dichiarato (@SqlBudget), sui dati
+// di seed. Richiede un Postgres raggiungibile: senza SPRING_DATASOURCE_URL il test viene saltato
+@SpringBootTest(properties = "app.single-flight.micro-cache-ms=0")
+@AutoConfigureMockMvc
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+class EndpointSqlBudgetTest {
+
+    private static final String PATIENT_ID = "550e8400-e29b-41d4-a716-446655440000";
+    private static final String EXAM_ID = "770e8400-e29b-41d4-a716-446655440001";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void examListWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/exams"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SqlBudgetFilter.SERVER_TIMING))
+                .andExpect(withinDeclaredBudget());
+    }
+
+    @Test
+    void doctorAvailabilityWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/doctors").param("examId", EXAM_ID).param("date", "2027-03-03T10:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(withinDeclaredBudget());
+    }
+
+    @Test
+    void patientAppointmentsWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/appointments").header("X-Demo-Patient-Id", PATIENT_ID))
+                .andExpect(status().isOk())
+                .andExpect(withinDeclaredBudget());
+    }
+}
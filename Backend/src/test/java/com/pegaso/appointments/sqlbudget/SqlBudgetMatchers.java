@@ -0,0 +1,41 @@
+package com.pegaso.appointments.sqlbudget;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+// Asserzioni MockMvc sul numero di statement SQL di una richiesta (contati da SqlBudgetFilter):
+// mockMvc.perform(get("/api/exams")).andExpect(withinDeclaredBudget())
+public final class SqlBudgetMatchers {
+
+    private static final int REPEATED_THRESHOLD = 2;
+
+    private SqlBudgetMatchers() {
+    }
+
+    // La richiesta rispetta il budget dichiarato con @SqlBudget sull'endpoint
+    public static ResultMatcher withinDeclaredBudget() {
+        return result -> {
+            Integer budget = SqlBudgetFilter.declaredBudget(result.getHandler());
+            if (budget == null) {
+                throw new AssertionError("No @SqlBudget declared on " + result.getHandler());
+            }
+            check(result, budget);
+        };
+    }
+
+    public static ResultMatcher withinBudget(int maxStatements) {
+        return result -> check(result, maxStatements);
+    }
+
+    private static void check(MvcResult result, int maxStatements) {
+        Object stats = result.getRequest().getAttribute(SqlStatementStats.ATTRIBUTE);
+        if (!(stats instanceof SqlStatementStats sqlStats)) {
+            throw new AssertionError("SQL statements were not recorded: is SqlBudgetFilter registered?");
+        }
+        if (sqlStats.statements() > maxStatements) {
+            throw new AssertionError(String.format("%s %s ran %d SQL statements, budget is %d. Repeated statements: %s",
+                    result.getRequest().getMethod(), result.getRequest().getRequestURI(), sqlStats.statements(),
+                    maxStatements, sqlStats.repeatedStatements(REPEATED_THRESHOLD)));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.pegaso.appointments.sqlbudget;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlStatementStatsTest {
+
+    @Test
+    void countsStatementsAndReportsRepeatedSqlMostFrequentFirst() {
+        SqlStatementStats stats = new SqlStatementStats();
+        stats.record("select * from doctors", 1_000_000);
+        for (int i = 0; i < 6; i++) {
+            stats.record("select * from exams where id=?", 500_000);
+        }
+        for (int i = 0; i < 3; i++) {
+            stats.record("select * from doctor_exams where doctor_id=?", 500_000);
+        }
+
+        assertThat(stats.statements()).isEqualTo(10);
+        assertThat(stats.millis()).isEqualTo(5.5);
+        assertThat(stats.repeatedStatements(3)).containsExactly(
+                Map.entry("select * from exams where id=?", 6),
+                Map.entry("select * from doctor_exams where doctor_id=?", 3));
+        assertThat(stats.repeatedStatements(7)).isEmpty();
+    }
+}
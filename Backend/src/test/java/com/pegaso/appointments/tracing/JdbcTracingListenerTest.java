@@ -0,0 +1,17 @@
+package com.pegaso.appointments.tracing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JdbcTracingListenerTest {
+
+    @Test
+    void sanitizeRemovesLiteralsButKeepsIdentifiersAndParameters() {
+        String sql = "SELECT COUNT(*) AS total FROM appointments a1_0\n  WHERE a1_0.status = 'it''s pending'"
+                + " AND a1_0.duration_minutes > 30 AND a1_0.doctor_id = ? LIMIT 10";
+
+        assertThat(JdbcTracingListener.sanitize(sql)).isEqualTo("SELECT COUNT(*) AS total FROM appointments a1_0"
+                + " WHERE a1_0.status = ? AND a1_0.duration_minutes > ? AND a1_0.doctor_id = ? LIMIT ?");
+    }
+}
@@ -4,11 +4,13 @@
  * Utilizza Axios per le richieste HTTP con:
  * - baseURL configurato dalla variabile d'ambiente VITE_API_BASE_URL
  * - Gestione automatica degli header demo
+ * - Header traceparent (W3C) per collegare le richieste del browser agli span del backend
  * - Gestione errori centralizzata
  */
 
 import axios, { AxiosInstance, AxiosError, AxiosRequestConfig, InternalAxiosRequestConfig } from 'axios';
 import { getDemoHeaders } from './demoHeaders';
+import { createTraceparent } from './traceContext';
 
 // Base URL del backend
 const API_BASE_URL = (import.meta as any).env?.VITE_API_BASE_URL || 'http://localhost:8080/api';
@@ -48,9 +50,11 @@ const createAxiosInstance = (): AxiosInstance => {
     timeout: 30000,
   });
 
-  // Interceptor per aggiungere automaticamente gli header demo
+  // Interceptor per aggiungere automaticamente gli header demo e il contesto di tracing
   instance.interceptors.request.use(
     (config: InternalAxiosRequestConfig) => {
+      config.headers['traceparent'] = createTraceparent();
+
       // flag skipDemoHeaders  gestisce casi particolari in cui non si vuole aggiungere gli header demo
       if ((config as any).skipDemoHeaders) {
         return config;
@@ -0,0 +1,16 @@
+// Contesto di tracing W3C (https://www.w3.org/TR/trace-context/): ogni chiamata al backend parte con un nuovo
+// trace id, così gli span del backend (controller, service, JDBC) sono raggruppati sotto la richiesta del browser.
+// Il browser non crea né esporta span propri: l'id del padre è solo un segnaposto (nei visualizzatori lo span HTTP
+// del backend appare come radice con padre mancante) e la decisione di campionamento resta al backend
+
+const randomHex = (bytes: number): string => {
+  const values = new Uint8Array(bytes);
+  crypto.getRandomValues(values);
+  return Array.from(values, (value) => value.toString(16).padStart(2, '0')).join('');
+};
+
+// Header traceparent: versione 00, trace id (16 byte), id del padre (8 byte), flag 00 = non campionato dal browser,
+// il backend applica TRACING_SAMPLING_PROBABILITY
+export function createTraceparent(): string {
+  return `00-${randomHex(16)}-${randomHex(8)}-00`;
+}
@@ -0,0 +1,22 @@
+#!/usr/bin/env bash
+# Confronto tra due risultati JMH in JSON (es. jmh-result-1.0.0.json della release precedente e quello attuale):
+# per ogni benchmark e combinazione di parametri stampa i due punteggi e la variazione percentuale.
+# Con la modalità AverageTime una variazione positiva è un peggioramento.
+#
+# Uso: ./compare-results.sh <base.json> <nuovo.json>
+set -euo pipefail
+
+command -v jq >/dev/null || { echo "jq is required"; exit 1; }
+[[ $# -eq 2 ]] || { echo "usage: $0 <base.json> <new.json>"; exit 1; }
+
+jq -r -n --slurpfile base "$1" --slurpfile new "$2" '
+  def key: .benchmark + (if .params then " " + (.params | to_entries | map("\(.key)=\(.value)") | join(",")) else "" end);
+  ($base[0] | map({(key): .primaryMetric}) | add) as $old
+  | ["benchmark", "base", "new", "unit", "delta"],
+    ($new[0][] | key as $k | .primaryMetric as $m | $old[$k] as $o
+     | [$k,
+        (if $o then ($o.score * 1000 | round / 1000 | tostring) else "-" end),
+        ($m.score * 1000 | round / 1000 | tostring),
+        $m.scoreUnit,
+        (if $o and $o.score != 0 then ((($m.score - $o.score) / $o.score * 1000 | round) / 10 | tostring) + "%" else "new" end)])
+  | @tsv' | if command -v column >/dev/null; then column -t -s $'\t'; else cat; fi
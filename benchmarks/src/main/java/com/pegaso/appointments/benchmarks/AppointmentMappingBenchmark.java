@@ -0,0 +1,59 @@
+package com.pegaso.appointments.benchmarks;
+
+import com.pegaso.appointments.dto.appointment.AppointmentCreateResponse;
+import com.pegaso.appointments.dto.appointment.AppointmentResponse;
+import com.pegaso.appointments.entity.Appointment;
+import com.pegaso.appointments.mapper.AppointmentMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Mapping entità -> DTO degli appuntamenti (liste di GET /api/appointments e risposta della prenotazione)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AppointmentMappingBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int size;
+
+    private List<Appointment> appointments;
+
+    @Setup
+    public void setUp() {
+        appointments = BenchmarkData.appointments(size);
+    }
+
+    @Benchmark
+    public List<AppointmentResponse> mapToResponse() {
+        List<AppointmentResponse> responses = new ArrayList<>(appointments.size());
+        for (Appointment appointment : appointments) {
+            responses.add(AppointmentMapper.toResponse(appointment));
+        }
+        return responses;
+    }
+
+    @Benchmark
+    public List<AppointmentCreateResponse> mapToCreateResponse() {
+        List<AppointmentCreateResponse> responses = new ArrayList<>(appointments.size());
+        for (Appointment appointment : appointments) {
+            responses.add(AppointmentMapper.toCreateResponse(appointment));
+        }
+        return responses;
+    }
+}
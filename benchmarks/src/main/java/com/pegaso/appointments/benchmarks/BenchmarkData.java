@@ -0,0 +1,188 @@
+package com.pegaso.appointments.benchmarks;
+
+import com.pegaso.appointments.entity.Appointment;
+import com.pegaso.appointments.entity.Doctor;
+import com.pegaso.appointments.entity.Exam;
+import com.pegaso.appointments.entity.Patient;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Dati dei benchmark: entità e input simili a quelli reali, generati con un seed fisso perché
+// i risultati di release diverse siano confrontabili
+public final class BenchmarkData {
+
+    private static final long SEED = 42L;
+
+    private static final String[] FIRST_NAMES = {"mario", "  Giulia ", "LUCA", "francesca", "Anna Maria", "giuseppe", "ELENA", " paolo"};
+    private static final String[] LAST_NAMES = {"rossi", "Bianchi", "VERDI", " esposito ", "De Luca", "romano", "COLOMBO", "ricci"};
+    private static final String[] STATUSES = {"pending", "Confirmed", " CANCELLED ", "completed", "PENDING", "confirmed "};
+    private static final String[] EXAMS = {"Visita cardiologica", "Ecografia addominale", "Radiografia torace", "Analisi del sangue"};
+    private static final OffsetDateTime CREATED_AT = OffsetDateTime.of(2026, 1, 1, 9, 0, 0, 0, ZoneOffset.UTC);
+
+    private BenchmarkData() {
+    }
+
+    public static String[] names() {
+        return concat(FIRST_NAMES, LAST_NAMES);
+    }
+
+    public static String[] emails() {
+        return new String[]{
+                "Mario.Rossi@Example.com", "  giulia.bianchi@gmail.com ", "LUCA.VERDI@LIBERO.IT", "f.esposito@outlook.it",
+                "anna.deluca@studio-medico.it", "  ", "g.romano+test@example.org", "elena.colombo@pec.example.it"
+        };
+    }
+
+    public static String[] statuses() {
+        return STATUSES.clone();
+    }
+
+    public static String[] validPhoneNumbers() {
+        return new String[]{"+39 333 123 4567", "+390612345678", "+39 02 1234 5678", "+1 650 253 0000", "+44 20 7946 0958"};
+    }
+
+    public static String[] invalidPhoneNumbers() {
+        return new String[]{"+39 123", "333 123 4567", "+39 abc def", "+999 1234567", "00390612"};
+    }
+
+    public static String[] validEmails() {
+        return new String[]{"mario.rossi@example.com", "giulia.bianchi@gmail.com", "l.verdi@libero.it", "a+b@studio-medico.it"};
+    }
+
+    public static String[] invalidEmails() {
+        return new String[]{"mario.rossi@example", "giulia.bianchi.gmail.com", "l.verdi@libero.i", "@studio-medico.it"};
+    }
+
+    // Appuntamenti con associazioni già caricate (come dopo un JOIN FETCH): il benchmark misura solo il mapping
+    public static List<Appointment> appointments(int size) {
+        Random random = new Random(SEED);
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            doctors.add(Doctor.builder()
+                    .id(new UUID(random.nextLong(), random.nextLong()))
+                    .firstName(pick(random, FIRST_NAMES).trim())
+                    .lastName(pick(random, LAST_NAMES).trim())
+                    .gender(random.nextBoolean() ? "M" : "F")
+                    .email("doctor" + i + "@example.com")
+                    .build());
+        }
+        List<Exam> exams = new ArrayList<>();
+        for (String name : EXAMS) {
+            exams.add(Exam.builder()
+                    .id(new UUID(random.nextLong(), random.nextLong()))
+                    .name(name)
+                    .durationMinutes(30)
+                    .isActive(true)
+                    .build());
+        }
+        OffsetDateTime start = OffsetDateTime.of(2027, 1, 4, 8, 0, 0, 0, ZoneOffset.UTC);
+        List<Appointment> appointments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Patient patient = Patient.builder()
+                    .id(new UUID(random.nextLong(), random.nextLong()))
+                    .firstName(pick(random, FIRST_NAMES).trim())
+                    .lastName(pick(random, LAST_NAMES).trim())
+                    .dateOfBirth(LocalDate.of(1950 + random.nextInt(60), 1 + random.nextInt(12), 1 + random.nextInt(28)))
+                    .email("patient" + i + "@example.com")
+                    .build();
+            appointments.add(Appointment.builder()
+                    .id(new UUID(random.nextLong(), random.nextLong()))
+                    .patient(patient)
+                    .doctor(doctors.get(random.nextInt(doctors.size())))
+                    .exam(exams.get(random.nextInt(exams.size())))
+                    .scheduledAt(start.plusMinutes(30L * i))
+                    .durationMinutes(30)
+                    .status(STATUSES[random.nextInt(STATUSES.length)].trim().toLowerCase())
+                    .reason(random.nextBoolean() ? "Controllo periodico" : null)
+                    .contraindications(random.nextInt(4) == 0 ? "Allergia al lattice" : null)
+                    .version((long) random.nextInt(5))
+                    .build());
+        }
+        return appointments;
+    }
+
+    // Pazienti, dottori ed esami come restituiti dai repository: il benchmark misura solo il mapping nei DTO
+    public static List<Patient> patients(int size) {
+        Random random = new Random(SEED);
+        List<Patient> patients = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            patients.add(Patient.builder()
+                    .id(new UUID(random.nextLong(), random.nextLong()))
+                    .firstName(pick(random, FIRST_NAMES).trim())
+                    .lastName(pick(random, LAST_NAMES).trim())
+                    .gender(random.nextBoolean() ? "M" : "F")
+                    .dateOfBirth(LocalDate.of(1950 + random.nextInt(60), 1 + random.nextInt(12), 1 + random.nextInt(28)))
+                    .email("patient" + i + "@example.com")
+                    .phoneNumber(random.nextBoolean() ? "+39 333 123 4567" : null)
+                    .createdAt(CREATED_AT.plusMinutes(i))
+                    .build());
+        }
+        return patients;
+    }
+
+    public static List<Doctor> doctors(int size) {
+        Random random = new Random(SEED);
+        List<Doctor> doctors = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            doctors.add(Doctor.builder()
+                    .id(new UUID(random.nextLong(), random.nextLong()))
+                    .firstName(pick(random, FIRST_NAMES).trim())
+                    .lastName(pick(random, LAST_NAMES).trim())
+                    .gender(random.nextBoolean() ? "M" : "F")
+                    .email("doctor" + i + "@example.com")
+                    .phoneNumber("+39 02 1234 5678")
+                    .createdAt(CREATED_AT.plusMinutes(i))
+                    .updatedAt(CREATED_AT.plusDays(1).plusMinutes(i))
+                    .build());
+        }
+        return doctors;
+    }
+
+    // Esami associati a ciascun dottore (da uno a quattro), come li raccoglie DoctorService
+    public static List<List<UUID>> doctorExamIds(int size) {
+        Random random = new Random(SEED);
+        List<List<UUID>> examIds = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            List<UUID> ids = new ArrayList<>();
+            for (int j = 0, count = 1 + random.nextInt(EXAMS.length); j < count; j++) {
+                ids.add(new UUID(random.nextLong(), random.nextLong()));
+            }
+            examIds.add(ids);
+        }
+        return examIds;
+    }
+
+    public static List<Exam> exams(int size) {
+        Random random = new Random(SEED);
+        List<Exam> exams = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            exams.add(Exam.builder()
+                    .id(new UUID(random.nextLong(), random.nextLong()))
+                    .name(pick(random, EXAMS) + " " + i)
+                    .description(random.nextBoolean() ? "Presentarsi a digiuno" : null)
+                    .durationMinutes(15 * (1 + random.nextInt(4)))
+                    .isActive(random.nextInt(10) != 0)
+                    .createdAt(CREATED_AT.plusMinutes(i))
+                    .updatedAt(CREATED_AT.plusDays(1).plusMinutes(i))
+                    .build());
+        }
+        return exams;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] all = new String[first.length + second.length];
+        System.arraycopy(first, 0, all, 0, first.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        return all;
+    }
+}
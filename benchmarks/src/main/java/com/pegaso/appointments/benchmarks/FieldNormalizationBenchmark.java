@@ -0,0 +1,75 @@
+package com.pegaso.appointments.benchmarks;
+
+import com.pegaso.appointments.service.FieldNormalizationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Normalizzazione dei campi eseguita a ogni creazione e modifica di dottori, pazienti e appuntamenti.
+// Ogni invocazione normalizza un lotto di input diversi: il risultato è il tempo medio per valore
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FieldNormalizationBenchmark {
+
+    private static final int BATCH = 16;
+
+    private final FieldNormalizationService normalization = new FieldNormalizationService();
+
+    private String[] names;
+    private String[] emails;
+    private String[] statuses;
+
+    @Setup
+    public void setUp() {
+        names = batch(BenchmarkData.names());
+        emails = batch(BenchmarkData.emails());
+        statuses = batch(BenchmarkData.statuses());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void normalizeName(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(normalization.normalizeName(name));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void emailToStore(Blackhole blackhole) {
+        for (String email : emails) {
+            blackhole.consume(normalization.emailToStore(email));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void normalizeStatus(Blackhole blackhole) {
+        for (String status : statuses) {
+            blackhole.consume(normalization.normalizeStatus(status));
+        }
+    }
+
+    static String[] batch(String[] values) {
+        String[] batch = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            batch[i] = values[i % values.length];
+        }
+        return batch;
+    }
+}
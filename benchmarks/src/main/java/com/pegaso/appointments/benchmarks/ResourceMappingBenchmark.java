@@ -0,0 +1,80 @@
+package com.pegaso.appointments.benchmarks;
+
+import com.pegaso.appointments.dto.doctor.DoctorResponse;
+import com.pegaso.appointments.dto.exam.ExamResponse;
+import com.pegaso.appointments.dto.patient.PatientResponse;
+import com.pegaso.appointments.entity.Doctor;
+import com.pegaso.appointments.entity.Exam;
+import com.pegaso.appointments.entity.Patient;
+import com.pegaso.appointments.mapper.DoctorMapper;
+import com.pegaso.appointments.mapper.ExamMapper;
+import com.pegaso.appointments.mapper.PatientMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Mapping entità -> DTO di pazienti, dottori ed esami (liste, ricerca testuale e delta sync)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ResourceMappingBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int size;
+
+    private List<Patient> patients;
+    private List<Doctor> doctors;
+    private List<List<UUID>> doctorExamIds;
+    private List<Exam> exams;
+
+    @Setup
+    public void setUp() {
+        patients = BenchmarkData.patients(size);
+        doctors = BenchmarkData.doctors(size);
+        doctorExamIds = BenchmarkData.doctorExamIds(size);
+        exams = BenchmarkData.exams(size);
+    }
+
+    @Benchmark
+    public List<PatientResponse> patientMapToResponse() {
+        List<PatientResponse> responses = new ArrayList<>(patients.size());
+        for (Patient patient : patients) {
+            responses.add(PatientMapper.toResponse(patient));
+        }
+        return responses;
+    }
+
+    @Benchmark
+    public List<DoctorResponse> doctorMapToResponse() {
+        List<DoctorResponse> responses = new ArrayList<>(doctors.size());
+        for (int i = 0; i < doctors.size(); i++) {
+            responses.add(DoctorMapper.toResponse(doctors.get(i), doctorExamIds.get(i)));
+        }
+        return responses;
+    }
+
+    @Benchmark
+    public List<ExamResponse> examMapToResponse() {
+        List<ExamResponse> responses = new ArrayList<>(exams.size());
+        for (Exam exam : exams) {
+            responses.add(ExamMapper.toResponse(exam));
+        }
+        return responses;
+    }
+}
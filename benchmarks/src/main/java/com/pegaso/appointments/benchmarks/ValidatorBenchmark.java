@@ -0,0 +1,55 @@
+package com.pegaso.appointments.benchmarks;
+
+import com.pegaso.appointments.validation.EmailDomainValidator;
+import com.pegaso.appointments.validation.PhoneNumberValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Validatori Bean Validation dei DTO di dottori e pazienti. I numeri non validi seguono un percorso diverso
+// (eccezione di parsing in libphonenumber), per questo sono misurati a parte
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ValidatorBenchmark {
+
+    @Param({"valid", "invalid"})
+    public String input;
+
+    private final PhoneNumberValidator phoneNumberValidator = new PhoneNumberValidator();
+    private final EmailDomainValidator emailDomainValidator = new EmailDomainValidator();
+
+    private String[] phoneNumbers;
+    private String[] emails;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        boolean valid = "valid".equals(input);
+        phoneNumbers = valid ? BenchmarkData.validPhoneNumbers() : BenchmarkData.invalidPhoneNumbers();
+        emails = valid ? BenchmarkData.validEmails() : BenchmarkData.invalidEmails();
+    }
+
+    @Benchmark
+    public boolean phoneNumberIsValid() {
+        return phoneNumberValidator.isValid(phoneNumbers[(next++ & Integer.MAX_VALUE) % phoneNumbers.length], null);
+    }
+
+    @Benchmark
+    public boolean emailDomainIsValid() {
+        return emailDomainValidator.isValid(emails[(next++ & Integer.MAX_VALUE) % emails.length], null);
+    }
+}
@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+# Confronto throughput e p99 tra thread di piattaforma e virtual thread sullo stesso carico (k6/thread-modes.js).
+# Avvia il jar del backend due volte, con SPRING_THREADS_VIRTUAL_ENABLED=false e poi true, contro lo stesso database.
+#
+# Variabili: APP_JAR (default: jar in Backend/target), SPRING_DATASOURCE_URL/USERNAME/PASSWORD, VUS, DURATION.
+# Con DB_LATENCY_MS il database viene raggiunto tramite toxiproxy (docker) con la latenza indicata su ogni
+# risposta, per simulare un database lento: è il caso in cui il pool di thread di Tomcat diventa il limite.
+set -euo pipefail
+
+cd "$(dirname "$0")"
+APP_JAR=${APP_JAR:-$(ls ../Backend/target/appointments-api-*-exec.jar | head -n 1)}
+PORT=${PORT:-8080}
+BASE_URL="http://localhost:${PORT}"
+DB_URL=${SPRING_DATASOURCE_URL:-jdbc:postgresql://localhost:5432/appointments_db}
+RESULTS=${RESULTS:-results}
+mkdir -p "$RESULTS"
+
+command -v k6 >/dev/null || { echo "k6 is required (https://k6.io)"; exit 1; }
+command -v jq >/dev/null || { echo "jq is required"; exit 1; }
+
+if [[ -n "${DB_LATENCY_MS:-}" ]]; then
+  docker rm -f thread-modes-toxiproxy >/dev/null 2>&1 || true
+  docker run -d --name thread-modes-toxiproxy --network host ghcr.io/shopify/toxiproxy:2.9.0 >/dev/null
+  sleep 2
+  docker exec thread-modes-toxiproxy /toxiproxy-cli create -l 0.0.0.0:25432 -u localhost:5432 postgres >/dev/null
+  docker exec thread-modes-toxiproxy /toxiproxy-cli toxic add -t latency -a latency="${DB_LATENCY_MS}" -d postgres >/dev/null
+  DB_URL="jdbc:postgresql://localhost:25432/appointments_db"
+  trap 'docker rm -f thread-modes-toxiproxy >/dev/null 2>&1 || true' EXIT
+fi
+
+run_mode() {
+  local mode=$1 virtual=$2
+  echo "== ${mode} threads"
+  SPRING_THREADS_VIRTUAL_ENABLED=$virtual SPRING_DATASOURCE_URL=$DB_URL SERVER_PORT=$PORT \
+    java -jar "$APP_JAR" --logging.level.root=WARN --logging.level.com.pegaso.appointments=WARN \
+    > "$RESULTS/${mode}-app.log" 2>&1 &
+  local pid=$!
+  until curl -sf "${BASE_URL}/actuator/health" >/dev/null; do
+    kill -0 "$pid" 2>/dev/null || { echo "backend exited, see $RESULTS/${mode}-app.log"; exit 1; }
+    sleep 1
+  done
+  k6 run --quiet -e BASE_URL="$BASE_URL" -e VUS="${VUS:-800}" -e DURATION="${DURATION:-60s}" \
+    --summary-export "$RESULTS/${mode}.json" k6/thread-modes.js || true
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+run_mode platform false
+run_mode virtual true
+
+printf '\n%-10s %12s %10s %10s %10s\n' mode "req/s" "p50 ms" "p99 ms" "errors"
+for mode in platform virtual; do
+  jq -r --arg mode "$mode" '[$mode,
+      (.metrics.http_reqs.rate | floor),
+      (.metrics.http_req_duration["p(50)"] | floor),
+      (.metrics.http_req_duration["p(99)"] | floor),
+      ((.metrics.http_req_failed.value // 0) * 100 | tostring + "%")] | @tsv' "$RESULTS/$mode.json" |
+    awk -F'\t' '{ printf "%-10s %12s %10s %10s %10s\n", $1, $2, $3, $4, $5 }'
+done
@@ -0,0 +1,46 @@
+// Carico di sola lettura per confrontare l'esecuzione delle richieste su thread di piattaforma e su virtual thread.
+// Uso: k6 run -e BASE_URL=http://localhost:8080 -e VUS=800 -e DURATION=60s k6/thread-modes.js
+// Il numero di utenti virtuali deve superare i thread Tomcat (200 di default) perché la differenza si veda.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const ADMIN_ID = __ENV.ADMIN_ID || '880e8400-e29b-41d4-a716-446655440001';
+const VUS = parseInt(__ENV.VUS || '800', 10);
+
+export const options = {
+    scenarios: {
+        reads: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '15s', target: VUS },
+                { duration: __ENV.DURATION || '60s', target: VUS },
+                { duration: '5s', target: 0 },
+            ],
+            gracefulRampDown: '5s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+const adminHeaders = { headers: { 'X-Demo-Admin-Id': ADMIN_ID } };
+
+export default function () {
+    const roll = Math.random();
+    let response;
+    if (roll < 0.5) {
+        // Lista filtrata: una query per intervallo di date (la più frequente nel frontend)
+        response = http.get(`${BASE_URL}/api/appointments?from=2026-01-01T00:00:00&to=2026-12-31T00:00:00&status=pending,confirmed`,
+            Object.assign({ tags: { name: 'appointments' } }, adminHeaders));
+    } else if (roll < 0.8) {
+        response = http.get(`${BASE_URL}/api/admin/patients/search?q=ro&size=20`,
+            Object.assign({ tags: { name: 'patient-search' } }, adminHeaders));
+    } else {
+        response = http.get(`${BASE_URL}/api/exams`, { tags: { name: 'exams' } });
+    }
+    check(response, { 'status is 200': (r) => r.status === 200 });
+}
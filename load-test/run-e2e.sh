@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+# Ciclo completo del load test contro il Postgres locale: seed, avvio del backend, carico, arresto.
+# Gli argomenti vengono passati al comando run (es. ./run-e2e.sh --duration=5m --rate=200).
+# Variabili: SPRING_DATASOURCE_* come il backend, SEED_ARGS per il seed (default --reset),
+# BACKEND_JAR, BACKEND_PORT.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+LOAD_TEST_JAR=load-test/target/load-test.jar
+BACKEND_JAR=${BACKEND_JAR:-Backend/target/appointments-api-1.0.0-exec.jar}
+BACKEND_PORT=${BACKEND_PORT:-8080}
+SEED_ARGS=${SEED_ARGS:---reset}
+
+[[ -f $LOAD_TEST_JAR && -f $BACKEND_JAR ]] || { echo "build first: mvn -pl Backend,load-test -am package -DskipTests"; exit 1; }
+
+java -jar "$LOAD_TEST_JAR" seed $SEED_ARGS
+
+mkdir -p results
+# Tutte le richieste arrivano dallo stesso IP: senza disattivare il controllo di ammissione si misurerebbe il rate limit
+APP_ADMISSION_ENABLED=false SERVER_PORT=$BACKEND_PORT java -jar "$BACKEND_JAR" > results/backend.log 2>&1 &
+BACKEND_PID=$!
+trap 'kill $BACKEND_PID 2>/dev/null; wait $BACKEND_PID 2>/dev/null || true' EXIT
+
+for _ in $(seq 120); do
+  if curl -sf "http://localhost:$BACKEND_PORT/actuator/health/readiness" >/dev/null; then
+    break
+  fi
+  kill -0 $BACKEND_PID 2>/dev/null || { echo "backend exited, see results/backend.log"; exit 1; }
+  sleep 1
+done
+curl -sf "http://localhost:$BACKEND_PORT/actuator/health/readiness" >/dev/null || { echo "backend not ready"; exit 1; }
+
+java -jar "$LOAD_TEST_JAR" run --base-url="http://localhost:$BACKEND_PORT" "$@"
@@ -0,0 +1,30 @@
+package com.pegaso.appointments.loadtest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+
+// Connessione al Postgres locale: stesse variabili del backend (SPRING_DATASOURCE_*) o --db-url/--db-user/--db-password
+public record DatabaseConfig(String url, String username, String password) {
+
+    public static DatabaseConfig from(Options options) {
+        return new DatabaseConfig(
+                options.string("db-url", envOr("SPRING_DATASOURCE_URL", "jdbc:postgresql://localhost:5432/appointments_db")),
+                options.string("db-user", envOr("SPRING_DATASOURCE_USERNAME", "postgres")),
+                options.string("db-password", envOr("SPRING_DATASOURCE_PASSWORD", "")));
+    }
+
+    public Connection connect() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", username);
+        properties.setProperty("password", password);
+        properties.setProperty("ApplicationName", "appointments-load-test");
+        return DriverManager.getConnection(url, properties);
+    }
+
+    private static String envOr(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null ? defaultValue : value;
+    }
+}
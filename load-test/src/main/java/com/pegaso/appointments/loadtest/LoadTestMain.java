@@ -0,0 +1,38 @@
+package com.pegaso.appointments.loadtest;
+
+import com.pegaso.appointments.loadtest.run.LoadDriver;
+import com.pegaso.appointments.loadtest.run.WorkloadConfig;
+import com.pegaso.appointments.loadtest.seed.DatabaseSeeder;
+import com.pegaso.appointments.loadtest.seed.SeedConfig;
+
+// Punto di ingresso del load test:
+//   seed  popola Postgres con dati sintetici (COPY) secondo lo schema di Backend/Database/01-schema.sql
+//   run   esegue un carico misto (prenotazione, liste, spostamenti, cancellazioni) contro un backend avviato
+// Le opzioni sono descritte in load-test/README.md
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || args[0].equals("-h") || args[0].equals("--help")) {
+            System.out.println("usage: java -jar load-test.jar seed|run [--option=value ...] (see load-test/README.md)");
+            return;
+        }
+        String[] rest = new String[args.length - 1];
+        System.arraycopy(args, 1, rest, 0, rest.length);
+        Options options = new Options(rest, System.getenv());
+        DatabaseConfig database = DatabaseConfig.from(options);
+        switch (args[0]) {
+            case "seed" -> new DatabaseSeeder(database, SeedConfig.from(options)).seed();
+            case "run" -> {
+                int exitCode = new LoadDriver(database, WorkloadConfig.from(options)).run();
+                System.exit(exitCode);
+            }
+            default -> {
+                System.err.println("Unknown command: " + args[0] + " (expected seed or run)");
+                System.exit(2);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.pegaso.appointments.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Opzioni da riga di comando nel formato --nome=valore; se un'opzione manca si usa la variabile d'ambiente
+// LOADTEST_NOME (maiuscolo, '-' -> '_') e infine il default
+public class Options {
+
+    private final Map<String, String> values = new LinkedHashMap<>();
+    private final Map<String, String> env;
+
+    public Options(String[] args, Map<String, String> env) {
+        this.env = env;
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+    }
+
+    public String string(String name, String defaultValue) {
+        String value = values.get(name);
+        if (value == null) {
+            value = env.get("LOADTEST_" + name.toUpperCase().replace('-', '_'));
+        }
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public int integer(String name, int defaultValue) {
+        String value = string(name, null);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value.replace("_", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be an integer: " + value);
+        }
+    }
+
+    public double decimal(String name, double defaultValue) {
+        String value = string(name, null);
+        try {
+            return value == null ? defaultValue : Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be a number: " + value);
+        }
+    }
+
+    public boolean flag(String name) {
+        return Boolean.parseBoolean(string(name, "false"));
+    }
+
+    // Durate nel formato 90s, 5m, 1h (o secondi senza unità)
+    public Duration duration(String name, Duration defaultValue) {
+        String value = string(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            char unit = value.charAt(value.length() - 1);
+            if (Character.isDigit(unit)) {
+                return Duration.ofSeconds(Long.parseLong(value));
+            }
+            long amount = Long.parseLong(value.substring(0, value.length() - 1));
+            return switch (unit) {
+                case 's' -> Duration.ofSeconds(amount);
+                case 'm' -> Duration.ofMinutes(amount);
+                case 'h' -> Duration.ofHours(amount);
+                default -> throw new NumberFormatException();
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be a duration like 90s, 5m or 1h: " + value);
+        }
+    }
+
+    // Pesi nel formato chiave:peso,chiave:peso (es. pending:35,confirmed:35)
+    public Map<String, Double> weights(String name, String defaultValue) {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        for (String entry : string(name, defaultValue).split(",")) {
+            String[] parts = entry.trim().split("[:=]");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("--" + name + " must be a list of key:weight: " + entry);
+            }
+            try {
+                double weight = Double.parseDouble(parts[1].trim());
+                if (weight < 0) {
+                    throw new NumberFormatException();
+                }
+                weights.put(parts[0].trim(), weight);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("--" + name + ": invalid weight in " + entry);
+            }
+        }
+        return weights;
+    }
+}
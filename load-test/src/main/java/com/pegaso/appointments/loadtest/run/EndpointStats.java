@@ -0,0 +1,77 @@
+package com.pegaso.appointments.loadtest.run;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latenze (HdrHistogram, in microsecondi fino a 5 minuti) e conteggi per esito di un'operazione.
+// Le operazioni saltate (nessun appuntamento da spostare o cancellare) e quelle scartate nel modello aperto
+// (troppe richieste in volo) non hanno latenza e sono contate a parte. Il warmup è filtrato da LoadDriver, che non
+// registra le richieste partite prima dell'inizio della misura
+public class EndpointStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Map<Outcome, LongAdder> outcomes = new EnumMap<>(Outcome.class);
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public EndpointStats() {
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, new LongAdder());
+        }
+    }
+
+    public void record(long latencyNanos, Outcome outcome, String errorKey) {
+        recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+        outcomes.get(outcome).increment();
+        if (errorKey != null) {
+            errors.computeIfAbsent(errorKey, key -> new LongAdder()).increment();
+        }
+    }
+
+    public void skip() {
+        skipped.increment();
+    }
+
+    public void drop() {
+        dropped.increment();
+    }
+
+    // Istantanea da chiamare una sola volta, a fine misura
+    public Snapshot snapshot() {
+        Map<Outcome, Long> counts = new EnumMap<>(Outcome.class);
+        outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+        Map<String, Long> errorCounts = new TreeMap<>();
+        errors.forEach((key, count) -> errorCounts.put(key, count.sum()));
+        return new Snapshot(recorder.getIntervalHistogram(), counts, errorCounts, skipped.sum(), dropped.sum());
+    }
+
+    public record Snapshot(Histogram latencies, Map<Outcome, Long> outcomes, Map<String, Long> errors,
+                           long skipped, long dropped) {
+
+        public long total() {
+            return outcomes.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public long count(Outcome outcome) {
+            return outcomes.getOrDefault(outcome, 0L);
+        }
+
+        public double percentileMillis(double percentile) {
+            return latencies.getTotalCount() == 0 ? 0 : latencies.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        public double maxMillis() {
+            return latencies.getTotalCount() == 0 ? 0 : latencies.getMaxValue() / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.pegaso.appointments.loadtest.run;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pegaso.appointments.loadtest.DatabaseConfig;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Esecuzione del carico misto: warmup (richieste partite prima dell'inizio della misura non registrate), misura,
+// tabella per endpoint su stdout e report JSON.
+// Il codice di uscita è 1 se la quota di errori supera --max-error-rate, così lo script può fallire in CI
+public class LoadDriver {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final DatabaseConfig database;
+    private final WorkloadConfig config;
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+    private final Operation[] operations;
+    private final double[] cumulativeWeights;
+    // Istante (System.nanoTime) di fine warmup: fissato prima di avviare i worker, che lo leggono dopo Thread.start
+    private long measureStart;
+
+    public LoadDriver(DatabaseConfig database, WorkloadConfig config) {
+        this.database = database;
+        this.config = config;
+        List<Operation> selected = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        config.mix().forEach((name, weight) -> {
+            if (weight > 0) {
+                selected.add(Operation.byName(name));
+                weights.add(weight);
+            }
+        });
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no operation with a positive weight");
+        }
+        this.operations = selected.toArray(new Operation[0]);
+        this.cumulativeWeights = new double[operations.length];
+        double total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(i);
+            cumulativeWeights[i] = total;
+            stats.put(operations[i], new EndpointStats());
+        }
+    }
+
+    public int run() throws SQLException, IOException, InterruptedException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(executor)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+            Workload workload = new Workload(config, client);
+            workload.sample(database);
+
+            System.out.printf("Running %s model against %s: warmup %s, measure %s%n",
+                    config.openModel() ? "open (" + config.rate() + " req/s)" : "closed (" + config.concurrency() + " workers)",
+                    config.baseUrl(), config.warmup(), config.duration());
+            long start = System.nanoTime();
+            measureStart = start + config.warmup().toNanos();
+            long end = measureStart + config.duration().toNanos();
+            Thread.ofVirtual().start(() -> announceAt(measureStart));
+            if (config.openModel()) {
+                runOpen(workload, executor, start, end);
+            } else {
+                runClosed(workload, end);
+            }
+            long measuredNanos = System.nanoTime() - measureStart;
+            return report(measuredNanos / 1e9);
+        }
+    }
+
+    // Modello chiuso: ogni worker invia la richiesta successiva appena riceve la risposta
+    private void runClosed(Workload workload, long end) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < config.concurrency(); i++) {
+            workers.add(Thread.ofVirtual().name("load-worker-", i).start(() -> {
+                while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                    Operation operation = pick();
+                    execute(workload, operation, System.nanoTime());
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    // Modello aperto: gli invii seguono il calendario fisso indipendentemente dalle risposte; la latenza parte
+    // dall'istante previsto. Oltre --max-in-flight le richieste vengono scartate e contate come dropped
+    private void runOpen(Workload workload, ExecutorService executor, long start, long end) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        double intervalNanos = 1e9 / config.rate();
+        long sent = 0;
+        while (true) {
+            long intended = start + (long) (sent * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            sent++;
+            Operation operation = pick();
+            if (!inFlight.tryAcquire()) {
+                if (measured(intended)) {
+                    stats.get(operation).drop();
+                }
+                continue;
+            }
+            executor.execute(() -> {
+                try {
+                    execute(workload, operation, intended);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        // Attende le richieste ancora in volo, al più per il timeout di una richiesta
+        if (!inFlight.tryAcquire(config.maxInFlight(), config.requestTimeout().toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+            System.err.println("Some requests were still in flight at the end of the run");
+        }
+    }
+
+    // Ogni campione porta il proprio istante di partenza: quelli partiti durante il warmup non vengono registrati,
+    // anche se la risposta arriva dopo l'inizio della misura
+    private void execute(Workload workload, Operation operation, long startNanos) {
+        EndpointStats endpoint = stats.get(operation);
+        try {
+            Workload.Result result = workload.execute(operation);
+            if (!measured(startNanos)) {
+                return;
+            }
+            if (result == null) {
+                endpoint.skip();
+            } else {
+                endpoint.record(System.nanoTime() - startNanos, result.outcome(), result.errorKey());
+            }
+        } catch (IOException e) {
+            if (!measured(startNanos)) {
+                return;
+            }
+            endpoint.record(System.nanoTime() - startNanos, Outcome.ERROR, Workload.errorKey(e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Operation pick() {
+        double value = ThreadLocalRandom.current().nextDouble(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private boolean measured(long startNanos) {
+        return startNanos - measureStart >= 0;
+    }
+
+    private void announceAt(long nanoTime) {
+        long wait = nanoTime - System.nanoTime();
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+        System.out.println("Warmup done, measuring");
+    }
+
+    private int report(double seconds) throws IOException {
+        Map<Operation, EndpointStats.Snapshot> snapshots = new EnumMap<>(Operation.class);
+        stats.forEach((operation, endpoint) -> snapshots.put(operation, endpoint.snapshot()));
+
+        System.out.println();
+        System.out.printf("%-13s %9s %9s %8s %8s %7s %7s %7s %9s %9s %9s %9s %9s%n", "operation", "requests", "req/s",
+                "ok", "rejected", "shed", "errors", "skipped", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        long requests = 0;
+        long failures = 0;
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        for (Map.Entry<Operation, EndpointStats.Snapshot> entry : snapshots.entrySet()) {
+            Operation operation = entry.getKey();
+            EndpointStats.Snapshot snapshot = entry.getValue();
+            long total = snapshot.total();
+            requests += total + snapshot.dropped();
+            failures += snapshot.count(Outcome.ERROR) + snapshot.dropped();
+            System.out.printf("%-13s %9d %9.1f %8d %8d %7d %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation.label(), total,
+                    total / seconds, snapshot.count(Outcome.OK), snapshot.count(Outcome.REJECTED),
+                    snapshot.count(Outcome.SHED), snapshot.count(Outcome.ERROR), snapshot.skipped(),
+                    snapshot.percentileMillis(50), snapshot.percentileMillis(90), snapshot.percentileMillis(99),
+                    snapshot.percentileMillis(99.9), snapshot.maxMillis());
+            endpoints.add(endpointReport(operation, snapshot, seconds));
+        }
+        double errorRate = requests == 0 ? 0 : (double) failures / requests;
+        System.out.printf("%ntotal %d requests in %.1f s (%.1f req/s), error rate %.2f%% (max %.2f%%)%n", requests, seconds,
+                requests / seconds, errorRate * 100, config.maxErrorRate() * 100);
+        snapshots.forEach((operation, snapshot) -> {
+            if (snapshot.dropped() > 0) {
+                System.out.printf("  %s: %d requests dropped over --max-in-flight%n", operation.label(), snapshot.dropped());
+            }
+            snapshot.errors().forEach((key, count) -> System.out.printf("  %s: %s x%d%n", operation.label(), key, count));
+        });
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("generatedAt", OffsetDateTime.now().toString());
+        report.put("baseUrl", config.baseUrl());
+        report.put("model", config.openModel() ? "open" : "closed");
+        report.put("concurrency", config.openModel() ? null : config.concurrency());
+        report.put("rate", config.openModel() ? config.rate() : null);
+        report.put("warmupSeconds", config.warmup().toSeconds());
+        report.put("durationSeconds", seconds);
+        report.put("mix", config.mix());
+        report.put("requests", requests);
+        report.put("throughput", requests / seconds);
+        report.put("errorRate", errorRate);
+        report.put("endpoints", endpoints);
+        Path path = config.report().toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+        System.out.println("Report written to " + path);
+
+        if (errorRate > config.maxErrorRate()) {
+            System.err.printf("Error rate %.2f%% above --max-error-rate%n", errorRate * 100);
+            return 1;
+        }
+        return 0;
+    }
+
+    private static Map<String, Object> endpointReport(Operation operation, EndpointStats.Snapshot snapshot, double seconds) {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            latency.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile)),
+                    snapshot.percentileMillis(percentile));
+        }
+        latency.put("max", snapshot.maxMillis());
+        latency.put("mean", snapshot.latencies().getTotalCount() == 0 ? 0 : snapshot.latencies().getMean() / 1000.0);
+
+        Map<String, Object> endpoint = new LinkedHashMap<>();
+        endpoint.put("operation", operation.label());
+        endpoint.put("endpoint", operation.endpoint());
+        endpoint.put("requests", snapshot.total());
+        endpoint.put("throughput", snapshot.total() / seconds);
+        endpoint.put("ok", snapshot.count(Outcome.OK));
+        endpoint.put("rejected", snapshot.count(Outcome.REJECTED));
+        endpoint.put("shed", snapshot.count(Outcome.SHED));
+        endpoint.put("errors", snapshot.count(Outcome.ERROR));
+        endpoint.put("skipped", snapshot.skipped());
+        endpoint.put("dropped", snapshot.dropped());
+        endpoint.put("latencyMs", latency);
+        endpoint.put("errorsByKind", snapshot.errors());
+        return endpoint;
+    }
+}
@@ -0,0 +1,37 @@
+package com.pegaso.appointments.loadtest.run;
+
+// Operazioni del carico misto; il nome è quello usato in --mix e nel report
+public enum Operation {
+    BOOK("book", "POST /api/appointments"),
+    LIST_PATIENT("list-patient", "GET /api/appointments (patient)"),
+    LIST_DOCTOR("list-doctor", "GET /api/appointments?from&to (doctor)"),
+    LIST_ADMIN("list-admin", "GET /api/appointments?from&to&status (admin)"),
+    AVAILABILITY("availability", "GET /api/doctors?examId&date"),
+    RESCHEDULE("reschedule", "PATCH /api/appointments/{id}"),
+    CANCEL("cancel", "DELETE /api/appointments/{id}");
+
+    private final String label;
+    private final String endpoint;
+
+    Operation(String label, String endpoint) {
+        this.label = label;
+        this.endpoint = endpoint;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public String endpoint() {
+        return endpoint;
+    }
+
+    public static Operation byName(String name) {
+        for (Operation operation : values()) {
+            if (operation.label.equals(name)) {
+                return operation;
+            }
+        }
+        return null;
+    }
+}
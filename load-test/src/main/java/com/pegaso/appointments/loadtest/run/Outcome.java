@@ -0,0 +1,23 @@
+package com.pegaso.appointments.loadtest.run;
+
+// Esito di una richiesta: i conflitti di business (409, 412) sono risposte corrette sotto carico e restano separati
+// dagli errori; 429 e 503 sono richieste scartate dal controllo di ammissione o dal bulkhead
+public enum Outcome {
+    OK,
+    REJECTED,
+    SHED,
+    ERROR;
+
+    public static Outcome of(int status) {
+        if (status >= 200 && status < 300) {
+            return OK;
+        }
+        if (status == 409 || status == 412) {
+            return REJECTED;
+        }
+        if (status == 429 || status == 503) {
+            return SHED;
+        }
+        return ERROR;
+    }
+}
@@ -0,0 +1,201 @@
+package com.pegaso.appointments.loadtest.run;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pegaso.appointments.loadtest.DatabaseConfig;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Richieste HTTP delle singole operazioni. Gli id (pazienti, dottori, esami prenotabili, appuntamenti modificabili)
+// vengono campionati da Postgres all'avvio; gli appuntamenti creati durante il test si aggiungono a quelli
+// spostabili/cancellabili
+public class Workload {
+
+    static final String HEADER_ADMIN = "X-Demo-Admin-Id";
+    static final String HEADER_DOCTOR = "X-Demo-Doctor-Id";
+    static final String HEADER_PATIENT = "X-Demo-Patient-Id";
+
+    private static final String JSON = "application/json";
+    // Formato atteso dal backend (@JsonFormat e parametri ISO DATE_TIME), con i secondi sempre presenti
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final WorkloadConfig config;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<String> patientIds;
+    private List<String> doctorIds;
+    private List<String> examIds;
+    private final ConcurrentLinkedQueue<Booking> modifiable = new ConcurrentLinkedQueue<>();
+
+    public Workload(WorkloadConfig config, HttpClient client) {
+        this.config = config;
+        this.client = client;
+    }
+
+    public void sample(DatabaseConfig database) throws SQLException {
+        try (Connection connection = database.connect(); Statement statement = connection.createStatement()) {
+            int limit = config.sampleSize();
+            patientIds = ids(statement, "SELECT id FROM patients ORDER BY random() LIMIT " + limit);
+            doctorIds = ids(statement, "SELECT id FROM doctors ORDER BY random() LIMIT " + limit);
+            examIds = ids(statement, "SELECT DISTINCT de.exam_id FROM doctor_exams de JOIN exams e ON e.id = de.exam_id WHERE e.is_active");
+            try (ResultSet result = statement.executeQuery("SELECT id, patient_id FROM appointments "
+                    + "WHERE status IN ('pending', 'confirmed') AND scheduled_at > now() + interval '3 days' "
+                    + "ORDER BY random() LIMIT " + limit)) {
+                while (result.next()) {
+                    modifiable.add(new Booking(result.getString(1), result.getString(2)));
+                }
+            }
+        }
+        if (patientIds.isEmpty() || doctorIds.isEmpty() || examIds.isEmpty()) {
+            throw new IllegalStateException("No patients, doctors or bookable exams in the database: run the seed command first");
+        }
+        System.out.printf("Sampled %,d patients, %,d doctors, %,d bookable exams, %,d modifiable appointments%n",
+                patientIds.size(), doctorIds.size(), examIds.size(), modifiable.size());
+    }
+
+    // Esegue l'operazione; null se non c'è niente su cui eseguirla (nessun appuntamento modificabile)
+    public Result execute(Operation operation) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (operation) {
+            case BOOK -> book(random);
+            case LIST_PATIENT -> send(get("/api/appointments", HEADER_PATIENT, pick(patientIds, random)));
+            case LIST_DOCTOR -> {
+                LocalDate from = LocalDate.now(ZoneOffset.UTC);
+                yield send(get("/api/appointments?from=" + format(from.atStartOfDay()) + "&to=" + format(from.plusDays(30).atStartOfDay()),
+                        HEADER_DOCTOR, pick(doctorIds, random)));
+            }
+            case LIST_ADMIN -> {
+                LocalDate day = LocalDate.now(ZoneOffset.UTC).plusDays(random.nextInt(-30, 60));
+                yield send(get("/api/appointments?from=" + format(day.atStartOfDay()) + "&to=" + format(day.plusDays(1).atStartOfDay())
+                        + "&status=pending,confirmed", HEADER_ADMIN, config.adminId()));
+            }
+            case AVAILABILITY -> send(get("/api/doctors?examId=" + pick(examIds, random) + "&date=" + format(futureSlot(random)), null, null));
+            case RESCHEDULE -> reschedule(random);
+            case CANCEL -> cancel();
+        };
+    }
+
+    private Result book(ThreadLocalRandom random) throws IOException, InterruptedException {
+        String patientId = pick(patientIds, random);
+        String body = objectMapper.writeValueAsString(Map.of(
+                "examId", pick(examIds, random),
+                "appointmentDate", format(futureSlot(random)),
+                "reason", "Load test"));
+        HttpResponse<String> response = client.send(request("/api/appointments", HEADER_PATIENT, patientId)
+                .header("Content-Type", JSON)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 201) {
+            JsonNode created = objectMapper.readTree(response.body());
+            modifiable.add(new Booking(created.path("id").asText(), patientId));
+        }
+        return Result.of(response.statusCode());
+    }
+
+    private Result reschedule(ThreadLocalRandom random) throws IOException, InterruptedException {
+        Booking booking = modifiable.poll();
+        if (booking == null) {
+            return null;
+        }
+        String body = objectMapper.writeValueAsString(Map.of("appointmentDate", format(futureSlot(random))));
+        HttpResponse<String> response = client.send(request("/api/appointments/" + booking.id(), HEADER_PATIENT, booking.patientId())
+                .header("Content-Type", JSON)
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 404) {
+            modifiable.add(booking);
+        }
+        return Result.of(response.statusCode());
+    }
+
+    private Result cancel() throws IOException, InterruptedException {
+        Booking booking = modifiable.poll();
+        if (booking == null) {
+            return null;
+        }
+        return send(request("/api/appointments/" + booking.id(), HEADER_PATIENT, booking.patientId()).DELETE().build());
+    }
+
+    private Result send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        return Result.of(response.statusCode());
+    }
+
+    private HttpRequest get(String path, String header, String callerId) {
+        return request(path, header, callerId).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path, String header, String callerId) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(config.baseUrl() + path))
+                .timeout(config.requestTimeout())
+                .header("Accept", JSON);
+        if (header != null) {
+            builder.header(header, callerId);
+        }
+        return builder;
+    }
+
+    // Slot da 3 a 60 giorni nel futuro sulla griglia di 15 minuti 08:00-17:00 (oltre il limite di 2 giorni per
+    // spostamenti e cancellazioni)
+    private static LocalDateTime futureSlot(ThreadLocalRandom random) {
+        return LocalDate.now(ZoneOffset.UTC).plusDays(random.nextInt(3, 61))
+                .atTime(LocalTime.of(8, 0).plusMinutes(15L * random.nextInt(36)));
+    }
+
+    private static String format(LocalDateTime dateTime) {
+        return DATE_TIME.format(dateTime);
+    }
+
+    private static String pick(List<String> values, ThreadLocalRandom random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static List<String> ids(Statement statement, String sql) throws SQLException {
+        List<String> ids = new ArrayList<>();
+        try (ResultSet result = statement.executeQuery(sql)) {
+            while (result.next()) {
+                ids.add(result.getString(1));
+            }
+        }
+        return ids;
+    }
+
+    // Classificazione delle eccezioni di rete per il report (timeout, connessione rifiutata, ...)
+    static String errorKey(Exception e) {
+        if (e instanceof HttpTimeoutException) {
+            return "timeout";
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    record Booking(String id, String patientId) {
+    }
+
+    public record Result(Outcome outcome, String errorKey) {
+
+        static Result of(int status) {
+            Outcome outcome = Outcome.of(status);
+            return new Result(outcome, outcome == Outcome.OK ? null : "HTTP " + status);
+        }
+    }
+}
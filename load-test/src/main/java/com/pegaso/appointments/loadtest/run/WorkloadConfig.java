@@ -0,0 +1,58 @@
+package com.pegaso.appointments.loadtest.run;
+
+import com.pegaso.appointments.loadtest.Options;
+import com.pegaso.appointments.loadtest.seed.DatabaseSeeder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+// Parametri del carico. Senza --rate il modello è chiuso (concurrency utenti che inviano una richiesta dopo l'altra:
+// misura il throughput massimo); con --rate è aperto (arrivi a ritmo costante, latenza misurata dall'istante
+// previsto di invio, quindi senza coordinated omission quando il backend rallenta)
+public record WorkloadConfig(
+        String baseUrl,
+        Duration warmup,
+        Duration duration,
+        int concurrency,
+        double rate,
+        int maxInFlight,
+        Map<String, Double> mix,
+        String adminId,
+        int sampleSize,
+        Duration requestTimeout,
+        double maxErrorRate,
+        Path report) {
+
+    public static final String DEFAULT_MIX =
+            "book:15,list-patient:30,list-doctor:20,list-admin:5,availability:10,reschedule:10,cancel:10";
+
+    public static WorkloadConfig from(Options options) {
+        WorkloadConfig config = new WorkloadConfig(
+                options.string("base-url", "http://localhost:8080"),
+                options.duration("warmup", Duration.ofSeconds(15)),
+                options.duration("duration", Duration.ofSeconds(60)),
+                options.integer("concurrency", 32),
+                options.decimal("rate", 0),
+                options.integer("max-in-flight", 2000),
+                options.weights("mix", DEFAULT_MIX),
+                options.string("admin-id", DatabaseSeeder.DEMO_ADMIN_ID),
+                options.integer("sample-size", 5000),
+                options.duration("request-timeout", Duration.ofSeconds(30)),
+                options.decimal("max-error-rate", 0.01),
+                Path.of(options.string("report", "results/load-test-report.json")));
+        for (String operation : config.mix().keySet()) {
+            if (Operation.byName(operation) == null) {
+                throw new IllegalArgumentException("Unknown operation in mix: " + operation);
+            }
+        }
+        if (config.concurrency() < 1 || config.rate() < 0) {
+            throw new IllegalArgumentException("concurrency must be positive and rate not negative");
+        }
+        return config;
+    }
+
+    public boolean openModel() {
+        return rate > 0;
+    }
+}
@@ -0,0 +1,113 @@
+package com.pegaso.appointments.loadtest.seed;
+
+import com.pegaso.appointments.loadtest.DatabaseConfig;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+// Caricamento dei dati sintetici con COPY, in un'unica transazione. Se l'utente è superuser i trigger (NOTIFY di
+// invalidazione, deleted_records, updated_at, controlli FK) vengono saltati con session_replication_role=replica:
+// i dati generati sono già coerenti. Va eseguito con il backend fermo, che altrimenti non vede le invalidazioni
+public class DatabaseSeeder {
+
+    // Admin dei dati demo (02-seed-data.sql), usato dal carico per le liste admin
+    public static final String DEMO_ADMIN_ID = "880e8400-e29b-41d4-a716-446655440001";
+
+    private final DatabaseConfig database;
+    private final SeedConfig config;
+
+    public DatabaseSeeder(DatabaseConfig database, SeedConfig config) {
+        this.database = database;
+        this.config = config;
+    }
+
+    public void seed() throws SQLException, IOException {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(config, OffsetDateTime.now(ZoneOffset.UTC));
+        long started = System.nanoTime();
+        try (Connection connection = database.connect()) {
+            requireSchema(connection);
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                if (config.reset()) {
+                    // CASCADE svuota anche le tabelle collegate (promemoria, outbox); gli admin restano
+                    statement.execute("TRUNCATE appointments, doctor_exams, doctors, patients, exams, deleted_records CASCADE");
+                    System.out.println("Truncated appointments, doctor_exams, doctors, patients, exams");
+                }
+                statement.execute("INSERT INTO admins (id, first_name, last_name) VALUES ('" + DEMO_ADMIN_ID
+                        + "', 'Load', 'Test') ON CONFLICT (id) DO NOTHING");
+                disableTriggers(connection);
+            }
+
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            copy(copyManager, "exams", SyntheticDataGenerator.EXAM_COLUMNS, generator::writeExams);
+            copy(copyManager, "doctors", SyntheticDataGenerator.DOCTOR_COLUMNS, generator::writeDoctors);
+            copy(copyManager, "doctor_exams", SyntheticDataGenerator.DOCTOR_EXAM_COLUMNS, generator::writeDoctorExams);
+            copy(copyManager, "patients", SyntheticDataGenerator.PATIENT_COLUMNS, generator::writePatients);
+            copy(copyManager, "appointments", SyntheticDataGenerator.APPOINTMENT_COLUMNS, generator::writeAppointments);
+            connection.commit();
+
+            connection.setAutoCommit(true);
+            long analyzeStarted = System.nanoTime();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE exams, doctors, doctor_exams, patients, appointments");
+            }
+            System.out.printf("ANALYZE in %.1f s%n", seconds(analyzeStarted));
+        } catch (SQLException e) {
+            if ("23505".equals(e.getSQLState())) {
+                throw new SQLException("Duplicate synthetic rows: use --reset or a different --seed (" + e.getMessage() + ")", e);
+            }
+            throw e;
+        }
+        System.out.printf("Seeded in %.1f s%n", seconds(started));
+    }
+
+    private void requireSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT to_regclass('public.appointments') IS NOT NULL")) {
+            if (!result.next() || !result.getBoolean(1)) {
+                throw new SQLException("Schema not found: apply Backend/Database/01-schema.sql first");
+            }
+        }
+    }
+
+    private void disableTriggers(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SAVEPOINT replication_role");
+            statement.execute("SET LOCAL session_replication_role = replica");
+            System.out.println("Triggers disabled for the load (session_replication_role=replica)");
+        } catch (SQLException e) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ROLLBACK TO SAVEPOINT replication_role");
+            }
+            System.out.println("Not a superuser: loading with triggers enabled (slower)");
+        }
+    }
+
+    private void copy(CopyManager copyManager, String table, String columns, TableWriter writer) throws SQLException, IOException {
+        long started = System.nanoTime();
+        try (CopyRowWriter out = new CopyRowWriter(
+                copyManager.copyIn("COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)"))) {
+            writer.write(out);
+            long rows = out.finish();
+            double elapsed = seconds(started);
+            System.out.printf("%-13s %,11d rows in %6.1f s (%,.0f rows/s)%n", table, rows, elapsed, rows / Math.max(elapsed, 0.001));
+        }
+    }
+
+    private static double seconds(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    @FunctionalInterface
+    private interface TableWriter {
+        void write(RowWriter out) throws IOException;
+    }
+}
@@ -0,0 +1,9 @@
+package com.pegaso.appointments.loadtest.seed;
+
+import java.io.IOException;
+
+// Destinazione delle righe generate (COPY verso Postgres, o una lista nei test)
+public interface RowWriter {
+
+    void row(Object... values) throws IOException;
+}
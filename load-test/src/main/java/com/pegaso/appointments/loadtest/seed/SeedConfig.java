@@ -0,0 +1,57 @@
+package com.pegaso.appointments.loadtest.seed;
+
+import com.pegaso.appointments.loadtest.Options;
+
+import java.util.Map;
+
+// Parametri dei dati sintetici. I default corrispondono allo scenario da verificare prima dell'onboarding:
+// 10k dottori e 1M di appuntamenti distribuiti su pastDays giorni passati e days giorni futuri
+public record SeedConfig(
+        int doctors,
+        int patients,
+        int exams,
+        int examsPerDoctor,
+        int appointments,
+        int pastDays,
+        int days,
+        Map<String, Double> statusMix,
+        long seed,
+        boolean reset) {
+
+    public static final String DEFAULT_STATUS_MIX = "pending:30,confirmed:40,completed:20,cancelled:10";
+
+    public static SeedConfig from(Options options) {
+        SeedConfig config = new SeedConfig(
+                options.integer("doctors", 10_000),
+                options.integer("patients", 200_000),
+                options.integer("exams", 40),
+                options.integer("exams-per-doctor", 3),
+                options.integer("appointments", 1_000_000),
+                options.integer("past-days", 180),
+                options.integer("days", 365),
+                options.weights("status-mix", DEFAULT_STATUS_MIX),
+                options.integer("seed", 42),
+                options.flag("reset"));
+        config.validate();
+        return config;
+    }
+
+    void validate() {
+        if (doctors < 1 || patients < 1 || exams < 1 || appointments < 0 || pastDays < 0 || days < 1) {
+            throw new IllegalArgumentException("doctors, patients, exams and days must be positive");
+        }
+        if (examsPerDoctor < 1 || examsPerDoctor > exams) {
+            throw new IllegalArgumentException("exams-per-doctor must be between 1 and exams");
+        }
+        for (String status : statusMix.keySet()) {
+            if (!SyntheticDataGenerator.STATUSES.contains(status)) {
+                throw new IllegalArgumentException("Unknown status in status-mix: " + status);
+            }
+        }
+        long capacity = (long) doctors * (pastDays + days) * SyntheticDataGenerator.MAX_APPOINTMENTS_PER_DOCTOR_DAY;
+        if (appointments > capacity) {
+            throw new IllegalArgumentException("Too many appointments for " + doctors + " doctors over "
+                    + (pastDays + days) + " days (at most " + capacity + ")");
+        }
+    }
+}
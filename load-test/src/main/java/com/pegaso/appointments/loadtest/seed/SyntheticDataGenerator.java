@@ -0,0 +1,295 @@
+package com.pegaso.appointments.loadtest.seed;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+// Generatore deterministico (a parità di seed) dei dati sintetici, con le forme di Backend/Database/01-schema.sql.
+// I metodi write* vanno chiamati nell'ordine delle chiavi esterne: esami, dottori, doctor_exams, pazienti, appuntamenti.
+// - ogni dottore è abilitato a examsPerDoctor esami, scelti con una distribuzione sbilanciata (pochi esami molto diffusi)
+// - gli appuntamenti cadono su una griglia di 15 minuti, 08:00-18:00 UTC, senza sovrapposizioni per dottore
+//   (come garantito dalla prenotazione) e con un carico per dottore variabile (0.5x-1.5x la media)
+// - gli appuntamenti passati sono completed/cancelled, quelli futuri pending/confirmed/cancelled, con i pesi di statusMix
+// - le righe sono scritte in ordine di giorno, come se fossero state inserite nel tempo
+// I pazienti non vengono controllati per sovrapposizioni: con molti pazienti le collisioni sono rare e non cambiano il carico
+public class SyntheticDataGenerator {
+
+    public static final List<String> STATUSES = List.of("pending", "confirmed", "completed", "cancelled");
+    public static final int MAX_APPOINTMENTS_PER_DOCTOR_DAY = 8;
+
+    public static final String EXAM_COLUMNS = "id, name, description, duration_minutes, is_active, version, created_at, updated_at";
+    public static final String DOCTOR_COLUMNS = "id, first_name, last_name, gender, email, phone_number, version, created_at, updated_at";
+    public static final String DOCTOR_EXAM_COLUMNS = "doctor_id, exam_id, created_at";
+    public static final String PATIENT_COLUMNS = "id, first_name, last_name, date_of_birth, gender, email, phone_number, version, created_at, updated_at";
+    public static final String APPOINTMENT_COLUMNS = "id, patient_id, doctor_id, exam_id, scheduled_at, duration_minutes, status, reason, contraindications, version, created_at, updated_at";
+
+    private static final int SLOT_MINUTES = 15;
+    private static final LocalTime DAY_START = LocalTime.of(8, 0);
+    private static final int SLOTS_PER_DAY = 40;
+    private static final int[] EXAM_DURATIONS = {15, 20, 30, 30, 30, 45, 60};
+
+    private static final String[] EXAM_KINDS = {
+            "Visita cardiologica", "Ecografia addominale", "Radiografia torace", "Analisi del sangue", "Elettrocardiogramma",
+            "Visita dermatologica", "Risonanza magnetica", "TAC", "Visita oculistica", "Spirometria", "Holter pressorio",
+            "Visita ortopedica", "Mammografia", "Ecocolordoppler", "Visita neurologica", "Gastroscopia"};
+    private static final String[] FIRST_NAMES = {
+            "Marco", "Giulia", "Luca", "Francesca", "Alessandro", "Chiara", "Andrea", "Sara", "Matteo", "Valentina",
+            "Lorenzo", "Elena", "Davide", "Martina", "Simone", "Federica", "Paolo", "Anna", "Stefano", "Laura"};
+    private static final String[] LAST_NAMES = {
+            "Rossi", "Russo", "Ferrari", "Esposito", "Bianchi", "Romano", "Colombo", "Ricci", "Marino", "Greco",
+            "Bruno", "Gallo", "Conti", "De Luca", "Mancini", "Costa", "Giordano", "Rizzo", "Lombardi", "Moretti"};
+    private static final String[] REASONS = {
+            "Controllo periodico", "Dolore persistente", "Follow-up", "Richiesta del medico di base", "Prima visita"};
+
+    private final SeedConfig config;
+    private final Random random;
+    private final String runTag;
+    private final OffsetDateTime now;
+    private final LocalDate firstDay;
+
+    private UUID[] examIds;
+    private int[] examDurations;
+    private UUID[] doctorIds;
+    private int[][] doctorExams;
+    private UUID[] patientIds;
+
+    public SyntheticDataGenerator(SeedConfig config, OffsetDateTime now) {
+        this.config = config;
+        this.random = new Random(config.seed());
+        // Nomi ed email univoci anche se si aggiungono dati con seed diversi senza --reset
+        this.runTag = Long.toString(config.seed(), 36);
+        this.now = now.truncatedTo(ChronoUnit.SECONDS);
+        this.firstDay = now.toLocalDate().minusDays(config.pastDays());
+    }
+
+    public void writeExams(RowWriter out) throws IOException {
+        examIds = new UUID[config.exams()];
+        examDurations = new int[config.exams()];
+        for (int i = 0; i < config.exams(); i++) {
+            examIds[i] = uuid();
+            examDurations[i] = EXAM_DURATIONS[random.nextInt(EXAM_DURATIONS.length)];
+            OffsetDateTime createdAt = now.minusDays(400 + random.nextInt(600));
+            out.row(examIds[i], EXAM_KINDS[i % EXAM_KINDS.length] + " LT-" + runTag + "-" + i,
+                    "Esame sintetico per il load test", examDurations[i], true, 0, createdAt, createdAt);
+        }
+    }
+
+    public void writeDoctors(RowWriter out) throws IOException {
+        doctorIds = new UUID[config.doctors()];
+        for (int i = 0; i < config.doctors(); i++) {
+            doctorIds[i] = uuid();
+            String firstName = pick(FIRST_NAMES);
+            String lastName = pick(LAST_NAMES);
+            OffsetDateTime createdAt = now.minusDays(365 + random.nextInt(700));
+            out.row(doctorIds[i], firstName, lastName, random.nextBoolean() ? "M" : "F",
+                    email("dr." + firstName + "." + lastName, i, "clinic.example"), phone(), 0, createdAt, createdAt);
+        }
+    }
+
+    public void writeDoctorExams(RowWriter out) throws IOException {
+        doctorExams = new int[config.doctors()][];
+        for (int d = 0; d < config.doctors(); d++) {
+            int[] exams = new int[config.examsPerDoctor()];
+            int assigned = 0;
+            while (assigned < exams.length) {
+                // Quadrato di un uniforme: gli esami con indice basso sono abilitati per molti più dottori
+                double skewed = random.nextDouble();
+                int exam = (int) (config.exams() * skewed * skewed);
+                if (!contains(exams, assigned, exam)) {
+                    exams[assigned++] = exam;
+                }
+            }
+            doctorExams[d] = exams;
+            for (int exam : exams) {
+                out.row(doctorIds[d], examIds[exam], now.minusDays(300));
+            }
+        }
+    }
+
+    public void writePatients(RowWriter out) throws IOException {
+        patientIds = new UUID[config.patients()];
+        for (int i = 0; i < config.patients(); i++) {
+            patientIds[i] = uuid();
+            String firstName = pick(FIRST_NAMES);
+            String lastName = pick(LAST_NAMES);
+            LocalDate dateOfBirth = LocalDate.of(1935 + random.nextInt(75), 1 + random.nextInt(12), 1 + random.nextInt(28));
+            OffsetDateTime createdAt = now.minusDays(random.nextInt(900));
+            out.row(patientIds[i], firstName, lastName, dateOfBirth, random.nextBoolean() ? "M" : "F",
+                    email(firstName + "." + lastName, i, "example.com"), random.nextInt(5) == 0 ? null : phone(),
+                    0, createdAt, createdAt);
+        }
+    }
+
+    public long writeAppointments(RowWriter out) throws IOException {
+        int totalDays = config.pastDays() + config.days();
+        byte[] counts = distributeAppointments(totalDays);
+        StatusPicker pastStatuses = new StatusPicker(config.statusMix(), List.of("completed", "cancelled"));
+        StatusPicker futureStatuses = new StatusPicker(config.statusMix(), List.of("pending", "confirmed", "cancelled"));
+        boolean[] busy = new boolean[SLOTS_PER_DAY];
+        long written = 0;
+        for (int day = 0; day < totalDays; day++) {
+            OffsetDateTime dayStart = firstDay.plusDays(day).atTime(DAY_START).atOffset(ZoneOffset.UTC);
+            for (int d = 0; d < doctorIds.length; d++) {
+                int count = counts[d * totalDays + day];
+                if (count == 0) {
+                    continue;
+                }
+                Arrays.fill(busy, false);
+                for (int n = 0; n < count; n++) {
+                    int exam = doctorExams[d][random.nextInt(doctorExams[d].length)];
+                    int duration = examDurations[exam];
+                    int slot = freeSlot(busy, (duration + SLOT_MINUTES - 1) / SLOT_MINUTES);
+                    if (slot < 0) {
+                        continue;
+                    }
+                    OffsetDateTime scheduledAt = dayStart.plusMinutes((long) slot * SLOT_MINUTES);
+                    writeAppointment(out, d, exam, scheduledAt, duration, pastStatuses, futureStatuses);
+                    written++;
+                }
+            }
+        }
+        return written;
+    }
+
+    private void writeAppointment(RowWriter out, int doctor, int exam, OffsetDateTime scheduledAt, int duration,
+                                  StatusPicker pastStatuses, StatusPicker futureStatuses) throws IOException {
+        OffsetDateTime end = scheduledAt.plusMinutes(duration);
+        boolean past = !end.isAfter(now);
+        String status = past ? pastStatuses.pick(random) : futureStatuses.pick(random);
+        // Prenotato da 1 a 60 giorni prima (mai nel futuro), aggiornato quando lo stato è cambiato
+        OffsetDateTime createdAt = scheduledAt.minusMinutes(60 + random.nextInt(60 * 24 * 60));
+        if (createdAt.isAfter(now)) {
+            createdAt = now.minusMinutes(random.nextInt(60 * 24 * 30));
+        }
+        OffsetDateTime updatedAt = switch (status) {
+            case "completed" -> end;
+            case "pending" -> createdAt;
+            default -> between(createdAt, past ? scheduledAt : now);
+        };
+        out.row(uuid(), patientIds[random.nextInt(patientIds.length)], doctorIds[doctor], examIds[exam], scheduledAt,
+                duration, status, random.nextInt(3) == 0 ? null : pick(REASONS),
+                random.nextInt(10) == 0 ? "Allergia al mezzo di contrasto" : null,
+                "pending".equals(status) ? 0 : 1, createdAt, updatedAt);
+    }
+
+    // Numero di appuntamenti per (dottore, giorno): dottore scelto con un peso 0.5-1.5, giorno uniforme
+    private byte[] distributeAppointments(int totalDays) {
+        double[] cumulative = new double[doctorIds.length];
+        double sum = 0;
+        for (int d = 0; d < cumulative.length; d++) {
+            sum += 0.5 + random.nextDouble();
+            cumulative[d] = sum;
+        }
+        byte[] counts = new byte[doctorIds.length * totalDays];
+        for (int i = 0; i < config.appointments(); i++) {
+            int doctor = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            doctor = doctor < 0 ? Math.min(-doctor - 1, cumulative.length - 1) : doctor;
+            int cell = doctor * totalDays + random.nextInt(totalDays);
+            // Cella piena: la prima cella libera successiva (la capacità totale è verificata in SeedConfig)
+            while (counts[cell] >= MAX_APPOINTMENTS_PER_DOCTOR_DAY) {
+                cell = (cell + 1) % counts.length;
+            }
+            counts[cell]++;
+        }
+        return counts;
+    }
+
+    // Primo slot libero per length slot consecutivi: qualche tentativo casuale, poi scansione dall'inizio
+    private int freeSlot(boolean[] busy, int length) {
+        for (int attempt = 0; attempt < 10; attempt++) {
+            int slot = random.nextInt(SLOTS_PER_DAY - length + 1);
+            if (reserve(busy, slot, length)) {
+                return slot;
+            }
+        }
+        for (int slot = 0; slot <= SLOTS_PER_DAY - length; slot++) {
+            if (reserve(busy, slot, length)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean reserve(boolean[] busy, int slot, int length) {
+        for (int i = slot; i < slot + length; i++) {
+            if (busy[i]) {
+                return false;
+            }
+        }
+        Arrays.fill(busy, slot, slot + length, true);
+        return true;
+    }
+
+    private OffsetDateTime between(OffsetDateTime from, OffsetDateTime to) {
+        long seconds = Duration.between(from, to).getSeconds();
+        return seconds <= 0 ? from : from.plusSeconds((long) (random.nextDouble() * seconds));
+    }
+
+    private UUID uuid() {
+        long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    private String email(String name, int index, String domain) {
+        return (name.replace(" ", "") + "." + runTag + index + "@" + domain).toLowerCase(Locale.ROOT);
+    }
+
+    private String phone() {
+        return String.format("+39 3%02d %03d %04d", random.nextInt(100), random.nextInt(1000), random.nextInt(10000));
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Scelta pesata di uno stato tra quelli ammessi (se i pesi ammessi sono tutti zero, il primo)
+    private static final class StatusPicker {
+
+        private final List<String> statuses;
+        private final double[] cumulative;
+
+        StatusPicker(Map<String, Double> mix, List<String> allowed) {
+            this.statuses = allowed;
+            this.cumulative = new double[allowed.size()];
+            double sum = 0;
+            for (int i = 0; i < allowed.size(); i++) {
+                sum += mix.getOrDefault(allowed.get(i), 0.0);
+                cumulative[i] = sum;
+            }
+        }
+
+        String pick(Random random) {
+            double total = cumulative[cumulative.length - 1];
+            if (total <= 0) {
+                return statuses.get(0);
+            }
+            double value = random.nextDouble() * total;
+            for (int i = 0; i < cumulative.length; i++) {
+                if (value < cumulative[i]) {
+                    return statuses.get(i);
+                }
+            }
+            return statuses.get(statuses.size() - 1);
+        }
+    }
+}
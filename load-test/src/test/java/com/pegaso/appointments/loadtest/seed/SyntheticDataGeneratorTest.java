@@ -0,0 +1,91 @@
+package com.pegaso.appointments.loadtest.seed;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyntheticDataGeneratorTest {
+
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2026, 10, 19, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    @Test
+    void appointmentsDoNotOverlapForTheSameDoctor() throws IOException {
+        Generated data = generate(42);
+
+        Map<Object, TreeMap<OffsetDateTime, Integer>> byDoctor = new HashMap<>();
+        for (Object[] row : data.appointments()) {
+            OffsetDateTime start = (OffsetDateTime) row[4];
+            int duration = (Integer) row[5];
+            TreeMap<OffsetDateTime, Integer> schedule = byDoctor.computeIfAbsent(row[2], key -> new TreeMap<>());
+            var previous = schedule.floorEntry(start);
+            var next = schedule.ceilingEntry(start);
+            assertThat(previous == null || !previous.getKey().plusMinutes(previous.getValue()).isAfter(start)).isTrue();
+            assertThat(next == null || !start.plusMinutes(duration).isAfter(next.getKey())).isTrue();
+            schedule.put(start, duration);
+        }
+        assertThat(data.appointments()).hasSize(3000);
+    }
+
+    @Test
+    void appointmentsUseOnlyExamsTheDoctorIsEnabledFor() throws IOException {
+        Generated data = generate(42);
+
+        Set<List<Object>> enabled = new HashSet<>();
+        data.doctorExams().forEach(row -> enabled.add(List.of(row[0], row[1])));
+        assertThat(enabled).hasSize(50 * 3);
+        assertThat(data.appointments()).allSatisfy(row -> assertThat(enabled).contains(List.of(row[2], row[3])));
+    }
+
+    @Test
+    void pastAppointmentsAreClosedAndFutureOnesAreOpenOrCancelled() throws IOException {
+        Generated data = generate(42);
+
+        assertThat(data.appointments()).allSatisfy(row -> {
+            OffsetDateTime end = ((OffsetDateTime) row[4]).plusMinutes((Integer) row[5]);
+            if (end.isAfter(NOW)) {
+                assertThat(row[6]).isIn("pending", "confirmed", "cancelled");
+            } else {
+                assertThat(row[6]).isIn("completed", "cancelled");
+            }
+        });
+    }
+
+    @Test
+    void sameSeedProducesTheSameRows() throws IOException {
+        Generated first = generate(7);
+        Generated second = generate(7);
+
+        assertThat(second.appointments()).usingRecursiveFieldByFieldElementComparator().isEqualTo(first.appointments());
+        assertThat(generate(8).appointments().get(0)[0]).isNotEqualTo(first.appointments().get(0)[0]);
+    }
+
+    private static Generated generate(long seed) throws IOException {
+        SeedConfig config = new SeedConfig(50, 500, 10, 3, 3000, 30, 60,
+                Map.of("pending", 30.0, "confirmed", 40.0, "completed", 20.0, "cancelled", 10.0), seed, false);
+        config.validate();
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(config, NOW);
+        List<Object[]> ignored = new ArrayList<>();
+        List<Object[]> doctorExams = new ArrayList<>();
+        List<Object[]> appointments = new ArrayList<>();
+        generator.writeExams(ignored::add);
+        generator.writeDoctors(ignored::add);
+        generator.writeDoctorExams(doctorExams::add);
+        generator.writePatients(ignored::add);
+        generator.writeAppointments(appointments::add);
+        return new Generated(doctorExams, appointments);
+    }
+
+    private record Generated(List<Object[]> doctorExams, List<Object[]> appointments) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.pegaso.appointments.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+// API di sola lettura non bloccante (WebFlux + R2DBC) per gli endpoint di lista più richiesti:
+// gira accanto al backend MVC, che resta l'unico a gestire le scritture
+@SpringBootApplication
+public class ReactiveReadApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveReadApplication.class, args);
+    }
+}
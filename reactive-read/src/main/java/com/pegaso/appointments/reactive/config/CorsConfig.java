@@ -0,0 +1,34 @@
+package com.pegaso.appointments.reactive.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+
+// Stessa configurazione CORS del backend MVC, limitata ai metodi di lettura
+@Configuration
+public class CorsConfig {
+
+    @Bean
+    public CorsWebFilter corsWebFilter() {
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        CorsConfiguration config = new CorsConfiguration();
+
+        config.addAllowedOriginPattern("*");
+
+        config.addAllowedMethod("GET");
+        config.addAllowedMethod("OPTIONS");
+
+        config.addAllowedHeader("Content-Type");
+        config.addAllowedHeader("Accept");
+        config.addAllowedHeader("X-Demo-Patient-Id");
+        config.addAllowedHeader("X-Demo-Doctor-Id");
+        config.addAllowedHeader("X-Demo-Admin-Id");
+
+        config.setAllowCredentials(false);
+
+        source.registerCorsConfiguration("/api/**", config);
+        return new CorsWebFilter(source);
+    }
+}
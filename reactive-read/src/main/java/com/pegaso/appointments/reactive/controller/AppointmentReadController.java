@@ -0,0 +1,162 @@
+package com.pegaso.appointments.reactive.controller;
+
+import com.pegaso.appointments.dto.appointment.AppointmentResponse;
+import com.pegaso.appointments.exception.BadRequestException;
+import com.pegaso.appointments.exception.ForbiddenException;
+import com.pegaso.appointments.reactive.repository.AppointmentReadRepository;
+import com.pegaso.appointments.repository.AppointmentSearchCriteria;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Controller reattivo per la lista degli appuntamenti: stessi header, filtri e risposta di GET /api/appointments
+// del backend MVC. Con Accept: application/x-ndjson gli appuntamenti vengono inviati uno per riga man mano che
+// arrivano dal database, altrimenti come array JSON (anch'esso scritto in streaming)
+@RestController
+@RequestMapping("/api/appointments")
+@Tag(name = "Appointments (reactive read)", description = "Non-blocking appointment list")
+public class AppointmentReadController {
+
+    private static final String HEADER_ADMIN = "X-Demo-Admin-Id";
+    private static final String HEADER_DOCTOR = "X-Demo-Doctor-Id";
+    private static final String HEADER_PATIENT = "X-Demo-Patient-Id";
+    private static final Set<String> STATUSES = Set.of("pending", "confirmed", "cancelled", "completed");
+
+    private final AppointmentReadRepository appointmentReadRepository;
+
+    public AppointmentReadController(AppointmentReadRepository appointmentReadRepository) {
+        this.appointmentReadRepository = appointmentReadRepository;
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(
+            summary = "Lista appuntamenti (reattiva)",
+            description = "Come GET /api/appointments del backend: richiede esattamente uno tra X-Demo-Admin-Id, X-Demo-Doctor-Id e X-Demo-Patient-Id. Filtri opzionali: intervallo di date (from/to), stati, esame e, solo per l'admin, dottore."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "List of appointments",
+                    content = @Content(schema = @Schema(implementation = AppointmentResponse.class))
+            ),
+            @ApiResponse(responseCode = "400", description = "Bad request - no header, multiple headers, invalid header or invalid filter"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - access not authorized")
+    })
+    public Flux<AppointmentResponse> getAppointments(
+            @Parameter(description = "Admin UUID; when present, returns all appointments")
+            @RequestHeader(value = HEADER_ADMIN, required = false) String adminIdHeader,
+            @Parameter(description = "Doctor UUID; when present, returns appointments for this doctor")
+            @RequestHeader(value = HEADER_DOCTOR, required = false) String doctorIdHeader,
+            @Parameter(description = "Patient UUID; when present, returns appointments for this patient")
+            @RequestHeader(value = HEADER_PATIENT, required = false) String patientIdHeader,
+            @Parameter(description = "Start of the date range, inclusive (UTC)", example = "2026-03-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the date range, exclusive (UTC)", example = "2026-04-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Statuses to include (repeatable or comma separated)", example = "pending,confirmed")
+            @RequestParam(value = "status", required = false) List<String> statuses,
+            @Parameter(description = "Filter by exam UUID")
+            @RequestParam(required = false) UUID examId,
+            @Parameter(description = "Filter by doctor UUID (admin only)")
+            @RequestParam(value = "doctorId", required = false) UUID doctorFilter) {
+
+        validateExactlyOneHeader(adminIdHeader, doctorIdHeader, patientIdHeader);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("from must be before to");
+        }
+        AppointmentSearchCriteria.AppointmentSearchCriteriaBuilder criteria = AppointmentSearchCriteria.builder()
+                .examId(examId)
+                .from(from == null ? null : from.atOffset(ZoneOffset.UTC))
+                .to(to == null ? null : to.atOffset(ZoneOffset.UTC))
+                .statuses(normalizeStatusFilter(statuses));
+
+        String actorTable;
+        UUID actorId;
+        if (isPresent(adminIdHeader)) {
+            actorTable = "admins";
+            actorId = parseUuid(adminIdHeader, HEADER_ADMIN);
+            criteria.doctorId(doctorFilter);
+        } else {
+            if (doctorFilter != null) {
+                throw new BadRequestException("Il filtro doctorId è disponibile solo per l'admin");
+            }
+            if (isPresent(doctorIdHeader)) {
+                actorTable = "doctors";
+                actorId = parseUuid(doctorIdHeader, HEADER_DOCTOR);
+                criteria.doctorId(actorId);
+            } else {
+                actorTable = "patients";
+                actorId = parseUuid(patientIdHeader, HEADER_PATIENT);
+                criteria.patientId(actorId);
+            }
+        }
+
+        AppointmentSearchCriteria built = criteria.build();
+        // La verifica precede la prima riga: un 403 viene restituito prima di iniziare a scrivere la risposta
+        return appointmentReadRepository.actorExists(actorTable, actorId)
+                .flatMapMany(found -> found
+                        ? appointmentReadRepository.search(built)
+                        : Flux.error(new ForbiddenException("Accesso non autorizzato")));
+    }
+
+    private Set<String> normalizeStatusFilter(List<String> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return null;
+        }
+        Set<String> normalized = new HashSet<>();
+        for (String value : statuses) {
+            for (String status : value.split(",")) {
+                if (status.isBlank()) {
+                    continue;
+                }
+                String s = status.trim().toLowerCase();
+                if (!STATUSES.contains(s)) {
+                    throw new BadRequestException("Invalid status: " + status.trim());
+                }
+                normalized.add(s);
+            }
+        }
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    private void validateExactlyOneHeader(String admin, String doctor, String patient) {
+        int count = (isPresent(admin) ? 1 : 0) + (isPresent(doctor) ? 1 : 0) + (isPresent(patient) ? 1 : 0);
+        if (count == 0) {
+            throw new BadRequestException("Exactly one header required among X-Demo-Admin-Id, X-Demo-Doctor-Id, X-Demo-Patient-Id");
+        }
+        if (count > 1) {
+            throw new BadRequestException("Only one header allowed among X-Demo-Admin-Id, X-Demo-Doctor-Id, X-Demo-Patient-Id");
+        }
+    }
+
+    private boolean isPresent(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private UUID parseUuid(String value, String headerName) {
+        try {
+            return UUID.fromString(value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid header: " + headerName);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.pegaso.appointments.reactive.controller;
+
+import com.pegaso.appointments.dto.doctor.DoctorProfileResponse;
+import com.pegaso.appointments.exception.ResourceNotFoundException;
+import com.pegaso.appointments.reactive.repository.DoctorReadRepository;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+// Controller reattivo per i dottori: stessa risposta di GET /api/doctors del backend MVC
+// (profilo del dottore con l'header X-Demo-Doctor-Id, altrimenti lista pubblica filtrabile)
+@RestController
+@RequestMapping("/api/doctors")
+@Tag(name = "Doctors (reactive read)", description = "Non-blocking doctor list")
+public class DoctorReadController {
+
+    private static final String HEADER_DOCTOR = "X-Demo-Doctor-Id";
+
+    private final DoctorReadRepository doctorReadRepository;
+
+    public DoctorReadController(DoctorReadRepository doctorReadRepository) {
+        this.doctorReadRepository = doctorReadRepository;
+    }
+
+    @GetMapping(headers = "!" + HEADER_DOCTOR, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(
+            summary = "Lista dottori (reattiva)",
+            description = "Lista dei dottori con gli esami abilitati, filtrabile per esame e per disponibilità in una data. Endpoint pubblico."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "List of doctors",
+                    content = @Content(schema = @Schema(implementation = DoctorProfileResponse.class))
+            )
+    })
+    public Flux<DoctorProfileResponse> getDoctors(
+            @Parameter(description = "Only doctors enabled for this exam")
+            @RequestParam(required = false) UUID examId,
+            @Parameter(description = "Only doctors free at this date and time (UTC)", example = "2026-03-01T09:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date) {
+        return doctorReadRepository.findProfiles(null, examId, date == null ? null : date.atOffset(ZoneOffset.UTC));
+    }
+
+    // Con l'header la risposta è un singolo oggetto, come nel backend MVC
+    @GetMapping(headers = HEADER_DOCTOR, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Profilo del dottore (reattivo)",
+            description = "Profilo del dottore indicato da X-Demo-Doctor-Id con gli esami abilitati."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Doctor profile",
+                    content = @Content(schema = @Schema(implementation = DoctorProfileResponse.class))
+            ),
+            @ApiResponse(responseCode = "400", description = "Bad request - invalid UUID format"),
+            @ApiResponse(responseCode = "404", description = "Doctor not found")
+    })
+    public Mono<DoctorProfileResponse> getDoctorProfile(
+            @Parameter(description = "Doctor UUID", required = true)
+            @RequestHeader(HEADER_DOCTOR) String doctorIdHeader) {
+        UUID doctorId;
+        try {
+            doctorId = UUID.fromString(doctorIdHeader.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid UUID format");
+        }
+        return doctorReadRepository.findProfiles(doctorId, null, null)
+                .next()
+                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Doctor", doctorId)));
+    }
+}
@@ -0,0 +1,48 @@
+package com.pegaso.appointments.reactive.controller;
+
+import com.pegaso.appointments.dto.exam.ExamResponse;
+import com.pegaso.appointments.reactive.repository.ExamReadRepository;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+// Controller reattivo per la lista degli esami: stessa risposta di GET /api/exams del backend MVC (pubblico)
+@RestController
+@RequestMapping("/api/exams")
+@Tag(name = "Exams (reactive read)", description = "Non-blocking exam list")
+public class ExamReadController {
+
+    private final ExamReadRepository examReadRepository;
+
+    public ExamReadController(ExamReadRepository examReadRepository) {
+        this.examReadRepository = examReadRepository;
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(
+            summary = "Recupera tutti gli esami (reattivo)",
+            description = "Lista di tutti gli esami ordinata per nome, con filtro opzionale per stato attivo. Endpoint pubblico."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "List of exams retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = ExamResponse.class))
+            )
+    })
+    public Flux<ExamResponse> getAllExams(
+            @Parameter(description = "Filtra per stato attivo (opzionale)")
+            @RequestParam(required = false) Boolean active) {
+        return examReadRepository.findAll(active);
+    }
+}
@@ -0,0 +1,56 @@
+package com.pegaso.appointments.reactive.exception;
+
+import com.pegaso.appointments.exception.BadRequestException;
+import com.pegaso.appointments.exception.ForbiddenException;
+import com.pegaso.appointments.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Gestione delle eccezioni con lo stesso formato di risposta del GlobalExceptionHandler del backend MVC
+@RestControllerAdvice
+@Slf4j
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleResourceNotFoundException(ResourceNotFoundException ex) {
+        return error(HttpStatus.NOT_FOUND, "Resource not found", ex.getMessage());
+    }
+
+    @ExceptionHandler(ForbiddenException.class)
+    public ResponseEntity<Map<String, Object>> handleForbiddenException(ForbiddenException ex) {
+        return error(HttpStatus.FORBIDDEN, "Forbidden", ex.getMessage());
+    }
+
+    @ExceptionHandler({BadRequestException.class, IllegalArgumentException.class})
+    public ResponseEntity<Map<String, Object>> handleBadRequestException(RuntimeException ex) {
+        return error(HttpStatus.BAD_REQUEST, "Bad request", ex.getMessage());
+    }
+
+    // Parametri non convertibili (UUID o date non valide)
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<Map<String, Object>> handleServerWebInputException(ServerWebInputException ex) {
+        return error(HttpStatus.BAD_REQUEST, "Bad request", ex.getReason());
+    }
+
+    @ExceptionHandler(DataAccessException.class)
+    public ResponseEntity<Map<String, Object>> handleDataAccessException(DataAccessException ex) {
+        log.error("Database error", ex);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Internal server error", "Errore durante l'accesso ai dati");
+    }
+
+    private ResponseEntity<Map<String, Object>> error(HttpStatus status, String error, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", status.value());
+        response.put("error", error);
+        response.put("message", message);
+        return ResponseEntity.status(status).body(response);
+    }
+}
@@ -0,0 +1,130 @@
+package com.pegaso.appointments.reactive.repository;
+
+import com.pegaso.appointments.dto.appointment.AppointmentResponse;
+import com.pegaso.appointments.repository.AppointmentSearchCriteria;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// Lettura degli appuntamenti (GET /api/appointments) con gli stessi filtri della ricerca del backend MVC:
+// una query con i join di dottore, paziente ed esame, righe lette a blocchi di fetch-size su richiesta del client
+@Repository
+public class AppointmentReadRepository {
+
+    private static final Set<String> STATUSES = Set.of("pending", "confirmed", "cancelled", "completed");
+    private static final Set<String> ACTOR_TABLES = Set.of("admins", "doctors", "patients");
+
+    private final DatabaseClient databaseClient;
+
+    @Value("${app.reactive.fetch-size:256}")
+    private int fetchSize;
+
+    public AppointmentReadRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<AppointmentResponse> search(AppointmentSearchCriteria criteria) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT a.id, a.scheduled_at, a.status, a.reason, a.contraindications, a.duration_minutes, a.version, " +
+                "d.id AS doctor_id, d.first_name AS doctor_first_name, d.last_name AS doctor_last_name, d.gender AS doctor_gender, " +
+                "p.id AS patient_id, p.first_name AS patient_first_name, p.last_name AS patient_last_name, p.email AS patient_email, " +
+                "e.name AS exam_name " +
+                "FROM appointments a " +
+                "JOIN doctors d ON d.id = a.doctor_id " +
+                "JOIN patients p ON p.id = a.patient_id " +
+                "JOIN exams e ON e.id = a.exam_id " +
+                "WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+        if (criteria.getDoctorId() != null) {
+            sql.append(" AND a.doctor_id = :doctorId");
+            params.put("doctorId", criteria.getDoctorId());
+        }
+        if (criteria.getPatientId() != null) {
+            sql.append(" AND a.patient_id = :patientId");
+            params.put("patientId", criteria.getPatientId());
+        }
+        if (criteria.getExamId() != null) {
+            sql.append(" AND a.exam_id = :examId");
+            params.put("examId", criteria.getExamId());
+        }
+        if (criteria.getFrom() != null) {
+            sql.append(" AND a.scheduled_at >= :from");
+            params.put("from", criteria.getFrom());
+        }
+        if (criteria.getTo() != null) {
+            sql.append(" AND a.scheduled_at < :to");
+            params.put("to", criteria.getTo());
+        }
+        appendStatusFilter(sql, criteria.getStatuses());
+        sql.append(" ORDER BY a.scheduled_at ASC");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+                .filter((statement, next) -> next.execute(statement.fetchSize(fetchSize)));
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec.map((row, metadata) -> mapAppointment(row)).all();
+    }
+
+    // Verifica dell'esistenza di admin, dottore o paziente indicato nell'header
+    public Mono<Boolean> actorExists(String table, UUID id) {
+        if (!ACTOR_TABLES.contains(table)) {
+            return Mono.error(new IllegalStateException("Unknown actor table: " + table));
+        }
+        return databaseClient.sql("SELECT EXISTS (SELECT 1 FROM " + table + " WHERE id = :id) AS found")
+                .bind("id", id)
+                .map((row, metadata) -> Boolean.TRUE.equals(row.get("found", Boolean.class)))
+                .one();
+    }
+
+    // Stessi letterali della ricerca MVC, per usare l'indice parziale idx_appointments_doctor_scheduled_active
+    private void appendStatusFilter(StringBuilder sql, Set<String> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return;
+        }
+        if (!STATUSES.containsAll(statuses)) {
+            throw new IllegalArgumentException("Invalid status filter: " + statuses);
+        }
+        if (!statuses.contains("cancelled")) {
+            sql.append(" AND a.status <> 'cancelled'");
+        }
+        if (statuses.size() < STATUSES.size()) {
+            sql.append(" AND a.status IN (")
+                    .append(statuses.stream().sorted().map(s -> "'" + s + "'").collect(Collectors.joining(", ")))
+                    .append(")");
+        }
+    }
+
+    private AppointmentResponse mapAppointment(Row row) {
+        OffsetDateTime scheduledAt = row.get("scheduled_at", OffsetDateTime.class);
+        return AppointmentResponse.builder()
+                .id(row.get("id", UUID.class))
+                .appointmentDate(scheduledAt == null ? null : scheduledAt.atZoneSameInstant(ZoneOffset.UTC).toLocalDateTime())
+                .doctorId(row.get("doctor_id", UUID.class))
+                .doctorFirstName(row.get("doctor_first_name", String.class))
+                .doctorLastName(row.get("doctor_last_name", String.class))
+                .doctorGender(row.get("doctor_gender", String.class))
+                .patientId(row.get("patient_id", UUID.class))
+                .patientFirstName(row.get("patient_first_name", String.class))
+                .patientLastName(row.get("patient_last_name", String.class))
+                .patientEmail(row.get("patient_email", String.class))
+                .status(row.get("status", String.class))
+                .reason(row.get("reason", String.class))
+                .contraindications(row.get("contraindications", String.class))
+                .durationMinutes(row.get("duration_minutes", Integer.class))
+                .examName(row.get("exam_name", String.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.pegaso.appointments.reactive.repository;
+
+import com.pegaso.appointments.dto.doctor.DoctorProfileResponse;
+import com.pegaso.appointments.dto.doctor.ExamInfoDto;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Lettura dei profili dei dottori con gli esami abilitati (GET /api/doctors) in un'unica query:
+// le righe di uno stesso dottore sono consecutive e vengono raggruppate mentre arrivano, senza caricare tutto
+@Repository
+public class DoctorReadRepository {
+
+    private final DatabaseClient databaseClient;
+
+    @Value("${app.reactive.fetch-size:256}")
+    private int fetchSize;
+
+    public DoctorReadRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // Filtri opzionali come nel backend MVC: abilitazione a un esame, disponibilità in una data (durata dell'esame o 30 minuti)
+    public Flux<DoctorProfileResponse> findProfiles(UUID doctorId, UUID examId, OffsetDateTime availableAt) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT d.id, d.first_name, d.last_name, d.gender, d.email, d.phone_number, " +
+                "e.id AS exam_id, e.name AS exam_name, e.description AS exam_description " +
+                "FROM doctors d " +
+                "LEFT JOIN doctor_exams de ON de.doctor_id = d.id " +
+                "LEFT JOIN exams e ON e.id = de.exam_id " +
+                "WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+        if (doctorId != null) {
+            sql.append(" AND d.id = :doctorId");
+            params.put("doctorId", doctorId);
+        }
+        if (examId != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM doctor_exams f WHERE f.doctor_id = d.id AND f.exam_id = :examId)");
+            params.put("examId", examId);
+        }
+        if (availableAt != null) {
+            String duration = examId == null
+                    ? "30"
+                    : "COALESCE((SELECT x.duration_minutes FROM exams x WHERE x.id = :examId), 30)";
+            sql.append(" AND NOT EXISTS (SELECT 1 FROM appointments a WHERE a.doctor_id = d.id")
+                    .append(" AND a.status <> 'cancelled'")
+                    .append(" AND a.scheduled_at < CAST(:availableAt AS timestamptz) + ").append(duration).append(" * INTERVAL '1 minute'")
+                    .append(" AND a.scheduled_at + COALESCE(a.duration_minutes, 30) * INTERVAL '1 minute' > :availableAt)");
+            params.put("availableAt", availableAt);
+        }
+        sql.append(" ORDER BY d.last_name, d.first_name, d.id, e.name");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+                .filter((statement, next) -> next.execute(statement.fetchSize(fetchSize)));
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec.map((row, metadata) -> mapRow(row))
+                .all()
+                .bufferUntilChanged(DoctorExamRow::doctorId)
+                .map(this::toProfile);
+    }
+
+    private DoctorExamRow mapRow(Row row) {
+        return new DoctorExamRow(
+                row.get("id", UUID.class),
+                row.get("first_name", String.class),
+                row.get("last_name", String.class),
+                row.get("gender", String.class),
+                row.get("email", String.class),
+                row.get("phone_number", String.class),
+                row.get("exam_id", UUID.class),
+                row.get("exam_name", String.class),
+                row.get("exam_description", String.class));
+    }
+
+    private DoctorProfileResponse toProfile(List<DoctorExamRow> rows) {
+        DoctorExamRow doctor = rows.get(0);
+        List<ExamInfoDto> exams = new ArrayList<>(rows.size());
+        for (DoctorExamRow row : rows) {
+            if (row.examId() != null) {
+                exams.add(ExamInfoDto.builder()
+                        .examId(row.examId())
+                        .examName(row.examName())
+                        .description(row.examDescription())
+                        .build());
+            }
+        }
+        return DoctorProfileResponse.builder()
+                .id(doctor.doctorId())
+                .firstName(doctor.firstName())
+                .lastName(doctor.lastName())
+                .gender(doctor.gender())
+                .email(doctor.email())
+                .phoneNumber(doctor.phoneNumber())
+                .exams(exams)
+                .build();
+    }
+
+    private record DoctorExamRow(UUID doctorId, String firstName, String lastName, String gender, String email,
+                                 String phoneNumber, UUID examId, String examName, String examDescription) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.pegaso.appointments.reactive.repository;
+
+import com.pegaso.appointments.dto.exam.ExamResponse;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Lettura degli esami (GET /api/exams), stesso ordinamento del backend MVC (per nome)
+@Repository
+public class ExamReadRepository {
+
+    private final DatabaseClient databaseClient;
+
+    @Value("${app.reactive.fetch-size:256}")
+    private int fetchSize;
+
+    public ExamReadRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<ExamResponse> findAll(Boolean active) {
+        String sql = "SELECT id, name, description, duration_minutes, is_active, created_at, updated_at FROM exams"
+                + (active == null ? "" : " WHERE is_active = :active")
+                + " ORDER BY name";
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+                .filter((statement, next) -> next.execute(statement.fetchSize(fetchSize)));
+        if (active != null) {
+            spec = spec.bind("active", active);
+        }
+        return spec.map((row, metadata) -> mapExam(row)).all();
+    }
+
+    private ExamResponse mapExam(Row row) {
+        return ExamResponse.builder()
+                .id(row.get("id", UUID.class))
+                .name(row.get("name", String.class))
+                .description(row.get("description", String.class))
+                .durationMinutes(row.get("duration_minutes", Integer.class))
+                .isActive(row.get("is_active", Boolean.class))
+                .createdAt(row.get("created_at", OffsetDateTime.class))
+                .updatedAt(row.get("updated_at", OffsetDateTime.class))
+                .build();
+    }
+}
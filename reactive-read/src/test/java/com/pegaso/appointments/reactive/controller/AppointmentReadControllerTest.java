@@ -0,0 +1,96 @@
+package com.pegaso.appointments.reactive.controller;
+
+import com.pegaso.appointments.dto.appointment.AppointmentResponse;
+import com.pegaso.appointments.reactive.repository.AppointmentReadRepository;
+import com.pegaso.appointments.repository.AppointmentSearchCriteria;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(AppointmentReadController.class)
+class AppointmentReadControllerTest {
+
+    private static final UUID DOCTOR_ID = UUID.fromString("660e8400-e29b-41d4-a716-446655440001");
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private AppointmentReadRepository appointmentReadRepository;
+
+    @Test
+    void streamsTheDoctorsAppointmentsAsNdjson() {
+        when(appointmentReadRepository.actorExists("doctors", DOCTOR_ID)).thenReturn(Mono.just(true));
+        when(appointmentReadRepository.search(any())).thenReturn(Flux.just(appointment("pending"), appointment("confirmed")));
+
+        List<String> statuses = webTestClient.get().uri("/api/appointments?status=pending,confirmed")
+                .header("X-Demo-Doctor-Id", DOCTOR_ID.toString())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(AppointmentResponse.class)
+                .getResponseBody()
+                .map(AppointmentResponse::getStatus)
+                .collectList()
+                .block();
+        assertThat(statuses).containsExactly("pending", "confirmed");
+
+        ArgumentCaptor<AppointmentSearchCriteria> criteria = ArgumentCaptor.forClass(AppointmentSearchCriteria.class);
+        verify(appointmentReadRepository).search(criteria.capture());
+        assertThat(criteria.getValue().getDoctorId()).isEqualTo(DOCTOR_ID);
+        assertThat(criteria.getValue().getStatuses()).isEqualTo(Set.of("pending", "confirmed"));
+    }
+
+    @Test
+    void rejectsUnknownActorsBeforeQueryingAppointments() {
+        when(appointmentReadRepository.actorExists(eq("doctors"), any())).thenReturn(Mono.just(false));
+
+        webTestClient.get().uri("/api/appointments")
+                .header("X-Demo-Doctor-Id", DOCTOR_ID.toString())
+                .exchange()
+                .expectStatus().isForbidden()
+                .expectBody().jsonPath("$.error").isEqualTo("Forbidden");
+
+        verify(appointmentReadRepository, never()).search(any());
+    }
+
+    @Test
+    void requiresExactlyOneHeaderAndAdminOnlyDoctorFilter() {
+        webTestClient.get().uri("/api/appointments")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient.get().uri("/api/appointments?doctorId=" + DOCTOR_ID)
+                .header("X-Demo-Patient-Id", UUID.randomUUID().toString())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Il filtro doctorId è disponibile solo per l'admin");
+    }
+
+    private AppointmentResponse appointment(String status) {
+        return AppointmentResponse.builder()
+                .id(UUID.randomUUID())
+                .doctorId(DOCTOR_ID)
+                .status(status)
+                .version(0L)
+                .build();
+    }
+}